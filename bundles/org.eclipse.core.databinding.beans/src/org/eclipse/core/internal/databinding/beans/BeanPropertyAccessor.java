@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.internal.databinding.beans;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.eclipse.core.databinding.beans.BeansObservables;
+import org.eclipse.core.databinding.util.Policy;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+
+/**
+ * Reads and writes a bean property through the accessor methods of its
+ * {@link PropertyDescriptor}. The methods are looked up and made accessible
+ * once, as {@link PropertyDescriptor#getReadMethod()} and
+ * {@link PropertyDescriptor#getWriteMethod()} may be synchronized and may
+ * search the bean class again.
+ */
+public final class BeanPropertyAccessor {
+	private final String propertyName;
+	private final Class propertyType;
+	private final Method readMethod;
+	private final Method writeMethod;
+
+	/**
+	 * @param propertyDescriptor
+	 *            the property to access
+	 */
+	public BeanPropertyAccessor(PropertyDescriptor propertyDescriptor) {
+		this.propertyName = propertyDescriptor.getName();
+		this.propertyType = propertyDescriptor.getPropertyType();
+		this.readMethod = makeAccessible(propertyDescriptor.getReadMethod());
+		this.writeMethod = makeAccessible(propertyDescriptor.getWriteMethod());
+	}
+
+	private static Method makeAccessible(Method method) {
+		if (method != null && !method.isAccessible()) {
+			try {
+				method.setAccessible(true);
+			} catch (SecurityException e) {
+				// invoke it as it is
+			}
+		}
+		return method;
+	}
+
+	/**
+	 * @return the type of the property
+	 */
+	public Class getPropertyType() {
+		return propertyType;
+	}
+
+	/**
+	 * Returns the contents of the property for the given bean.
+	 *
+	 * @param source
+	 *            the source bean
+	 * @return the contents of the property for the given bean.
+	 */
+	public Object read(Object source) {
+		try {
+			if (readMethod == null) {
+				throw new IllegalArgumentException(propertyName
+						+ " property does not have a read method."); //$NON-NLS-1$
+			}
+			return readMethod.invoke(source, null);
+		} catch (InvocationTargetException e) {
+			/*
+			 * InvocationTargetException wraps any exception thrown by the
+			 * invoked method.
+			 */
+			throw new RuntimeException(e.getCause());
+		} catch (Exception e) {
+			log("Could not read value of " + source + "." + propertyName, e); //$NON-NLS-1$ //$NON-NLS-2$
+			return null;
+		}
+	}
+
+	/**
+	 * Sets the contents of the property on the given bean to the given value.
+	 *
+	 * @param source
+	 *            the source bean
+	 * @param value
+	 *            the new value of the property
+	 */
+	public void write(Object source, Object value) {
+		try {
+			if (writeMethod == null) {
+				throw new IllegalArgumentException(
+						"Missing public setter method for " //$NON-NLS-1$
+								+ propertyName + " property"); //$NON-NLS-1$
+			}
+			writeMethod.invoke(source, new Object[] { value });
+		} catch (InvocationTargetException e) {
+			/*
+			 * InvocationTargetException wraps any exception thrown by the
+			 * invoked method.
+			 */
+			throw new RuntimeException(e.getCause());
+		} catch (Exception e) {
+			log("Could not change value of " + source + "." + propertyName, e); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	private static void log(String message, Throwable throwable) {
+		if (BeansObservables.DEBUG) {
+			Policy.getLog().log(
+					new Status(IStatus.WARNING, Policy.JFACE_DATABINDING,
+							IStatus.OK, message, throwable));
+		}
+	}
+}
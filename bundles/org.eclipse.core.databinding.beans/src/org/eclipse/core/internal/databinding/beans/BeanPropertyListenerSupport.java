@@ -12,8 +12,12 @@
 package org.eclipse.core.internal.databinding.beans;
 
 import java.beans.PropertyChangeListener;
+import java.lang.ref.SoftReference;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.eclipse.core.databinding.beans.BeansObservables;
 import org.eclipse.core.databinding.util.Policy;
@@ -65,6 +69,27 @@ public class BeanPropertyListenerSupport {
 				"removePropertyChangeListener", "Cound not remove listener from "); //$NON-NLS-1$ //$NON-NLS-2$
 	}
 
+	/**
+	 * The methods to add and remove a property change listener, by bean
+	 * class. The values are soft references, as the methods refer to their
+	 * class and would otherwise keep it from being unloaded.
+	 */
+	private static final Map listenerMethodsByClass = new WeakHashMap();
+
+	/**
+	 * The add or remove method of a bean class and whether it takes a property
+	 * name.
+	 */
+	private static final class ListenerMethod {
+		final Method method;
+		final boolean named;
+
+		ListenerMethod(Method method, boolean named) {
+			this.method = method;
+			this.named = named;
+		}
+	}
+
 	/**
 	 * Invokes the method for the provided <code>methodName</code> attempting to
 	 * first use the method with the property name and then the unnamed version.
@@ -81,47 +106,72 @@ public class BeanPropertyListenerSupport {
 	 */
 	private static boolean processListener(Object bean, String propertyName,
 			PropertyChangeListener listener, String methodName, String message) {
-		Method method = null;
-		Object[] parameters = null;
-
+		ListenerMethod listenerMethod;
 		try {
-			try {
-				method = bean.getClass().getMethod(
-						methodName,
-						new Class[] { String.class,
-								PropertyChangeListener.class });
-
-				parameters = new Object[] { propertyName, listener };
-			} catch (NoSuchMethodException e) {
-				method = bean.getClass().getMethod(methodName,
-						new Class[] { PropertyChangeListener.class });
-
-				parameters = new Object[] { listener };
-			}
+			listenerMethod = getListenerMethod(bean.getClass(), methodName);
 		} catch (SecurityException e) {
 			// ignore
+			return false;
 		} catch (NoSuchMethodException e) {
 			log(IStatus.WARNING, message + bean, e);
+			return false;
 		}
 
-		if (method != null) {
-			if (!method.isAccessible()) {
-				method.setAccessible(true);
-			}
-			try {
-				method.invoke(bean, parameters);
-				return true;
-			} catch (IllegalArgumentException e) {
-				log(IStatus.WARNING, message + bean, e);
-			} catch (IllegalAccessException e) {
-				log(IStatus.WARNING, message + bean, e);
-			} catch (InvocationTargetException e) {
-				log(IStatus.WARNING, message + bean, e);
+		try {
+			if (listenerMethod.named) {
+				listenerMethod.method.invoke(bean, new Object[] { propertyName,
+						listener });
+			} else {
+				listenerMethod.method.invoke(bean, new Object[] { listener });
 			}
+			return true;
+		} catch (IllegalArgumentException e) {
+			log(IStatus.WARNING, message + bean, e);
+		} catch (IllegalAccessException e) {
+			log(IStatus.WARNING, message + bean, e);
+		} catch (InvocationTargetException e) {
+			log(IStatus.WARNING, message + bean, e);
 		}
 		return false;
 	}
 
+	private static ListenerMethod getListenerMethod(Class beanClass,
+			String methodName) throws NoSuchMethodException {
+		Map methods;
+		synchronized (listenerMethodsByClass) {
+			SoftReference reference = (SoftReference) listenerMethodsByClass
+					.get(beanClass);
+			methods = reference == null ? null : (Map) reference.get();
+			if (methods == null) {
+				methods = new HashMap(4);
+				listenerMethodsByClass.put(beanClass,
+						new SoftReference(methods));
+			}
+			ListenerMethod listenerMethod = (ListenerMethod) methods
+					.get(methodName);
+			if (listenerMethod != null)
+				return listenerMethod;
+		}
+
+		ListenerMethod listenerMethod;
+		try {
+			listenerMethod = new ListenerMethod(beanClass.getMethod(methodName,
+					new Class[] { String.class, PropertyChangeListener.class }),
+					true);
+		} catch (NoSuchMethodException e) {
+			listenerMethod = new ListenerMethod(beanClass.getMethod(methodName,
+					new Class[] { PropertyChangeListener.class }), false);
+		}
+		if (!listenerMethod.method.isAccessible()) {
+			listenerMethod.method.setAccessible(true);
+		}
+
+		synchronized (listenerMethodsByClass) {
+			methods.put(methodName, listenerMethod);
+		}
+		return listenerMethod;
+	}
+
 	/**
 	 * Logs a message to the Data Binding logger.
 	 */
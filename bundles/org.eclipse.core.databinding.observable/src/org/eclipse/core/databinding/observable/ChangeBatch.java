@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.databinding.observable;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.databinding.observable.list.IObservableList;
+import org.eclipse.core.databinding.observable.list.ListChangeEvent;
+import org.eclipse.core.databinding.observable.list.ListDiff;
+import org.eclipse.core.databinding.observable.list.ListDiffEntry;
+import org.eclipse.core.databinding.observable.set.IObservableSet;
+import org.eclipse.core.databinding.observable.set.SetChangeEvent;
+import org.eclipse.core.databinding.observable.set.SetDiff;
+import org.eclipse.core.internal.databinding.identity.IdentityMap;
+import org.eclipse.core.internal.databinding.identity.IdentityObservableSet;
+import org.eclipse.core.internal.databinding.identity.IdentitySet;
+
+/**
+ * The change events held back while {@link Realm#runBatched(Runnable)} runs.
+ * Change, list change and set change events are merged per observable and
+ * fired when the outermost batch ends. Any other event first fires what is
+ * held back for its observable, so that listeners see the events of an
+ * observable in the order they happened.
+ */
+/* package */class ChangeBatch {
+
+	private int depth;
+
+	/**
+	 * The held back events by change manager. Observable collections are
+	 * equal by content, so the managers are compared by identity.
+	 */
+	private Map pending = new IdentityMap();
+
+	/**
+	 * The held back events in the order of their first event.
+	 */
+	private List order = new ArrayList();
+
+	void begin() {
+		depth++;
+	}
+
+	void end() {
+		if (--depth == 0)
+			flush();
+	}
+
+	/**
+	 * Holds back the event if it can be merged with later ones.
+	 *
+	 * @return <code>true</code> if the event is held back, <code>false</code>
+	 *         if the caller has to fire it now
+	 */
+	boolean defer(ChangeManager manager, ObservableEvent event) {
+		if (depth == 0)
+			return false;
+
+		if (!(event instanceof ChangeEvent || event instanceof ListChangeEvent
+				|| event instanceof SetChangeEvent)) {
+			PendingEvents events = (PendingEvents) pending.remove(manager);
+			if (events != null)
+				events.fire();
+			return false;
+		}
+
+		PendingEvents events = (PendingEvents) pending.get(manager);
+		if (events == null) {
+			events = new PendingEvents(manager);
+			pending.put(manager, events);
+			order.add(events);
+		}
+		events.add(event);
+		return true;
+	}
+
+	private void flush() {
+		RuntimeException failure = null;
+		while (!order.isEmpty()) {
+			// listeners may start a new batch
+			List events = order;
+			order = new ArrayList();
+			pending = new IdentityMap();
+			for (int i = 0; i < events.size(); i++) {
+				try {
+					((PendingEvents) events.get(i)).fire();
+				} catch (RuntimeException e) {
+					// a throwing listener must not hold back the other events
+					if (failure == null)
+						failure = e;
+				}
+			}
+		}
+		if (failure != null)
+			throw failure;
+	}
+
+	private static class PendingEvents {
+		private final ChangeManager manager;
+		private boolean fired;
+		private ChangeEvent change;
+		private ListChangeEvent firstListChange;
+		private List listDiffs;
+		private SetChangeEvent firstSetChange;
+		private Set additions;
+		private Set removals;
+
+		PendingEvents(ChangeManager manager) {
+			this.manager = manager;
+		}
+
+		void add(ObservableEvent event) {
+			if (event instanceof ChangeEvent) {
+				if (change == null)
+					change = (ChangeEvent) event;
+			} else if (event instanceof ListChangeEvent) {
+				ListChangeEvent listChange = (ListChangeEvent) event;
+				if (firstListChange == null) {
+					firstListChange = listChange;
+				} else {
+					if (listDiffs == null) {
+						listDiffs = new ArrayList();
+						listDiffs.add(firstListChange.diff);
+					}
+					listDiffs.add(listChange.diff);
+				}
+			} else if (event instanceof SetChangeEvent) {
+				SetChangeEvent setChange = (SetChangeEvent) event;
+				if (firstSetChange == null) {
+					firstSetChange = setChange;
+				} else {
+					if (additions == null) {
+						additions = createSet(setChange.getObservableSet());
+						removals = createSet(setChange.getObservableSet());
+						merge(firstSetChange.diff);
+					}
+					merge(setChange.diff);
+				}
+			}
+		}
+
+		private static Set createSet(IObservableSet set) {
+			if (set instanceof IdentityObservableSet)
+				return new IdentitySet();
+			return new HashSet();
+		}
+
+		private void merge(SetDiff diff) {
+			for (Iterator it = diff.getRemovals().iterator(); it.hasNext();) {
+				Object element = it.next();
+				if (!additions.remove(element))
+					removals.add(element);
+			}
+			for (Iterator it = diff.getAdditions().iterator(); it.hasNext();) {
+				Object element = it.next();
+				if (!removals.remove(element))
+					additions.add(element);
+			}
+		}
+
+		void fire() {
+			// events that were fired ahead of a stale or dispose event
+			if (fired)
+				return;
+			fired = true;
+
+			// the general change event goes first, as when it is not batched
+			if (change != null)
+				manager.dispatchEvent(change);
+
+			if (listDiffs != null) {
+				final ListDiff[] diffs = (ListDiff[]) listDiffs
+						.toArray(new ListDiff[listDiffs.size()]);
+				manager.dispatchEvent(new ListChangeEvent(
+						(IObservableList) firstListChange.getSource(),
+						new ListDiff() {
+							private ListDiffEntry[] differences;
+
+							public ListDiffEntry[] getDifferences() {
+								if (differences == null)
+									differences = concat(diffs);
+								return differences;
+							}
+						}));
+			} else if (firstListChange != null) {
+				manager.dispatchEvent(firstListChange);
+			}
+
+			if (additions != null) {
+				if (!additions.isEmpty() || !removals.isEmpty())
+					manager.dispatchEvent(new SetChangeEvent(
+							(IObservableSet) firstSetChange.getSource(), Diffs
+									.createSetDiff(additions, removals)));
+			} else if (firstSetChange != null) {
+				manager.dispatchEvent(firstSetChange);
+			}
+		}
+
+		private static ListDiffEntry[] concat(ListDiff[] diffs) {
+			List entries = new ArrayList();
+			for (int i = 0; i < diffs.length; i++) {
+				ListDiffEntry[] differences = diffs[i].getDifferences();
+				for (int j = 0; j < differences.length; j++)
+					entries.add(differences[j]);
+			}
+			return (ListDiffEntry[]) entries.toArray(new ListDiffEntry[entries
+					.size()]);
+		}
+	}
+}
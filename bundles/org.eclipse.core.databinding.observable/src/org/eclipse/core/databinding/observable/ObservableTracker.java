@@ -11,10 +11,8 @@
  *******************************************************************************/
 package org.eclipse.core.databinding.observable;
 
-import java.util.Set;
-
 import org.eclipse.core.databinding.util.Policy;
-import org.eclipse.core.internal.databinding.identity.IdentitySet;
+import org.eclipse.core.internal.databinding.identity.IdentityArraySet;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
@@ -60,20 +58,68 @@ import org.eclipse.core.runtime.Status;
 public class ObservableTracker {
 
 	/**
-	 * Threadlocal storage pointing to the current Set of IObservables, or null
-	 * if none. Note that this is actually the top of a stack. Whenever a method
-	 * changes the current value, it remembers the old value as a local variable
-	 * and restores the old value when the method exits.
+	 * Threadlocal storage pointing to the {@link Frame} of the current thread.
 	 */
-	private static ThreadLocal currentChangeListener = new ThreadLocal();
+	private static ThreadLocal currentFrame = new ThreadLocal();
+
+	private static final IObservable[] EMPTY_ARRAY = new IObservable[0];
+
+	/**
+	 * The tracking state of a thread. Note that the fields are actually the top
+	 * of a stack. Whenever a method changes them, it remembers the old values
+	 * as local variables and restores them when the method exits. The sets
+	 * that collect observables are pooled, so that tracking does not allocate
+	 * once a thread has reached its deepest nesting.
+	 */
+	private static final class Frame {
+		IChangeListener changeListener;
+
+		IStaleListener staleListener;
+
+		IdentityArraySet getterCalledSet;
 
-	private static ThreadLocal currentStaleListener = new ThreadLocal();
+		IdentityArraySet observableCreatedSet;
 
-	private static ThreadLocal currentGetterCalledSet = new ThreadLocal();
+		int ignoreCount;
 
-	private static ThreadLocal currentObservableCreatedSet = new ThreadLocal();
+		private IdentityArraySet[] pool = new IdentityArraySet[4];
 
-	private static ThreadLocal currentIgnoreCount = new ThreadLocal();
+		private int poolSize;
+
+		IdentityArraySet acquireSet() {
+			if (poolSize == 0)
+				return new IdentityArraySet();
+			IdentityArraySet set = pool[--poolSize];
+			pool[poolSize] = null;
+			return set;
+		}
+
+		void releaseSet(IdentityArraySet set) {
+			set.clear();
+			if (poolSize == pool.length) {
+				IdentityArraySet[] grown = new IdentityArraySet[poolSize * 2];
+				System.arraycopy(pool, 0, grown, 0, poolSize);
+				pool = grown;
+			}
+			pool[poolSize++] = set;
+		}
+	}
+
+	private static Frame getFrame() {
+		Frame frame = (Frame) currentFrame.get();
+		if (frame == null) {
+			frame = new Frame();
+			currentFrame.set(frame);
+		}
+		return frame;
+	}
+
+	private static IObservable[] toArray(IdentityArraySet observableSet) {
+		if (observableSet.size() == 0)
+			return EMPTY_ARRAY;
+		return (IObservable[]) observableSet
+				.toArray(new IObservable[observableSet.size()]);
+	}
 
 	/**
 	 * Invokes the given runnable, and returns the set of IObservables that were
@@ -92,34 +138,32 @@ public class ObservableTracker {
 	 */
 	public static IObservable[] runAndMonitor(Runnable runnable,
 			IChangeListener changeListener, IStaleListener staleListener) {
+		Frame frame = getFrame();
 		// Remember the previous value in the listener stack
-		Set lastObservableSet = (Set) currentGetterCalledSet.get();
-		IChangeListener lastChangeListener = (IChangeListener) currentChangeListener
-				.get();
-		IStaleListener lastStaleListener = (IStaleListener) currentStaleListener
-				.get();
-		Integer lastIgnore = (Integer) currentIgnoreCount.get();
+		IdentityArraySet lastObservableSet = frame.getterCalledSet;
+		IChangeListener lastChangeListener = frame.changeListener;
+		IStaleListener lastStaleListener = frame.staleListener;
+		int lastIgnore = frame.ignoreCount;
 
-		Set observableSet = new IdentitySet();
+		IdentityArraySet observableSet = frame.acquireSet();
 		// Push the new listeners to the top of the stack
-		currentGetterCalledSet.set(observableSet);
-		currentChangeListener.set(changeListener);
-		currentStaleListener.set(staleListener);
-		currentIgnoreCount.set(null);
+		frame.getterCalledSet = observableSet;
+		frame.changeListener = changeListener;
+		frame.staleListener = staleListener;
+		frame.ignoreCount = 0;
 		try {
 			runnable.run();
+			return toArray(observableSet);
 		} finally {
 			// Pop the new listener off the top of the stack (by restoring the
 			// previous listener)
-			currentGetterCalledSet.set(lastObservableSet);
-			currentChangeListener.set(lastChangeListener);
-			currentStaleListener.set(lastStaleListener);
-			checkUnmatchedIgnore(runnable);
-			currentIgnoreCount.set(lastIgnore);
+			frame.getterCalledSet = lastObservableSet;
+			frame.changeListener = lastChangeListener;
+			frame.staleListener = lastStaleListener;
+			checkUnmatchedIgnore(frame, runnable);
+			frame.ignoreCount = lastIgnore;
+			frame.releaseSet(observableSet);
 		}
-
-		return (IObservable[]) observableSet
-				.toArray(new IObservable[observableSet.size()]);
 	}
 
 	/**
@@ -139,29 +183,29 @@ public class ObservableTracker {
 	 * @since 1.2
 	 */
 	public static IObservable[] runAndCollect(Runnable runnable) {
-		Set lastObservableCreatedSet = (Set) currentObservableCreatedSet.get();
-		Integer lastIgnore = (Integer) currentIgnoreCount.get();
+		Frame frame = getFrame();
+		IdentityArraySet lastObservableCreatedSet = frame.observableCreatedSet;
+		int lastIgnore = frame.ignoreCount;
 
-		Set observableSet = new IdentitySet();
+		IdentityArraySet observableSet = frame.acquireSet();
 		// Push the new listeners to the top of the stack
-		currentObservableCreatedSet.set(observableSet);
-		currentIgnoreCount.set(null);
+		frame.observableCreatedSet = observableSet;
+		frame.ignoreCount = 0;
 		try {
 			runnable.run();
+			return toArray(observableSet);
 		} finally {
 			// Pop the new listener off the top of the stack (by restoring the
 			// previous listener)
-			currentObservableCreatedSet.set(lastObservableCreatedSet);
-			checkUnmatchedIgnore(runnable);
-			currentIgnoreCount.set(lastIgnore);
+			frame.observableCreatedSet = lastObservableCreatedSet;
+			checkUnmatchedIgnore(frame, runnable);
+			frame.ignoreCount = lastIgnore;
+			frame.releaseSet(observableSet);
 		}
-
-		return (IObservable[]) observableSet
-				.toArray(new IObservable[observableSet.size()]);
 	}
 
-	private static void checkUnmatchedIgnore(Runnable runnable) {
-		if (isIgnore()) {
+	private static void checkUnmatchedIgnore(Frame frame, Runnable runnable) {
+		if (frame.ignoreCount > 0) {
 			Policy
 					.getLog()
 					.log(
@@ -169,7 +213,7 @@ public class ObservableTracker {
 									IStatus.ERROR,
 									Policy.JFACE_DATABINDING,
 									"There were " //$NON-NLS-1$
-											+ currentIgnoreCount.get()
+											+ frame.ignoreCount
 											+ " unmatched setIgnore(true) invocations in runnable " //$NON-NLS-1$
 											+ runnable));
 		}
@@ -196,15 +240,14 @@ public class ObservableTracker {
 	 * @since 1.3
 	 */
 	public static void setIgnore(boolean ignore) {
-		Integer lastCount = (Integer) currentIgnoreCount.get();
+		Frame frame = getFrame();
 
-		int newCount = (lastCount == null ? 0 : lastCount.intValue())
-				+ (ignore ? 1 : -1);
+		int newCount = frame.ignoreCount + (ignore ? 1 : -1);
 
 		if (newCount < 0)
 			throw new IllegalStateException("Ignore count is already zero"); //$NON-NLS-1$
 
-		currentIgnoreCount.set(newCount == 0 ? null : new Integer(newCount));
+		frame.ignoreCount = newCount;
 	}
 
 	/**
@@ -233,10 +276,6 @@ public class ObservableTracker {
 				+ Integer.toHexString(System.identityHashCode(observable));
 	}
 
-	private static boolean isIgnore() {
-		return currentIgnoreCount.get() != null;
-	}
-
 	/**
 	 * Notifies the ObservableTracker that an observable was read from. The
 	 * JavaDoc for methods that invoke this method should include the following
@@ -256,20 +295,17 @@ public class ObservableTracker {
 			Assert.isTrue(false, "Getter called outside realm of observable " //$NON-NLS-1$
 					+ toString(observable));
 
-		if (isIgnore())
+		Frame frame = (Frame) currentFrame.get();
+		if (frame == null || frame.ignoreCount > 0)
 			return;
 
-		Set getterCalledSet = (Set) currentGetterCalledSet.get();
+		IdentityArraySet getterCalledSet = frame.getterCalledSet;
 		if (getterCalledSet != null && getterCalledSet.add(observable)) {
 			// If anyone is listening for observable usage...
-			IChangeListener changeListener = (IChangeListener) currentChangeListener
-					.get();
-			if (changeListener != null)
-				observable.addChangeListener(changeListener);
-			IStaleListener staleListener = (IStaleListener) currentStaleListener
-					.get();
-			if (staleListener != null)
-				observable.addStaleListener(staleListener);
+			if (frame.changeListener != null)
+				observable.addChangeListener(frame.changeListener);
+			if (frame.staleListener != null)
+				observable.addStaleListener(frame.staleListener);
 		}
 	}
 
@@ -281,11 +317,11 @@ public class ObservableTracker {
 	 * @since 1.2
 	 */
 	public static void observableCreated(IObservable observable) {
-		if (isIgnore())
+		Frame frame = (Frame) currentFrame.get();
+		if (frame == null || frame.ignoreCount > 0)
 			return;
-		Set observableCreatedSet = (Set) currentObservableCreatedSet.get();
-		if (observableCreatedSet != null) {
-			observableCreatedSet.add(observable);
+		if (frame.observableCreatedSet != null) {
+			frame.observableCreatedSet.add(observable);
 		}
 	}
 }
@@ -18,6 +18,7 @@ import java.util.TimerTask;
 
 import org.eclipse.core.databinding.util.Policy;
 import org.eclipse.core.internal.databinding.observable.Queue;
+import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.SafeRunner;
@@ -118,6 +119,8 @@ public abstract class Realm {
 	
 	private volatile Timer timer;
 
+	private ChangeBatch changeBatch;
+
 	Queue workQueue = new Queue();
 	
 	/**
@@ -334,4 +337,38 @@ public abstract class Realm {
 			defaultRealm.set(oldRealm);
 		}
 	}
+
+	/**
+	 * Runs the given runnable and holds back the change events that
+	 * observables of this realm fire meanwhile. When the runnable completes,
+	 * the change, list change and set change events of each observable are
+	 * merged into at most one event of each kind and fired. Other events, like
+	 * value change or stale events, are fired right away, after the events
+	 * that were held back for the same observable. Nested calls fire the
+	 * events when the outermost call completes.
+	 * <p>
+	 * This method must be called from within this realm.
+	 * </p>
+	 * 
+	 * @param runnable
+	 *            the runnable that changes observables
+	 * @since 1.5
+	 */
+	public void runBatched(Runnable runnable) {
+		Assert.isTrue(isCurrent(),
+				"This operation must be run within the realm"); //$NON-NLS-1$
+		if (changeBatch == null)
+			changeBatch = new ChangeBatch();
+		changeBatch.begin();
+		try {
+			runnable.run();
+		} finally {
+			changeBatch.end();
+		}
+	}
+
+	/* package */boolean deferEvent(ChangeManager manager,
+			ObservableEvent event) {
+		return changeBatch != null && changeBatch.defer(manager, event);
+	}
 }
@@ -120,7 +120,7 @@ public abstract class ListDiff implements IDiff {
 					}
 
 					if (removePos == addPos) {
-						visitor.handleReplace(pos, removeElem, addElem);
+						visitor.handleReplace(addPos, removeElem, addElem);
 						i++;
 						continue;
 					}
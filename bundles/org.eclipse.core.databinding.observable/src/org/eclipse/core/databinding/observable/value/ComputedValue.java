@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2009 IBM Corporation and others.
+ * Copyright (c) 2005, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,6 +20,7 @@ import org.eclipse.core.databinding.observable.ObservableTracker;
 import org.eclipse.core.databinding.observable.Realm;
 import org.eclipse.core.databinding.observable.StaleEvent;
 import org.eclipse.core.databinding.observable.list.IObservableList;
+import org.eclipse.core.internal.databinding.identity.IdentityArraySet;
 
 /**
  * A Lazily calculated value that automatically computes and registers listeners
@@ -157,25 +158,74 @@ public abstract class ComputedValue extends AbstractObservableValue {
 			// - While doing so, add any observable that is touched to the
 			// dependencies list
 			IObservable[] newDependencies = ObservableTracker.runAndMonitor(
-					privateInterface, privateInterface, null);
+					privateInterface, null, null);
+
+			// isStale() is a tracked getter, the dependencies of this value
+			// must not become dependencies of a value that is being computed
+			// from it
+			ObservableTracker.setIgnore(true);
+			try {
+				updateListeners(newDependencies);
+			} finally {
+				ObservableTracker.setIgnore(false);
+			}
+
+			dirty = false;
+		}
 
-			stale = false;
+		return cachedValue;
+	}
+
+	/**
+	 * Moves the listeners from the current dependencies to the given ones.
+	 * Observables that stay a dependency keep their listeners.
+	 */
+	private void updateListeners(IObservable[] newDependencies) {
+		IObservable[] oldDependencies = dependencies;
+		if (oldDependencies == null || oldDependencies.length == 0) {
+			for (int i = 0; i < newDependencies.length; i++) {
+				newDependencies[i].addChangeListener(privateInterface);
+				newDependencies[i].addStaleListener(privateInterface);
+			}
+		} else if (!sameDependencies(oldDependencies, newDependencies)) {
+			IdentityArraySet oldSet = new IdentityArraySet(oldDependencies);
+			IdentityArraySet newSet = new IdentityArraySet(newDependencies);
+			for (int i = 0; i < oldDependencies.length; i++) {
+				IObservable observable = oldDependencies[i];
+				if (!newSet.contains(observable)) {
+					observable.removeChangeListener(privateInterface);
+					observable.removeStaleListener(privateInterface);
+				}
+			}
 			for (int i = 0; i < newDependencies.length; i++) {
 				IObservable observable = newDependencies[i];
-				// Add a change listener to the new dependency.
-				if (observable.isStale()) {
-					stale = true;
-				} else {
+				if (!oldSet.contains(observable)) {
+					observable.addChangeListener(privateInterface);
 					observable.addStaleListener(privateInterface);
 				}
 			}
+		}
 
-			dependencies = newDependencies;
-
-			dirty = false;
+		stale = false;
+		for (int i = 0; i < newDependencies.length; i++) {
+			if (newDependencies[i].isStale()) {
+				stale = true;
+				break;
+			}
 		}
 
-		return cachedValue;
+		dependencies = newDependencies;
+	}
+
+	private static boolean sameDependencies(IObservable[] oldDependencies,
+			IObservable[] newDependencies) {
+		if (oldDependencies.length != newDependencies.length)
+			return false;
+		for (int i = 0; i < oldDependencies.length; i++) {
+			if (oldDependencies[i] != newDependencies[i])
+				return false;
+		}
+		return true;
 	}
 
 	/**
@@ -192,7 +242,12 @@ public abstract class ComputedValue extends AbstractObservableValue {
 		if (!dirty) {
 			dirty = true;
 
-			stopListening();
+			// Nobody asks for the new value without listeners, so the
+			// dependencies let go of this value until it is computed again.
+			// Otherwise the dependencies usually stay the same and keep their
+			// listeners.
+			if (!hasListeners())
+				stopListening();
 
 			// copy the old value
 			final Object oldValue = cachedValue;
@@ -264,8 +319,9 @@ public abstract class ComputedValue extends AbstractObservableValue {
 	private void computeValueForListeners() {
 		getRealm().exec(new Runnable() {
 			public void run() {
-				if (dependencies == null) {
-					// We are not currently listening.
+				if (dirty) {
+					// Changes are not reported until the value is computed
+					// again.
 					if (hasListeners()) {
 						// But someone is listening for changes. Call getValue()
 						// to make sure we start listening to the observables we
@@ -285,6 +341,19 @@ public abstract class ComputedValue extends AbstractObservableValue {
 		computeValueForListeners();
 	}
 
+	protected void lastListenerRemoved() {
+		super.lastListenerRemoved();
+		getRealm().exec(new Runnable() {
+			public void run() {
+				// A dirty value is not notified by its dependencies anymore,
+				// stop listening to them once nobody listens to this value.
+				if (dirty && !hasListeners()) {
+					stopListening();
+				}
+			}
+		});
+	}
+
 	public synchronized void dispose() {
 		super.dispose();
 		stopListening();
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.internal.databinding.identity;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+/**
+ * A set of elements compared by identity, kept in an open addressed hash
+ * table. Unlike {@link IdentitySet} it does not wrap its elements, it
+ * remembers the order in which they were added and it can be cleared and
+ * reused without allocating. Elements can't be removed and must not be
+ * <code>null</code>.
+ */
+public final class IdentityArraySet {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * Tables larger than this are dropped when the set is cleared, so that a
+	 * reused set does not hold on to the memory of its largest use.
+	 */
+	private static final int MAX_RETAINED_CAPACITY = 1024;
+
+	/**
+	 * The hash table, its length is a power of two and it is at most half
+	 * full.
+	 */
+	private Object[] table;
+
+	/**
+	 * The elements in the order they were added.
+	 */
+	private Object[] elements;
+
+	private int size;
+
+	/**
+	 * Constructs an empty set.
+	 */
+	public IdentityArraySet() {
+		table = new Object[INITIAL_CAPACITY];
+		elements = new Object[INITIAL_CAPACITY / 2];
+	}
+
+	/**
+	 * Constructs a set containing the given elements.
+	 *
+	 * @param elements
+	 *            the elements to add
+	 */
+	public IdentityArraySet(Object[] elements) {
+		this();
+		for (int i = 0; i < elements.length; i++)
+			add(elements[i]);
+	}
+
+	/**
+	 * Adds an element to the set.
+	 *
+	 * @param element
+	 *            the element to add
+	 * @return <code>true</code> if the set did not contain the element
+	 */
+	public boolean add(Object element) {
+		int mask = table.length - 1;
+		int i = hash(element) & mask;
+		for (Object e = table[i]; e != null; e = table[i]) {
+			if (e == element)
+				return false;
+			i = (i + 1) & mask;
+		}
+
+		if (size == elements.length) {
+			Object[] grown = new Object[size * 2];
+			System.arraycopy(elements, 0, grown, 0, size);
+			elements = grown;
+			rehash(table.length * 2);
+			insert(element);
+		} else {
+			table[i] = element;
+		}
+		elements[size++] = element;
+		return true;
+	}
+
+	/**
+	 * @param element
+	 *            the element to look for
+	 * @return <code>true</code> if the set contains the element
+	 */
+	public boolean contains(Object element) {
+		int mask = table.length - 1;
+		int i = hash(element) & mask;
+		for (Object e = table[i]; e != null; e = table[i]) {
+			if (e == element)
+				return true;
+			i = (i + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * @return the number of elements in the set
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Copies the elements, in the order they were added, to the given array
+	 * or to a new array of the same component type if it is too small.
+	 *
+	 * @param a
+	 *            the array to copy to
+	 * @return the array containing the elements
+	 */
+	public Object[] toArray(Object[] a) {
+		if (a.length < size)
+			a = (Object[]) Array.newInstance(a.getClass().getComponentType(),
+					size);
+		System.arraycopy(elements, 0, a, 0, size);
+		if (a.length > size)
+			a[size] = null;
+		return a;
+	}
+
+	/**
+	 * Removes all elements from the set.
+	 */
+	public void clear() {
+		if (table.length > MAX_RETAINED_CAPACITY) {
+			table = new Object[INITIAL_CAPACITY];
+			elements = new Object[INITIAL_CAPACITY / 2];
+		} else if (size > 0) {
+			Arrays.fill(table, null);
+			Arrays.fill(elements, 0, size, null);
+		}
+		size = 0;
+	}
+
+	private void rehash(int capacity) {
+		table = new Object[capacity];
+		for (int i = 0; i < size; i++)
+			insert(elements[i]);
+	}
+
+	private void insert(Object element) {
+		int mask = table.length - 1;
+		int i = hash(element) & mask;
+		while (table[i] != null)
+			i = (i + 1) & mask;
+		table[i] = element;
+	}
+
+	private static int hash(Object element) {
+		int h = System.identityHashCode(element);
+		// identity hash codes often differ in their high bits only
+		return h ^ (h >>> 16);
+	}
+}
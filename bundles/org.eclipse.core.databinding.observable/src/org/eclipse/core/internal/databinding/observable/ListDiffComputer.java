@@ -0,0 +1,438 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.internal.databinding.observable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.databinding.observable.Diffs;
+import org.eclipse.core.databinding.observable.list.ListDiff;
+import org.eclipse.core.databinding.observable.list.ListDiffEntry;
+import org.eclipse.core.databinding.observable.list.ListDiffVisitor;
+
+/**
+ * Computes the differences between two lists in O((N + M) log N) time.
+ * <p>
+ * Equal elements of the old and the new list are paired in order of
+ * occurrence through a hash lookup. The longest subsequence of pairs that
+ * keeps its relative order stays in place, every other paired element is
+ * moved to its new index, the remaining old elements are removed and the
+ * remaining new elements are added. A move is reported as a remove entry
+ * directly followed by an add entry of the same element, so that
+ * {@link ListDiff#accept(ListDiffVisitor)} recognizes it.
+ * <p>
+ * The list being transformed is tracked as the part that already matches
+ * the new list, followed by the old elements that are still to be handled.
+ * The positions of the latter are counted with a Fenwick tree over their old
+ * indices. The elements moved in front of an element that stays in place
+ * are numbered consecutively per element, and counted with a second Fenwick
+ * tree over those numbers.
+ */
+public final class ListDiffComputer {
+
+	private final Object[] oldElements;
+	private final Object[] newElements;
+
+	/**
+	 * Length of the common prefix, the old and new indices below are relative
+	 * to it.
+	 */
+	private final int offset;
+	private final int oldSize;
+	private final int newSize;
+
+	/**
+	 * For each old index the new index it is paired with, or -1.
+	 */
+	private int[] oldToNew;
+
+	/**
+	 * For each new index the old index it is paired with, or -1.
+	 */
+	private int[] newToOld;
+
+	/**
+	 * Whether the element at an old index stays in place.
+	 */
+	private boolean[] kept;
+
+	/**
+	 * For each new index the old index of the first element at or after it
+	 * that stays in place, or <code>oldSize</code> if there is none.
+	 */
+	private int[] nextKept;
+
+	/**
+	 * Fenwick tree over the old indices plus one slot for the end of the
+	 * list, counting the elements that are still to be handled.
+	 */
+	private int[] tree;
+	private int[] weights;
+
+	/**
+	 * Elements that were moved out of the way of an element that stays in
+	 * place are inserted in front of the next element that stays in place.
+	 * For each old index the slot it was moved in front of, or -1.
+	 */
+	private int[] movedBefore;
+
+	/**
+	 * For each old index that was moved in front of a slot its number among
+	 * the moved elements.
+	 */
+	private int[] movedAt;
+
+	/**
+	 * For each number the old index of the element moved there.
+	 */
+	private int[] movedOld;
+
+	/**
+	 * For each slot the numbers of the elements moved in front of it, from
+	 * the first one that may still be handled up to the next free one.
+	 */
+	private int[] movedStart;
+	private int[] movedEnd;
+
+	/**
+	 * Fenwick tree over the numbers of the moved elements, counting the ones
+	 * that are still to be handled.
+	 */
+	private int[] movedTree;
+	private int[] movedWeights;
+
+	/**
+	 * The first slot with a non-zero weight.
+	 */
+	private int front;
+
+	private final List entries = new ArrayList();
+
+	/**
+	 * Returns the entries describing the change from the old to the new list.
+	 *
+	 * @param oldList
+	 *            the old list state
+	 * @param newList
+	 *            the new list state
+	 * @return the differences between oldList and newList, in the order they
+	 *         are to be processed
+	 */
+	public static ListDiffEntry[] computeDifferences(List oldList,
+			List newList) {
+		return new ListDiffComputer(oldList.toArray(), newList.toArray())
+				.compute();
+	}
+
+	private ListDiffComputer(Object[] oldElements, Object[] newElements) {
+		this.oldElements = oldElements;
+		this.newElements = newElements;
+
+		int min = Math.min(oldElements.length, newElements.length);
+		int prefix = 0;
+		while (prefix < min
+				&& Util.equals(oldElements[prefix], newElements[prefix]))
+			prefix++;
+		int suffix = 0;
+		while (suffix < min - prefix
+				&& Util.equals(oldElements[oldElements.length - 1 - suffix],
+						newElements[newElements.length - 1 - suffix]))
+			suffix++;
+
+		this.offset = prefix;
+		this.oldSize = oldElements.length - prefix - suffix;
+		this.newSize = newElements.length - prefix - suffix;
+	}
+
+	private ListDiffEntry[] compute() {
+		if (newSize == 0) {
+			for (int i = oldSize - 1; i >= 0; i--)
+				remove(offset + i, oldElements[offset + i]);
+		} else if (oldSize == 0) {
+			for (int i = 0; i < newSize; i++)
+				add(offset + i, newElements[offset + i]);
+		} else {
+			pairElements();
+			findKeptElements();
+			initTree();
+			walk();
+
+			// the old elements that are left are not part of the new list
+			int position = offset + newSize + prefixSum(oldSize - 1);
+			for (int i = oldSize - 1; i >= 0; i--) {
+				if (weights[i] > 0)
+					remove(--position, oldElements[offset + i]);
+			}
+		}
+
+		return (ListDiffEntry[]) entries.toArray(new ListDiffEntry[entries
+				.size()]);
+	}
+
+	/**
+	 * Pairs the n-th occurrence of an element in the new list with its n-th
+	 * occurrence in the old list.
+	 */
+	private void pairElements() {
+		oldToNew = new int[oldSize];
+		newToOld = new int[newSize];
+
+		// the first old index of each element as Integer, the other old
+		// indices are chained from it in order
+		Map firstOccurrences = new HashMap();
+		int[] nextOccurrence = new int[oldSize];
+		// for each first old index the last one chained so far
+		int[] lastOccurrence = new int[oldSize];
+		// for each first old index the next one to pair, or -1
+		int[] unpaired = new int[oldSize];
+		for (int i = 0; i < oldSize; i++) {
+			oldToNew[i] = -1;
+			nextOccurrence[i] = -1;
+			Object element = oldElements[offset + i];
+			Integer first = (Integer) firstOccurrences.get(element);
+			if (first == null) {
+				firstOccurrences.put(element, new Integer(i));
+				lastOccurrence[i] = i;
+				unpaired[i] = i;
+			} else {
+				int firstIndex = first.intValue();
+				nextOccurrence[lastOccurrence[firstIndex]] = i;
+				lastOccurrence[firstIndex] = i;
+			}
+		}
+
+		for (int i = 0; i < newSize; i++) {
+			Integer first = (Integer) firstOccurrences
+					.get(newElements[offset + i]);
+			int oldIndex = -1;
+			if (first != null) {
+				int firstIndex = first.intValue();
+				oldIndex = unpaired[firstIndex];
+				if (oldIndex != -1)
+					unpaired[firstIndex] = nextOccurrence[oldIndex];
+			}
+			newToOld[i] = oldIndex;
+			if (oldIndex != -1)
+				oldToNew[oldIndex] = i;
+		}
+	}
+
+	/**
+	 * Keeps the longest increasing subsequence of old indices, taken in new
+	 * list order, in place.
+	 */
+	private void findKeptElements() {
+		// new index of the smallest last element of an increasing
+		// subsequence of each length
+		int[] tails = new int[newSize];
+		int[] previous = new int[newSize];
+		int length = 0;
+		for (int i = 0; i < newSize; i++) {
+			int oldIndex = newToOld[i];
+			if (oldIndex == -1)
+				continue;
+
+			int low = 0;
+			int high = length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (newToOld[tails[middle]] < oldIndex)
+					low = middle + 1;
+				else
+					high = middle;
+			}
+			previous[i] = low > 0 ? tails[low - 1] : -1;
+			tails[low] = i;
+			if (low == length)
+				length++;
+		}
+
+		kept = new boolean[oldSize];
+		for (int i = length > 0 ? tails[length - 1] : -1; i != -1; i = previous[i])
+			kept[newToOld[i]] = true;
+
+		nextKept = new int[newSize];
+		int next = oldSize;
+		for (int i = newSize - 1; i >= 0; i--) {
+			if (newToOld[i] != -1 && kept[newToOld[i]])
+				next = newToOld[i];
+			nextKept[i] = next;
+		}
+	}
+
+	private void initTree() {
+		weights = new int[oldSize + 1];
+		tree = new int[oldSize + 2];
+		movedBefore = new int[oldSize];
+		movedAt = new int[oldSize];
+		for (int i = 0; i < oldSize; i++) {
+			weights[i] = 1;
+			movedBefore[i] = -1;
+			tree[i + 1] += 1;
+			int parent = (i + 1) + ((i + 1) & -(i + 1));
+			if (parent < tree.length)
+				tree[parent] += tree[i + 1];
+		}
+
+		// only the paired elements that do not stay in place are moved,
+		// each in front of the next element that stays in place
+		movedStart = new int[oldSize + 1];
+		movedEnd = new int[oldSize + 1];
+		for (int i = 0; i < newSize; i++) {
+			if (newToOld[i] != -1 && !kept[newToOld[i]])
+				movedEnd[nextKept[i]]++;
+		}
+		int moved = 0;
+		for (int slot = 0; slot <= oldSize; slot++) {
+			int count = movedEnd[slot];
+			movedStart[slot] = moved;
+			movedEnd[slot] = moved;
+			moved += count;
+		}
+		movedOld = new int[moved];
+		movedWeights = new int[moved];
+		movedTree = new int[moved + 1];
+	}
+
+	private void walk() {
+		for (int newIndex = 0; newIndex < newSize; newIndex++) {
+			int position = offset + newIndex;
+			Object element = newElements[position];
+			int oldIndex = newToOld[newIndex];
+			if (oldIndex == -1) {
+				add(position, element);
+				continue;
+			}
+
+			while (true) {
+				int first = getFirst();
+				if (first == oldIndex) {
+					// already in place
+					take(oldIndex);
+					break;
+				}
+				if (oldToNew[first] == -1) {
+					remove(position, oldElements[offset + first]);
+					take(first);
+				} else if (kept[oldIndex]) {
+					// the first element belongs further down, move it in
+					// front of the next element that stays in place
+					moveDown(position, first);
+				} else {
+					int from = position + getRestIndex(oldIndex);
+					take(oldIndex);
+					remove(from, element);
+					add(position, element);
+					break;
+				}
+			}
+		}
+	}
+
+	private int getFirst() {
+		while (weights[front] == 0)
+			front++;
+		int first = movedStart[front];
+		while (first < movedEnd[front] && movedWeights[first] == 0)
+			first++;
+		movedStart[front] = first;
+		if (first < movedEnd[front])
+			return movedOld[first];
+		return front;
+	}
+
+	/**
+	 * Returns the index of an element among the elements that are still to
+	 * be handled.
+	 */
+	private int getRestIndex(int oldIndex) {
+		int slot = movedBefore[oldIndex];
+		if (slot == -1)
+			return prefixSum(oldIndex - 1);
+		return prefixSum(slot - 1) + countMoved(slot, movedAt[oldIndex]);
+	}
+
+	/**
+	 * Returns the number of elements moved in front of the given slot that
+	 * are still to be handled and come before the given number.
+	 */
+	private int countMoved(int slot, int end) {
+		return sum(movedTree, end - 1) - sum(movedTree, movedStart[slot] - 1);
+	}
+
+	/**
+	 * Removes an element from the elements that are still to be handled.
+	 */
+	private void take(int oldIndex) {
+		int slot = movedBefore[oldIndex];
+		if (slot == -1) {
+			update(oldIndex, -1);
+		} else {
+			int at = movedAt[oldIndex];
+			movedWeights[at] = 0;
+			increment(movedTree, at, -1);
+			update(slot, -1);
+		}
+	}
+
+	private void moveDown(int position, int oldIndex) {
+		Object element = oldElements[offset + oldIndex];
+		remove(position, element);
+		update(oldIndex, -1);
+
+		int slot = nextKept[oldToNew[oldIndex]];
+		int at = movedEnd[slot]++;
+		int to = position + prefixSum(slot - 1) + countMoved(slot, at);
+		movedOld[at] = oldIndex;
+		movedAt[oldIndex] = at;
+		movedWeights[at] = 1;
+		increment(movedTree, at, 1);
+		movedBefore[oldIndex] = slot;
+		update(slot, 1);
+		add(to, element);
+	}
+
+	private void update(int slot, int delta) {
+		weights[slot] += delta;
+		increment(tree, slot, delta);
+	}
+
+	/**
+	 * Returns the total weight of the slots up to and including the given
+	 * one.
+	 */
+	private int prefixSum(int slot) {
+		return sum(tree, slot);
+	}
+
+	private static void increment(int[] tree, int index, int delta) {
+		for (int i = index + 1; i < tree.length; i += i & -i)
+			tree[i] += delta;
+	}
+
+	private static int sum(int[] tree, int index) {
+		int sum = 0;
+		for (int i = index + 1; i > 0; i -= i & -i)
+			sum += tree[i];
+		return sum;
+	}
+
+	private void add(int position, Object element) {
+		entries.add(Diffs.createListDiffEntry(position, true, element));
+	}
+
+	private void remove(int position, Object element) {
+		entries.add(Diffs.createListDiffEntry(position, false, element));
+	}
+}
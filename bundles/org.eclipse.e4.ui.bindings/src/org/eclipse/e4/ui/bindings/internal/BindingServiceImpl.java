@@ -162,6 +162,18 @@ public class BindingServiceImpl implements EBindingService {
 		return manager.isPartialMatch(contextSet, keySequence);
 	}
 
+	/**
+	 * Resolve a partial or perfect match in one lookup.
+	 * 
+	 * @param sequence
+	 * @return a binding that the sequence is a proper prefix of if the sequence is a partial match,
+	 *         else the perfect match, or <code>null</code>
+	 * @see BindingTableManager#getMatch(ContextSet, TriggerSequence)
+	 */
+	public Binding getMatch(TriggerSequence sequence) {
+		return manager.getMatch(contextSet, sequence);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
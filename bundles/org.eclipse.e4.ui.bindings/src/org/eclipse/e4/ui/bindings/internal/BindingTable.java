@@ -121,11 +121,47 @@ public class BindingTable {
 
 	public static final BindingComparator BEST_SEQUENCE = new BindingComparator();
 
+	/**
+	 * A node in the trie of trigger sequences. The path from the root to a node spells out a
+	 * sequence; the node holds the binding for exactly that sequence and the bindings that it is a
+	 * proper prefix of.
+	 */
+	static class TriggerNode {
+		private Map<Trigger, TriggerNode> children;
+		Binding perfectMatch;
+		ArrayList<Binding> partialMatches;
+
+		TriggerNode getChild(Trigger trigger) {
+			return children == null ? null : children.get(trigger);
+		}
+
+		TriggerNode getOrCreateChild(Trigger trigger) {
+			if (children == null) {
+				children = new HashMap<Trigger, TriggerNode>();
+			}
+			TriggerNode child = children.get(trigger);
+			if (child == null) {
+				child = new TriggerNode();
+				children.put(trigger, child);
+			}
+			return child;
+		}
+
+		void pruneChild(Trigger trigger) {
+			TriggerNode child = children.get(trigger);
+			if (child.perfectMatch == null && child.partialMatches == null
+					&& (child.children == null || child.children.isEmpty())) {
+				children.remove(trigger);
+			}
+		}
+	}
+
 	private Context tableId;
 	private ArrayList<Binding> bindings = new ArrayList<Binding>();
 	private Map<TriggerSequence, Binding> bindingsByTrigger = new HashMap<TriggerSequence, Binding>();
 	private Map<ParameterizedCommand, ArrayList<Binding>> bindingsByCommand = new HashMap<ParameterizedCommand, ArrayList<Binding>>();
-	private Map<TriggerSequence, ArrayList<Binding>> bindingsByPrefix = new HashMap<TriggerSequence, ArrayList<Binding>>();
+	private TriggerNode root = new TriggerNode();
+	private int modificationCount;
 	private Map<TriggerSequence, ArrayList<Binding>> conflicts = new HashMap<TriggerSequence, ArrayList<Binding>>();
 	private Map<TriggerSequence, ArrayList<Binding>> orderedBindingsByTrigger = new HashMap<TriggerSequence, ArrayList<Binding>>();
 
@@ -192,6 +228,7 @@ public class BindingTable {
 	}
 
 	private void addBindingSimple(Binding binding) {
+		modificationCount++;
 		bindings.add(binding);
 		bindingsByTrigger.put(binding.getTriggerSequence(), binding);
 
@@ -203,18 +240,23 @@ public class BindingTable {
 		sequences.add(binding);
 		Collections.sort(sequences, BEST_SEQUENCE);
 
-		TriggerSequence[] prefs = binding.getTriggerSequence().getPrefixes();
-		for (int i = 1; i < prefs.length; i++) {
-			ArrayList<Binding> bindings = bindingsByPrefix.get(prefs[i]);
-			if (bindings == null) {
-				bindings = new ArrayList<Binding>();
-				bindingsByPrefix.put(prefs[i], bindings);
+		Trigger[] triggers = binding.getTriggerSequence().getTriggers();
+		TriggerNode node = root;
+		for (int i = 0; i < triggers.length; i++) {
+			node = node.getOrCreateChild(triggers[i]);
+			if (i < triggers.length - 1) {
+				if (node.partialMatches == null) {
+					node.partialMatches = new ArrayList<Binding>();
+				}
+				node.partialMatches.add(binding);
+			} else {
+				node.perfectMatch = binding;
 			}
-			bindings.add(binding);
 		}
 	}
 
 	private void removeBindingSimple(Binding binding) {
+		modificationCount++;
 		bindings.remove(binding);
 		bindingsByTrigger.remove(binding.getTriggerSequence());
 		ArrayList<Binding> sequences = bindingsByCommand.get(binding.getParameterizedCommand());
@@ -222,13 +264,41 @@ public class BindingTable {
 		if (sequences != null) {
 			sequences.remove(binding);
 		}
-		TriggerSequence[] prefs = binding.getTriggerSequence().getPrefixes();
-		for (int i = 1; i < prefs.length; i++) {
-			ArrayList<Binding> bindings = bindingsByPrefix.get(prefs[i]);
-			if (bindings != null) {
-				bindings.remove(binding);
+		removeFromTrie(root, binding.getTriggerSequence().getTriggers(), 0, binding);
+	}
+
+	private void removeFromTrie(TriggerNode parent, Trigger[] triggers, int index, Binding binding) {
+		TriggerNode node = parent.getChild(triggers[index]);
+		if (node == null) {
+			return;
+		}
+		if (index < triggers.length - 1) {
+			if (node.partialMatches != null) {
+				node.partialMatches.remove(binding);
+				if (node.partialMatches.isEmpty()) {
+					node.partialMatches = null;
+				}
 			}
+			removeFromTrie(node, triggers, index + 1, binding);
+		} else {
+			node.perfectMatch = null;
+		}
+		parent.pruneChild(triggers[index]);
+	}
+
+	/**
+	 * Returns the trie node for the given sequence without building any intermediate sequences.
+	 * 
+	 * @param sequence
+	 * @return the node, or <code>null</code> if no binding starts with the sequence
+	 */
+	TriggerNode getNode(TriggerSequence sequence) {
+		Trigger[] triggers = sequence.getTriggers();
+		TriggerNode node = triggers.length == 0 ? null : root;
+		for (int i = 0; i < triggers.length && node != null; i++) {
+			node = node.getChild(triggers[i]);
 		}
+		return node;
 	}
 
 	public void removeBinding(Binding binding) {
@@ -331,11 +401,23 @@ public class BindingTable {
 	}
 
 	public Collection<Binding> getPartialMatches(TriggerSequence sequence) {
-		return bindingsByPrefix.get(sequence);
+		TriggerNode node = getNode(sequence);
+		return node == null ? null : node.partialMatches;
 	}
 
 	public boolean isPartialMatch(TriggerSequence seq) {
-		return bindingsByPrefix.get(seq) != null;
+		TriggerNode node = getNode(seq);
+		return node != null && node.partialMatches != null;
+	}
+
+	/**
+	 * Returns a count that changes whenever the active bindings of this table change, so that
+	 * views computed from the table can tell whether they are out of date.
+	 * 
+	 * @return the modification count
+	 */
+	public int getModificationCount() {
+		return modificationCount;
 	}
 
 	public Collection<Binding> getBindings() {
@@ -14,8 +14,11 @@ package org.eclipse.e4.ui.bindings.internal;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 import javax.inject.Inject;
 import org.eclipse.core.commands.ParameterizedCommand;
 import org.eclipse.core.commands.contexts.Context;
@@ -36,6 +39,52 @@ public class BindingTableManager {
 
 	private String[] activeSchemeIds;
 
+	private static final int CACHED_VIEWS = 8;
+
+	/**
+	 * The effective bindings of the most recently used context sets.
+	 */
+	private final Map<ContextSet, EffectiveBindings> views = new LinkedHashMap<ContextSet, EffectiveBindings>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<ContextSet, EffectiveBindings> eldest) {
+			return size() > CACHED_VIEWS;
+		}
+	};
+
+	/**
+	 * The perfect matches and sorted sequences of one context set, filled in as they are asked
+	 * for. It stays valid as long as none of its tables change.
+	 */
+	private static class EffectiveBindings {
+		final BindingTable[] tables;
+		final int[] modificationCounts;
+		final Map<TriggerSequence, Binding> perfectMatches = new HashMap<TriggerSequence, Binding>();
+		final Map<ParameterizedCommand, ArrayList<Binding>> sequences = new HashMap<ParameterizedCommand, ArrayList<Binding>>();
+
+		EffectiveBindings(BindingTable[] tables) {
+			this.tables = tables;
+			modificationCounts = new int[tables.length];
+			for (int i = 0; i < tables.length; i++) {
+				if (tables[i] != null) {
+					modificationCounts[i] = tables[i].getModificationCount();
+				}
+			}
+		}
+
+		boolean isValid() {
+			for (int i = 0; i < tables.length; i++) {
+				if (tables[i] != null
+						&& tables[i].getModificationCount() != modificationCounts[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
 	public void addTable(BindingTable table) {
 		String contextId = getTableId(table.getId());
 		if (eclipseContext.containsKey(contextId)) {
@@ -43,6 +92,7 @@ public class BindingTableManager {
 			//			throw new IllegalArgumentException("Already contains table " + contextId); //$NON-NLS-1$
 		}
 		eclipseContext.set(contextId, table);
+		views.clear();
 		final List<Context> contexts = definedTables.getContexts();
 		if (!contexts.contains(table.getTableId())) {
 			// this is only valid because I'm throwing away the old definedTables contextSet
@@ -61,6 +111,7 @@ public class BindingTableManager {
 			throw new IllegalArgumentException("Does not contains table " + contextId); //$NON-NLS-1$
 		}
 		eclipseContext.remove(contextId);
+		views.clear();
 		final List<Context> contexts = definedTables.getContexts();
 		if (contexts.contains(table.getTableId())) {
 			// this is only valid because I'm throwing away the old definedTables contextSet
@@ -119,7 +170,31 @@ public class BindingTableManager {
 		return conflictsList;
 	}
 
+	private EffectiveBindings getView(ContextSet contextSet) {
+		EffectiveBindings view = views.get(contextSet);
+		if (view == null || !view.isValid()) {
+			List<Context> contexts = contextSet.getContexts();
+			BindingTable[] tables = new BindingTable[contexts.size()];
+			for (int i = 0; i < tables.length; i++) {
+				tables[i] = getTable(contexts.get(i).getId());
+			}
+			view = new EffectiveBindings(tables);
+			views.put(contextSet, view);
+		}
+		return view;
+	}
+
 	public Binding getPerfectMatch(ContextSet contextSet, TriggerSequence triggerSequence) {
+		EffectiveBindings view = getView(contextSet);
+		Binding result = view.perfectMatches.get(triggerSequence);
+		if (result == null && !view.perfectMatches.containsKey(triggerSequence)) {
+			result = computePerfectMatch(contextSet, triggerSequence);
+			view.perfectMatches.put(triggerSequence, result);
+		}
+		return result;
+	}
+
+	private Binding computePerfectMatch(ContextSet contextSet, TriggerSequence triggerSequence) {
 		Binding result = null;
 		Binding currentResult = null;
 		List<Context> contexts = contextSet.getContexts();
@@ -147,6 +222,45 @@ public class BindingTableManager {
 		return result;
 	}
 
+	/**
+	 * Resolve a key sequence with a single walk over the tables of the context set, from the most
+	 * to the least specific context. A partial match takes precedence over a perfect match, the
+	 * same way that key presses are dispatched.
+	 * 
+	 * @param contextSet
+	 * @param triggerSequence
+	 * @return a binding that the sequence is a proper prefix of if there is a partial match, else
+	 *         the perfect match, or <code>null</code> if neither exists
+	 */
+	public Binding getMatch(ContextSet contextSet, TriggerSequence triggerSequence) {
+		Binding result = null;
+		List<Context> contexts = contextSet.getContexts();
+		ListIterator<Context> it = contexts.listIterator(contexts.size());
+		while (it.hasPrevious()) {
+			Context c = it.previous();
+			BindingTable table = getTable(c.getId());
+			if (table == null) {
+				continue;
+			}
+			BindingTable.TriggerNode node = table.getNode(triggerSequence);
+			if (node == null) {
+				continue;
+			}
+			if (node.partialMatches != null) {
+				return node.partialMatches.get(0);
+			}
+			Binding currentResult = node.perfectMatch;
+			if (currentResult == null || result != null && isMostActiveScheme(result)) {
+				continue;
+			}
+			if (result == null
+					|| compareSchemes(result.getSchemeId(), currentResult.getSchemeId()) < 0) {
+				result = currentResult;
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * @param currentResult
 	 * @return
@@ -161,8 +275,7 @@ public class BindingTableManager {
 
 	public Binding getBestSequenceFor(ContextSet contextSet,
 			ParameterizedCommand parameterizedCommand) {
-		ArrayList<Binding> bindings = (ArrayList<Binding>) getSequencesFor(contextSet,
-				parameterizedCommand);
+		ArrayList<Binding> bindings = getSortedSequencesFor(contextSet, parameterizedCommand);
 		if (bindings.size() == 0) {
 			return null;
 		}
@@ -171,6 +284,22 @@ public class BindingTableManager {
 
 	public Collection<Binding> getSequencesFor(ContextSet contextSet,
 			ParameterizedCommand parameterizedCommand) {
+		return new ArrayList<Binding>(getSortedSequencesFor(contextSet, parameterizedCommand));
+	}
+
+	private ArrayList<Binding> getSortedSequencesFor(ContextSet contextSet,
+			ParameterizedCommand parameterizedCommand) {
+		EffectiveBindings view = getView(contextSet);
+		ArrayList<Binding> bindings = view.sequences.get(parameterizedCommand);
+		if (bindings == null) {
+			bindings = computeSequencesFor(contextSet, parameterizedCommand);
+			view.sequences.put(parameterizedCommand, bindings);
+		}
+		return bindings;
+	}
+
+	private ArrayList<Binding> computeSequencesFor(ContextSet contextSet,
+			ParameterizedCommand parameterizedCommand) {
 		ArrayList<Binding> bindings = new ArrayList<Binding>();
 		List<Context> contexts = contextSet.getContexts();
 		ListIterator<Context> it = contexts.listIterator(contexts.size());
@@ -240,6 +369,7 @@ public class BindingTableManager {
 	public void setActiveSchemes(String[] activeSchemeIds) {
 		this.activeSchemeIds = activeSchemeIds;
 		BindingTable.BEST_SEQUENCE.setActiveSchemes(activeSchemeIds);
+		views.clear();
 	}
 
 	/*
@@ -28,6 +28,7 @@ import org.eclipse.e4.core.contexts.IEclipseContext;
 import org.eclipse.e4.core.di.annotations.Optional;
 import org.eclipse.e4.core.services.log.Logger;
 import org.eclipse.e4.ui.bindings.EBindingService;
+import org.eclipse.e4.ui.bindings.internal.BindingServiceImpl;
 import org.eclipse.e4.ui.bindings.internal.KeyAssistDialog;
 import org.eclipse.jface.bindings.Binding;
 import org.eclipse.jface.bindings.keys.KeySequence;
@@ -405,19 +406,6 @@ public class KeyBindingDispatcher {
 		return keyDownFilter;
 	}
 
-	/**
-	 * Determines whether the key sequence is a perfect match for any command. If there is a match,
-	 * then the corresponding command identifier is returned.
-	 * 
-	 * @param keySequence
-	 *            The key sequence to check for a match; must never be <code>null</code>.
-	 * @return The perfectly matching command; <code>null</code> if no command matches.
-	 */
-	private ParameterizedCommand getPerfectMatch(KeySequence keySequence) {
-		Binding perfectMatch = getBindingService().getPerfectMatch(keySequence);
-		return perfectMatch == null ? null : perfectMatch.getParameterizedCommand();
-	}
-
 	/**
 	 * Changes the key binding state to the given value. This should be an incremental change, but
 	 * there are no checks to guarantee this is so. It also sets up a <code>Shell</code> to be
@@ -495,12 +483,26 @@ public class KeyBindingDispatcher {
 		for (Iterator<KeyStroke> iterator = potentialKeyStrokes.iterator(); iterator.hasNext();) {
 			KeySequence sequenceAfterKeyStroke = KeySequence.getInstance(sequenceBeforeKeyStroke,
 					iterator.next());
-			if (isPartialMatch(sequenceAfterKeyStroke)) {
+			EBindingService service = getBindingService();
+			Binding match = null;
+			boolean partialMatch;
+			if (service instanceof BindingServiceImpl) {
+				// a single walk over the binding tables resolves both kinds of match
+				match = ((BindingServiceImpl) service).getMatch(sequenceAfterKeyStroke);
+				partialMatch = match != null
+						&& !match.getTriggerSequence().equals(sequenceAfterKeyStroke);
+			} else {
+				partialMatch = isPartialMatch(sequenceAfterKeyStroke);
+				if (!partialMatch && isPerfectMatch(sequenceAfterKeyStroke)) {
+					match = service.getPerfectMatch(sequenceAfterKeyStroke);
+				}
+			}
+			if (partialMatch) {
 				incrementState(sequenceAfterKeyStroke);
 				return true;
 
-			} else if (isPerfectMatch(sequenceAfterKeyStroke)) {
-				final ParameterizedCommand cmd = getPerfectMatch(sequenceAfterKeyStroke);
+			} else if (match != null) {
+				final ParameterizedCommand cmd = match.getParameterizedCommand();
 				try {
 					return executeCommand(cmd, event) || !sequenceBeforeKeyStroke.isEmpty();
 				} catch (final CommandException e) {
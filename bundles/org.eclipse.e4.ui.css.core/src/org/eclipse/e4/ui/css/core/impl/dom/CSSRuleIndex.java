@@ -0,0 +1,281 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.css.core.impl.dom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.e4.ui.css.core.dom.CSSStylableElement;
+import org.eclipse.e4.ui.css.core.dom.ExtendedCSSRule;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSClassConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSConditionalSelectorImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSElementSelectorImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSIdConditionImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.ExtendedSelector;
+import org.w3c.css.sac.CombinatorCondition;
+import org.w3c.css.sac.Condition;
+import org.w3c.css.sac.DescendantSelector;
+import org.w3c.css.sac.Selector;
+import org.w3c.css.sac.SelectorList;
+import org.w3c.css.sac.SiblingSelector;
+import org.w3c.dom.Element;
+import org.w3c.dom.css.CSSRule;
+import org.w3c.dom.css.CSSRuleList;
+import org.w3c.dom.css.CSSStyleDeclaration;
+import org.w3c.dom.css.CSSStyleRule;
+
+/**
+ * An index over the style rules of a single style sheet. Every selector is
+ * filed in exactly one bucket according to the rightmost compound selector:
+ * by id if it has an id condition, otherwise by class if it has a class
+ * condition, otherwise by element type if it names one. Everything else goes
+ * in the universal bucket. Matching an element then only needs to test the
+ * selectors of the buckets for its id, classes and type.
+ */
+final class CSSRuleIndex {
+
+	/**
+	 * An indexed selector together with the declaration of its rule.
+	 */
+	static final class Entry {
+
+		final ExtendedSelector selector;
+		final CSSStyleDeclaration style;
+
+		/**
+		 * The position of the selector in the style sheet, used to return
+		 * candidates in document order.
+		 */
+		final int order;
+
+		Entry(ExtendedSelector selector, CSSStyleDeclaration style, int order) {
+			this.selector = selector;
+			this.style = style;
+			this.order = order;
+		}
+	}
+
+	private static final Comparator<Entry> ORDER_COMPARATOR = new Comparator<Entry>() {
+		public int compare(Entry entry1, Entry entry2) {
+			return entry1.order < entry2.order ? -1
+					: (entry1.order == entry2.order ? 0 : 1);
+		}
+	};
+
+	private final CSSRuleList ruleList;
+	private final int ruleCount;
+
+	private final Map<String, List<Entry>> idRules = new HashMap<String, List<Entry>>();
+	private final Map<String, List<Entry>> classRules = new HashMap<String, List<Entry>>();
+	private final Map<String, List<Entry>> typeRules = new HashMap<String, List<Entry>>();
+	private final List<Entry> universalRules = new ArrayList<Entry>();
+
+	CSSRuleIndex(CSSRuleList ruleList) {
+		this.ruleList = ruleList;
+		this.ruleCount = ruleList.getLength();
+		int order = 0;
+		for (int i = 0; i < ruleCount; i++) {
+			CSSRule rule = ruleList.item(i);
+			if (rule.getType() != CSSRule.STYLE_RULE
+					|| !(rule instanceof ExtendedCSSRule)) {
+				continue;
+			}
+			CSSStyleDeclaration style = ((CSSStyleRule) rule).getStyle();
+			SelectorList selectorList = ((ExtendedCSSRule) rule)
+					.getSelectorList();
+			int l = selectorList.getLength();
+			for (int j = 0; j < l; j++) {
+				Selector selector = selectorList.item(j);
+				if (selector instanceof ExtendedSelector) {
+					addEntry(new Entry((ExtendedSelector) selector, style,
+							order++));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if this index still reflects the given rule
+	 * list.
+	 */
+	boolean isIndexOf(CSSRuleList list) {
+		return list == ruleList && list.getLength() == ruleCount;
+	}
+
+	/**
+	 * Returns the entries whose selectors may match the given element, in
+	 * style sheet order. The selectors still have to be matched against the
+	 * element.
+	 */
+	List<Entry> getCandidates(Element elt) {
+		List<Entry> candidates = new ArrayList<Entry>();
+		int buckets = 0;
+
+		String id = (elt instanceof CSSStylableElement) ? ((CSSStylableElement) elt)
+				.getCSSId() : elt.getAttribute("id");
+		if (id != null) {
+			buckets += addAll(candidates, idRules.get(id));
+		}
+
+		if (!classRules.isEmpty()) {
+			String classes = (elt instanceof CSSStylableElement) ? ((CSSStylableElement) elt)
+					.getCSSClass() : elt.getAttribute("class");
+			if (classes != null && classes.length() > 0) {
+				List<String> seen = null;
+				int length = classes.length();
+				int start = 0;
+				while (start < length) {
+					while (start < length
+							&& Character.isSpaceChar(classes.charAt(start))) {
+						start++;
+					}
+					int end = start;
+					while (end < length
+							&& !Character.isSpaceChar(classes.charAt(end))) {
+						end++;
+					}
+					if (end > start) {
+						String className = classes.substring(start, end);
+						List<Entry> entries = classRules.get(className);
+						if (entries != null) {
+							if (seen == null) {
+								seen = new ArrayList<String>(2);
+							}
+							if (!seen.contains(className)) {
+								seen.add(className);
+								buckets += addAll(candidates, entries);
+							}
+						}
+					}
+					start = end;
+				}
+			}
+		}
+
+		String name = getElementName(elt);
+		if (name != null) {
+			buckets += addAll(candidates, typeRules.get(name));
+		}
+
+		buckets += addAll(candidates, universalRules);
+
+		if (buckets > 1) {
+			Collections.sort(candidates, ORDER_COMPARATOR);
+		}
+		return candidates;
+	}
+
+	private static int addAll(List<Entry> candidates, List<Entry> entries) {
+		if (entries == null || entries.isEmpty()) {
+			return 0;
+		}
+		candidates.addAll(entries);
+		return 1;
+	}
+
+	private void addEntry(Entry entry) {
+		Selector selector = getRightmostSelector(entry.selector);
+		if (selector instanceof CSSConditionalSelectorImpl) {
+			CSSConditionalSelectorImpl conditional = (CSSConditionalSelectorImpl) selector;
+			String id = findIdCondition(conditional.getCondition());
+			if (id != null) {
+				add(idRules, id, entry);
+				return;
+			}
+			String className = findClassCondition(conditional.getCondition());
+			if (className != null) {
+				add(classRules, className, entry);
+				return;
+			}
+			selector = conditional.getSimpleSelector();
+		}
+		if (selector instanceof CSSElementSelectorImpl) {
+			String name = ((CSSElementSelectorImpl) selector).getLocalName();
+			if (name != null) {
+				add(typeRules, name, entry);
+				return;
+			}
+		}
+		universalRules.add(entry);
+	}
+
+	private static void add(Map<String, List<Entry>> rules, String key,
+			Entry entry) {
+		List<Entry> entries = rules.get(key);
+		if (entries == null) {
+			entries = new ArrayList<Entry>(2);
+			rules.put(key, entries);
+		}
+		entries.add(entry);
+	}
+
+	/**
+	 * Returns the selector that has to match the element itself, that is the
+	 * rightmost part of a descendant, child or sibling selector.
+	 */
+	private static Selector getRightmostSelector(Selector selector) {
+		while (true) {
+			if (selector instanceof DescendantSelector) {
+				selector = ((DescendantSelector) selector).getSimpleSelector();
+			} else if (selector instanceof SiblingSelector) {
+				selector = ((SiblingSelector) selector).getSiblingSelector();
+			} else {
+				return selector;
+			}
+		}
+	}
+
+	private static String findIdCondition(Condition condition) {
+		if (condition instanceof CSSIdConditionImpl) {
+			return ((CSSIdConditionImpl) condition).getValue();
+		}
+		if (condition.getConditionType() == Condition.SAC_AND_CONDITION) {
+			CombinatorCondition and = (CombinatorCondition) condition;
+			String id = findIdCondition(and.getFirstCondition());
+			return id != null ? id : findIdCondition(and.getSecondCondition());
+		}
+		return null;
+	}
+
+	private static String findClassCondition(Condition condition) {
+		if (condition instanceof CSSClassConditionImpl) {
+			String value = ((CSSClassConditionImpl) condition).getValue();
+			// a class condition with white space can never be found by
+			// splitting the element's class attribute
+			if (value == null || value.length() == 0) {
+				return null;
+			}
+			for (int i = 0; i < value.length(); i++) {
+				if (Character.isSpaceChar(value.charAt(i))) {
+					return null;
+				}
+			}
+			return value;
+		}
+		if (condition.getConditionType() == Condition.SAC_AND_CONDITION) {
+			CombinatorCondition and = (CombinatorCondition) condition;
+			String className = findClassCondition(and.getFirstCondition());
+			return className != null ? className : findClassCondition(and
+					.getSecondCondition());
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the name that {@link CSSElementSelectorImpl} compares against.
+	 */
+	private static String getElementName(Element elt) {
+		return elt.getPrefix() == null ? elt.getNodeName() : elt.getLocalName();
+	}
+}
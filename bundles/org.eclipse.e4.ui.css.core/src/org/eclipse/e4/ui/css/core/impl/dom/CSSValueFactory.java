@@ -35,4 +35,18 @@ public class CSSValueFactory {
 		return new Measure(value);
 	}
 
+	/**
+	 * Return the lexical unit a value was created from, or <code>null</code>
+	 * if the value was not created by this factory.
+	 */
+	public static LexicalUnit getLexicalUnit(CSSValue value) {
+		if (value instanceof Measure)
+			return ((Measure) value).value;
+		if (value instanceof RGBColorImpl)
+			return ((RGBColorImpl) value).lexicalUnit;
+		if (value instanceof CSSValueListImpl)
+			return ((CSSValueListImpl) value).lexicalUnit;
+		return null;
+	}
+
 }
@@ -21,8 +21,11 @@ import org.w3c.dom.css.CSSValueList;
 public class CSSValueListImpl extends AbstractCSSNode implements CSSValueList {
 
 	List<CSSValue> values;
+
+	LexicalUnit lexicalUnit;
 	
 	public CSSValueListImpl(LexicalUnit parsePropertyValue) {
+		lexicalUnit = parsePropertyValue;
 		values = new ArrayList<CSSValue>();
 		
 		LexicalUnit unit = parsePropertyValue;
@@ -14,6 +14,7 @@ package org.eclipse.e4.ui.css.core.impl.dom;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import org.eclipse.e4.ui.css.core.dom.ExtendedCSSRule;
@@ -41,6 +42,11 @@ public class DocumentCSSImpl implements ExtendedDocumentCSS {
 	 */
 	private Map styleDeclarationMap = null;
 
+	/**
+	 * key=style sheet, value = {@link CSSRuleIndex} of its rules
+	 */
+	private Map<CSSStyleSheet, CSSRuleIndex> ruleIndexMap = null;
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.w3c.dom.stylesheets.DocumentStyle#getStyleSheets()
@@ -63,6 +69,7 @@ public class DocumentCSSImpl implements ExtendedDocumentCSS {
 	 */
 	public void addStyleSheet(StyleSheet styleSheet) {
 		styleSheetList.addStyleSheet(styleSheet);
+		this.ruleIndexMap = null;
 	}
 
 	/*
@@ -72,6 +79,42 @@ public class DocumentCSSImpl implements ExtendedDocumentCSS {
 	public void removeAllStyleSheets() {
 		styleSheetList.removeAllStyleSheets();
 		this.styleDeclarationMap = null;
+		this.ruleIndexMap = null;
+	}
+
+	/**
+	 * Return the rule index of the given style sheet, building it on first
+	 * access. Returns <code>null</code> if the style sheet is not part of this
+	 * document.
+	 */
+	CSSRuleIndex getRuleIndex(CSSStyleSheet styleSheet) {
+		CSSRuleList ruleList = styleSheet.getCssRules();
+		if (ruleList == null) {
+			return null;
+		}
+		if (ruleIndexMap == null) {
+			ruleIndexMap = new IdentityHashMap<CSSStyleSheet, CSSRuleIndex>();
+		}
+		CSSRuleIndex index = ruleIndexMap.get(styleSheet);
+		if (index != null && index.isIndexOf(ruleList)) {
+			return index;
+		}
+		if (index == null && !containsStyleSheet(styleSheet)) {
+			return null;
+		}
+		index = new CSSRuleIndex(ruleList);
+		ruleIndexMap.put(styleSheet, index);
+		return index;
+	}
+
+	private boolean containsStyleSheet(StyleSheet styleSheet) {
+		int l = styleSheetList.getLength();
+		for (int i = 0; i < l; i++) {
+			if (styleSheetList.item(i) == styleSheet) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	public List queryConditionSelector(int conditionType) {
@@ -22,8 +22,11 @@ public class RGBColorImpl extends CSSValueImpl implements RGBColor {
 	private CSSPrimitiveValue red;
 	private CSSPrimitiveValue green;
 	private CSSPrimitiveValue blue;
+
+	LexicalUnit lexicalUnit;
 	
 	public RGBColorImpl(LexicalUnit lexicalUnit) {
+		this.lexicalUnit = lexicalUnit;
 		LexicalUnit nextUnit = lexicalUnit.getParameters();
 		red = new Measure(nextUnit);
 		nextUnit = nextUnit.getNextLexicalUnit().getNextLexicalUnit();
@@ -70,6 +70,13 @@ public class ViewCSSImpl implements ViewCSS {
 	}
 
 	public CSSStyleDeclaration getComputedStyle(CSSStyleSheet styleSheet, Element elt, String pseudoElt) {
+		if (documentCSS instanceof DocumentCSSImpl) {
+			CSSRuleIndex index = ((DocumentCSSImpl) documentCSS)
+					.getRuleIndex(styleSheet);
+			if (index != null) {
+				return getComputedStyle(index, elt, pseudoElt);
+			}
+		}
 		List styleDeclarations = null;
 		StyleWrapper firstStyleDeclaration = null;
 		CSSRuleList ruleList = styleSheet.getCssRules();
@@ -128,4 +135,38 @@ public class ViewCSSImpl implements ViewCSS {
 		}
 		return null;
 	}
+
+	/**
+	 * Compute the style of the element by only matching the selectors that
+	 * the rule index returns as candidates. The candidates are in style sheet
+	 * order, so the resulting positions are the same as with a full scan.
+	 */
+	private CSSStyleDeclaration getComputedStyle(CSSRuleIndex index,
+			Element elt, String pseudoElt) {
+		List<StyleWrapper> styleDeclarations = null;
+		StyleWrapper firstStyleDeclaration = null;
+		int position = 0;
+		for (CSSRuleIndex.Entry entry : index.getCandidates(elt)) {
+			if (entry.selector.match(elt, pseudoElt)) {
+				StyleWrapper wrapper = new StyleWrapper(entry.style,
+						entry.selector.getSpecificity(), position++);
+				if (firstStyleDeclaration == null) {
+					firstStyleDeclaration = wrapper;
+				} else {
+					if (styleDeclarations == null) {
+						styleDeclarations = new ArrayList<StyleWrapper>();
+						styleDeclarations.add(firstStyleDeclaration);
+					}
+					styleDeclarations.add(wrapper);
+				}
+			}
+		}
+		if (styleDeclarations != null) {
+			return new CSSComputedStyleImpl(styleDeclarations);
+		}
+		if (firstStyleDeclaration != null) {
+			return firstStyleDeclaration.style;
+		}
+		return null;
+	}
 }
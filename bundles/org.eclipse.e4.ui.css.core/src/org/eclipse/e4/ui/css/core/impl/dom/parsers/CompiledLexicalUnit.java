@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.css.core.impl.dom.parsers;
+
+import org.w3c.css.sac.LexicalUnit;
+
+/**
+ * A {@link LexicalUnit} read back from a compiled style sheet. It only holds
+ * the values that the SAC parser provided for its type.
+ */
+final class CompiledLexicalUnit implements LexicalUnit {
+
+	private final short type;
+
+	int integerValue;
+	float floatValue;
+	String dimensionUnitText;
+	String stringValue;
+	String functionName;
+	LexicalUnit parameters;
+	LexicalUnit subValues;
+
+	private CompiledLexicalUnit next;
+	private CompiledLexicalUnit previous;
+
+	CompiledLexicalUnit(short type, CompiledLexicalUnit previous) {
+		this.type = type;
+		this.previous = previous;
+		if (previous != null) {
+			previous.next = this;
+		}
+	}
+
+	public short getLexicalUnitType() {
+		return type;
+	}
+
+	public LexicalUnit getNextLexicalUnit() {
+		return next;
+	}
+
+	public LexicalUnit getPreviousLexicalUnit() {
+		return previous;
+	}
+
+	public int getIntegerValue() {
+		return integerValue;
+	}
+
+	public float getFloatValue() {
+		return floatValue;
+	}
+
+	public String getDimensionUnitText() {
+		return dimensionUnitText;
+	}
+
+	public String getFunctionName() {
+		return functionName;
+	}
+
+	public LexicalUnit getParameters() {
+		return parameters;
+	}
+
+	public String getStringValue() {
+		return stringValue;
+	}
+
+	public LexicalUnit getSubValues() {
+		return subValues;
+	}
+}
@@ -0,0 +1,490 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.css.core.impl.dom.parsers;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.e4.ui.css.core.dom.CSSProperty;
+import org.eclipse.e4.ui.css.core.dom.CSSPropertyList;
+import org.eclipse.e4.ui.css.core.dom.ExtendedCSSRule;
+import org.eclipse.e4.ui.css.core.impl.dom.CSSPropertyImpl;
+import org.eclipse.e4.ui.css.core.impl.dom.CSSRuleListImpl;
+import org.eclipse.e4.ui.css.core.impl.dom.CSSStyleDeclarationImpl;
+import org.eclipse.e4.ui.css.core.impl.dom.CSSStyleRuleImpl;
+import org.eclipse.e4.ui.css.core.impl.dom.CSSStyleSheetImpl;
+import org.eclipse.e4.ui.css.core.impl.dom.CSSValueFactory;
+import org.w3c.css.sac.AttributeCondition;
+import org.w3c.css.sac.CombinatorCondition;
+import org.w3c.css.sac.Condition;
+import org.w3c.css.sac.ConditionFactory;
+import org.w3c.css.sac.ConditionalSelector;
+import org.w3c.css.sac.DescendantSelector;
+import org.w3c.css.sac.ElementSelector;
+import org.w3c.css.sac.LangCondition;
+import org.w3c.css.sac.LexicalUnit;
+import org.w3c.css.sac.Selector;
+import org.w3c.css.sac.SelectorFactory;
+import org.w3c.css.sac.SelectorList;
+import org.w3c.css.sac.SiblingSelector;
+import org.w3c.css.sac.SimpleSelector;
+import org.w3c.dom.css.CSSRule;
+import org.w3c.dom.css.CSSRuleList;
+import org.w3c.dom.css.CSSStyleDeclaration;
+import org.w3c.dom.css.CSSStyleSheet;
+
+/**
+ * Binary form of a parsed style sheet. The selectors and the lexical units of
+ * the property values are written as they were built by the SAC parser, so a
+ * style sheet can be read back without parsing its source again.
+ * <p>
+ * Only style sheets made of style rules can be written; any other rule, or a
+ * selector or value that the parser would not produce, makes
+ * {@link #write(CSSStyleSheet, DataOutputStream)} fail with an
+ * {@link IOException}.
+ * </p>
+ */
+public class CompiledStyleSheetFormat {
+
+	/**
+	 * Version of the format, to be incremented whenever it changes.
+	 */
+	public static final int VERSION = 1;
+
+	private CompiledStyleSheetFormat() {
+	}
+
+	/*--------------- Write -----------------*/
+
+	public static void write(CSSStyleSheet styleSheet, DataOutputStream out)
+			throws IOException {
+		CSSRuleList rules = styleSheet.getCssRules();
+		int length = rules.getLength();
+		out.writeInt(length);
+		for (int i = 0; i < length; i++) {
+			CSSRule rule = rules.item(i);
+			if (!(rule instanceof CSSStyleRuleImpl)) {
+				throw new IOException("Unsupported rule type: "
+						+ rule.getType());
+			}
+			writeSelectorList(((ExtendedCSSRule) rule).getSelectorList(), out);
+			writeStyle((CSSStyleDeclarationImpl) ((CSSStyleRuleImpl) rule)
+					.getStyle(), out);
+		}
+	}
+
+	private static void writeSelectorList(SelectorList selectors,
+			DataOutputStream out) throws IOException {
+		int length = selectors.getLength();
+		out.writeInt(length);
+		for (int i = 0; i < length; i++) {
+			writeSelector(selectors.item(i), out);
+		}
+	}
+
+	private static void writeSelector(Selector selector, DataOutputStream out)
+			throws IOException {
+		short type = selector.getSelectorType();
+		out.writeShort(type);
+		switch (type) {
+		case Selector.SAC_ELEMENT_NODE_SELECTOR:
+		case Selector.SAC_PSEUDO_ELEMENT_SELECTOR:
+			ElementSelector element = (ElementSelector) selector;
+			writeString(element.getNamespaceURI(), out);
+			writeString(element.getLocalName(), out);
+			break;
+		case Selector.SAC_CONDITIONAL_SELECTOR:
+			ConditionalSelector conditional = (ConditionalSelector) selector;
+			writeSelector(conditional.getSimpleSelector(), out);
+			writeCondition(conditional.getCondition(), out);
+			break;
+		case Selector.SAC_DESCENDANT_SELECTOR:
+		case Selector.SAC_CHILD_SELECTOR:
+			DescendantSelector descendant = (DescendantSelector) selector;
+			writeSelector(descendant.getAncestorSelector(), out);
+			writeSelector(descendant.getSimpleSelector(), out);
+			break;
+		case Selector.SAC_DIRECT_ADJACENT_SELECTOR:
+			SiblingSelector sibling = (SiblingSelector) selector;
+			out.writeShort(sibling.getNodeType());
+			writeSelector(sibling.getSelector(), out);
+			writeSelector(sibling.getSiblingSelector(), out);
+			break;
+		default:
+			throw new IOException("Unsupported selector type: " + type);
+		}
+	}
+
+	private static void writeCondition(Condition condition,
+			DataOutputStream out) throws IOException {
+		short type = condition.getConditionType();
+		out.writeShort(type);
+		switch (type) {
+		case Condition.SAC_AND_CONDITION:
+			CombinatorCondition and = (CombinatorCondition) condition;
+			writeCondition(and.getFirstCondition(), out);
+			writeCondition(and.getSecondCondition(), out);
+			break;
+		case Condition.SAC_ATTRIBUTE_CONDITION:
+		case Condition.SAC_ONE_OF_ATTRIBUTE_CONDITION:
+		case Condition.SAC_BEGIN_HYPHEN_ATTRIBUTE_CONDITION:
+		case Condition.SAC_ID_CONDITION:
+		case Condition.SAC_CLASS_CONDITION:
+		case Condition.SAC_PSEUDO_CLASS_CONDITION:
+			AttributeCondition attribute = (AttributeCondition) condition;
+			writeString(attribute.getNamespaceURI(), out);
+			writeString(attribute.getLocalName(), out);
+			out.writeBoolean(attribute.getSpecified());
+			writeString(attribute.getValue(), out);
+			break;
+		case Condition.SAC_LANG_CONDITION:
+			writeString(((LangCondition) condition).getLang(), out);
+			break;
+		default:
+			throw new IOException("Unsupported condition type: " + type);
+		}
+	}
+
+	private static void writeStyle(CSSStyleDeclarationImpl style,
+			DataOutputStream out) throws IOException {
+		CSSPropertyList properties = style.getCSSPropertyList();
+		int length = properties.getLength();
+		out.writeInt(length);
+		for (int i = 0; i < length; i++) {
+			CSSProperty property = properties.item(i);
+			out.writeUTF(property.getName());
+			out.writeBoolean(property.isImportant());
+			LexicalUnit value = CSSValueFactory.getLexicalUnit(property
+					.getValue());
+			if (value == null) {
+				throw new IOException("Unsupported value for property "
+						+ property.getName());
+			}
+			writeLexicalUnits(value, out);
+		}
+	}
+
+	/**
+	 * Write the lexical unit and the units following it.
+	 */
+	private static void writeLexicalUnits(LexicalUnit unit,
+			DataOutputStream out) throws IOException {
+		while (unit != null) {
+			out.writeBoolean(true);
+			writeLexicalUnit(unit, out);
+			unit = unit.getNextLexicalUnit();
+		}
+		out.writeBoolean(false);
+	}
+
+	private static void writeLexicalUnit(LexicalUnit unit,
+			DataOutputStream out) throws IOException {
+		short type = unit.getLexicalUnitType();
+		out.writeShort(type);
+		switch (type) {
+		case LexicalUnit.SAC_OPERATOR_COMMA:
+		case LexicalUnit.SAC_OPERATOR_PLUS:
+		case LexicalUnit.SAC_OPERATOR_MINUS:
+		case LexicalUnit.SAC_OPERATOR_MULTIPLY:
+		case LexicalUnit.SAC_OPERATOR_SLASH:
+		case LexicalUnit.SAC_OPERATOR_MOD:
+		case LexicalUnit.SAC_OPERATOR_EXP:
+		case LexicalUnit.SAC_OPERATOR_LT:
+		case LexicalUnit.SAC_OPERATOR_GT:
+		case LexicalUnit.SAC_OPERATOR_LE:
+		case LexicalUnit.SAC_OPERATOR_GE:
+		case LexicalUnit.SAC_OPERATOR_TILDE:
+		case LexicalUnit.SAC_INHERIT:
+			break;
+		case LexicalUnit.SAC_INTEGER:
+			out.writeInt(unit.getIntegerValue());
+			break;
+		case LexicalUnit.SAC_REAL:
+		case LexicalUnit.SAC_PERCENTAGE:
+		case LexicalUnit.SAC_EM:
+		case LexicalUnit.SAC_EX:
+		case LexicalUnit.SAC_PIXEL:
+		case LexicalUnit.SAC_INCH:
+		case LexicalUnit.SAC_CENTIMETER:
+		case LexicalUnit.SAC_MILLIMETER:
+		case LexicalUnit.SAC_POINT:
+		case LexicalUnit.SAC_PICA:
+		case LexicalUnit.SAC_DEGREE:
+		case LexicalUnit.SAC_GRADIAN:
+		case LexicalUnit.SAC_RADIAN:
+		case LexicalUnit.SAC_MILLISECOND:
+		case LexicalUnit.SAC_SECOND:
+		case LexicalUnit.SAC_HERTZ:
+		case LexicalUnit.SAC_KILOHERTZ:
+		case LexicalUnit.SAC_DIMENSION:
+			out.writeFloat(unit.getFloatValue());
+			writeString(unit.getDimensionUnitText(), out);
+			break;
+		case LexicalUnit.SAC_URI:
+		case LexicalUnit.SAC_IDENT:
+		case LexicalUnit.SAC_STRING_VALUE:
+		case LexicalUnit.SAC_ATTR:
+		case LexicalUnit.SAC_UNICODERANGE:
+			writeString(unit.getStringValue(), out);
+			break;
+		case LexicalUnit.SAC_RGBCOLOR:
+		case LexicalUnit.SAC_COUNTER_FUNCTION:
+		case LexicalUnit.SAC_COUNTERS_FUNCTION:
+		case LexicalUnit.SAC_RECT_FUNCTION:
+		case LexicalUnit.SAC_FUNCTION:
+			writeString(unit.getFunctionName(), out);
+			writeLexicalUnits(unit.getParameters(), out);
+			break;
+		case LexicalUnit.SAC_SUB_EXPRESSION:
+			writeLexicalUnits(unit.getSubValues(), out);
+			break;
+		default:
+			throw new IOException("Unsupported lexical unit type: " + type);
+		}
+	}
+
+	private static void writeString(String value, DataOutputStream out)
+			throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	/*--------------- Read -----------------*/
+
+	/**
+	 * Read a style sheet written by
+	 * {@link #write(CSSStyleSheet, DataOutputStream)}, building its selectors
+	 * with the given factories.
+	 */
+	public static CSSStyleSheet read(DataInputStream in,
+			SelectorFactory selectorFactory, ConditionFactory conditionFactory)
+			throws IOException {
+		CSSStyleSheetImpl styleSheet = new CSSStyleSheetImpl();
+		CSSRuleListImpl rules = new CSSRuleListImpl();
+		int length = in.readInt();
+		for (int i = 0; i < length; i++) {
+			CompiledSelectorList selectors = new CompiledSelectorList();
+			int selectorCount = in.readInt();
+			for (int j = 0; j < selectorCount; j++) {
+				selectors.add(readSelector(in, selectorFactory,
+						conditionFactory));
+			}
+			CSSStyleRuleImpl rule = new CSSStyleRuleImpl(styleSheet, null,
+					selectors);
+			CSSStyleDeclarationImpl style = new CSSStyleDeclarationImpl(rule);
+			readStyle(style, in);
+			rule.setStyle(style);
+			rules.add(rule);
+		}
+		styleSheet.setRuleList(rules);
+		return styleSheet;
+	}
+
+	private static Selector readSelector(DataInputStream in,
+			SelectorFactory selectorFactory, ConditionFactory conditionFactory)
+			throws IOException {
+		short type = in.readShort();
+		switch (type) {
+		case Selector.SAC_ELEMENT_NODE_SELECTOR:
+			return selectorFactory.createElementSelector(readString(in),
+					readString(in));
+		case Selector.SAC_PSEUDO_ELEMENT_SELECTOR:
+			return selectorFactory.createPseudoElementSelector(readString(in),
+					readString(in));
+		case Selector.SAC_CONDITIONAL_SELECTOR:
+			SimpleSelector simple = (SimpleSelector) readSelector(in,
+					selectorFactory, conditionFactory);
+			return selectorFactory.createConditionalSelector(simple,
+					readCondition(in, conditionFactory));
+		case Selector.SAC_DESCENDANT_SELECTOR:
+			Selector ancestor = readSelector(in, selectorFactory,
+					conditionFactory);
+			return selectorFactory.createDescendantSelector(ancestor,
+					(SimpleSelector) readSelector(in, selectorFactory,
+							conditionFactory));
+		case Selector.SAC_CHILD_SELECTOR:
+			Selector parent = readSelector(in, selectorFactory,
+					conditionFactory);
+			return selectorFactory.createChildSelector(parent,
+					(SimpleSelector) readSelector(in, selectorFactory,
+							conditionFactory));
+		case Selector.SAC_DIRECT_ADJACENT_SELECTOR:
+			short nodeType = in.readShort();
+			Selector child = readSelector(in, selectorFactory,
+					conditionFactory);
+			return selectorFactory.createDirectAdjacentSelector(nodeType,
+					child, (SimpleSelector) readSelector(in, selectorFactory,
+							conditionFactory));
+		default:
+			throw new IOException("Unsupported selector type: " + type);
+		}
+	}
+
+	private static Condition readCondition(DataInputStream in,
+			ConditionFactory conditionFactory) throws IOException {
+		short type = in.readShort();
+		if (type == Condition.SAC_AND_CONDITION) {
+			Condition first = readCondition(in, conditionFactory);
+			return conditionFactory.createAndCondition(first,
+					readCondition(in, conditionFactory));
+		}
+		if (type == Condition.SAC_LANG_CONDITION) {
+			return conditionFactory.createLangCondition(readString(in));
+		}
+		String namespaceURI = readString(in);
+		String localName = readString(in);
+		boolean specified = in.readBoolean();
+		String value = readString(in);
+		switch (type) {
+		case Condition.SAC_ATTRIBUTE_CONDITION:
+			return conditionFactory.createAttributeCondition(localName,
+					namespaceURI, specified, value);
+		case Condition.SAC_ONE_OF_ATTRIBUTE_CONDITION:
+			return conditionFactory.createOneOfAttributeCondition(localName,
+					namespaceURI, specified, value);
+		case Condition.SAC_BEGIN_HYPHEN_ATTRIBUTE_CONDITION:
+			return conditionFactory.createBeginHyphenAttributeCondition(
+					localName, namespaceURI, specified, value);
+		case Condition.SAC_ID_CONDITION:
+			return conditionFactory.createIdCondition(value);
+		case Condition.SAC_CLASS_CONDITION:
+			return conditionFactory.createClassCondition(namespaceURI, value);
+		case Condition.SAC_PSEUDO_CLASS_CONDITION:
+			return conditionFactory.createPseudoClassCondition(namespaceURI,
+					value);
+		default:
+			throw new IOException("Unsupported condition type: " + type);
+		}
+	}
+
+	private static void readStyle(CSSStyleDeclarationImpl style,
+			DataInputStream in) throws IOException {
+		int length = in.readInt();
+		for (int i = 0; i < length; i++) {
+			String name = in.readUTF();
+			boolean important = in.readBoolean();
+			LexicalUnit value = readLexicalUnits(in);
+			if (value == null) {
+				throw new IOException("Missing value for property " + name);
+			}
+			style.addProperty(new CSSPropertyImpl(name, CSSValueFactory
+					.newValue(value), important));
+		}
+	}
+
+	/**
+	 * Read a chain of lexical units and return its first unit.
+	 */
+	private static LexicalUnit readLexicalUnits(DataInputStream in)
+			throws IOException {
+		CompiledLexicalUnit first = null;
+		CompiledLexicalUnit previous = null;
+		while (in.readBoolean()) {
+			previous = readLexicalUnit(in, previous);
+			if (first == null) {
+				first = previous;
+			}
+		}
+		return first;
+	}
+
+	private static CompiledLexicalUnit readLexicalUnit(DataInputStream in,
+			CompiledLexicalUnit previous) throws IOException {
+		short type = in.readShort();
+		CompiledLexicalUnit unit = new CompiledLexicalUnit(type, previous);
+		switch (type) {
+		case LexicalUnit.SAC_OPERATOR_COMMA:
+		case LexicalUnit.SAC_OPERATOR_PLUS:
+		case LexicalUnit.SAC_OPERATOR_MINUS:
+		case LexicalUnit.SAC_OPERATOR_MULTIPLY:
+		case LexicalUnit.SAC_OPERATOR_SLASH:
+		case LexicalUnit.SAC_OPERATOR_MOD:
+		case LexicalUnit.SAC_OPERATOR_EXP:
+		case LexicalUnit.SAC_OPERATOR_LT:
+		case LexicalUnit.SAC_OPERATOR_GT:
+		case LexicalUnit.SAC_OPERATOR_LE:
+		case LexicalUnit.SAC_OPERATOR_GE:
+		case LexicalUnit.SAC_OPERATOR_TILDE:
+		case LexicalUnit.SAC_INHERIT:
+			break;
+		case LexicalUnit.SAC_INTEGER:
+			unit.integerValue = in.readInt();
+			break;
+		case LexicalUnit.SAC_REAL:
+		case LexicalUnit.SAC_PERCENTAGE:
+		case LexicalUnit.SAC_EM:
+		case LexicalUnit.SAC_EX:
+		case LexicalUnit.SAC_PIXEL:
+		case LexicalUnit.SAC_INCH:
+		case LexicalUnit.SAC_CENTIMETER:
+		case LexicalUnit.SAC_MILLIMETER:
+		case LexicalUnit.SAC_POINT:
+		case LexicalUnit.SAC_PICA:
+		case LexicalUnit.SAC_DEGREE:
+		case LexicalUnit.SAC_GRADIAN:
+		case LexicalUnit.SAC_RADIAN:
+		case LexicalUnit.SAC_MILLISECOND:
+		case LexicalUnit.SAC_SECOND:
+		case LexicalUnit.SAC_HERTZ:
+		case LexicalUnit.SAC_KILOHERTZ:
+		case LexicalUnit.SAC_DIMENSION:
+			unit.floatValue = in.readFloat();
+			unit.dimensionUnitText = readString(in);
+			break;
+		case LexicalUnit.SAC_URI:
+		case LexicalUnit.SAC_IDENT:
+		case LexicalUnit.SAC_STRING_VALUE:
+		case LexicalUnit.SAC_ATTR:
+		case LexicalUnit.SAC_UNICODERANGE:
+			unit.stringValue = readString(in);
+			break;
+		case LexicalUnit.SAC_RGBCOLOR:
+		case LexicalUnit.SAC_COUNTER_FUNCTION:
+		case LexicalUnit.SAC_COUNTERS_FUNCTION:
+		case LexicalUnit.SAC_RECT_FUNCTION:
+		case LexicalUnit.SAC_FUNCTION:
+			unit.functionName = readString(in);
+			unit.parameters = readLexicalUnits(in);
+			break;
+		case LexicalUnit.SAC_SUB_EXPRESSION:
+			unit.subValues = readLexicalUnits(in);
+			break;
+		default:
+			throw new IOException("Unsupported lexical unit type: " + type);
+		}
+		return unit;
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static class CompiledSelectorList implements SelectorList {
+
+		private final List<Selector> selectors = new ArrayList<Selector>(1);
+
+		void add(Selector selector) {
+			selectors.add(selector);
+		}
+
+		public int getLength() {
+			return selectors.size();
+		}
+
+		public Selector item(int index) {
+			return index < selectors.size() ? selectors.get(index) : null;
+		}
+	}
+}
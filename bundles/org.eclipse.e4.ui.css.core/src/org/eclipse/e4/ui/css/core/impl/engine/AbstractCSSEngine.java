@@ -13,6 +13,7 @@
  *******************************************************************************/
 package org.eclipse.e4.ui.css.core.impl.engine;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -49,6 +50,7 @@ import org.eclipse.e4.ui.css.core.impl.dom.CSSRuleListImpl;
 import org.eclipse.e4.ui.css.core.impl.dom.CSSStyleSheetImpl;
 import org.eclipse.e4.ui.css.core.impl.dom.DocumentCSSImpl;
 import org.eclipse.e4.ui.css.core.impl.dom.ViewCSSImpl;
+import org.eclipse.e4.ui.css.core.impl.sac.CSSSelectorFactoryImpl;
 import org.eclipse.e4.ui.css.core.impl.sac.ExtendedSelector;
 import org.eclipse.e4.ui.css.core.resources.CSSResourcesHelpers;
 import org.eclipse.e4.ui.css.core.resources.IResourcesRegistry;
@@ -57,9 +59,11 @@ import org.eclipse.e4.ui.css.core.util.resources.IResourcesLocatorManager;
 import org.eclipse.e4.ui.css.core.utils.StringUtils;
 import org.w3c.css.sac.AttributeCondition;
 import org.w3c.css.sac.Condition;
+import org.w3c.css.sac.ConditionFactory;
 import org.w3c.css.sac.ConditionalSelector;
 import org.w3c.css.sac.InputSource;
 import org.w3c.css.sac.Selector;
+import org.w3c.css.sac.SelectorFactory;
 import org.w3c.css.sac.SelectorList;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
@@ -136,6 +140,28 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 	protected HashMap widgetsMap = new HashMap();
 	
 	private boolean parseImport;
+
+	/**
+	 * Computed styles shared between elements with the same signature, or
+	 * <code>null</code> if style sharing is disabled.
+	 */
+	private SharedStyleCache sharedStyleCache;
+
+	private boolean appliedValueMemoEnabled;
+
+	private int skippedPropertyApplications;
+
+	/**
+	 * Compiled style sheets, or <code>null</code> if style sheets are always
+	 * parsed.
+	 */
+	private StyleSheetCache styleSheetCache;
+
+	/**
+	 * The style sheets imported by the style sheet being parsed, recorded to
+	 * validate its compiled form.
+	 */
+	private List<URL> importedStyleSheets;
 	
 	public AbstractCSSEngine() {
 		this(new DocumentCSSImpl());
@@ -179,6 +205,20 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 		// Check that CharacterStream or ByteStream is not null
 		checkInputSource(source);
 		CSSParser parser = makeCSSParser();
+		byte[] content = null;
+		if (styleSheetCache != null && !parseImport && source.getURI() != null
+				&& source.getCharacterStream() == null) {
+			content = StyleSheetCache.readContent(source.getByteStream());
+			source.setByteStream(new ByteArrayInputStream(content));
+			CSSStyleSheet compiledStyleSheet = styleSheetCache.load(source
+					.getURI(), content, getSelectorFactory(parser),
+					getConditionFactory(parser));
+			if (compiledStyleSheet != null) {
+				addStyleSheet(compiledStyleSheet);
+				return compiledStyleSheet;
+			}
+			importedStyleSheets = new ArrayList<URL>();
+		}
 		CSSStyleSheet styleSheet = parser.parseStyleSheet(source);
 		
 		CSSRuleList rules = styleSheet.getCssRules();
@@ -203,6 +243,9 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 		    		url = new URL(path);
 		    	}
 		    }
+			if (importedStyleSheets != null) {
+				importedStyleSheets.add(url);
+			}
 			InputStream stream = null;
 			try {
 				stream = url.openStream();
@@ -232,11 +275,71 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 		CSSStyleSheetImpl s = new CSSStyleSheetImpl();
 		s.setRuleList(masterList);
 		if (!parseImport) {
-			documentCSS.addStyleSheet(s);
+			addStyleSheet(s);
+			if (content != null) {
+				styleSheetCache.store(source.getURI(), content,
+						importedStyleSheets, s);
+				importedStyleSheets = null;
+			}
 		}
 		return s;
 	}
 
+	private void addStyleSheet(CSSStyleSheet styleSheet) {
+		documentCSS.addStyleSheet(styleSheet);
+		if (sharedStyleCache != null) {
+			sharedStyleCache.clear();
+		}
+	}
+
+	private static SelectorFactory getSelectorFactory(CSSParser parser) {
+		SelectorFactory selectorFactory = parser.getSelectorFactory();
+		return selectorFactory != null ? selectorFactory
+				: CSSSelectorFactoryImpl.INSTANCE;
+	}
+
+	private static ConditionFactory getConditionFactory(CSSParser parser) {
+		ConditionFactory conditionFactory = parser.getConditionFactory();
+		return conditionFactory != null ? conditionFactory
+				: CSSEngineImpl.CONDITIONFACTORY_INSTANCE;
+	}
+
+	/**
+	 * Set the directory where the compiled form of the parsed style sheets is
+	 * kept. A style sheet parsed from an {@link InputSource} with a URI and a
+	 * byte stream is read back from its compiled form instead of being parsed
+	 * again, as long as its content and the style sheets it imports did not
+	 * change.
+	 * 
+	 * @param directory
+	 *            the cache directory, or <code>null</code> to always parse
+	 *            style sheets
+	 */
+	public void setStyleSheetCacheLocation(File directory) {
+		styleSheetCache = directory != null ? new StyleSheetCache(directory)
+				: null;
+	}
+
+	public File getStyleSheetCacheLocation() {
+		return styleSheetCache != null ? styleSheetCache.getDirectory() : null;
+	}
+
+	/**
+	 * Return the number of style sheets that were read back from their
+	 * compiled form since the cache location was set.
+	 */
+	public int getStyleSheetCacheHits() {
+		return styleSheetCache != null ? styleSheetCache.getHits() : 0;
+	}
+
+	/**
+	 * Return the number of style sheets that had to be parsed because they
+	 * had no up to date compiled form since the cache location was set.
+	 */
+	public int getStyleSheetCacheMisses() {
+		return styleSheetCache != null ? styleSheetCache.getMisses() : 0;
+	}
+
 	/**
 	 * Return true if <code>source</code> is valid and false otherwise.
 	 * 
@@ -425,7 +528,7 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 			/*
 			 * Compute new Style to apply.
 			 */
-			CSSStyleDeclaration style = viewCSS.getComputedStyle(elt, null);
+			CSSStyleDeclaration style = getComputedStyle(elt, null);
 			if (computeDefaultStyle) {
 				if (applyStylesToChildNodes)
 					this.computeDefaultStyle = computeDefaultStyle;
@@ -444,8 +547,8 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 				// apply styles for each pseudo instance.
 				for (int i = 0; i < pseudoInstances.length; i++) {
 					String pseudoInstance = pseudoInstances[i];
-					CSSStyleDeclaration styleWithPseudoInstance = viewCSS
-							.getComputedStyle(elt, pseudoInstance);
+					CSSStyleDeclaration styleWithPseudoInstance = getComputedStyle(
+							elt, pseudoInstance);
 					if (computeDefaultStyle) {
 						/*
 						 * Apply default style for the current pseudo instance.
@@ -494,6 +597,130 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 
 	}
 	
+	/**
+	 * Return the computed style of the element, shared with the elements of
+	 * the same signature if the shared style cache is enabled.
+	 */
+	private CSSStyleDeclaration getComputedStyle(Element elt, String pseudoElt) {
+		if (sharedStyleCache != null) {
+			return sharedStyleCache.getComputedStyle(viewCSS, documentCSS,
+					elt, pseudoElt);
+		}
+		return viewCSS.getComputedStyle(elt, pseudoElt);
+	}
+
+	/**
+	 * Enable or disable the sharing of computed styles between elements with
+	 * the same local name, id, CSS classes, pseudo state and ancestors. Style
+	 * sharing is disabled by default.
+	 * 
+	 * @param enabled
+	 *            <code>true</code> to share computed styles
+	 */
+	public void setSharedStyleCacheEnabled(boolean enabled) {
+		if (enabled && sharedStyleCache == null) {
+			sharedStyleCache = new SharedStyleCache();
+		} else if (!enabled) {
+			sharedStyleCache = null;
+		}
+	}
+
+	public boolean isSharedStyleCacheEnabled() {
+		return sharedStyleCache != null;
+	}
+
+	/**
+	 * Return the number of computed styles that were reused from the shared
+	 * style cache since it was enabled or its statistics were reset.
+	 */
+	public int getSharedStyleCacheHits() {
+		return sharedStyleCache != null ? sharedStyleCache.getHits() : 0;
+	}
+
+	/**
+	 * Return the number of computed styles that had to be computed because
+	 * the shared style cache had no style for the element's signature.
+	 */
+	public int getSharedStyleCacheMisses() {
+		return sharedStyleCache != null ? sharedStyleCache.getMisses() : 0;
+	}
+
+	public void resetSharedStyleCacheStatistics() {
+		if (sharedStyleCache != null) {
+			sharedStyleCache.resetCounters();
+		}
+	}
+
+	/**
+	 * Enable or disable the memo of the values applied to each element. When
+	 * enabled, a property whose value is the one last applied to the element
+	 * for the same pseudo instance is not applied again, which avoids
+	 * redundant calls to the widget setters. The memo is disabled by default
+	 * since it cannot see changes made to the widgets outside of the engine.
+	 * The properties applied by an {@link ICSSPropertyHandler2} are always
+	 * applied, as such handlers combine them and may keep updating the widget
+	 * on their own, like the font handler does for the items of a
+	 * <code>CTabFolder</code>.
+	 * 
+	 * @param enabled
+	 *            <code>true</code> to skip properties whose value did not
+	 *            change
+	 */
+	public void setAppliedValueMemoEnabled(boolean enabled) {
+		appliedValueMemoEnabled = enabled;
+		if (!enabled && elementsContext != null) {
+			for (CSSElementContext elementContext : elementsContext.values()) {
+				if (elementContext instanceof CSSElementContextImpl) {
+					((CSSElementContextImpl) elementContext).clearAppliedValues();
+				}
+			}
+		}
+	}
+
+	public boolean isAppliedValueMemoEnabled() {
+		return appliedValueMemoEnabled;
+	}
+
+	/**
+	 * Return the number of property applications that were skipped because
+	 * the value was already applied to the element, since the memo was
+	 * enabled or its statistics were reset.
+	 */
+	public int getSkippedPropertyApplications() {
+		return skippedPropertyApplications;
+	}
+
+	public void resetAppliedValueMemoStatistics() {
+		skippedPropertyApplications = 0;
+	}
+
+	/**
+	 * Return the memo of the values applied to the element, or
+	 * <code>null</code> if the memo is disabled.
+	 */
+	private CSSElementContextImpl getAppliedValueMemo(Object element) {
+		if (!appliedValueMemoEnabled) {
+			return null;
+		}
+		CSSElementContext elementContext = getCSSElementContext(element);
+		return elementContext instanceof CSSElementContextImpl ? (CSSElementContextImpl) elementContext
+				: null;
+	}
+
+	/**
+	 * Return the text under which the value is memoized, or <code>null</code>
+	 * if the value must always be applied.
+	 */
+	private static String getMemoizedText(CSSValue value) {
+		String cssText = value != null ? value.getCssText() : null;
+		if (cssText == null || cssText.indexOf("url(") != -1) {
+			// relative URLs resolve differently when the resource locators
+			// change
+			return null;
+		}
+		return cssText;
+	}
+
 	private void applyConditionalPseudoStyle(ExtendedCSSRule parentRule, String pseudoInstance, Object element, CSSStyleDeclaration styleWithPseudoInstance) {
 		SelectorList selectorList = parentRule.getSelectorList();
 		for (int j = 0; j < selectorList.getLength(); j++) {
@@ -557,15 +784,7 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 			try {
 				ICSSPropertyHandler handler = this.applyCSSProperty(element,
 						property, value, pseudo);
-				ICSSPropertyHandler2 propertyHandler2 = null;
-				if (handler instanceof ICSSPropertyHandler2) {
-					propertyHandler2 = (ICSSPropertyHandler2) handler;
-				} else {
-					if (handler instanceof ICSSPropertyHandler2Delegate) {
-						propertyHandler2 = ((ICSSPropertyHandler2Delegate) handler)
-								.getCSSPropertyHandler2();
-					}
-				}
+				ICSSPropertyHandler2 propertyHandler2 = getCSSPropertyHandler2(handler);
 				if (propertyHandler2 != null) {
 					if (handlers2 == null)
 						handlers2 = new ArrayList<ICSSPropertyHandler2>();
@@ -775,6 +994,23 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 		}
 
 		element = getElement(element); // in case we're passed a node
+		CSSElementContextImpl appliedValueMemo = getAppliedValueMemo(element);
+		String cssText = null;
+		if (appliedValueMemo != null) {
+			cssText = getMemoizedText(value);
+			if (cssText != null
+					&& appliedValueMemo.isAppliedValue(property, pseudo,
+							cssText)) {
+				// Same value as the last time, the widget is up to date.
+				skippedPropertyApplications++;
+				if (currentCSSPropertiesApplyed != null) {
+					currentCSSPropertiesApplyed.put(property, property);
+				}
+				return null;
+			}
+			// forget the old value until the new one is applied
+			appliedValueMemo.setAppliedValue(property, pseudo, null);
+		}
 		for (ICSSPropertyHandlerProvider provider : propertyHandlerProviders) {
 			Collection<ICSSPropertyHandler> handlers = provider
 					.getCSSPropertyHandlers(element, property);
@@ -792,6 +1028,13 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 						if (currentCSSPropertiesApplyed != null) {
 							currentCSSPropertiesApplyed.put(property, property);
 						}
+						// a handler that also acts once all the properties
+						// are applied has to see every property
+						if (appliedValueMemo != null && cssText != null
+								&& getCSSPropertyHandler2(handler) == null) {
+							appliedValueMemo.setAppliedValue(property, pseudo,
+									cssText);
+						}
 						return handler;
 					}
 				} catch (Exception e) {
@@ -805,6 +1048,22 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 		return null;
 	}
 
+	/**
+	 * Return the handler to call once all the properties of an element are
+	 * applied, or <code>null</code> if there is none.
+	 */
+	private static ICSSPropertyHandler2 getCSSPropertyHandler2(
+			ICSSPropertyHandler handler) {
+		if (handler instanceof ICSSPropertyHandler2) {
+			return (ICSSPropertyHandler2) handler;
+		}
+		if (handler instanceof ICSSPropertyHandler2Delegate) {
+			return ((ICSSPropertyHandler2Delegate) handler)
+					.getCSSPropertyHandler2();
+		}
+		return null;
+	}
+
 	public String retrieveCSSProperty(Object element, String property,
 			String pseudo) {
 		try {
@@ -1069,6 +1328,9 @@ public abstract class AbstractCSSEngine implements CSSEngine {
 	public void reset() {
 		// Remove All Style Sheets
 		((ExtendedDocumentCSS) documentCSS).removeAllStyleSheets();
+		if (sharedStyleCache != null) {
+			sharedStyleCache.clear();
+		}
 	}
 
 	/*--------------- Resources Registry -----------------*/
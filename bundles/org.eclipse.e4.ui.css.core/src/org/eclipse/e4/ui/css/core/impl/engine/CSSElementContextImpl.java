@@ -26,6 +26,12 @@ public class CSSElementContextImpl implements CSSElementContext {
 
 	private IElementProvider elementProvider;
 
+	/**
+	 * The CSS text of the last value applied for each property, keyed by
+	 * property and pseudo instance.
+	 */
+	private Map<String, String> appliedValues = null;
+
 	public CSSElementContextImpl() {
 
 	}
@@ -64,4 +70,45 @@ public class CSSElementContextImpl implements CSSElementContext {
 	public void setElementProvider(IElementProvider elementProvider) {
 		this.elementProvider = elementProvider;
 	}
+
+	/**
+	 * Return true if <code>cssText</code> is the last value that was applied
+	 * to the element for the given property and pseudo instance.
+	 */
+	public boolean isAppliedValue(String property, String pseudo,
+			String cssText) {
+		if (appliedValues == null)
+			return false;
+		String appliedValue = appliedValues.get(getAppliedValueKey(property,
+				pseudo));
+		return appliedValue != null && appliedValue.equals(cssText);
+	}
+
+	/**
+	 * Remember <code>cssText</code> as the last value applied to the element
+	 * for the given property and pseudo instance. A <code>null</code> value
+	 * forgets the applied value.
+	 */
+	public void setAppliedValue(String property, String pseudo, String cssText) {
+		if (cssText == null) {
+			if (appliedValues != null)
+				appliedValues.remove(getAppliedValueKey(property, pseudo));
+			return;
+		}
+		if (appliedValues == null)
+			appliedValues = new HashMap<String, String>();
+		appliedValues.put(getAppliedValueKey(property, pseudo), cssText);
+	}
+
+	/**
+	 * Forget all the values applied to the element, so that they are applied
+	 * again the next time the element is styled.
+	 */
+	public void clearAppliedValues() {
+		appliedValues = null;
+	}
+
+	private static String getAppliedValueKey(String property, String pseudo) {
+		return pseudo == null ? property : property + ':' + pseudo;
+	}
 }
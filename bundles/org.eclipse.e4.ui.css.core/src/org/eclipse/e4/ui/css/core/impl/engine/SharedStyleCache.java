@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.css.core.impl.engine;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.e4.ui.css.core.dom.CSSStylableElement;
+import org.eclipse.e4.ui.css.core.dom.ExtendedCSSRule;
+import org.w3c.css.sac.AttributeCondition;
+import org.w3c.css.sac.CombinatorCondition;
+import org.w3c.css.sac.Condition;
+import org.w3c.css.sac.ConditionalSelector;
+import org.w3c.css.sac.DescendantSelector;
+import org.w3c.css.sac.Selector;
+import org.w3c.css.sac.SelectorList;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.css.CSSRule;
+import org.w3c.dom.css.CSSRuleList;
+import org.w3c.dom.css.CSSStyleDeclaration;
+import org.w3c.dom.css.CSSStyleSheet;
+import org.w3c.dom.css.DocumentCSS;
+import org.w3c.dom.css.ViewCSS;
+import org.w3c.dom.stylesheets.StyleSheetList;
+
+/**
+ * Cache of computed styles shared between elements with the same signature.
+ * The signature of an element is made of everything the selectors of the
+ * current style sheets can test: its type, id, CSS classes, static pseudo
+ * instances, the attributes and pseudo classes referenced by a selector, and
+ * the signature of its parent. Elements with the same signature are matched
+ * by the same rules, so they can share one computed style.
+ * <p>
+ * When a style sheet contains a selector whose result cannot be derived from
+ * the signature, such as a sibling selector, all lookups are delegated to the
+ * {@link ViewCSS}.
+ * </p>
+ */
+final class SharedStyleCache {
+
+	/**
+	 * Cached value for elements that are not matched by any rule.
+	 */
+	private static final Object NO_STYLE = new Object();
+
+	private final Map<String, Object> styles = new HashMap<String, Object>();
+
+	private boolean analyzed;
+
+	private boolean shareable;
+
+	private String[] attributeNames;
+
+	private String[] pseudoClasses;
+
+	private int hits;
+
+	private int misses;
+
+	/**
+	 * Return the computed style of the element, reusing the style computed
+	 * for an element with the same signature if there is one.
+	 */
+	CSSStyleDeclaration getComputedStyle(ViewCSS viewCSS,
+			DocumentCSS documentCSS, Element elt, String pseudoElt) {
+		if (!analyzed) {
+			analyze(documentCSS);
+		}
+		if (!shareable) {
+			return viewCSS.getComputedStyle(elt, pseudoElt);
+		}
+		StringBuilder signature = new StringBuilder();
+		appendSignature(signature, elt);
+		signature.append("::").append(pseudoElt);
+		String key = signature.toString();
+		Object style = styles.get(key);
+		if (style != null) {
+			hits++;
+			return style == NO_STYLE ? null : (CSSStyleDeclaration) style;
+		}
+		misses++;
+		CSSStyleDeclaration computedStyle = viewCSS.getComputedStyle(elt,
+				pseudoElt);
+		styles.put(key, computedStyle == null ? NO_STYLE : computedStyle);
+		return computedStyle;
+	}
+
+	/**
+	 * Forget all cached styles. Must be called whenever the style sheets of
+	 * the document change.
+	 */
+	void clear() {
+		styles.clear();
+		analyzed = false;
+		attributeNames = null;
+		pseudoClasses = null;
+	}
+
+	int getHits() {
+		return hits;
+	}
+
+	int getMisses() {
+		return misses;
+	}
+
+	void resetCounters() {
+		hits = 0;
+		misses = 0;
+	}
+
+	private void appendSignature(StringBuilder signature, Element elt) {
+		Node parent = elt.getParentNode();
+		if (parent instanceof Element) {
+			appendSignature(signature, (Element) parent);
+			signature.append('>');
+		}
+		signature.append(elt.getNamespaceURI()).append('|');
+		signature.append(elt.getPrefix() == null ? elt.getNodeName() : elt
+				.getLocalName());
+		if (elt instanceof CSSStylableElement) {
+			CSSStylableElement stylableElement = (CSSStylableElement) elt;
+			signature.append('#').append(stylableElement.getCSSId());
+			signature.append('.').append(stylableElement.getCSSClass());
+			String[] staticPseudoInstances = stylableElement
+					.getStaticPseudoInstances();
+			if (staticPseudoInstances != null) {
+				for (int i = 0; i < staticPseudoInstances.length; i++) {
+					signature.append('!').append(staticPseudoInstances[i]);
+				}
+			}
+			for (int i = 0; i < pseudoClasses.length; i++) {
+				signature.append(':');
+				if (stylableElement.isPseudoInstanceOf(pseudoClasses[i])) {
+					signature.append(stylableElement
+							.isStaticPseudoInstance(pseudoClasses[i]) ? 's'
+							: 'd');
+				}
+			}
+		} else {
+			signature.append('#').append(elt.getAttribute("id"));
+			signature.append('.').append(elt.getAttribute("class"));
+		}
+		for (int i = 0; i < attributeNames.length; i++) {
+			signature.append('[').append(elt.getAttribute(attributeNames[i]))
+					.append(']');
+		}
+	}
+
+	/**
+	 * Collect the attributes and pseudo classes referenced by the selectors
+	 * of the document and check that all of them can be decided from an
+	 * element signature.
+	 */
+	private void analyze(DocumentCSS documentCSS) {
+		Set<String> attributes = new HashSet<String>();
+		Set<String> pseudos = new HashSet<String>();
+		shareable = true;
+		StyleSheetList styleSheetList = documentCSS.getStyleSheets();
+		int length = styleSheetList.getLength();
+		for (int i = 0; i < length && shareable; i++) {
+			CSSRuleList ruleList = ((CSSStyleSheet) styleSheetList.item(i))
+					.getCssRules();
+			int l = ruleList.getLength();
+			for (int j = 0; j < l && shareable; j++) {
+				CSSRule rule = ruleList.item(j);
+				if (rule instanceof ExtendedCSSRule) {
+					SelectorList selectorList = ((ExtendedCSSRule) rule)
+							.getSelectorList();
+					for (int k = 0; k < selectorList.getLength(); k++) {
+						collect(selectorList.item(k), attributes, pseudos);
+					}
+				}
+			}
+		}
+		attributes.remove("id");
+		attributes.remove("class");
+		attributeNames = attributes.toArray(new String[attributes.size()]);
+		pseudoClasses = pseudos.toArray(new String[pseudos.size()]);
+		analyzed = true;
+	}
+
+	private void collect(Selector selector, Set<String> attributes,
+			Set<String> pseudos) {
+		switch (selector.getSelectorType()) {
+		case Selector.SAC_ELEMENT_NODE_SELECTOR:
+		case Selector.SAC_ANY_NODE_SELECTOR:
+		case Selector.SAC_PSEUDO_ELEMENT_SELECTOR:
+			break;
+		case Selector.SAC_CONDITIONAL_SELECTOR:
+			ConditionalSelector conditional = (ConditionalSelector) selector;
+			collect(conditional.getSimpleSelector(), attributes, pseudos);
+			collect(conditional.getCondition(), attributes, pseudos);
+			break;
+		case Selector.SAC_DESCENDANT_SELECTOR:
+		case Selector.SAC_CHILD_SELECTOR:
+			DescendantSelector descendant = (DescendantSelector) selector;
+			collect(descendant.getAncestorSelector(), attributes, pseudos);
+			collect(descendant.getSimpleSelector(), attributes, pseudos);
+			break;
+		default:
+			// sibling selectors and the like depend on more than the
+			// element and its ancestors
+			shareable = false;
+		}
+	}
+
+	private void collect(Condition condition, Set<String> attributes,
+			Set<String> pseudos) {
+		switch (condition.getConditionType()) {
+		case Condition.SAC_AND_CONDITION:
+			CombinatorCondition and = (CombinatorCondition) condition;
+			collect(and.getFirstCondition(), attributes, pseudos);
+			collect(and.getSecondCondition(), attributes, pseudos);
+			break;
+		case Condition.SAC_ID_CONDITION:
+		case Condition.SAC_CLASS_CONDITION:
+			break;
+		case Condition.SAC_PSEUDO_CLASS_CONDITION:
+			pseudos.add(((AttributeCondition) condition).getValue());
+			break;
+		case Condition.SAC_ATTRIBUTE_CONDITION:
+		case Condition.SAC_ONE_OF_ATTRIBUTE_CONDITION:
+		case Condition.SAC_BEGIN_HYPHEN_ATTRIBUTE_CONDITION:
+			attributes.add(((AttributeCondition) condition).getLocalName());
+			break;
+		case Condition.SAC_LANG_CONDITION:
+			attributes.add("lang");
+			break;
+		default:
+			shareable = false;
+		}
+	}
+}
@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.css.core.impl.engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.List;
+import java.util.zip.CRC32;
+import org.eclipse.e4.ui.css.core.impl.dom.parsers.CompiledStyleSheetFormat;
+import org.w3c.css.sac.ConditionFactory;
+import org.w3c.css.sac.SelectorFactory;
+import org.w3c.dom.css.CSSStyleSheet;
+
+/**
+ * Directory of compiled style sheets, one file per style sheet URI. A
+ * compiled style sheet is only used while the source it was compiled from,
+ * and every style sheet it imported, still have the same modification time
+ * and checksum.
+ */
+final class StyleSheetCache {
+
+	private static final int MAGIC = 0x43535343; // CSSC
+
+	private final File directory;
+
+	private int hits;
+
+	private int misses;
+
+	StyleSheetCache(File directory) {
+		this.directory = directory;
+	}
+
+	File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Return the compiled style sheet for the source, or <code>null</code> if
+	 * there is none or it is out of date.
+	 */
+	CSSStyleSheet load(String uri, byte[] content,
+			SelectorFactory selectorFactory, ConditionFactory conditionFactory) {
+		File file = getFile(uri);
+		if (!file.isFile()) {
+			misses++;
+			return null;
+		}
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(file)));
+			if (in.readInt() != MAGIC
+					|| in.readInt() != CompiledStyleSheetFormat.VERSION
+					|| !uri.equals(in.readUTF())
+					|| in.readLong() != getLastModified(uri)
+					|| in.readLong() != getChecksum(content)) {
+				misses++;
+				return null;
+			}
+			int imports = in.readInt();
+			for (int i = 0; i < imports; i++) {
+				String importURI = in.readUTF();
+				if (in.readLong() != getLastModified(importURI)
+						|| in.readLong() != getChecksum(importURI)) {
+					misses++;
+					return null;
+				}
+			}
+			CSSStyleSheet styleSheet = CompiledStyleSheetFormat.read(in,
+					selectorFactory, conditionFactory);
+			hits++;
+			return styleSheet;
+		} catch (IOException e) {
+			// unreadable, compile it again
+		} catch (RuntimeException e) {
+			// corrupt or written by an incompatible version, compile it again
+		} finally {
+			close(in);
+		}
+		misses++;
+		file.delete();
+		return null;
+	}
+
+	/**
+	 * Store the compiled form of a style sheet. Style sheets that can't be
+	 * compiled are silently ignored.
+	 */
+	void store(String uri, byte[] content, List<URL> imports,
+			CSSStyleSheet styleSheet) {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			return;
+		}
+		File file = getFile(uri);
+		File tempFile = new File(directory, file.getName() + ".tmp");
+		DataOutputStream out = null;
+		boolean written = false;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(tempFile)));
+			out.writeInt(MAGIC);
+			out.writeInt(CompiledStyleSheetFormat.VERSION);
+			out.writeUTF(uri);
+			out.writeLong(getLastModified(uri));
+			out.writeLong(getChecksum(content));
+			out.writeInt(imports.size());
+			for (URL url : imports) {
+				String importURI = url.toString();
+				out.writeUTF(importURI);
+				out.writeLong(getLastModified(importURI));
+				out.writeLong(getChecksum(importURI));
+			}
+			CompiledStyleSheetFormat.write(styleSheet, out);
+			out.close();
+			out = null;
+			file.delete();
+			written = tempFile.renameTo(file);
+		} catch (IOException e) {
+			// the style sheet is parsed again on the next start
+		} catch (RuntimeException e) {
+			// a rule that can't be compiled, parse it again on the next start
+		} finally {
+			close(out);
+			if (!written) {
+				tempFile.delete();
+			}
+		}
+	}
+
+	int getHits() {
+		return hits;
+	}
+
+	int getMisses() {
+		return misses;
+	}
+
+	private File getFile(String uri) {
+		// the URI stored in the file tells colliding names apart
+		return new File(directory, Integer.toHexString(uri.hashCode())
+				+ ".cssc");
+	}
+
+	static byte[] readContent(InputStream stream) throws IOException {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = stream.read(buffer)) != -1) {
+			content.write(buffer, 0, read);
+		}
+		return content.toByteArray();
+	}
+
+	private static long getChecksum(byte[] content) {
+		CRC32 crc = new CRC32();
+		crc.update(content);
+		return crc.getValue();
+	}
+
+	private static long getChecksum(String uri) throws IOException {
+		InputStream stream = new URL(uri).openStream();
+		try {
+			return getChecksum(readContent(stream));
+		} finally {
+			stream.close();
+		}
+	}
+
+	private static long getLastModified(String uri) throws IOException {
+		URLConnection connection = new URL(uri).openConnection();
+		try {
+			return connection.getLastModified();
+		} finally {
+			// some connections open the resource to get the header fields
+			close(connection.getInputStream());
+		}
+	}
+
+	private static void close(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+}
@@ -38,13 +38,18 @@ import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.core.runtime.preferences.InstanceScope;
 import org.eclipse.e4.ui.css.core.engine.CSSElementContext;
 import org.eclipse.e4.ui.css.core.engine.CSSEngine;
+import org.eclipse.e4.ui.css.core.impl.engine.AbstractCSSEngine;
 import org.eclipse.e4.ui.css.core.util.impl.resources.FileResourcesLocatorImpl;
 import org.eclipse.e4.ui.css.core.util.impl.resources.OSGiResourceLocator;
 import org.eclipse.e4.ui.css.core.util.resources.IResourceLocator;
+import org.eclipse.e4.ui.css.swt.dom.WidgetElement;
+import org.eclipse.e4.ui.css.swt.engine.AbstractCSSSWTEngineImpl;
+import org.eclipse.e4.ui.css.swt.engine.CSSSWTRestyleScheduler;
 import org.eclipse.e4.ui.css.swt.theme.ITheme;
 import org.eclipse.e4.ui.css.swt.theme.IThemeEngine;
 import org.eclipse.osgi.service.datalocation.Location;
 import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Widget;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.FrameworkUtil;
@@ -76,6 +81,13 @@ public class ThemeEngine implements IThemeEngine {
 
 	public static final String THEME_PLUGIN_ID = "org.eclipse.e4.ui.css.swt.theme";
 
+	/**
+	 * Set when the widgets are also styled outside of the CSS engines, so
+	 * that every property is applied again when the widgets are restyled.
+	 */
+	private static final boolean DISABLE_APPLIED_VALUE_MEMO = Boolean
+			.getBoolean("org.eclipse.e4.ui.css.disableAppliedValueMemo"); //$NON-NLS-1$
+
 	public ThemeEngine(Display display) {
 		this.display = display;
 
@@ -499,6 +511,28 @@ public class ThemeEngine implements IThemeEngine {
 		}
 	}
 
+	public void restyle(Object widget, String oldClassname, String oldId) {
+		for (CSSEngine engine : cssEngines) {
+			Object element = engine.getElement(widget);
+			if (element == null) {
+				continue;
+			}
+			// widgets that were never styled get their styles right away
+			if (engine instanceof AbstractCSSSWTEngineImpl
+					&& widget instanceof Widget
+					&& engine.getCSSElementContext(widget) != null) {
+				Widget w = (Widget) widget;
+				CSSSWTRestyleScheduler scheduler = ((AbstractCSSSWTEngineImpl) engine)
+						.getRestyleScheduler();
+				scheduler.classChanged(w, oldClassname,
+						WidgetElement.getCSSClass(w));
+				scheduler.idChanged(w, oldId, WidgetElement.getID(w));
+			} else {
+				engine.applyStyles(element, true);
+			}
+		}
+	}
+
 	private String getPreferenceThemeId() {
 		return getPreferences().get(THEMEID_KEY, null);
 	}
@@ -589,10 +623,39 @@ public class ThemeEngine implements IThemeEngine {
 	}
 
 	public void addCSSEngine(CSSEngine cssEngine) {
+		if (cssEngine instanceof AbstractCSSEngine) {
+			AbstractCSSEngine engine = (AbstractCSSEngine) cssEngine;
+			if (engine.getStyleSheetCacheLocation() == null) {
+				engine.setStyleSheetCacheLocation(getStyleSheetCacheLocation());
+			}
+			// values that are the same in the new theme are not applied again
+			// when the theme is switched
+			if (!DISABLE_APPLIED_VALUE_MEMO) {
+				engine.setAppliedValueMemoEnabled(true);
+			}
+		}
 		cssEngines.add(cssEngine);
 		resetCurrentTheme();
 	}
 
+	/**
+	 * Return the directory of the workspace metadata area where the compiled
+	 * style sheets are kept, or <code>null</code> if there is no workspace.
+	 */
+	private File getStyleSheetCacheLocation() {
+		Bundle bundle = FrameworkUtil.getBundle(ThemeEngine.class);
+		if (bundle == null) {
+			return null;
+		}
+		try {
+			return org.eclipse.core.runtime.Platform.getStateLocation(bundle)
+					.append("stylesheets").toFile(); //$NON-NLS-1$
+		} catch (IllegalStateException e) {
+			// no instance location
+			return null;
+		}
+	}
+
 	public void removeCSSEngine(CSSEngine cssEngine) {
 		cssEngines.remove(cssEngine);
 	}
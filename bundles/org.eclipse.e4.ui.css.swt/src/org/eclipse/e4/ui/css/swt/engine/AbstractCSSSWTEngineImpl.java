@@ -31,6 +31,8 @@ public abstract class AbstractCSSSWTEngineImpl extends CSSEngineImpl {
 
 	protected Display display;
 
+	private CSSSWTRestyleScheduler restyleScheduler;
+
 	public AbstractCSSSWTEngineImpl(Display display) {
 		this(display, false);
 	}
@@ -68,6 +70,17 @@ public abstract class AbstractCSSSWTEngineImpl extends CSSEngineImpl {
 
 	protected abstract void initializeCSSPropertyHandlers();
 
+	/**
+	 * Return the scheduler used to coalesce the restyling of widgets whose
+	 * CSS class, id, attributes or pseudo classes changed.
+	 */
+	public CSSSWTRestyleScheduler getRestyleScheduler() {
+		if (restyleScheduler == null) {
+			restyleScheduler = new CSSSWTRestyleScheduler(display, this);
+		}
+		return restyleScheduler;
+	}
+
 	public IResourcesRegistry getResourcesRegistry() {
 		IResourcesRegistry resourcesRegistry = super.getResourcesRegistry();
 		if (resourcesRegistry == null) {
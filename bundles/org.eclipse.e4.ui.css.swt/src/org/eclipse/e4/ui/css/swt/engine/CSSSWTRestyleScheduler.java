@@ -0,0 +1,384 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.css.swt.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.e4.ui.css.core.dom.CSSStylableElement;
+import org.eclipse.e4.ui.css.core.dom.ExtendedCSSRule;
+import org.eclipse.e4.ui.css.core.engine.CSSEngine;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Widget;
+import org.w3c.css.sac.AttributeCondition;
+import org.w3c.css.sac.CombinatorCondition;
+import org.w3c.css.sac.Condition;
+import org.w3c.css.sac.ConditionalSelector;
+import org.w3c.css.sac.DescendantSelector;
+import org.w3c.css.sac.Selector;
+import org.w3c.css.sac.SelectorList;
+import org.w3c.css.sac.SiblingSelector;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.css.CSSRule;
+import org.w3c.dom.css.CSSRuleList;
+import org.w3c.dom.css.CSSStyleSheet;
+import org.w3c.dom.stylesheets.StyleSheetList;
+
+/**
+ * Schedules the restyling of widgets whose CSS class, id, attributes or
+ * pseudo classes changed. A change only marks a widget dirty if a selector of
+ * the current style sheets refers to the changed class, id, attribute or
+ * pseudo class; the whole subtree of the widget is only restyled if such a
+ * selector refers to it in an ancestor position. All dirty widgets are
+ * restyled together in a single {@link Display#asyncExec(Runnable)}.
+ */
+public class CSSSWTRestyleScheduler {
+
+	/**
+	 * A selector tests the token on the element that is styled.
+	 */
+	private static final int SELF = 1;
+
+	/**
+	 * A selector tests the token on an ancestor of the element that is
+	 * styled.
+	 */
+	private static final int DESCENDANTS = 2;
+
+	/**
+	 * A selector tests the token on a preceding sibling of the element that
+	 * is styled.
+	 */
+	private static final int SIBLINGS = 4;
+
+	private final Display display;
+
+	private final CSSEngine engine;
+
+	/**
+	 * key=widget, value=whether its children have to be restyled too
+	 */
+	private Map<Widget, Boolean> dirtyWidgets = new LinkedHashMap<Widget, Boolean>();
+
+	private boolean flushScheduled;
+
+	private final Runnable flushRunnable = new Runnable() {
+		public void run() {
+			flush();
+		}
+	};
+
+	private List<Object> analyzedStyleSheets;
+
+	private Map<String, Integer> classSensitivity;
+
+	private Map<String, Integer> idSensitivity;
+
+	private Map<String, Integer> attributeSensitivity;
+
+	private Map<String, Integer> pseudoSensitivity;
+
+	public CSSSWTRestyleScheduler(Display display, CSSEngine engine) {
+		this.display = display;
+		this.engine = engine;
+	}
+
+	/**
+	 * Schedule the restyling required after the CSS class of the widget
+	 * changed from <code>oldClassname</code> to <code>newClassname</code>.
+	 */
+	public void classChanged(Widget widget, String oldClassname,
+			String newClassname) {
+		analyze();
+		Set<String> changed = splitClasses(oldClassname);
+		Set<String> newClasses = splitClasses(newClassname);
+		for (Iterator<String> iterator = newClasses.iterator(); iterator
+				.hasNext();) {
+			String className = iterator.next();
+			if (!changed.remove(className)) {
+				changed.add(className);
+			}
+		}
+		if (changed.isEmpty()) {
+			return;
+		}
+		// [class~=...] selectors test the same value as class selectors
+		int sensitivity = getSensitivity(attributeSensitivity, "class");
+		for (Iterator<String> iterator = changed.iterator(); iterator
+				.hasNext();) {
+			sensitivity |= getSensitivity(classSensitivity, iterator.next());
+		}
+		markDirty(widget, sensitivity);
+	}
+
+	/**
+	 * Schedule the restyling required after the CSS id of the widget changed
+	 * from <code>oldId</code> to <code>newId</code>.
+	 */
+	public void idChanged(Widget widget, String oldId, String newId) {
+		if (oldId == null ? newId == null : oldId.equals(newId)) {
+			return;
+		}
+		analyze();
+		markDirty(widget, getSensitivity(idSensitivity, oldId)
+				| getSensitivity(idSensitivity, newId)
+				| getSensitivity(attributeSensitivity, "id"));
+	}
+
+	/**
+	 * Schedule the restyling required after the value of the given attribute
+	 * of the widget changed.
+	 */
+	public void attributeChanged(Widget widget, String attribute) {
+		analyze();
+		markDirty(widget, getSensitivity(attributeSensitivity, attribute));
+	}
+
+	/**
+	 * Schedule the restyling required after the widget entered or left the
+	 * given pseudo class.
+	 */
+	public void pseudoClassChanged(Widget widget, String pseudoClass) {
+		analyze();
+		markDirty(widget, getSensitivity(pseudoSensitivity, pseudoClass));
+	}
+
+	/**
+	 * Schedule the restyling of the widget, and of its children if
+	 * <code>applyStylesToChildNodes</code> is <code>true</code>.
+	 */
+	public void markDirty(Widget widget, boolean applyStylesToChildNodes) {
+		Boolean subtree = dirtyWidgets.get(widget);
+		if (subtree == null || (!subtree.booleanValue() && applyStylesToChildNodes)) {
+			dirtyWidgets.put(widget, Boolean.valueOf(applyStylesToChildNodes));
+		}
+		if (!flushScheduled && !display.isDisposed()) {
+			flushScheduled = true;
+			display.asyncExec(flushRunnable);
+		}
+	}
+
+	/**
+	 * Restyle all dirty widgets now.
+	 */
+	public void flush() {
+		flushScheduled = false;
+		if (dirtyWidgets.isEmpty()) {
+			return;
+		}
+		Map<Widget, Boolean> widgets = dirtyWidgets;
+		dirtyWidgets = new LinkedHashMap<Widget, Boolean>();
+		for (Iterator<Map.Entry<Widget, Boolean>> iterator = widgets
+				.entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry<Widget, Boolean> entry = iterator.next();
+			Widget widget = entry.getKey();
+			if (widget.isDisposed() || hasDirtyAncestor(widgets, widget)) {
+				continue;
+			}
+			engine.applyStyles(widget, entry.getValue().booleanValue());
+		}
+	}
+
+	private void markDirty(Widget widget, int sensitivity) {
+		if ((sensitivity & SIBLINGS) != 0) {
+			Widget parent = getParentWidget(widget);
+			if (parent != null) {
+				markDirty(parent, true);
+				return;
+			}
+			sensitivity |= SELF;
+		}
+		if ((sensitivity & DESCENDANTS) != 0) {
+			markDirty(widget, true);
+		} else if ((sensitivity & SELF) != 0) {
+			markDirty(widget, false);
+		}
+	}
+
+	/**
+	 * Return <code>true</code> if an ancestor of the widget will restyle its
+	 * whole subtree, which includes the widget.
+	 */
+	private boolean hasDirtyAncestor(Map<Widget, Boolean> widgets,
+			Widget widget) {
+		Widget parent = getParentWidget(widget);
+		while (parent != null) {
+			if (Boolean.TRUE.equals(widgets.get(parent))) {
+				return true;
+			}
+			parent = getParentWidget(parent);
+		}
+		return false;
+	}
+
+	private Widget getParentWidget(Widget widget) {
+		Element element = engine.getElement(widget);
+		if (element == null) {
+			return null;
+		}
+		Node parent = element.getParentNode();
+		if (parent instanceof CSSStylableElement) {
+			Object nativeWidget = ((CSSStylableElement) parent)
+					.getNativeWidget();
+			if (nativeWidget instanceof Widget) {
+				return (Widget) nativeWidget;
+			}
+		}
+		return null;
+	}
+
+	private static int getSensitivity(Map<String, Integer> sensitivities,
+			String token) {
+		if (token == null) {
+			return 0;
+		}
+		Integer sensitivity = sensitivities.get(token);
+		return sensitivity == null ? 0 : sensitivity.intValue();
+	}
+
+	private static Set<String> splitClasses(String classes) {
+		Set<String> result = new HashSet<String>();
+		if (classes == null) {
+			return result;
+		}
+		int length = classes.length();
+		int start = 0;
+		while (start < length) {
+			while (start < length
+					&& Character.isSpaceChar(classes.charAt(start))) {
+				start++;
+			}
+			int end = start;
+			while (end < length && !Character.isSpaceChar(classes.charAt(end))) {
+				end++;
+			}
+			if (end > start) {
+				result.add(classes.substring(start, end));
+			}
+			start = end;
+		}
+		return result;
+	}
+
+	/*--------------- Sensitivity analysis -----------------*/
+
+	/**
+	 * Compute which classes, ids, attributes and pseudo classes the selectors
+	 * of the current style sheets refer to, unless the style sheets are the
+	 * same as for the previous analysis.
+	 */
+	private void analyze() {
+		StyleSheetList styleSheetList = engine.getDocumentCSS()
+				.getStyleSheets();
+		int length = styleSheetList.getLength();
+		List<Object> styleSheets = new ArrayList<Object>(length);
+		for (int i = 0; i < length; i++) {
+			styleSheets.add(styleSheetList.item(i));
+		}
+		if (analyzedStyleSheets != null && isSame(analyzedStyleSheets, styleSheets)) {
+			return;
+		}
+		classSensitivity = new HashMap<String, Integer>();
+		idSensitivity = new HashMap<String, Integer>();
+		attributeSensitivity = new HashMap<String, Integer>();
+		pseudoSensitivity = new HashMap<String, Integer>();
+		for (int i = 0; i < length; i++) {
+			CSSRuleList ruleList = ((CSSStyleSheet) styleSheetList.item(i))
+					.getCssRules();
+			int l = ruleList.getLength();
+			for (int j = 0; j < l; j++) {
+				CSSRule rule = ruleList.item(j);
+				if (rule instanceof ExtendedCSSRule) {
+					SelectorList selectorList = ((ExtendedCSSRule) rule)
+							.getSelectorList();
+					for (int k = 0; k < selectorList.getLength(); k++) {
+						collect(selectorList.item(k), SELF);
+					}
+				}
+			}
+		}
+		analyzedStyleSheets = styleSheets;
+	}
+
+	private static boolean isSame(List<Object> list1, List<Object> list2) {
+		if (list1.size() != list2.size()) {
+			return false;
+		}
+		for (int i = 0; i < list1.size(); i++) {
+			if (list1.get(i) != list2.get(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void collect(Selector selector, int position) {
+		if (selector instanceof ConditionalSelector) {
+			ConditionalSelector conditional = (ConditionalSelector) selector;
+			collect(conditional.getSimpleSelector(), position);
+			collect(conditional.getCondition(), position);
+		} else if (selector instanceof DescendantSelector) {
+			DescendantSelector descendant = (DescendantSelector) selector;
+			collect(descendant.getAncestorSelector(), (position & ~SELF)
+					| DESCENDANTS);
+			collect(descendant.getSimpleSelector(), position);
+		} else if (selector instanceof SiblingSelector) {
+			SiblingSelector sibling = (SiblingSelector) selector;
+			collect(sibling.getSelector(), (position & ~SELF) | SIBLINGS);
+			collect(sibling.getSiblingSelector(), position);
+		}
+	}
+
+	private void collect(Condition condition, int position) {
+		switch (condition.getConditionType()) {
+		case Condition.SAC_AND_CONDITION:
+		case Condition.SAC_OR_CONDITION:
+			CombinatorCondition combinator = (CombinatorCondition) condition;
+			collect(combinator.getFirstCondition(), position);
+			collect(combinator.getSecondCondition(), position);
+			break;
+		case Condition.SAC_CLASS_CONDITION:
+			add(classSensitivity, ((AttributeCondition) condition).getValue(),
+					position);
+			break;
+		case Condition.SAC_ID_CONDITION:
+			add(idSensitivity, ((AttributeCondition) condition).getValue(),
+					position);
+			break;
+		case Condition.SAC_PSEUDO_CLASS_CONDITION:
+			add(pseudoSensitivity, ((AttributeCondition) condition).getValue(),
+					position);
+			break;
+		case Condition.SAC_ATTRIBUTE_CONDITION:
+		case Condition.SAC_ONE_OF_ATTRIBUTE_CONDITION:
+		case Condition.SAC_BEGIN_HYPHEN_ATTRIBUTE_CONDITION:
+			add(attributeSensitivity,
+					((AttributeCondition) condition).getLocalName(), position);
+			break;
+		}
+	}
+
+	private static void add(Map<String, Integer> sensitivities, String token,
+			int position) {
+		if (token == null) {
+			return;
+		}
+		Integer sensitivity = sensitivities.get(token);
+		sensitivities.put(token, Integer.valueOf(sensitivity == null ? position
+				: sensitivity.intValue() | position));
+	}
+}
@@ -15,9 +15,14 @@ package org.eclipse.e4.ui.workbench.renderers.swt;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.inject.Inject;
+import org.eclipse.core.commands.Command;
+import org.eclipse.core.commands.CommandEvent;
+import org.eclipse.core.commands.ICommandListener;
 import org.eclipse.core.commands.IStateListener;
 import org.eclipse.core.commands.ParameterizedCommand;
 import org.eclipse.core.commands.State;
@@ -30,6 +35,7 @@ import org.eclipse.e4.core.commands.EHandlerService;
 import org.eclipse.e4.core.contexts.EclipseContextFactory;
 import org.eclipse.e4.core.contexts.IContextFunction;
 import org.eclipse.e4.core.contexts.IEclipseContext;
+import org.eclipse.e4.core.contexts.RunAndTrack;
 import org.eclipse.e4.core.di.annotations.Optional;
 import org.eclipse.e4.core.services.log.Logger;
 import org.eclipse.e4.ui.bindings.EBindingService;
@@ -66,6 +72,7 @@ import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.resource.JFaceResources;
 import org.eclipse.jface.resource.LocalResourceManager;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.SWTException;
 import org.eclipse.swt.events.DisposeEvent;
 import org.eclipse.swt.events.DisposeListener;
 import org.eclipse.swt.graphics.Image;
@@ -114,14 +121,88 @@ public class HandledContributionItem extends ContributionItem {
 
 	}
 
+	/**
+	 * Updates the enablement of the tool items. The enablement of an item is
+	 * evaluated again when a context value that its handler read while it was
+	 * last evaluated changes, or when the handler of its command changes.
+	 * Such changes are coalesced and the affected items are updated once per
+	 * pass of the event loop.
+	 * <p>
+	 * If the system property {@value #POLLING_PROPERTY} is <code>true</code>,
+	 * all items are evaluated every 400 ms instead.
+	 * </p>
+	 */
 	public static class ToolItemUpdateTimer implements Runnable {
+		/**
+		 * The system property that enables polling the enablement of the tool
+		 * items.
+		 */
+		public static final String POLLING_PROPERTY = "org.eclipse.e4.ui.workbench.renderers.swt.pollToolItemEnablement"; //$NON-NLS-1$
+
 		Display display = Display.getCurrent();
 		RunnableRunner runner = new RunnableRunner();
 
-		List<HandledContributionItem> itemsToCheck = new ArrayList<HandledContributionItem>();
+		final boolean polling = Boolean.getBoolean(POLLING_PROPERTY);
+
+		Set<HandledContributionItem> itemsToCheck = new LinkedHashSet<HandledContributionItem>();
 		List<Runnable> windowRunnables = new ArrayList<Runnable>();
 		final List<HandledContributionItem> orphanedToolItems = new ArrayList<HandledContributionItem>();
 
+		/*
+		 * The items to update in the next pass, changes may be reported from
+		 * any thread.
+		 */
+		private final Set<HandledContributionItem> dirtyItems = new LinkedHashSet<HandledContributionItem>();
+
+		// guarded by dirtyItems
+		private boolean updateScheduled = false;
+
+		private volatile boolean updating = false;
+
+		/*
+		 * The item whose enablement is being evaluated, and whether the pass
+		 * only updates the items whose command changed during a previous pass.
+		 * Only accessed in the UI thread.
+		 */
+		private HandledContributionItem evaluatingItem;
+		private boolean followUpPass = false;
+
+		/*
+		 * The items whose command changed while other items were evaluated,
+		 * they are updated once more after the pass. Only accessed in the UI
+		 * thread.
+		 */
+		private Set<HandledContributionItem> followUpItems = new LinkedHashSet<HandledContributionItem>();
+
+		private final Runnable updateRunnable = new Runnable() {
+			public void run() {
+				HandledContributionItem[] items;
+				synchronized (dirtyItems) {
+					items = dirtyItems
+							.toArray(new HandledContributionItem[dirtyItems
+									.size()]);
+					dirtyItems.clear();
+					updateScheduled = false;
+				}
+				updateItems(items);
+			}
+		};
+
+		private final Runnable followUpRunnable = new Runnable() {
+			public void run() {
+				HandledContributionItem[] items = followUpItems
+						.toArray(new HandledContributionItem[followUpItems
+								.size()]);
+				followUpItems.clear();
+				followUpPass = true;
+				try {
+					updateItems(items);
+				} finally {
+					followUpPass = false;
+				}
+			}
+		};
+
 		public void addWindowRunnable(Runnable r) {
 			windowRunnables.add(r);
 		}
@@ -131,28 +212,95 @@ public class HandledContributionItem extends ContributionItem {
 		}
 
 		void registerItem(HandledContributionItem item) {
-			if (!itemsToCheck.contains(item)) {
-				itemsToCheck.add(item);
-
-				// Start the timer on the first item registered
-				if (itemsToCheck.size() == 1)
+			if (itemsToCheck.add(item)) {
+				if (!polling) {
+					scheduleUpdate(item);
+				} else if (itemsToCheck.size() == 1) {
+					// Start the timer on the first item registered
 					display.timerExec(400, this);
+				}
 			}
 		}
 
 		void removeItem(HandledContributionItem item) {
 			itemsToCheck.remove(item);
+			followUpItems.remove(item);
+			synchronized (dirtyItems) {
+				dirtyItems.remove(item);
+			}
 		}
 
-		public void run() {
+		/**
+		 * Updates the enablement of the given item in the next pass of the
+		 * event loop. May be called from any thread.
+		 */
+		void scheduleUpdate(HandledContributionItem item) {
+			synchronized (dirtyItems) {
+				dirtyItems.add(item);
+				if (updateScheduled)
+					return;
+				updateScheduled = true;
+			}
+			try {
+				display.asyncExec(updateRunnable);
+			} catch (SWTException e) {
+				// the display is disposed
+			}
+		}
 
-			for (final HandledContributionItem hci : itemsToCheck) {
-				// HACK. Remove orphaned entries. See bug 388516.
-				if (hci.model != null && hci.model.getParent() != null) {
-					hci.updateItemEnablement();
-				} else {
-					orphanedToolItems.add(hci);
+		/**
+		 * Updates the enablement of the given item after the enablement or the
+		 * handler of its command changed. May be called from any thread.
+		 * <p>
+		 * Evaluating the enablement of an item updates the enablement of the
+		 * handler of its command, so the changes fired while the items are
+		 * evaluated are caused by the evaluations. The item being evaluated
+		 * ignores them. Other items with the same command are updated once
+		 * more after the pass, and the changes fired by that follow-up pass are
+		 * ignored, so that items whose handler is enabled in one window and
+		 * disabled in another don't update each other forever.
+		 * </p>
+		 */
+		void commandChanged(HandledContributionItem item) {
+			if (!isUpdating()) {
+				scheduleUpdate(item);
+				return;
+			}
+			if (item == evaluatingItem || followUpPass
+					|| !itemsToCheck.contains(item)) {
+				return;
+			}
+			if (followUpItems.isEmpty()) {
+				display.asyncExec(followUpRunnable);
+			}
+			followUpItems.add(item);
+		}
+
+		/**
+		 * @return <code>true</code> if the enablement of the items is being
+		 *         evaluated in the calling thread
+		 */
+		boolean isUpdating() {
+			return updating && Display.getCurrent() == display;
+		}
+
+		private void updateItems(HandledContributionItem[] items) {
+			updating = true;
+			try {
+				for (final HandledContributionItem hci : items) {
+					if (!itemsToCheck.contains(hci))
+						continue;
+					// HACK. Remove orphaned entries. See bug 388516.
+					if (hci.model != null && hci.model.getParent() != null) {
+						evaluatingItem = hci;
+						hci.updateItemEnablement();
+					} else {
+						orphanedToolItems.add(hci);
+					}
 				}
+			} finally {
+				evaluatingItem = null;
+				updating = false;
 			}
 			if (!orphanedToolItems.isEmpty()) {
 				itemsToCheck.removeAll(orphanedToolItems);
@@ -167,13 +315,65 @@ public class HandledContributionItem extends ContributionItem {
 					SafeRunner.run(runner);
 				}
 			}
+		}
+
+		public void run() {
+			updateItems(itemsToCheck
+					.toArray(new HandledContributionItem[itemsToCheck.size()]));
 
 			// repeat until the list goes empty
-			if (itemsToCheck.size() > 0)
+			if (polling && itemsToCheck.size() > 0)
 				display.timerExec(400, this);
 		}
 	}
 
+	/**
+	 * Evaluates the enablement of the item once while recording the context
+	 * values that are read, and schedules a new evaluation when one of them
+	 * changes. The context holds on to the tracker until one of the values
+	 * changes, so the tracker lets go of the item when it is discarded.
+	 */
+	private static class EnablementTracker extends RunAndTrack {
+		private volatile HandledContributionItem item;
+		private boolean evaluated = false;
+		boolean canExecute;
+		RuntimeException exception;
+
+		EnablementTracker(HandledContributionItem item) {
+			this.item = item;
+		}
+
+		@Override
+		public boolean changed(IEclipseContext context) {
+			HandledContributionItem item = this.item;
+			if (item == null || item.enablementTracker != this) {
+				return false;
+			}
+			if (!evaluated) {
+				evaluated = true;
+				try {
+					canExecute = item.canExecuteItem(null);
+				} catch (RuntimeException e) {
+					exception = e;
+				}
+				return true;
+			}
+			// a new tracker records the values read by the next evaluation
+			discard();
+			item.enablementTracker = null;
+			toolItemUpdater.scheduleUpdate(item);
+			return false;
+		}
+
+		/**
+		 * Stops tracking the item, the next change of a context value
+		 * unregisters the tracker.
+		 */
+		void discard() {
+			item = null;
+		}
+	}
+
 	// HACK!! local 'static' timerExec...should move out of this class post 4.1
 	public static ToolItemUpdateTimer toolItemUpdater = new ToolItemUpdateTimer();
 
@@ -213,6 +413,19 @@ public class HandledContributionItem extends ContributionItem {
 
 	private ISWTResourceUtilities resUtils = null;
 
+	private volatile EnablementTracker enablementTracker;
+
+	private Command trackedCommand;
+
+	private ICommandListener commandListener = new ICommandListener() {
+		public void commandChanged(CommandEvent commandEvent) {
+			if (commandEvent.isEnabledChanged()
+					|| commandEvent.isHandledChanged()) {
+				toolItemUpdater.commandChanged(HandledContributionItem.this);
+			}
+		}
+	};
+
 	private IStateListener stateListener = new IStateListener() {
 		public void handleStateChange(State state, Object oldValue) {
 			updateState();
@@ -228,7 +441,7 @@ public class HandledContributionItem extends ContributionItem {
 		if (updateRunner == null) {
 			updateRunner = new ISafeRunnable() {
 				public void run() throws Exception {
-					boolean shouldEnable = canExecuteItem(null);
+					boolean shouldEnable = canExecuteItemTracked();
 					if (shouldEnable != model.isEnabled()) {
 						model.setEnabled(shouldEnable);
 						update();
@@ -261,6 +474,46 @@ public class HandledContributionItem extends ContributionItem {
 		SafeRunner.run(getUpdateRunner());
 	}
 
+	/*
+	 * The context keeps a tracker registered until one of the values it read
+	 * changes, so a new tracker is only created once the previous one saw a
+	 * change and let go of the item. Updates caused by command events are
+	 * evaluated without tracking while the tracker is still live.
+	 */
+	private boolean canExecuteItemTracked() {
+		if (toolItemUpdater.polling || enablementTracker != null) {
+			return canExecuteItem(null);
+		}
+		EnablementTracker tracker = new EnablementTracker(this);
+		enablementTracker = tracker;
+		getContext(model).runAndTrack(tracker);
+		if (tracker.exception != null) {
+			throw tracker.exception;
+		}
+		return tracker.canExecute;
+	}
+
+	private void hookCommandListener() {
+		ParameterizedCommand cmd = model.getWbCommand();
+		if (toolItemUpdater.polling || cmd == null) {
+			return;
+		}
+		trackedCommand = cmd.getCommand();
+		trackedCommand.addCommandListener(commandListener);
+	}
+
+	private void unhookCommandListener() {
+		EnablementTracker tracker = enablementTracker;
+		if (tracker != null) {
+			tracker.discard();
+			enablementTracker = null;
+		}
+		if (trackedCommand != null) {
+			trackedCommand.removeCommandListener(commandListener);
+			trackedCommand = null;
+		}
+	}
+
 	private IMenuListener menuListener = new IMenuListener() {
 		public void menuAboutToShow(IMenuManager manager) {
 			update(null);
@@ -431,6 +684,7 @@ public class HandledContributionItem extends ContributionItem {
 		widget = item;
 		model.setWidget(widget);
 		widget.setData(AbstractPartRenderer.OWNING_ME, model);
+		hookCommandListener();
 		toolItemUpdater.registerItem(this);
 
 		update(null);
@@ -677,6 +931,7 @@ public class HandledContributionItem extends ContributionItem {
 			}
 			unhookCheckListener();
 			toolItemUpdater.removeItem(this);
+			unhookCommandListener();
 			if (infoContext != null) {
 				infoContext.dispose();
 				infoContext = null;
@@ -722,6 +977,9 @@ public class HandledContributionItem extends ContributionItem {
 			widget = null;
 			model.setWidget(null);
 		}
+		// the widget may have been disposed already
+		toolItemUpdater.removeItem(this);
+		unhookCommandListener();
 	}
 
 	private void handleWidgetSelection(Event event) {
@@ -384,6 +384,11 @@ public class E4Application implements IApplication {
 		eclipseContext.set(E4Workbench.DELTA_RESTORE,
 				Boolean.valueOf(deltaRestore));
 
+		// Binary model save, the model is restored from either format
+		value = getArgValue(E4Workbench.BINARY_MODEL, appContext, false);
+		eclipseContext.set(E4Workbench.BINARY_MODEL,
+				Boolean.valueOf(value != null && Boolean.parseBoolean(value)));
+
 		String resourceHandler = getArgValue(IWorkbench.MODEL_RESOURCE_HANDLER,
 				appContext, false);
 
@@ -38,6 +38,7 @@ import org.eclipse.e4.ui.bindings.keys.KeyBindingDispatcher;
 import org.eclipse.e4.ui.css.core.util.impl.resources.OSGiResourceLocator;
 import org.eclipse.e4.ui.css.swt.dom.WidgetElement;
 import org.eclipse.e4.ui.css.swt.engine.CSSSWTEngineImpl;
+import org.eclipse.e4.ui.css.swt.engine.CSSSWTRestyleScheduler;
 import org.eclipse.e4.ui.css.swt.theme.IThemeEngine;
 import org.eclipse.e4.ui.css.swt.theme.IThemeManager;
 import org.eclipse.e4.ui.di.Focus;
@@ -1206,6 +1207,25 @@ public class PartRenderingEngine implements IPresentationEngine {
 		}
 	}
 
+	/**
+	 * Schedule the restyling of a widget whose CSS class or id changed with
+	 * the restyle scheduler of the CSS engine. The scheduler skips changes
+	 * that no selector depends on and coalesces the others into one pass.
+	 * Widgets that were never styled are styled right away, so that they get
+	 * their styles before they are shown.
+	 */
+	private static void restyle(CSSSWTEngineImpl engine, Widget widget,
+			String oldClassname, String oldId) {
+		if (engine.getCSSElementContext(widget) == null) {
+			engine.applyStyles(widget, true);
+			return;
+		}
+		CSSSWTRestyleScheduler scheduler = engine.getRestyleScheduler();
+		scheduler.classChanged(widget, oldClassname,
+				WidgetElement.getCSSClass(widget));
+		scheduler.idChanged(widget, oldId, WidgetElement.getID(widget));
+	}
+
 	public static void initializeStyling(Display display,
 			IEclipseContext appContext) {
 		String cssTheme = (String) appContext.get(E4Application.THEME_ID);
@@ -1243,13 +1263,18 @@ public class PartRenderingEngine implements IPresentationEngine {
 
 			appContext.set(IStylingEngine.SERVICE_NAME, new IStylingEngine() {
 				public void setClassname(Object widget, String classname) {
+					String oldClassname = WidgetElement
+							.getCSSClass((Widget) widget);
 					WidgetElement.setCSSClass((Widget) widget, classname);
-					engine.applyStyles((Widget) widget, true);
+					engine.restyle(widget, oldClassname,
+							WidgetElement.getID((Widget) widget));
 				}
 
 				public void setId(Object widget, String id) {
+					String oldId = WidgetElement.getID((Widget) widget);
 					WidgetElement.setID((Widget) widget, id);
-					engine.applyStyles((Widget) widget, true);
+					engine.restyle(widget,
+							WidgetElement.getCSSClass((Widget) widget), oldId);
 				}
 
 				public void style(Object widget) {
@@ -1262,9 +1287,12 @@ public class PartRenderingEngine implements IPresentationEngine {
 
 				public void setClassnameAndId(Object widget, String classname,
 						String id) {
+					String oldClassname = WidgetElement
+							.getCSSClass((Widget) widget);
+					String oldId = WidgetElement.getID((Widget) widget);
 					WidgetElement.setCSSClass((Widget) widget, classname);
 					WidgetElement.setID((Widget) widget, id);
-					engine.applyStyles((Widget) widget, true);
+					engine.restyle(widget, oldClassname, oldId);
 				}
 
 			});
@@ -1281,13 +1309,18 @@ public class PartRenderingEngine implements IPresentationEngine {
 			display.setData("org.eclipse.e4.ui.css.context", appContext); //$NON-NLS-1$
 			appContext.set(IStylingEngine.SERVICE_NAME, new IStylingEngine() {
 				public void setClassname(Object widget, String classname) {
+					String oldClassname = WidgetElement
+							.getCSSClass((Widget) widget);
 					WidgetElement.setCSSClass((Widget) widget, classname);
-					engine.applyStyles((Widget) widget, true);
+					restyle(engine, (Widget) widget, oldClassname,
+							WidgetElement.getID((Widget) widget));
 				}
 
 				public void setId(Object widget, String id) {
+					String oldId = WidgetElement.getID((Widget) widget);
 					WidgetElement.setID((Widget) widget, id);
-					engine.applyStyles((Widget) widget, true);
+					restyle(engine, (Widget) widget,
+							WidgetElement.getCSSClass((Widget) widget), oldId);
 				}
 
 				public void style(Object widget) {
@@ -1305,9 +1338,12 @@ public class PartRenderingEngine implements IPresentationEngine {
 
 				public void setClassnameAndId(Object widget, String classname,
 						String id) {
+					String oldClassname = WidgetElement
+							.getCSSClass((Widget) widget);
+					String oldId = WidgetElement.getID((Widget) widget);
 					WidgetElement.setCSSClass((Widget) widget, classname);
 					WidgetElement.setID((Widget) widget, id);
-					engine.applyStyles((Widget) widget, true);
+					restyle(engine, (Widget) widget, oldClassname, oldId);
 				}
 
 			});
@@ -65,6 +65,12 @@ public class E4Workbench implements IWorkbench {
 	 * @deprecated
 	 */
 	public static final String DELTA_RESTORE = "deltaRestore"; //$NON-NLS-1$
+	/**
+	 * The argument for saving the workbench model in a binary format instead of XMI <br>
+	 * <br>
+	 * Value is: <code>binaryModel</code>
+	 */
+	public static final String BINARY_MODEL = "binaryModel"; //$NON-NLS-1$
 	/**
 	 * The argument for setting RTL mode <br>
 	 * <br>
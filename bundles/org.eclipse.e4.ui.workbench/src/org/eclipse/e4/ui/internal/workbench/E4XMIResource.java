@@ -11,18 +11,37 @@
 
 package org.eclipse.e4.ui.internal.workbench;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.WeakHashMap;
+import org.eclipse.emf.common.util.TreeIterator;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
 
 public class E4XMIResource extends XMIResourceImpl {
 
+	/**
+	 * Save option to write the model in EMF's binary format instead of XMI. The value is a
+	 * {@link Boolean}. Loading detects the format on its own, so a resource saved either way can be
+	 * read back without any option.
+	 */
+	public static final String OPTION_BINARY = "BINARY"; //$NON-NLS-1$
+
+	// the first bytes that EMF writes in front of a binary resource
+	private static final byte[] BINARY_SIGNATURE = { (byte) '\211', 'e', 'm', 'f', '\n', '\r',
+			'\032', '\n' };
+
 	private Map<EObject, String> objectMap = new WeakHashMap<EObject, String>();
 	private Set<String> knownIds = new HashSet<String>();
 
@@ -92,4 +111,73 @@ public class E4XMIResource extends XMIResourceImpl {
 		setID(eObject, id);
 		return id;
 	}
+
+	@Override
+	public void doSave(OutputStream outputStream, Map<?, ?> options) throws IOException {
+		if (options == null) {
+			options = getDefaultSaveOptions();
+		}
+		if (!Boolean.TRUE.equals(options.get(OPTION_BINARY))) {
+			super.doSave(outputStream, options);
+			return;
+		}
+
+		BinaryResourceImpl.EObjectOutputStream out = new BinaryResourceImpl.EObjectOutputStream(
+				outputStream, options);
+		out.saveResource(this);
+
+		// the binary format has no place for the ids, append them in content order
+		List<String> ids = new ArrayList<String>();
+		for (TreeIterator<EObject> it = getAllContents(); it.hasNext();) {
+			ids.add(getID(it.next()));
+		}
+		out.writeCompressedInt(ids.size());
+		for (String id : ids) {
+			out.writeBoolean(id != null);
+			if (id != null) {
+				out.writeString(id);
+			}
+		}
+		out.flush();
+	}
+
+	@Override
+	public void doLoad(InputStream inputStream, Map<?, ?> options) throws IOException {
+		InputStream in = inputStream.markSupported() ? inputStream : new BufferedInputStream(
+				inputStream);
+		if (!isBinary(in)) {
+			super.doLoad(in, options);
+			return;
+		}
+
+		BinaryResourceImpl.EObjectInputStream eIn = new BinaryResourceImpl.EObjectInputStream(in,
+				options);
+		eIn.loadResource(this);
+
+		int count = eIn.readCompressedInt();
+		TreeIterator<EObject> it = getAllContents();
+		for (int i = 0; i < count; i++) {
+			if (!it.hasNext()) {
+				throw new IOException("Model ids do not match the contents of " + getURI()); //$NON-NLS-1$
+			}
+			EObject eObject = it.next();
+			if (eIn.readBoolean()) {
+				setID(eObject, eIn.readString());
+			}
+		}
+	}
+
+	private static boolean isBinary(InputStream in) throws IOException {
+		in.mark(BINARY_SIGNATURE.length);
+		try {
+			for (int i = 0; i < BINARY_SIGNATURE.length; i++) {
+				if (in.read() != (BINARY_SIGNATURE[i] & 0xFF)) {
+					return false;
+				}
+			}
+			return true;
+		} finally {
+			in.reset();
+		}
+	}
 }
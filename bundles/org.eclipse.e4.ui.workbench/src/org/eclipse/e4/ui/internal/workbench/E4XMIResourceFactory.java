@@ -40,6 +40,22 @@ public class E4XMIResourceFactory extends XMIResourceFactoryImpl {
 	 * the map is hosted within a ThreadLocale for thread safety.
 	 */
 	private final ThreadLocal<Map<Object, Object>> nameToFeatureMap = new ThreadLocal<Map<Object, Object>>();
+	/**
+	 * Whether resources save in the binary format, see {@link E4XMIResource#OPTION_BINARY}.
+	 */
+	private final boolean binary;
+
+	public E4XMIResourceFactory() {
+		this(false);
+	}
+
+	/**
+	 * @param binary
+	 *            <code>true</code> if the created resources should save in the binary format
+	 */
+	public E4XMIResourceFactory(boolean binary) {
+		this.binary = binary;
+	}
 
 	@Override
 	public Resource createResource(URI uri) {
@@ -51,6 +67,9 @@ public class E4XMIResourceFactory extends XMIResourceFactoryImpl {
 		final Map<Object, Object> saveOptions = resource.getDefaultSaveOptions();
 		saveOptions.put(XMLResource.OPTION_CONFIGURATION_CACHE, Boolean.TRUE);
 		saveOptions.put(XMLResource.OPTION_USE_CACHED_LOOKUP_TABLE, lookupTable.get());
+		if (binary) {
+			saveOptions.put(E4XMIResource.OPTION_BINARY, Boolean.TRUE);
+		}
 
 		final Map<Object, Object> loadOptions = resource.getDefaultLoadOptions();
 		loadOptions.put(XMLResource.OPTION_DEFER_ATTACHMENT, Boolean.TRUE);
@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.internal.workbench;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.e4.ui.model.application.MApplication;
+import org.eclipse.e4.ui.model.application.impl.ApplicationPackageImpl;
+import org.eclipse.e4.ui.model.application.ui.MUIElement;
+import org.eclipse.e4.ui.model.application.ui.advanced.MPlaceholder;
+import org.eclipse.e4.ui.model.application.ui.advanced.impl.AdvancedPackageImpl;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * Index of the UI elements of an application model by element id and by type. It follows the
+ * containment changes of the model so that searches can skip the parts of the model that can't
+ * hold a match.
+ */
+final class ModelIndex extends EContentAdapter {
+
+	private final MApplication application;
+
+	private final Map<String, Set<MUIElement>> elementsById = new HashMap<String, Set<MUIElement>>();
+
+	private final Map<Class<?>, Set<MUIElement>> elementsByClass = new HashMap<Class<?>, Set<MUIElement>>();
+
+	// placeholders by the element they refer to, shared elements are only reachable through them
+	private final Map<MUIElement, Set<MPlaceholder>> placeholdersByRef = new HashMap<MUIElement, Set<MPlaceholder>>();
+
+	ModelIndex(MApplication application) {
+		this.application = application;
+		add(application);
+		((EObject) application).eAdapters().add(this);
+	}
+
+	MApplication getApplication() {
+		return application;
+	}
+
+	void dispose() {
+		((EObject) application).eAdapters().remove(this);
+	}
+
+	@Override
+	public void notifyChanged(Notification notification) {
+		super.notifyChanged(notification);
+
+		if (notification.isTouch())
+			return;
+
+		Object feature = notification.getFeature();
+		if (feature instanceof EReference && ((EReference) feature).isContainment()) {
+			switch (notification.getEventType()) {
+			case Notification.ADD:
+				add(notification.getNewValue());
+				break;
+			case Notification.ADD_MANY:
+				for (Object added : (Collection<?>) notification.getNewValue()) {
+					add(added);
+				}
+				break;
+			case Notification.REMOVE:
+				remove(notification.getOldValue());
+				break;
+			case Notification.REMOVE_MANY:
+				for (Object removed : (Collection<?>) notification.getOldValue()) {
+					remove(removed);
+				}
+				break;
+			case Notification.SET:
+			case Notification.UNSET:
+				remove(notification.getOldValue());
+				add(notification.getNewValue());
+				break;
+			}
+		} else if (feature == ApplicationPackageImpl.Literals.APPLICATION_ELEMENT__ELEMENT_ID) {
+			if (notification.getNotifier() instanceof MUIElement) {
+				MUIElement element = (MUIElement) notification.getNotifier();
+				removeFrom(elementsById, (String) notification.getOldValue(), element);
+				addTo(elementsById, (String) notification.getNewValue(), element);
+			}
+		} else if (feature == AdvancedPackageImpl.Literals.PLACEHOLDER__REF) {
+			MPlaceholder placeholder = (MPlaceholder) notification.getNotifier();
+			removeFrom(placeholdersByRef, (MUIElement) notification.getOldValue(), placeholder);
+			addTo(placeholdersByRef, (MUIElement) notification.getNewValue(), placeholder);
+		}
+	}
+
+	/**
+	 * Return every element that a search for the given id or type has to pass through: the
+	 * matching elements, their containers and the placeholders that refer to any of them.
+	 *
+	 * @param id
+	 *            the element id, may be <code>null</code>
+	 * @param clazz
+	 *            the type, may be <code>null</code>
+	 * @return the elements to search, or <code>null</code> if the index can't narrow the search
+	 */
+	Set<Object> getSearchScope(String id, Class<?> clazz) {
+		List<EObject> pending = new ArrayList<EObject>();
+		if (id != null) {
+			Set<MUIElement> elements = elementsById.get(id);
+			if (elements != null) {
+				for (MUIElement element : elements) {
+					pending.add((EObject) element);
+				}
+			}
+		} else if (clazz != null && !clazz.isAssignableFrom(MUIElement.class)) {
+			for (Map.Entry<Class<?>, Set<MUIElement>> entry : elementsByClass.entrySet()) {
+				if (clazz.isAssignableFrom(entry.getKey())) {
+					for (MUIElement element : entry.getValue()) {
+						pending.add((EObject) element);
+					}
+				}
+			}
+		} else {
+			return null;
+		}
+
+		Set<Object> scope = new HashSet<Object>();
+		while (!pending.isEmpty()) {
+			EObject element = pending.remove(pending.size() - 1);
+			// stop at the first container that is already known
+			for (EObject e = element; e != null && scope.add(e); e = e.eContainer()) {
+				Set<MPlaceholder> placeholders = placeholdersByRef.get(e);
+				if (placeholders != null) {
+					for (MPlaceholder placeholder : placeholders) {
+						pending.add((EObject) placeholder);
+					}
+				}
+			}
+		}
+		return scope;
+	}
+
+	private void add(Object value) {
+		if (!(value instanceof EObject))
+			return;
+
+		index((EObject) value, true);
+		for (Iterator<EObject> it = ((EObject) value).eAllContents(); it.hasNext();) {
+			index(it.next(), true);
+		}
+	}
+
+	private void remove(Object value) {
+		// elements that moved to another container in the model stay indexed
+		if (!(value instanceof EObject)
+				|| EcoreUtil.isAncestor((EObject) application, (EObject) value))
+			return;
+
+		index((EObject) value, false);
+		for (Iterator<EObject> it = ((EObject) value).eAllContents(); it.hasNext();) {
+			index(it.next(), false);
+		}
+	}
+
+	private void index(EObject object, boolean add) {
+		if (!(object instanceof MUIElement))
+			return;
+
+		MUIElement element = (MUIElement) object;
+		if (add) {
+			addTo(elementsById, element.getElementId(), element);
+			addTo(elementsByClass, element.getClass(), element);
+		} else {
+			removeFrom(elementsById, element.getElementId(), element);
+			removeFrom(elementsByClass, element.getClass(), element);
+		}
+		if (element instanceof MPlaceholder) {
+			MPlaceholder placeholder = (MPlaceholder) element;
+			if (add) {
+				addTo(placeholdersByRef, placeholder.getRef(), placeholder);
+			} else {
+				removeFrom(placeholdersByRef, placeholder.getRef(), placeholder);
+			}
+		}
+	}
+
+	private static <K, V> void addTo(Map<K, Set<V>> map, K key, V value) {
+		if (key == null)
+			return;
+
+		Set<V> values = map.get(key);
+		if (values == null) {
+			values = new HashSet<V>();
+			map.put(key, values);
+		}
+		values.add(value);
+	}
+
+	private static <K, V> void removeFrom(Map<K, Set<V>> map, K key, V value) {
+		if (key == null)
+			return;
+
+		Set<V> values = map.get(key);
+		if (values != null && values.remove(value) && values.isEmpty()) {
+			map.remove(key);
+		}
+	}
+}
@@ -13,6 +13,7 @@ package org.eclipse.e4.ui.internal.workbench;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.e4.core.contexts.IEclipseContext;
 import org.eclipse.e4.core.services.events.IEventBroker;
@@ -89,6 +90,8 @@ public class ModelServiceImpl implements EModelService {
 
 	private IEclipseContext appContext;
 
+	private ModelIndex modelIndex;
+
 	// Cleans up after a hosted element is disposed
 	private EventHandler hostedElementHandler = new EventHandler() {
 
@@ -285,12 +288,38 @@ public class ModelServiceImpl implements EModelService {
 		return true;
 	}
 
+	/**
+	 * Use the model index to find the elements that a search has to visit.
+	 * 
+	 * @return the elements to visit, or <code>null</code> to visit every element
+	 */
+	private Set<Object> getSearchScope(MUIElement searchRoot, String id, Class<?> clazz) {
+		if (id == null && (clazz == null || clazz.isAssignableFrom(MUIElement.class)))
+			return null;
+
+		EObject root = EcoreUtil.getRootContainer((EObject) searchRoot);
+		if (!(root instanceof MApplication))
+			return null;
+
+		if (modelIndex == null || modelIndex.getApplication() != root) {
+			if (modelIndex != null)
+				modelIndex.dispose();
+			modelIndex = new ModelIndex((MApplication) root);
+		}
+		return modelIndex.getSearchScope(id, clazz);
+	}
+
 	private <T> void findElementsRecursive(MUIElement searchRoot, String id,
-			Class<? extends T> type, List<String> tagsToMatch, List<T> elements, int searchFlags) {
+			Class<? extends T> type, List<String> tagsToMatch, List<T> elements, int searchFlags,
+			Set<Object> scope) {
 		Assert.isLegal(searchRoot != null);
 		if (searchFlags == 0)
 			return;
 
+		// nothing below this element can match
+		if (scope != null && !scope.contains(searchRoot))
+			return;
+
 		// are *we* a match ?
 		if (match(searchRoot, id, type, tagsToMatch)) {
 			if (!elements.contains((T) searchRoot))
@@ -305,26 +334,30 @@ public class ModelServiceImpl implements EModelService {
 					MElementContainer<MUIElement> container = (MElementContainer<MUIElement>) searchRoot;
 					List<MUIElement> children = container.getChildren();
 					for (MUIElement child : children) {
-						findElementsRecursive(child, id, type, tagsToMatch, elements, searchFlags);
+						findElementsRecursive(child, id, type, tagsToMatch, elements, searchFlags,
+								scope);
 					}
 				} else if ((searchFlags & IN_ACTIVE_PERSPECTIVE) != 0) {
 					// Only search the currently active perspective, if any
 					MPerspective active = ((MPerspectiveStack) searchRoot).getSelectedElement();
 					if (active != null) {
-						findElementsRecursive(active, id, type, tagsToMatch, elements, searchFlags);
+						findElementsRecursive(active, id, type, tagsToMatch, elements, searchFlags,
+								scope);
 					}
 				} else if ((searchFlags & IN_SHARED_AREA) != 0) {
 					// Only recurse through the shared areas
 					List<MArea> areas = findElements(searchRoot, null, MArea.class, null);
 					for (MArea area : areas) {
-						findElementsRecursive(area, id, type, tagsToMatch, elements, searchFlags);
+						findElementsRecursive(area, id, type, tagsToMatch, elements, searchFlags,
+								scope);
 					}
 				}
 			} else {
 				MElementContainer<MUIElement> container = (MElementContainer<MUIElement>) searchRoot;
 				List<MUIElement> children = container.getChildren();
 				for (MUIElement child : children) {
-					findElementsRecursive(child, id, type, tagsToMatch, elements, searchFlags);
+					findElementsRecursive(child, id, type, tagsToMatch, elements, searchFlags,
+							scope);
 				}
 			}
 		}
@@ -334,7 +367,8 @@ public class ModelServiceImpl implements EModelService {
 			MTrimmedWindow tw = (MTrimmedWindow) searchRoot;
 			List<MTrimBar> bars = tw.getTrimBars();
 			for (MTrimBar bar : bars) {
-				findElementsRecursive(bar, id, type, tagsToMatch, elements, searchFlags);
+				findElementsRecursive(bar, id, type, tagsToMatch, elements, searchFlags,
+						scope);
 			}
 		}
 
@@ -342,13 +376,15 @@ public class ModelServiceImpl implements EModelService {
 		if (searchRoot instanceof MWindow) {
 			MWindow window = (MWindow) searchRoot;
 			for (MWindow dw : window.getWindows()) {
-				findElementsRecursive(dw, id, type, tagsToMatch, elements, searchFlags);
+				findElementsRecursive(dw, id, type, tagsToMatch, elements, searchFlags,
+						scope);
 			}
 		}
 		if (searchRoot instanceof MPerspective) {
 			MPerspective persp = (MPerspective) searchRoot;
 			for (MWindow dw : persp.getWindows()) {
-				findElementsRecursive(dw, id, type, tagsToMatch, elements, searchFlags);
+				findElementsRecursive(dw, id, type, tagsToMatch, elements, searchFlags,
+						scope);
 			}
 		}
 		// Search shared elements
@@ -358,7 +394,8 @@ public class ModelServiceImpl implements EModelService {
 			// Don't search in shared areas unless the flag is set
 			if (ph.getRef() != null
 					&& (!(ph.getRef() instanceof MArea) || (searchFlags & IN_SHARED_AREA) != 0)) {
-				findElementsRecursive(ph.getRef(), id, type, tagsToMatch, elements, searchFlags);
+				findElementsRecursive(ph.getRef(), id, type, tagsToMatch, elements, searchFlags,
+						scope);
 			}
 		}
 	}
@@ -372,21 +409,24 @@ public class ModelServiceImpl implements EModelService {
 	public <T> List<T> findElements(MUIElement searchRoot, String id, Class<T> clazz,
 			List<String> tagsToMatch) {
 		List<T> elements = new ArrayList<T>();
-		findElementsRecursive(searchRoot, id, clazz, tagsToMatch, elements, ANYWHERE);
+		findElementsRecursive(searchRoot, id, clazz, tagsToMatch, elements, ANYWHERE,
+				getSearchScope(searchRoot, id, clazz));
 		return elements;
 	}
 
 	public <T> List<T> findElements(MUIElement searchRoot, String id, Class<T> clazz,
 			List<String> tagsToMatch, int searchFlags) {
 		List<T> elements = new ArrayList<T>();
-		findElementsRecursive(searchRoot, id, clazz, tagsToMatch, elements, searchFlags);
+		findElementsRecursive(searchRoot, id, clazz, tagsToMatch, elements, searchFlags,
+				getSearchScope(searchRoot, id, clazz));
 		return elements;
 	}
 
 	private <T> List<T> findPerspectiveElements(MUIElement searchRoot, String id, Class<T> clazz,
 			List<String> tagsToMatch) {
 		List<T> elements = new ArrayList<T>();
-		findElementsRecursive(searchRoot, id, clazz, tagsToMatch, elements, PRESENTATION);
+		findElementsRecursive(searchRoot, id, clazz, tagsToMatch, elements, PRESENTATION,
+				getSearchScope(searchRoot, id, clazz));
 		return elements;
 	}
 
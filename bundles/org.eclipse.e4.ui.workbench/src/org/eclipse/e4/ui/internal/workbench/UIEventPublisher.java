@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2012 IBM Corporation and others.
+ * Copyright (c) 2009, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,7 +10,10 @@
  *******************************************************************************/
 package org.eclipse.e4.ui.internal.workbench;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.e4.core.contexts.IEclipseContext;
@@ -32,8 +35,30 @@ import org.eclipse.emf.ecore.util.EContentAdapter;
  */
 public class UIEventPublisher extends EContentAdapter {
 
+	/**
+	 * An event held back until the end of a batch.
+	 */
+	private static class PendingEvent {
+		final EStructuralFeature feature;
+		String topic;
+		final Map<String, Object> argMap;
+
+		PendingEvent(EStructuralFeature feature, String topic, Map<String, Object> argMap) {
+			this.feature = feature;
+			this.topic = topic;
+			this.argMap = argMap;
+		}
+	}
+
 	private IEclipseContext context;
 
+	private int batchDepth;
+
+	private List<PendingEvent> pendingEvents = new ArrayList<PendingEvent>();
+
+	// the last pending event of each element, by attribute name
+	private Map<MApplicationElement, Map<String, PendingEvent>> lastPendingEvents = new HashMap<MApplicationElement, Map<String, PendingEvent>>();
+
 	/**
 	 * @param e4Context
 	 */
@@ -41,6 +66,39 @@ public class UIEventPublisher extends EContentAdapter {
 		this.context = e4Context;
 	}
 
+	/**
+	 * Hold back the events of all model changes until the matching {@link #endBatch()}. Batches
+	 * may be nested, the events are published when the outermost batch ends.
+	 * <p>
+	 * Within a batch the events for the same element and attribute are coalesced: successive SETs
+	 * are published as one SET with the last value, and successive ADDs or REMOVEs as one ADD_MANY
+	 * or REMOVE_MANY. Listeners therefore only see the model in its final state.
+	 * </p>
+	 */
+	public void beginBatch() {
+		batchDepth++;
+	}
+
+	/**
+	 * End a batch started with {@link #beginBatch()}, publishing the collected events if this was
+	 * the outermost batch.
+	 */
+	public void endBatch() {
+		if (batchDepth == 0) {
+			throw new IllegalStateException("No batch to end"); //$NON-NLS-1$
+		}
+		if (--batchDepth > 0) {
+			return;
+		}
+		List<PendingEvent> events = pendingEvents;
+		pendingEvents = new ArrayList<PendingEvent>();
+		lastPendingEvents.clear();
+		IEventBroker eventManager = context.get(IEventBroker.class);
+		for (PendingEvent event : events) {
+			eventManager.send(event.topic, event.argMap);
+		}
+	}
+
 	public void notifyChanged(Notification notification) {
 		super.notifyChanged(notification);
 
@@ -54,11 +112,112 @@ public class UIEventPublisher extends EContentAdapter {
 		String topic = formatData(notification, argMap);
 
 		if (topic != null) {
+			if (batchDepth > 0) {
+				addPendingEvent(notification, topic, argMap);
+				return;
+			}
 			IEventBroker eventManager = context.get(IEventBroker.class);
 			eventManager.send(topic, argMap);
 		}
 	}
 
+	private void addPendingEvent(Notification notification, String topic,
+			Map<String, Object> argMap) {
+		// map entry SETs share the attribute name of their map, they are never coalesced
+		if (notification.getNotifier() instanceof MApplicationElement) {
+			MApplicationElement element = (MApplicationElement) notification.getNotifier();
+			Map<String, PendingEvent> lastEvents = lastPendingEvents.get(element);
+			if (lastEvents == null) {
+				lastEvents = new HashMap<String, PendingEvent>();
+				lastPendingEvents.put(element, lastEvents);
+			}
+			String attributeName = (String) argMap.get(EventTags.ATTNAME);
+			PendingEvent last = lastEvents.get(attributeName);
+			if (last != null && coalesce(last, argMap)) {
+				return;
+			}
+			PendingEvent event = new PendingEvent((EStructuralFeature) notification.getFeature(),
+					topic, argMap);
+			pendingEvents.add(event);
+			lastEvents.put(attributeName, event);
+		} else {
+			pendingEvents.add(new PendingEvent(null, topic, argMap));
+		}
+	}
+
+	/**
+	 * Merge an event into the last pending event for the same element and attribute.
+	 * 
+	 * @return <code>true</code> if the event was merged
+	 */
+	private boolean coalesce(PendingEvent last, Map<String, Object> argMap) {
+		Object lastType = last.argMap.get(EventTags.TYPE);
+		Object type = argMap.get(EventTags.TYPE);
+		if (EventTypes.SET.equals(lastType) && EventTypes.SET.equals(type)) {
+			// last SET wins, the old value stays the one from before the batch
+			Object newValue = argMap.get(EventTags.NEW_VALUE);
+			if (newValue == null) {
+				last.argMap.remove(EventTags.NEW_VALUE);
+			} else {
+				last.argMap.put(EventTags.NEW_VALUE, newValue);
+			}
+			copyWidget(last.argMap, argMap);
+			return true;
+		}
+		String valueTag;
+		String manyType;
+		if (isAdd(lastType) && isAdd(type)) {
+			valueTag = EventTags.NEW_VALUE;
+			manyType = EventTypes.ADD_MANY;
+		} else if (isRemove(lastType) && isRemove(type)) {
+			valueTag = EventTags.OLD_VALUE;
+			manyType = EventTypes.REMOVE_MANY;
+		} else {
+			return false;
+		}
+		List<Object> values = new ArrayList<Object>();
+		addValues(values, last.argMap.get(valueTag));
+		int lastCount = values.size();
+		addValues(values, argMap.get(valueTag));
+
+		// keep the position only while the additions stay contiguous
+		Object lastPosition = last.argMap.get(EventTags.POSITION);
+		Object position = argMap.get(EventTags.POSITION);
+		boolean contiguous = manyType == EventTypes.ADD_MANY && lastPosition instanceof Integer
+				&& position instanceof Integer
+				&& ((Integer) lastPosition).intValue() + lastCount == ((Integer) position).intValue();
+		if (!contiguous) {
+			last.argMap.remove(EventTags.POSITION);
+		}
+		last.argMap.put(valueTag, values);
+		last.argMap.put(EventTags.TYPE, manyType);
+		copyWidget(last.argMap, argMap);
+		last.topic = getTopic(last.feature, manyType);
+		return true;
+	}
+
+	private static boolean isAdd(Object type) {
+		return EventTypes.ADD.equals(type) || EventTypes.ADD_MANY.equals(type);
+	}
+
+	private static boolean isRemove(Object type) {
+		return EventTypes.REMOVE.equals(type) || EventTypes.REMOVE_MANY.equals(type);
+	}
+
+	private static void addValues(List<Object> values, Object value) {
+		if (value instanceof Collection<?>) {
+			values.addAll((Collection<?>) value);
+		} else if (value != null) {
+			values.add(value);
+		}
+	}
+
+	private static void copyWidget(Map<String, Object> target, Map<String, Object> source) {
+		if (source.containsKey(EventTags.WIDGET)) {
+			target.put(EventTags.WIDGET, source.get(EventTags.WIDGET));
+		}
+	}
+
 	/**
 	 * Large hack here. Open to better suggestions
 	 * 
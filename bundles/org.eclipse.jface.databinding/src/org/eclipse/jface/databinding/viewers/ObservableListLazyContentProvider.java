@@ -0,0 +1,297 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.jface.databinding.viewers;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.eclipse.core.databinding.observable.IObservable;
+import org.eclipse.core.databinding.observable.Observables;
+import org.eclipse.core.databinding.observable.list.IListChangeListener;
+import org.eclipse.core.databinding.observable.list.IObservableList;
+import org.eclipse.core.databinding.observable.list.ListChangeEvent;
+import org.eclipse.core.databinding.observable.list.ListDiffEntry;
+import org.eclipse.core.databinding.observable.masterdetail.IObservableFactory;
+import org.eclipse.core.databinding.observable.masterdetail.MasterDetailObservables;
+import org.eclipse.core.databinding.observable.set.IObservableSet;
+import org.eclipse.core.databinding.observable.value.IObservableValue;
+import org.eclipse.core.databinding.observable.value.WritableValue;
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.jface.databinding.swt.SWTObservables;
+import org.eclipse.jface.internal.databinding.viewers.ObservableViewerElementSet;
+import org.eclipse.jface.internal.databinding.viewers.ViewerElementMap;
+import org.eclipse.jface.viewers.AbstractTableViewer;
+import org.eclipse.jface.viewers.IElementComparer;
+import org.eclipse.jface.viewers.IIndexableLazyContentProvider;
+import org.eclipse.jface.viewers.ILazyContentProvider;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * An {@link ILazyContentProvider lazy content provider} for
+ * {@link AbstractTableViewer} with the {@link org.eclipse.swt.SWT#VIRTUAL}
+ * style that provides elements of an {@link IObservableList} when set as the
+ * viewer's input.
+ * <p>
+ * Unlike {@link ObservableListContentProvider}, this content provider does not
+ * hand the whole list to the viewer. The viewer asks for the rows that become
+ * visible, and changes to the observable list only update the item count of
+ * the viewer and clear the rows that were already shown and whose element
+ * changed. The {@link #getKnownElements() known elements} are the elements of
+ * the rows that were shown, so that an {@link ObservableMapLabelProvider} on
+ * the known elements only observes the attributes of those elements.
+ * </p>
+ * <p>
+ * As with any lazy content provider, the viewer can't have a sorter or
+ * filters.
+ * </p>
+ *
+ * @noextend This class is not intended to be subclassed by clients.
+ * @since 1.7
+ */
+public class ObservableListLazyContentProvider implements
+		IIndexableLazyContentProvider {
+
+	/**
+	 * Marks a row whose element has not been requested by the viewer.
+	 */
+	private static final Object UNKNOWN = new Object();
+
+	private Display display;
+
+	private IObservableValue viewerObservable;
+
+	private IObservableSet knownElements;
+	private IObservableSet unmodifiableKnownElements;
+
+	private AbstractTableViewer viewer;
+
+	private IElementComparer comparer;
+
+	private IObservableList observableList;
+
+	/**
+	 * The element shown in each row, or UNKNOWN.
+	 */
+	private Object[] rows = new Object[0];
+
+	/**
+	 * The number of rows showing each known element, as Integers.
+	 */
+	private Map rowCounts;
+
+	private IListChangeListener listChangeListener = new IListChangeListener() {
+		public void handleListChange(ListChangeEvent event) {
+			if (event.getObservableList() == observableList)
+				ObservableListLazyContentProvider.this.handleListChange(event);
+		}
+	};
+
+	/**
+	 * Constructs an ObservableListLazyContentProvider. Must be called from the
+	 * display thread.
+	 */
+	public ObservableListLazyContentProvider() {
+		display = Display.getDefault();
+		viewerObservable = new WritableValue(SWTObservables.getRealm(display));
+
+		knownElements = MasterDetailObservables.detailSet(viewerObservable,
+				new IObservableFactory() {
+					public IObservable createObservable(Object target) {
+						IElementComparer comparer = null;
+						if (target instanceof AbstractTableViewer)
+							comparer = ((AbstractTableViewer) target)
+									.getComparer();
+						return ObservableViewerElementSet.withComparer(
+								SWTObservables.getRealm(display), null,
+								comparer);
+					}
+				}, null);
+		unmodifiableKnownElements = Observables
+				.unmodifiableObservableSet(knownElements);
+	}
+
+	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+		if (observableList != null) {
+			observableList.removeListChangeListener(listChangeListener);
+			observableList = null;
+		}
+
+		if (viewer != null)
+			Assert.isTrue(viewer instanceof AbstractTableViewer,
+					"This content provider only works with AbstractTableViewer"); //$NON-NLS-1$
+		this.viewer = (AbstractTableViewer) viewer;
+		comparer = this.viewer == null ? null : this.viewer.getComparer();
+		viewerObservable.setValue(viewer); // (clears knownElements)
+		knownElements.clear();
+		rowCounts = ViewerElementMap.withComparer(comparer);
+
+		if (newInput != null) {
+			Assert.isTrue(newInput instanceof IObservableList,
+					"This content provider only works with input of type IObservableList"); //$NON-NLS-1$
+			observableList = (IObservableList) newInput;
+			observableList.addListChangeListener(listChangeListener);
+		}
+
+		rows = new Object[observableList == null ? 0 : observableList.size()];
+		Arrays.fill(rows, UNKNOWN);
+		if (!isViewerDisposed())
+			this.viewer.setItemCount(rows.length);
+	}
+
+	public void updateElement(int index) {
+		if (observableList == null || index >= rows.length)
+			return;
+
+		Object element = observableList.get(index);
+		if (rows[index] != UNKNOWN) {
+			if (rows[index] == element) {
+				viewer.replace(element, index);
+				return;
+			}
+			forget(rows[index]);
+		}
+
+		// known elements are added before the viewer sees them
+		rows[index] = element;
+		Integer count = (Integer) rowCounts.get(element);
+		if (count == null) {
+			rowCounts.put(element, new Integer(1));
+			knownElements.add(element);
+		} else {
+			rowCounts.put(element, new Integer(count.intValue() + 1));
+		}
+		viewer.replace(element, index);
+	}
+
+	public int findElement(Object element) {
+		if (observableList == null)
+			return -1;
+		if (comparer == null)
+			return observableList.indexOf(element);
+		for (int i = 0; i < observableList.size(); i++) {
+			if (comparer.equals(element, observableList.get(i)))
+				return i;
+		}
+		return -1;
+	}
+
+	private void handleListChange(ListChangeEvent event) {
+		if (isViewerDisposed())
+			return;
+
+		ListDiffEntry[] differences = event.diff.getDifferences();
+		if (differences.length == 0)
+			return;
+
+		int oldSize = rows.length;
+		int newSize = observableList.size();
+
+		// Each entry changes the row at its position and shifts the rows
+		// after it. Track the range of rows that may have changed, in the
+		// positions of the list after each entry. The rows after the range
+		// are shifted by the entries so far and only keep their elements
+		// once the shifts cancel out, which is the case after the last entry
+		// when the size does not change.
+		int first = Integer.MAX_VALUE;
+		int last = -1;
+		for (int i = 0; i < differences.length; i++) {
+			int position = differences[i].getPosition();
+			first = Math.min(first, position);
+			if (differences[i].isAddition())
+				last = Math.max(last + 1, position);
+			else
+				last = Math.max(last - 1, position);
+		}
+		if (newSize != oldSize)
+			last = Math.max(oldSize, newSize) - 1;
+
+		Object[] oldRows = rows;
+		rows = new Object[newSize];
+		System.arraycopy(oldRows, 0, rows, 0, Math.min(oldSize, newSize));
+		Arrays.fill(rows, Math.min(first, newSize), Math.min(last + 1, newSize),
+				UNKNOWN);
+
+		if (newSize != oldSize)
+			viewer.setItemCount(newSize);
+		for (int i = first; i <= last && i < newSize && i < oldSize; i++) {
+			if (oldRows[i] != UNKNOWN)
+				viewer.clear(i);
+		}
+
+		// known elements are removed after the viewer dropped them
+		for (int i = first; i <= last && i < oldSize; i++) {
+			if (oldRows[i] != UNKNOWN)
+				forget(oldRows[i]);
+		}
+	}
+
+	private void forget(Object element) {
+		int count = ((Integer) rowCounts.get(element)).intValue();
+		if (count == 1) {
+			rowCounts.remove(element);
+			knownElements.remove(element);
+		} else {
+			rowCounts.put(element, new Integer(count - 1));
+		}
+	}
+
+	private boolean isViewerDisposed() {
+		return viewer == null || viewer.getControl() == null
+				|| viewer.getControl().isDisposed();
+	}
+
+	/**
+	 * Disposes of this content provider. This is called by the viewer when a
+	 * content provider is replaced, or when the viewer itself is disposed.
+	 * <p>
+	 * The viewer should not be updated during this call, as it is in the
+	 * process of being disposed.
+	 * </p>
+	 * <p>
+	 * <em>Note:</em> Data binding content providers become unusable on
+	 * disposal.
+	 * </p>
+	 */
+	public void dispose() {
+		if (observableList != null) {
+			observableList.removeListChangeListener(listChangeListener);
+			observableList = null;
+		}
+		if (viewerObservable != null) {
+			viewerObservable.dispose();
+			viewerObservable = null;
+		}
+		viewer = null;
+		comparer = null;
+		rows = null;
+		rowCounts = null;
+		knownElements = null;
+		unmodifiableKnownElements = null;
+		listChangeListener = null;
+		display = null;
+	}
+
+	/**
+	 * Returns the set of elements known to this content provider, which are
+	 * the elements of the rows that the viewer requested. Label providers may
+	 * track this set if they need to be notified about additions before the
+	 * viewer sees the added element, and notified about removals after the
+	 * element was removed from the viewer. This is intended for use by label
+	 * providers, as it will always return the items that need labels.
+	 *
+	 * @return unmodifiable observable set of items that will need labels
+	 */
+	public IObservableSet getKnownElements() {
+		return unmodifiableKnownElements;
+	}
+}
@@ -33,6 +33,7 @@ import org.eclipse.jface.util.Policy;
 import org.eclipse.jface.util.SafeRunnable;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.BusyIndicator;
+import org.eclipse.swt.events.DisposeEvent;
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.events.SelectionListener;
 import org.eclipse.swt.events.TreeEvent;
@@ -96,6 +97,14 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 	 */
 	private boolean isExpandableCheckFilters = false;
 
+	/**
+	 * Fetches the children of expanded items in a background thread, or
+	 * <code>null</code> if the children are fetched in the UI thread.
+	 *
+	 * @see #setFetchChildrenInBackground(boolean)
+	 */
+	private BackgroundChildrenFetcher childrenFetcher = null;
+
 	/**
 	 * Safe runnable used to update an item.
 	 */
@@ -233,6 +242,12 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 			path = null;
 		}
 
+		// the children being fetched may not contain the added ones
+		if (childrenFetcher != null && widget instanceof Item
+				&& childrenFetcher.restart((Item) widget)) {
+			return;
+		}
+
 		// optimization!
 		// if the widget is not expanded we just invalidate the subtree
 		if (widget instanceof Item) {
@@ -789,6 +804,10 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 		boolean oldBusy = isBusy();
 		setBusy(true);
 		try {
+			if (childrenFetcher != null && widget instanceof Item) {
+				// the children are needed now
+				childrenFetcher.cancel((Item) widget);
+			}
 			final Item[] tis = getChildren(widget);
 			if (tis != null && tis.length > 0) {
 				Object data = tis[0].getData();
@@ -1495,6 +1514,9 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 	 *            the SWT tree event
 	 */
 	protected void handleTreeCollapse(TreeEvent event) {
+		if (childrenFetcher != null && event.item instanceof Item) {
+			childrenFetcher.cancel((Item) event.item);
+		}
 		if (event.item.getData() != null) {
 			fireTreeCollapsed(new TreeExpansionEvent(this, event.item.getData()));
 		}
@@ -1507,7 +1529,10 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 	 *            the SWT tree event
 	 */
 	protected void handleTreeExpand(TreeEvent event) {
-		createChildren(event.item);
+		if (childrenFetcher == null || !(event.item instanceof Item)
+				|| !childrenFetcher.fetch((Item) event.item)) {
+			createChildren(event.item);
+		}
 		if (event.item.getData() != null) {
 			fireTreeExpanded(new TreeExpansionEvent(this, event.item.getData()));
 		}
@@ -1534,6 +1559,9 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 	 */
 	@Override
 	protected void inputChanged(Object input, Object oldInput) {
+		if (childrenFetcher != null) {
+			childrenFetcher.cancelAll();
+		}
 		preservingSelection(new Runnable() {
 			public void run() {
 	            Control tree = getControl();
@@ -1961,6 +1989,10 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 	 * @since 3.1
 	 */
 	protected void internalRemove(Object[] elementsOrPaths) {
+		// the children being fetched may contain the removed elements
+		if (childrenFetcher != null) {
+			childrenFetcher.restartAll();
+		}
 		Object input = getInput();
 		for (int i = 0; i < elementsOrPaths.length; ++i) {
 			Object element = elementsOrPaths[i];
@@ -2006,6 +2038,10 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 	 * @since 3.1
 	 */
 	protected void internalRemove(Object parent, Object[] elements) {
+		// the children being fetched may contain the removed elements
+		if (childrenFetcher != null) {
+			childrenFetcher.restartAll();
+		}
 
 		CustomHashtable toRemove = new CustomHashtable(getComparer());
 		for (int i = 0; i < elements.length; i++) {
@@ -2623,6 +2659,12 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 	 */
 	private void updateChildren(Widget widget, Object parent,
 			Object[] elementChildren, boolean updateLabels) {
+		// the children being fetched may be out of date
+		if (childrenFetcher != null && widget instanceof Item
+				&& childrenFetcher.restart((Item) widget)) {
+			return;
+		}
+
 		// optimization! prune collapsed subtrees
 		if (widget instanceof Item) {
 			Item ti = (Item) widget;
@@ -2677,76 +2719,84 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 		}
 
 		Item[] items = getChildren(widget);
-		
-		// save the expanded elements
-		CustomHashtable expanded = newHashtable(CustomHashtable.DEFAULT_CAPACITY); // assume
-																					// num
-																					// expanded
-																					// is
-																					// small
+
+		// pair the items with the new children by element, and keep the
+		// longest run of pairs that are in the same order in place
+		int[] newToOld = pairChildItems(items, elementChildren);
+		int[] anchors = findKeptChildItems(newToOld);
+
+		// save the expanded elements of the items that are not kept
+		CustomHashtable expanded = null;
+		boolean[] kept = new boolean[items.length];
+		for (int k = 0; k < anchors.length; k++) {
+			kept[newToOld[anchors[k]]] = true;
+		}
 		for (int i = 0; i < items.length; ++i) {
-			if (getExpanded(items[i])) {
+			if (!kept[i] && getExpanded(items[i])) {
 				Object element = items[i].getData();
 				if (element != null) {
+					if (expanded == null) {
+						expanded = newHashtable(CustomHashtable.DEFAULT_CAPACITY);
+					}
 					expanded.put(element, element);
 				}
 			}
 		}
 
-		int min = Math.min(elementChildren.length, items.length);
-
-		// dispose of surplus items, optimizing for the case where elements have
-		// been deleted but not reordered, or all elements have been removed.
-		int numItemsToDispose = items.length - min;
-		if (numItemsToDispose > 0) {
-			CustomHashtable children = newHashtable(elementChildren.length * 2);
-			for (int i = 0; i < elementChildren.length; i++) {
-				Object elementChild = elementChildren[i];
-				children.put(elementChild, elementChild);
-			}
-			int i = 0;
-			while (numItemsToDispose > 0 && i < items.length) {
-				Object data = items[i].getData();
-				if (data == null || !children.containsKey(data)) {
-					if (data != null) {
-						disassociate(items[i]);
-					}
-					items[i].dispose();
-					if (i + 1 < items.length) {
-						// The components at positions i+1 through
-						// items.length-1 in the source array are copied into
-						// positions i through items.length-2
-						System.arraycopy(items, i + 1, items, i, items.length - (i+1));
-					}
-					numItemsToDispose--;
-				} else {
-					i++;
+		// Between two kept items, reuse the old items for the new children in
+		// order, dispose of the surplus items and create items for the
+		// surplus children. reused[j] is the item reused for child j, or null
+		// if the child is kept or needs a new item.
+		Item[] reused = new Item[elementChildren.length];
+		int[] created = new int[elementChildren.length];
+		int createdCount = 0;
+		int oldStart = 0;
+		int newStart = 0;
+		for (int k = 0; k <= anchors.length; k++) {
+			int oldEnd = k < anchors.length ? newToOld[anchors[k]] : items.length;
+			int newEnd = k < anchors.length ? anchors[k] : elementChildren.length;
+			int reuseCount = Math.min(oldEnd - oldStart, newEnd - newStart);
+			for (int r = 0; r < reuseCount; r++) {
+				reused[newStart + r] = items[oldStart + r];
+			}
+			for (int i = oldStart + reuseCount; i < oldEnd; i++) {
+				if (items[i].getData() != null) {
+					disassociate(items[i]);
 				}
+				items[i].dispose();
+			}
+			for (int j = newStart + reuseCount; j < newEnd; j++) {
+				created[createdCount++] = j;
 			}
+			oldStart = oldEnd + 1;
+			newStart = newEnd + 1;
 		}
 
-		// compare first min items, and update item if necessary
+		// update the kept and reused items if necessary
 		// need to do it in two passes:
 		// 1: disassociate old items
 		// 2: associate new items
 		// because otherwise a later disassociate can remove a mapping made for
 		// a previous associate,
 		// making the map inconsistent
-		for (int i = 0; i < min; ++i) {
-			Item item = items[i];
+		for (int j = 0; j < elementChildren.length; ++j) {
+			Item item = reused[j];
+			if (item == null) {
+				if (newToOld[j] == -1 || !kept[newToOld[j]]) {
+					continue; // needs a new item
+				}
+				item = items[newToOld[j]];
+			}
 			Object oldElement = item.getData();
 			if (oldElement != null) {
-				Object newElement = elementChildren[i];
+				Object newElement = elementChildren[j];
 				if (newElement != oldElement) {
 					if (equals(newElement, oldElement)) {
 						// update the data to be the new element, since
 						// although the elements
 						// may be equal, they may still have different labels
 						// or children
-						Object data = item.getData();
-						if (data != null) {
-							unmapElement(data, item);
-						}
+						unmapElement(oldElement, item);
 						item.setData(newElement);
 						mapElement(newElement, item);
 					} else {
@@ -2760,9 +2810,15 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 			}
 		}
 
-		for (int i = 0; i < min; ++i) {
-			Item item = items[i];
-			Object newElement = elementChildren[i];
+		for (int j = 0; j < elementChildren.length; ++j) {
+			Item item = reused[j];
+			if (item == null) {
+				if (newToOld[j] == -1 || !kept[newToOld[j]]) {
+					continue; // needs a new item
+				}
+				item = items[newToOld[j]];
+			}
+			Object newElement = elementChildren[j];
 			if (item.getData() == null) {
 				// old and new elements are not equal
 				associate(newElement, item);
@@ -2777,39 +2833,43 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 			}
 		}
 
-		// Restore expanded state for items that changed position.
-		// Make sure setExpanded is called after updatePlus, since
+		// Restore expanded state for reused items, the kept items keep their
+		// state. Make sure setExpanded is called after updatePlus, since
 		// setExpanded(false) fails if item has no children.
 		// Need to call setExpanded for both expanded and unexpanded
 		// cases since the expanded state can change either way.
 		// This needs to be done in a second loop, see bug 148025.
-		for (int i = 0; i < min; ++i) {
-			Item item = items[i];
-			Object newElement = elementChildren[i];
-			setExpanded(item, expanded.containsKey(newElement));
+		for (int j = 0; j < elementChildren.length; ++j) {
+			if (reused[j] != null) {
+				setExpanded(reused[j], expanded != null
+						&& expanded.containsKey(elementChildren[j]));
+			}
 		}
 
-		// add any remaining elements
-		if (min < elementChildren.length) {
-			for (int i = min; i < elementChildren.length; ++i) {
-				createTreeItem(widget, elementChildren[i], -1);
+		// add the remaining elements, in order so that the items before each
+		// of them are in place
+		if (createdCount > 0) {
+			for (int c = 0; c < createdCount; ++c) {
+				int j = created[c];
+				createTreeItem(widget, elementChildren[j], j);
 			}
 
 			// Need to restore expanded state in a separate pass
 			// because createTreeItem does not return the new item.
 			// Avoid doing this unless needed.
-			if (expanded.size() > 0) {
+			if (expanded != null) {
 				// get the items again, to include the new items
 				items = getChildren(widget);
-				for (int i = min; i < elementChildren.length; ++i) {
+				for (int c = 0; c < createdCount; ++c) {
+					int j = created[c];
 					// Restore expanded state for items that changed position.
 					// Make sure setExpanded is called after updatePlus (called
 					// in createTreeItem), since
 					// setExpanded(false) fails if item has no children.
 					// Only need to call setExpanded if element was expanded
 					// since new items are initially unexpanded.
-					if (expanded.containsKey(elementChildren[i])) {
-						setExpanded(items[i], true);
+					if (expanded.containsKey(elementChildren[j])) {
+						setExpanded(items[j], true);
 					}
 				}
 			}
@@ -2823,6 +2883,107 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 		}
 	}
 
+	/**
+	 * Pairs the n-th item showing an element with the n-th occurrence of an
+	 * equal element in the new children, using the viewer's comparer.
+	 *
+	 * @param items
+	 *            the old child items
+	 * @param elementChildren
+	 *            the new child elements
+	 * @return for each new child the index of the item paired with it, or -1
+	 */
+	private int[] pairChildItems(Item[] items, Object[] elementChildren) {
+		int[] newToOld = new int[elementChildren.length];
+		Arrays.fill(newToOld, -1);
+		if (items.length == 0) {
+			return newToOld;
+		}
+
+		// an item index as Integer for unique elements, a list of them
+		// otherwise
+		CustomHashtable occurrences = newHashtable(items.length * 2 + 1);
+		for (int i = 0; i < items.length; i++) {
+			Object element = items[i].getData();
+			if (element == null) {
+				continue;
+			}
+			Object indices = occurrences.get(element);
+			if (indices == null) {
+				occurrences.put(element, new Integer(i));
+			} else if (indices instanceof Integer) {
+				LinkedList list = new LinkedList();
+				list.add(indices);
+				list.add(new Integer(i));
+				occurrences.put(element, list);
+			} else {
+				((LinkedList) indices).add(new Integer(i));
+			}
+		}
+
+		for (int j = 0; j < elementChildren.length; j++) {
+			Object element = elementChildren[j];
+			Object indices = element == null ? null : occurrences.get(element);
+			if (indices instanceof Integer) {
+				newToOld[j] = ((Integer) indices).intValue();
+				occurrences.remove(element);
+			} else if (indices != null) {
+				LinkedList list = (LinkedList) indices;
+				newToOld[j] = ((Integer) list.removeFirst()).intValue();
+				if (list.isEmpty()) {
+					occurrences.remove(element);
+				}
+			}
+		}
+		return newToOld;
+	}
+
+	/**
+	 * Finds the longest run of paired children whose items are in the same
+	 * order, these items stay where they are.
+	 *
+	 * @param newToOld
+	 *            for each new child the index of the item paired with it, or
+	 *            -1
+	 * @return the indices of the new children whose items stay, in increasing
+	 *         order
+	 */
+	private static int[] findKeptChildItems(int[] newToOld) {
+		// index of the smallest last child of an increasing run of each length
+		int[] tails = new int[newToOld.length];
+		int[] previous = new int[newToOld.length];
+		int length = 0;
+		for (int j = 0; j < newToOld.length; j++) {
+			int oldIndex = newToOld[j];
+			if (oldIndex == -1) {
+				continue;
+			}
+			int low = 0;
+			int high = length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (newToOld[tails[middle]] < oldIndex) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			previous[j] = low > 0 ? tails[low - 1] : -1;
+			tails[low] = j;
+			if (low == length) {
+				length++;
+			}
+		}
+
+		int[] kept = new int[length];
+		int j = length > 0 ? tails[length - 1] : -1;
+		for (int k = length - 1; k >= 0; k--) {
+			kept[k] = j;
+			j = previous[j];
+		}
+		return kept;
+	}
+
 	/** Returns true if children were pruned */
 	/*package*/ boolean optionallyPruneChildren(Item item, Object element) {
 		// need a dummy node if element is expandable;
@@ -3221,4 +3382,66 @@ public abstract class AbstractTreeViewer extends ColumnViewer {
 		}
 	}
 
+	/**
+	 * Sets whether the children of an element that the user expands are
+	 * fetched in a background thread.
+	 * <p>
+	 * When this is turned on, expanding an item shows a pending child item
+	 * while the children are fetched from the content provider, filtered and
+	 * sorted in a background thread. The children are then added to the tree
+	 * in chunks. The fetch is cancelled when the item is collapsed, and it
+	 * starts over when the item is refreshed or elements are added or
+	 * removed. Expanding elements programmatically, for example through
+	 * {@link #expandToLevel(int)} or {@link #setExpandedElements(Object[])},
+	 * still fetches the children in the UI thread.
+	 * </p>
+	 * <p>
+	 * The <code>getChildren</code> method of the content provider, the
+	 * filters and the comparator are called in the background thread and must
+	 * not access widgets. The viewer's overrides of
+	 * {@link #getRawChildren(Object)} and {@link #getFilteredChildren(Object)}
+	 * are not used for these children. This is only supported for
+	 * {@link ITreeContentProvider} and {@link ITreePathContentProvider}.
+	 * </p>
+	 *
+	 * @param fetchInBackground
+	 *            <code>true</code> to fetch the children of expanded elements
+	 *            in a background thread, <code>false</code> to fetch them in
+	 *            the UI thread
+	 * @since 3.10
+	 */
+	public void setFetchChildrenInBackground(boolean fetchInBackground) {
+		if (fetchInBackground == (childrenFetcher != null)) {
+			return;
+		}
+		if (fetchInBackground) {
+			childrenFetcher = new BackgroundChildrenFetcher(this);
+		} else {
+			BackgroundChildrenFetcher fetcher = childrenFetcher;
+			childrenFetcher = null;
+			fetcher.resolveAll();
+		}
+	}
+
+	/**
+	 * Returns whether the children of an element that the user expands are
+	 * fetched in a background thread.
+	 *
+	 * @return <code>true</code> if the children of expanded elements are
+	 *         fetched in a background thread
+	 * @see #setFetchChildrenInBackground(boolean)
+	 * @since 3.10
+	 */
+	public boolean getFetchChildrenInBackground() {
+		return childrenFetcher != null;
+	}
+
+	@Override
+	protected void handleDispose(DisposeEvent event) {
+		if (childrenFetcher != null) {
+			childrenFetcher.cancelAll();
+		}
+		super.handleDispose(event);
+	}
+
 }
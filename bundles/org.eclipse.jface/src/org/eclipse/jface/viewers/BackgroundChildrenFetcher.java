@@ -0,0 +1,373 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.jface.viewers;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jface.resource.JFaceResources;
+import org.eclipse.jface.util.Policy;
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Item;
+
+/**
+ * Fetches, filters and sorts the children of the items that are expanded in
+ * an {@link AbstractTreeViewer} in a background thread, and adds them to the
+ * tree in chunks. While the children are fetched, the dummy child of the item
+ * shows a pending label.
+ * <p>
+ * All methods except the worker thread run in the UI thread. A fetch is
+ * current as long as it is in the map of pending fetches; a fetch that was
+ * cancelled is dropped by the worker thread and by the UI runnables.
+ * </p>
+ *
+ * @see AbstractTreeViewer#setFetchChildrenInBackground(boolean)
+ */
+final class BackgroundChildrenFetcher {
+
+	private static final String PENDING = JFaceResources
+			.getString("AbstractTreeViewer.pending"); //$NON-NLS-1$
+
+	private static final String FETCHING = JFaceResources
+			.getString("AbstractTreeViewer.fetchingChildren"); //$NON-NLS-1$
+
+	/**
+	 * The number of items created per UI runnable, so that the tree stays
+	 * responsive while a large number of children is added.
+	 */
+	private static final int CHUNK_SIZE = 100;
+
+	private final AbstractTreeViewer viewer;
+
+	/**
+	 * The pending fetches by item.
+	 */
+	private final Map<Item, Fetch> fetches = new IdentityHashMap<Item, Fetch>();
+
+	/**
+	 * This lock protects the queue and workerStarted.
+	 */
+	private final Object lock = new Object();
+
+	private final LinkedList<Fetch> queue = new LinkedList<Fetch>();
+
+	private boolean workerStarted = false;
+
+	BackgroundChildrenFetcher(AbstractTreeViewer viewer) {
+		this.viewer = viewer;
+	}
+
+	/**
+	 * Starts to fetch the children of the given item, if it has not been
+	 * populated yet.
+	 *
+	 * @param item
+	 *            the expanded item
+	 * @return <code>true</code> if the children are being fetched,
+	 *         <code>false</code> if the caller has to create them
+	 */
+	boolean fetch(Item item) {
+		if (fetches.containsKey(item))
+			return true;
+
+		Object parent = item.getData();
+		IContentProvider contentProvider = viewer.getContentProvider();
+		if (parent == null
+				|| !(contentProvider instanceof ITreeContentProvider || contentProvider instanceof ITreePathContentProvider))
+			return false;
+		Item[] children = viewer.getChildren(item);
+		if (children.length == 0 || children[0].getData() != null)
+			return false;
+
+		// keep a single dummy to show the pending label
+		for (int i = 1; i < children.length; i++) {
+			if (children[i].getData() != null)
+				viewer.disassociate(children[i]);
+			children[i].dispose();
+		}
+		children[0].setText(PENDING);
+
+		Fetch fetch = new Fetch(item, children[0], contentProvider);
+		fetches.put(item, fetch);
+		synchronized (lock) {
+			queue.add(fetch);
+			if (!workerStarted) {
+				workerStarted = true;
+				Thread worker = new Worker(FETCHING);
+				worker.setDaemon(true);
+				worker.setPriority(Thread.NORM_PRIORITY - 1);
+				worker.start();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Cancels the fetch for the given item and discards the children that it
+	 * already added, leaving an empty dummy child.
+	 *
+	 * @param item
+	 *            the item
+	 * @return <code>true</code> if a fetch was pending for the item
+	 */
+	boolean cancel(Item item) {
+		Fetch fetch = fetches.remove(item);
+		if (fetch == null)
+			return false;
+		fetch.canceled = true;
+		if (!fetch.dummy.isDisposed()) {
+			discardChildren(fetch);
+			fetch.dummy.setText(""); //$NON-NLS-1$
+		}
+		return true;
+	}
+
+	/**
+	 * Fetches the children of the given item again if a fetch is pending for
+	 * it, as the children it is fetching may be out of date.
+	 *
+	 * @param item
+	 *            the item
+	 * @return <code>true</code> if a fetch was pending for the item
+	 */
+	boolean restart(Item item) {
+		if (!cancel(item))
+			return false;
+		if (!item.isDisposed() && viewer.getExpanded(item))
+			fetch(item);
+		return true;
+	}
+
+	/**
+	 * Fetches the children of all items with a pending fetch again.
+	 */
+	void restartAll() {
+		Item[] items = fetches.keySet().toArray(new Item[fetches.size()]);
+		for (int i = 0; i < items.length; i++)
+			restart(items[i]);
+	}
+
+	/**
+	 * Cancels the pending fetches and creates the children of the expanded
+	 * items in the UI thread.
+	 */
+	void resolveAll() {
+		Item[] items = fetches.keySet().toArray(new Item[fetches.size()]);
+		for (int i = 0; i < items.length; i++) {
+			cancel(items[i]);
+			if (!items[i].isDisposed() && viewer.getExpanded(items[i]))
+				viewer.createChildren(items[i]);
+		}
+	}
+
+	/**
+	 * Cancels the pending fetches without updating the tree, which is being
+	 * cleared or disposed.
+	 */
+	void cancelAll() {
+		for (Iterator<Fetch> it = fetches.values().iterator(); it.hasNext();)
+			it.next().canceled = true;
+		fetches.clear();
+		synchronized (lock) {
+			queue.clear();
+		}
+	}
+
+	private void discardChildren(Fetch fetch) {
+		Item[] children = viewer.getChildren(fetch.item);
+		for (int i = 0; i < children.length; i++) {
+			if (children[i] == fetch.dummy)
+				continue;
+			if (children[i].getData() != null)
+				viewer.disassociate(children[i]);
+			children[i].dispose();
+		}
+	}
+
+	private boolean isCurrent(Fetch fetch) {
+		if (fetch.canceled)
+			return false;
+		if (fetch.dummy.isDisposed() || fetch.item.getData() != fetch.parent) {
+			// the item or its children were disposed, or the item was reused
+			// for another element
+			fetches.remove(fetch.item);
+			fetch.canceled = true;
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Adds the next chunk of children and schedules the chunk after it.
+	 */
+	private void addChildren(final Fetch fetch, final Object[] children,
+			final int start) {
+		if (!isCurrent(fetch))
+			return;
+
+		int end = Math.min(start + CHUNK_SIZE, children.length);
+		boolean oldBusy = viewer.isBusy();
+		viewer.setBusy(true);
+		try {
+			for (int i = start; i < end; i++)
+				viewer.createTreeItem(fetch.item, children[i], -1);
+		} finally {
+			viewer.setBusy(oldBusy);
+		}
+
+		if (end < children.length) {
+			fetch.display.asyncExec(new Runnable() {
+				public void run() {
+					addChildren(fetch, children, start + CHUNK_SIZE);
+				}
+			});
+		} else {
+			fetches.remove(fetch.item);
+			fetch.dummy.dispose();
+		}
+	}
+
+	/**
+	 * Restores the empty dummy of an item whose children could not be
+	 * fetched and collapses the item, so that expanding it again retries.
+	 */
+	private void failed(Fetch fetch) {
+		if (!isCurrent(fetch))
+			return;
+		cancel(fetch.item);
+		viewer.setExpanded(fetch.item, false);
+	}
+
+	/**
+	 * The children of one item that are being fetched.
+	 */
+	private final class Fetch {
+		final Item item;
+		final Item dummy;
+		final Object parent;
+		final TreePath path;
+		final Display display;
+		final IContentProvider contentProvider;
+		final ViewerFilter[] filters;
+		final ViewerComparator comparator;
+
+		volatile boolean canceled = false;
+
+		Fetch(Item item, Item dummy, IContentProvider contentProvider) {
+			this.item = item;
+			this.dummy = dummy;
+			this.parent = item.getData();
+			this.path = viewer.getTreePathFromItem(item);
+			this.display = item.getDisplay();
+			this.contentProvider = contentProvider;
+			this.filters = viewer.getFilters();
+			this.comparator = viewer.getComparator();
+		}
+
+		/**
+		 * Returns the filtered and sorted children, runs in the worker
+		 * thread.
+		 */
+		Object[] compute() {
+			Object parentElementOrTreePath;
+			Object[] children;
+			if (contentProvider instanceof ITreePathContentProvider) {
+				parentElementOrTreePath = path;
+				children = ((ITreePathContentProvider) contentProvider)
+						.getChildren(path);
+			} else {
+				parentElementOrTreePath = parent;
+				children = ((ITreeContentProvider) contentProvider)
+						.getChildren(parent);
+			}
+			if (children == null || canceled)
+				return new Object[0];
+
+			if (filters.length > 0) {
+				List<Object> filtered = new ArrayList<Object>(children.length);
+				for (int i = 0; i < children.length; i++) {
+					boolean select = true;
+					for (int j = 0; j < filters.length && select; j++)
+						select = filters[j].select(viewer,
+								parentElementOrTreePath, children[i]);
+					if (select)
+						filtered.add(children[i]);
+				}
+				children = filtered.toArray();
+			} else {
+				// be sure we're not modifying the original array from the
+				// model
+				children = children.clone();
+			}
+
+			if (comparator instanceof TreePathViewerSorter) {
+				((TreePathViewerSorter) comparator).sort(viewer, path,
+						children);
+			} else if (comparator != null) {
+				comparator.sort(viewer, children);
+			}
+			return children;
+		}
+	}
+
+	private final class Worker extends Thread {
+		private Worker(String name) {
+			super(name);
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				final Fetch fetch;
+				synchronized (lock) {
+					if (queue.isEmpty()) {
+						workerStarted = false;
+						return;
+					}
+					fetch = queue.removeFirst();
+				}
+				if (fetch.canceled)
+					continue;
+
+				Runnable runnable;
+				try {
+					final Object[] children = fetch.compute();
+					runnable = new Runnable() {
+						public void run() {
+							addChildren(fetch, children, 0);
+						}
+					};
+				} catch (RuntimeException e) {
+					Policy.logException(e);
+					runnable = new Runnable() {
+						public void run() {
+							failed(fetch);
+						}
+					};
+				}
+
+				if (fetch.canceled || fetch.display.isDisposed())
+					continue;
+				try {
+					fetch.display.asyncExec(runnable);
+				} catch (SWTException e) {
+					// the display was disposed meanwhile
+				}
+			}
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2001, 2010 IBM Corporation and others.
+ * Copyright (c) 2001, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,10 +11,15 @@
 package org.eclipse.ui.internal.views.properties.tabbed.view;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.ibm.icu.text.MessageFormat;
 
@@ -28,8 +33,10 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.jface.viewers.ILabelProvider;
 import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.jface.viewers.IStructuredContentProvider;
+import org.eclipse.jface.viewers.IStructuredSelection;
 
 import org.eclipse.ui.IWorkbenchPart;
+import org.eclipse.ui.IWorkbenchPartSite;
 import org.eclipse.ui.internal.views.properties.tabbed.TabbedPropertyViewPlugin;
 import org.eclipse.ui.internal.views.properties.tabbed.TabbedPropertyViewStatusCodes;
 import org.eclipse.ui.internal.views.properties.tabbed.l10n.TabbedPropertyMessages;
@@ -86,6 +93,12 @@ public class TabbedPropertyRegistry {
 
 	private static final String TOP = "top"; //$NON-NLS-1$
 
+	/**
+	 * The maximum number of selection signatures for which the applicable
+	 * tabs are cached.
+	 */
+	private static final int MAX_CACHED_SIGNATURES = 64;
+
 	protected String contributorId;
 
 	protected IConfigurationElement contributorConfigurationElement;
@@ -108,6 +121,25 @@ public class TabbedPropertyRegistry {
 
 	protected boolean overridableTabListContentProvider = false;
 
+	/**
+	 * The tab descriptors that were checked for sections whose applicability
+	 * only depends on the types in the selection.
+	 */
+	private ITabDescriptor[] checkedTabDescriptors;
+
+	private boolean applicabilityCacheable;
+
+	/**
+	 * The largest enablesFor value of the sections, selections that are
+	 * larger than it are treated alike.
+	 */
+	private int maxEnablesFor;
+
+	/**
+	 * The applicable tab descriptors by selection signature.
+	 */
+	private Map applicabilityCache = new HashMap();
+
 	/**
 	 * There is one details registry for each contributor type.
 	 */
@@ -288,11 +320,85 @@ public class TabbedPropertyRegistry {
 					selection);
 		}
 
+		Object signature = null;
+		if (tabDescriptorProvider == null
+				&& selection instanceof IStructuredSelection
+				&& isApplicabilityCacheable(allDescriptors)) {
+			signature = getSelectionSignature(part,
+					(IStructuredSelection) selection);
+			ITabDescriptor[] result = (ITabDescriptor[]) applicabilityCache
+					.get(signature);
+			if (result != null) {
+				return result;
+			}
+		}
+
 		ITabDescriptor[] result = filterTabDescriptors(allDescriptors, part,
 				selection);
+		if (signature != null) {
+			if (applicabilityCache.size() >= MAX_CACHED_SIGNATURES) {
+				applicabilityCache.clear();
+			}
+			applicabilityCache.put(signature, result);
+		}
 		return result;
 	}
 
+	/**
+	 * Returns whether the applicable tabs only depend on the types of the
+	 * selected objects and the size of the selection. This is the case when
+	 * all sections are read from the extension registry and have no filter.
+	 */
+	private boolean isApplicabilityCacheable(ITabDescriptor[] descriptors) {
+		if (descriptors != checkedTabDescriptors) {
+			checkedTabDescriptors = descriptors;
+			applicabilityCache.clear();
+			applicabilityCacheable = true;
+			maxEnablesFor = ISectionDescriptor.ENABLES_FOR_ANY;
+			for (int i = 0; i < descriptors.length
+					&& applicabilityCacheable; i++) {
+				List sections = descriptors[i].getSectionDescriptors();
+				for (Iterator iter = sections.iterator(); iter.hasNext();) {
+					ISectionDescriptor section = (ISectionDescriptor) iter
+							.next();
+					if (section.getClass() != SectionDescriptor.class
+							|| section.getFilter() != null) {
+						applicabilityCacheable = false;
+						break;
+					}
+					maxEnablesFor = Math.max(maxEnablesFor, section
+							.getEnablesFor());
+				}
+			}
+		}
+		return applicabilityCacheable;
+	}
+
+	/**
+	 * Returns the key of the applicable tabs for the given selection, made of
+	 * the part id, the distinct mapped types of the selected objects and the
+	 * size of the selection if a section is enabled for that size.
+	 */
+	private Object getSelectionSignature(IWorkbenchPart part,
+			IStructuredSelection selection) {
+		Set types = new HashSet();
+		for (Iterator i = selection.iterator(); i.hasNext();) {
+			Object object = i.next();
+			if (typeMapper != null) {
+				types.add(typeMapper.mapType(object));
+			} else {
+				types.add(object.getClass());
+			}
+		}
+		int size = selection.size();
+		if (size > maxEnablesFor) {
+			size = ISectionDescriptor.ENABLES_FOR_ANY;
+		}
+		IWorkbenchPartSite site = part == null ? null : part.getSite();
+		return Arrays.asList(new Object[] { site == null ? null : site.getId(),
+				types, new Integer(size) });
+	}
+
 	/**
 	 * Filters out the tab descriptors that do not have any sections for the
 	 * given input.
@@ -546,6 +652,9 @@ public class TabbedPropertyRegistry {
 	 * @since 3.7
 	 */
 	public void dispose() {
+		applicabilityCache.clear();
+		checkedTabDescriptors = null;
+
 		if (labelProvider != null) {
 			labelProvider.dispose();
 			labelProvider = null;
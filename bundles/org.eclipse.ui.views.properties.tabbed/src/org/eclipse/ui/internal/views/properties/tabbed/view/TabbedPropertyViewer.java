@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2001, 2008 IBM Corporation and others.
+ * Copyright (c) 2001, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,7 @@
 package org.eclipse.ui.internal.views.properties.tabbed.view;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -128,8 +129,12 @@ public class TabbedPropertyViewer extends StructuredViewer {
 	}
 
 	protected void inputChanged(Object input, Object oldInput) {
-		elements.clear();
 		Object[] children = getSortedChildren(getRoot());
+		if (elements.equals(Arrays.asList(children))) {
+			// the same tabs apply to the new input, keep the list
+			return;
+		}
+		elements.clear();
 		list.removeAll();
 		for (int i = 0; i < children.length; i++) {
 			elements.add(children[i]);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2001, 2012 IBM Corporation and others.
+ * Copyright (c) 2001, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -99,6 +99,24 @@ public class TabbedPropertySheetPage
 
 	private Map tabToComposite;
 
+	/**
+	 * The maximum number of tabs kept in the tab pool.
+	 */
+	private static final int TAB_POOL_SIZE = 16;
+
+	/**
+	 * Tabs with controls that no longer apply to the current input, kept to
+	 * be reused when an equal tab descriptor applies again. The most recently
+	 * pooled tabs are at the end of the list.
+	 */
+	private List pooledDescriptors = new ArrayList();
+
+	private Map descriptorToPooledTab = new HashMap();
+
+	private int tabCreationCount;
+
+	private int tabReuseCount;
+
 	private List selectionQueue;
 
 	private boolean selectionQueueLocked;
@@ -194,7 +212,7 @@ public class TabbedPropertySheetPage
 				// create tab if necessary
 				// can not cache based on the id - tabs may have the same id,
 				// but different section depending on the selection
-				tab = (TabContents) descriptorToTab.get(descriptor);
+				tab = getOrCreateTab(descriptor);
 
 				if (tab != currentTab) {
 					hideTab(currentTab);
@@ -457,6 +475,9 @@ public class TabbedPropertySheetPage
 
 		disposeTabs(descriptorToTab.values());
 		descriptorToTab = new HashMap();
+		disposeTabs(descriptorToPooledTab.values());
+		descriptorToPooledTab.clear();
+		pooledDescriptors.clear();
 
 		/**
 		 * Remove the label provider change listener.
@@ -621,6 +642,10 @@ public class TabbedPropertySheetPage
 	protected void disposeTabs(Collection tabs) {
 		for (Iterator iter = tabs.iterator(); iter.hasNext();) {
 			TabContents tab = (TabContents) iter.next();
+			if (tab == null) {
+				// the tab was never shown
+				continue;
+			}
 			Composite composite = (Composite) tabToComposite.remove(tab);
 			tab.dispose();
 			if (composite != null) {
@@ -649,24 +674,33 @@ public class TabbedPropertySheetPage
 
 	/**
 	 * Update the current tabs to represent the given input object. When tabs
-	 * apply for both the old and new input they are reused otherwise they are
-	 * disposed. If the current visible tab will not be reused (i.e. will be
-	 * disposed) we have to send it an aboutToBeHidden() message.
+	 * apply for both the old and new input they are reused. The other tabs
+	 * are moved to the tab pool if their controls were created, and disposed
+	 * otherwise. The tabs for the new input are taken from the tab pool, or
+	 * created when they are first shown. If the current visible tab will not
+	 * be reused we have to send it an aboutToBeHidden() message.
 	 * @since 3.4
 	 */
 	protected void updateTabs(ITabDescriptor[] descriptors) {
 		Map newTabs = new HashMap(descriptors.length * 2);
 		boolean disposingCurrentTab = (currentTab != null);
 		for (int i = 0; i < descriptors.length; i++) {
-			TabContents tab = (TabContents) descriptorToTab
-					.remove(descriptors[i]);
-
-			if (tab != null && tab.controlsHaveBeenCreated()) {
-				if (tab == currentTab) {
-					disposingCurrentTab = false;
+			TabContents tab = null;
+			if (descriptorToTab.containsKey(descriptors[i])) {
+				tab = (TabContents) descriptorToTab.remove(descriptors[i]);
+				if (tab != null) {
+					tabReuseCount++;
 				}
 			} else {
-				tab = createTab(descriptors[i]);
+				tab = (TabContents) descriptorToPooledTab
+						.remove(descriptors[i]);
+				if (tab != null) {
+					pooledDescriptors.remove(descriptors[i]);
+					tabReuseCount++;
+				}
+			}
+			if (tab != null && tab == currentTab) {
+				disposingCurrentTab = false;
 			}
 
 			newTabs.put(descriptors[i], tab);
@@ -677,12 +711,90 @@ public class TabbedPropertySheetPage
 			 * aboutToBeHidden
 			 */
 			currentTab.aboutToBeHidden();
+			Composite tabComposite = (Composite) tabToComposite.get(currentTab);
+			if (tabComposite != null) {
+				// the tab may be pooled
+				tabComposite.setVisible(false);
+			}
 			currentTab = null;
 		}
-		disposeTabs(descriptorToTab.values());
+		poolTabs(descriptorToTab);
 		descriptorToTab = newTabs;
 	}
 
+	/**
+	 * Moves the tabs with controls to the tab pool and disposes the others
+	 * and the tabs that do not fit in the pool.
+	 */
+	private void poolTabs(Map tabs) {
+		List disposed = new ArrayList();
+		for (Iterator iter = tabs.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry entry = (Map.Entry) iter.next();
+			TabContents tab = (TabContents) entry.getValue();
+			if (tab == null) {
+				continue;
+			}
+			if (!tab.controlsHaveBeenCreated()) {
+				disposed.add(tab);
+				continue;
+			}
+			Object replaced = descriptorToPooledTab.put(entry.getKey(), tab);
+			if (replaced != null) {
+				pooledDescriptors.remove(entry.getKey());
+				disposed.add(replaced);
+			}
+			pooledDescriptors.add(entry.getKey());
+		}
+		while (pooledDescriptors.size() > TAB_POOL_SIZE) {
+			disposed.add(descriptorToPooledTab.remove(pooledDescriptors
+					.remove(0)));
+		}
+		disposeTabs(disposed);
+	}
+
+	/**
+	 * Returns the tab for the given tab descriptor of the current input, and
+	 * creates it if it has not been shown yet.
+	 */
+	private TabContents getOrCreateTab(ITabDescriptor descriptor) {
+		TabContents tab = (TabContents) descriptorToTab.get(descriptor);
+		if (tab == null) {
+			tab = createTab(descriptor);
+			tabCreationCount++;
+			descriptorToTab.put(descriptor, tab);
+		}
+		return tab;
+	}
+
+	/**
+	 * Returns whether the current tabs are exactly the tabs for the given
+	 * descriptors.
+	 */
+	private boolean hasTabsFor(ITabDescriptor[] descriptors) {
+		if (descriptorToTab.size() != descriptors.length) {
+			return false;
+		}
+		for (int i = 0; i < descriptors.length; i++) {
+			if (!descriptorToTab.containsKey(descriptors[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Counts the current tabs that have been shown as reused for the new
+	 * input.
+	 */
+	private void countReusedTabs() {
+		for (Iterator iter = descriptorToTab.values().iterator(); iter
+				.hasNext();) {
+			if (iter.next() != null) {
+				tabReuseCount++;
+			}
+		}
+	}
+
 	/**
 	 * Create the tab contents for the provided tab descriptor.
 	 * 
@@ -731,9 +843,14 @@ public class TabbedPropertySheetPage
 				currentSelection);
 		// If there are no descriptors for the given input we do not need to
 		// touch the tab objects. We might reuse them for the next valid
-		// input.
+		// input. Neither do we if the tabs apply to the new input as they
+		// are.
 		if (descriptors.length > 0) {
-			updateTabs(descriptors);
+			if (hasTabsFor(descriptors)) {
+				countReusedTabs();
+			} else {
+				updateTabs(descriptors);
+			}
 		}
 		// update tabs list
 		tabbedPropertyViewer.setInput(part, currentSelection);
@@ -1078,11 +1195,34 @@ public class TabbedPropertySheetPage
 	protected TabContents getTabContents(ITabDescriptor tabDescriptor) {
 		TabContents tabContents = null;
 		if (this.descriptorToTab.containsKey(tabDescriptor)) {
-			tabContents = (TabContents) this.descriptorToTab.get(tabDescriptor);
+			tabContents = getOrCreateTab(tabDescriptor);
 		}
 		return tabContents;
 	}
 
+	/**
+	 * Returns the number of tabs that were created by this page. Tabs are
+	 * created when they are first shown for an input.
+	 * 
+	 * @return the number of tabs created
+	 * @since 3.7
+	 */
+	public int getTabCreationCount() {
+		return tabCreationCount;
+	}
+
+	/**
+	 * Returns the number of times a tab was reused for a new input, either
+	 * because it still applied or because it was taken from the pool of
+	 * recently used tabs.
+	 * 
+	 * @return the number of tabs reused
+	 * @since 3.7
+	 */
+	public int getTabReuseCount() {
+		return tabReuseCount;
+	}
+
 	/**
 	 * Get the current selection-contributor if any
 	 * 
@@ -188,6 +188,24 @@ public class FilteredTree extends Composite {
 	 */
 	private static final long SOFT_MAX_EXPAND_TIME = 200;
 
+	/**
+	 * Maximum time the refresh job computes the filter results in the UI
+	 * thread before it lets other events, such as typing, in
+	 */
+	private static final long FILTER_TIME_SLICE = 50;
+
+	/**
+	 * Whether the refresh job continues to compute the filter results for
+	 * the current pattern in another run
+	 */
+	private boolean computingFilterResults;
+
+	/**
+	 * Whether the tree viewer is refreshed because the pattern changed,
+	 * rather than the content of the tree
+	 */
+	private boolean refreshingFilter;
+
 	/**
 	 * Get image descriptors for the clear button.
 	 */
@@ -495,12 +513,28 @@ public class FilteredTree extends Composite {
 
 				boolean initial = initialText != null
 						&& initialText.equals(text);
-				if (initial) {
+				if (computingFilterResults) {
+					// the pattern is already set, continue where the previous
+					// run stopped
+					computingFilterResults = false;
+				} else if (initial) {
 					patternFilter.setPattern(null);
 				} else if (text != null) {
 					patternFilter.setPattern(text);
 				}
 
+				if (text.length() > 0
+						&& !initial
+						&& !patternFilter.computeVisibility(treeViewer,
+								System.currentTimeMillis() + FILTER_TIME_SLICE)) {
+					if (monitor.isCanceled()) {
+						return Status.CANCEL_STATUS;
+					}
+					computingFilterResults = true;
+					schedule();
+					return Status.OK_STATUS;
+				}
+
 				Control redrawFalseControl = treeComposite != null ? treeComposite
 						: treeViewer.getControl();
 				try {
@@ -520,7 +554,12 @@ public class FilteredTree extends Composite {
 							}
 						}
 					}
-					treeViewer.refresh(true);
+					refreshingFilter = true;
+					try {
+						treeViewer.refresh(true);
+					} finally {
+						refreshingFilter = false;
+					}
 
 					if (text.length() > 0 && !initial) {
 						/*
@@ -876,6 +915,7 @@ public class FilteredTree extends Composite {
 		previousFilterText = getFilterString();
 		// cancel currently running job first, to prevent unnecessary redraw
 		refreshJob.cancel();
+		computingFilterResults = false;
 		refreshJob.schedule(getRefreshJobDelay());
 	}
 	
@@ -1244,7 +1284,10 @@ public class FilteredTree extends Composite {
 		}
 
 		public void refresh(boolean updateLabels) {
-			getPatternFilter().clearCaches();
+			// the caches were updated for a new pattern
+			if (!refreshingFilter) {
+				getPatternFilter().clearCaches();
+			}
 			super.refresh(updateLabels);
 		}
 
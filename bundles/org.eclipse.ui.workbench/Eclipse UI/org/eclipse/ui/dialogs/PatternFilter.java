@@ -13,8 +13,11 @@ package org.eclipse.ui.dialogs;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.jface.viewers.AbstractTreeViewer;
 import org.eclipse.jface.viewers.ILabelProvider;
@@ -46,6 +49,24 @@ public class PatternFilter extends ViewerFilter {
      * Maps parent elements to TRUE or FALSE
      */
     private Map foundAnyCache = new HashMap();
+
+    /*
+     * Maps elements to their visibility (TRUE or FALSE) for the current pattern
+     */
+    private Map visibleCache = new HashMap();
+
+    /*
+     * Elements that are not visible for a previous pattern which the current
+     * pattern narrows, they don't need to be tested again
+     */
+    private Set rejectedCache = new HashSet();
+
+    /*
+     * The elements that computeVisibility still has to visit, or null if it
+     * has to start with the roots of the tree. Elements whose children were
+     * pushed are wrapped in an ExpandedElement.
+     */
+    private List pendingElements;
     
     private boolean useCache = false;
     
@@ -59,6 +80,16 @@ public class PatternFilter extends ViewerFilter {
 	 * The string pattern matcher used for this pattern filter.  
 	 */
     private StringMatcher matcher;
+
+    /**
+     * The pattern string the matcher was created for.
+     */
+    private String patternString;
+
+    /**
+     * Whether the matcher was created with a leading wildcard.
+     */
+    private boolean matcherHasLeadingWildcard;
     
     private boolean useEarlyReturnIfMatcherIsNull = true;
     
@@ -134,17 +165,106 @@ public class PatternFilter extends ViewerFilter {
 		boolean elementFound = false;
 		for (int i = 0; i < elements.length && !elementFound; i++) {
 			Object element = elements[i];
-			elementFound = isElementVisible(viewer, element);
+			elementFound = isVisible(viewer, element);
 		}
 		return elementFound;
 	}
+
+	/**
+	 * Returns whether the element is visible. This method uses caching if
+	 * enabled; the computation is done in isElementVisible.
+	 * 
+	 * @param viewer the viewer
+	 * @param element the element to test
+	 * @return <code>true</code> if the element is visible
+	 */
+	private boolean isVisible(Viewer viewer, Object element) {
+		if (!useCache) {
+			return isElementVisible(viewer, element);
+		}
+		if (rejectedCache.contains(element)) {
+			return false;
+		}
+		Boolean visible = (Boolean) visibleCache.get(element);
+		if (visible == null) {
+			visible = isElementVisible(viewer, element) ? Boolean.TRUE : Boolean.FALSE;
+			visibleCache.put(element, visible);
+		}
+		return visible.booleanValue();
+	}
+
+	/**
+	 * Computes whether the elements of the given tree viewer are visible, so
+	 * that the next refresh of the viewer finds them in the cache. The work
+	 * can be split over several calls: the method returns when the given time
+	 * is up, and the next call continues where it stopped. Children are
+	 * visited before their parent, and the subtree of an element that is
+	 * known to be invisible is skipped.
+	 * 
+	 * @param viewer the tree viewer
+	 * @param stopTime the time in milliseconds to return at
+	 * @return <code>true</code> if all elements are done, <code>false</code>
+	 *         if the time was up first
+	 */
+	/* package */ boolean computeVisibility(AbstractTreeViewer viewer, long stopTime) {
+		if (!useCache || matcher == null
+				|| !(viewer.getContentProvider() instanceof ITreeContentProvider)) {
+			return true;
+		}
+		ITreeContentProvider contentProvider = (ITreeContentProvider) viewer
+				.getContentProvider();
+		if (pendingElements == null) {
+			pendingElements = new ArrayList();
+			Object[] roots = contentProvider.getElements(viewer.getInput());
+			for (int i = roots == null ? -1 : roots.length - 1; i >= 0; i--) {
+				pendingElements.add(roots[i]);
+			}
+		}
+
+		int count = 0;
+		while (!pendingElements.isEmpty()) {
+			// don't ask for the time on every element
+			if (++count % 64 == 0 && System.currentTimeMillis() > stopTime) {
+				return false;
+			}
+			Object element = pendingElements.remove(pendingElements.size() - 1);
+			if (element instanceof ExpandedElement) {
+				isVisible(viewer, ((ExpandedElement) element).element);
+				continue;
+			}
+			if (rejectedCache.contains(element) || visibleCache.containsKey(element)) {
+				continue;
+			}
+			Object[] children = contentProvider.getChildren(element);
+			if (children == null || children.length == 0) {
+				isVisible(viewer, element);
+			} else {
+				pendingElements.add(new ExpandedElement(element));
+				for (int i = children.length - 1; i >= 0; i--) {
+					pendingElements.add(children[i]);
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * An element whose children have been pushed by computeVisibility.
+	 */
+	private static final class ExpandedElement {
+		final Object element;
+
+		ExpandedElement(Object element) {
+			this.element = element;
+		}
+	}
     
     /* (non-Javadoc)
      * @see org.eclipse.jface.viewers.ViewerFilter#select(org.eclipse.jface.viewers.Viewer, java.lang.Object, java.lang.Object)
      */
     public final boolean select(Viewer viewer, Object parentElement,
 			Object element) {
-        return isElementVisible(viewer, element);
+        return isVisible(viewer, element);
     }
     
     /**
@@ -175,18 +295,78 @@ public class PatternFilter extends ViewerFilter {
     		useEarlyReturnIfMatcherIsNull = false;
     		return;
     	}
-        clearCaches();
         if (patternString == null || patternString.equals("")) { //$NON-NLS-1$
+			clearCaches();
 			matcher = null;
+			this.patternString = null;
 		} else {
+			if (matcher != null && includeLeadingWildcard == matcherHasLeadingWildcard
+					&& isNarrowing(this.patternString, patternString)) {
+				retainRejections();
+			} else {
+				clearCaches();
+			}
 			String pattern = patternString + "*"; //$NON-NLS-1$
 			if (includeLeadingWildcard) {
 				pattern = "*" + pattern; //$NON-NLS-1$
 			}
 			matcher = new StringMatcher(pattern, true, false);
+			this.patternString = patternString;
+			matcherHasLeadingWildcard = includeLeadingWildcard;
 		}
     }
 
+	/**
+	 * Answers whether every element that is not visible for the previous
+	 * pattern is not visible for the new pattern either, so that the filter
+	 * only has to test the elements that were visible before.
+	 * <p>
+	 * The default implementation returns <code>true</code> only for the stock
+	 * matching of this class, when the new pattern extends the previous one:
+	 * every word that matches the new pattern then matches the previous one.
+	 * It returns <code>false</code> for subclasses, as they may override the
+	 * matching in a way that does not keep this property. Subclasses whose
+	 * matching keeps it may override this method to return <code>true</code>
+	 * when the new pattern narrows the previous one.
+	 * </p>
+	 * 
+	 * @param previousPattern
+	 *            the previous pattern string
+	 * @param pattern
+	 *            the new pattern string
+	 * @return <code>true</code> if the new pattern narrows the previous one
+	 * @since 3.106
+	 */
+	protected boolean isNarrowing(String previousPattern, String pattern) {
+		if (getClass() != PatternFilter.class) {
+			return false;
+		}
+		// a trailing backslash escapes the wildcard that is appended
+		return previousPattern != null && pattern.startsWith(previousPattern)
+				&& !previousPattern.endsWith("\\"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Keeps the elements that are not visible for the current pattern, and
+	 * the parents without visible children, and clears the other caches.
+	 */
+	private void retainRejections() {
+		for (Iterator it = visibleCache.entrySet().iterator(); it.hasNext();) {
+			Map.Entry entry = (Map.Entry) it.next();
+			if (!((Boolean) entry.getValue()).booleanValue()) {
+				rejectedCache.add(entry.getKey());
+			}
+		}
+		for (Iterator it = foundAnyCache.values().iterator(); it.hasNext();) {
+			if (((Boolean) it.next()).booleanValue()) {
+				it.remove();
+			}
+		}
+		cache.clear();
+		visibleCache.clear();
+		pendingElements = null;
+	}
+
 	/**
 	 * Clears the caches used for optimizing this filter. Needs to be called whenever
 	 * the tree content changes.
@@ -194,6 +374,9 @@ public class PatternFilter extends ViewerFilter {
 	/* package */ void clearCaches() {
 		cache.clear();
         foundAnyCache.clear();
+        visibleCache.clear();
+        rejectedCache.clear();
+        pendingElements = null;
 	}
 
     /**
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -25,7 +25,9 @@ import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.jface.resource.ResourceManager;
 import org.eclipse.jface.viewers.DecorationContext;
 import org.eclipse.jface.viewers.IDecorationContext;
@@ -41,7 +43,14 @@ import org.eclipse.ui.progress.WorkbenchJob;
 
 /**
  * The DecorationScheduler is the class that handles the decoration of elements
- * using a background thread.
+ * using background threads.
+ * <p>
+ * Elements are decorated by a fixed number of worker jobs, one by default. The
+ * most recently requested elements are decorated first, as they are the ones
+ * the viewers are currently showing. The decorated elements are collected and
+ * sent to the listeners in a single {@link LabelProviderChangedEvent} by the
+ * update job.
+ * </p>
  */
 public class DecorationScheduler {
 
@@ -51,7 +60,8 @@ public class DecorationScheduler {
 	// decorated() method
 	Map resultCache = new HashMap();
 
-	// Objects that need an icon and text computed for display to the user
+	// Objects that need an icon and text computed for display to the user, in
+	// the order they were requested. The last one is decorated first.
 	List awaitingDecoration = new ArrayList();
 
 	// Objects that are awaiting a label update.
@@ -66,7 +76,15 @@ public class DecorationScheduler {
 
 	boolean shutdown = false;
 
-	Job decorationJob;
+	// The number of elements taken from the queue whose results are not
+	// cached yet
+	int decoratingCount = 0;
+
+	Job[] decorationJobs;
+
+	// Whether each decoration job was scheduled and has neither found the
+	// queue empty nor finished since
+	boolean[] workerActive;
 
 	UIJob updateJob;
 
@@ -81,6 +99,13 @@ public class DecorationScheduler {
 	/** Amount of time to delay the update notification when max reached. */
 	static final int UPDATE_DELAY = 100;
 
+	/**
+	 * The system property for the number of jobs that decorate elements in
+	 * parallel. Only raise it if all of the installed lightweight decorators
+	 * can decorate several elements at the same time.
+	 */
+	public static final String WORKER_COUNT_PROPERTY = "org.eclipse.ui.decorators.workerCount"; //$NON-NLS-1$
+
 	/**
 	 * Return a new instance of the receiver configured for the supplied
 	 * DecoratorManager.
@@ -88,8 +113,22 @@ public class DecorationScheduler {
 	 * @param manager
 	 */
 	DecorationScheduler(DecoratorManager manager) {
+		this(manager, getWorkerCount());
+	}
+
+	/**
+	 * Return a new instance of the receiver configured for the supplied
+	 * DecoratorManager that decorates elements with the given number of jobs.
+	 * Used by the tests, the workbench reads the count from the
+	 * {@link #WORKER_COUNT_PROPERTY} system property.
+	 * 
+	 * @param manager
+	 * @param workerCount
+	 *            the number of jobs, at least one
+	 */
+	public DecorationScheduler(DecoratorManager manager, int workerCount) {
 		decoratorManager = manager;
-		createDecorationJob();
+		createDecorationJobs(Math.max(1, workerCount));
 	}
 
 	/**
@@ -156,7 +195,7 @@ public class DecorationScheduler {
 			if (shutdown) {
 				return;
 			}
-			decorationJob.schedule();
+			startWorker();
 		}
 
 	}
@@ -219,21 +258,34 @@ public class DecorationScheduler {
 
 	private DecorationResult internalGetResult(Object element,
 			IDecorationContext context) {
-		Map results = (Map) resultCache.get(context);
-		if (results != null) {
-			return (DecorationResult) results.get(element);
+		synchronized (resultCache) {
+			Map results = (Map) resultCache.get(context);
+			if (results != null) {
+				return (DecorationResult) results.get(element);
+			}
 		}
 		return null;
 	}
 
 	protected void internalPutResult(Object element,
 			IDecorationContext context, DecorationResult result) {
-		Map results = (Map) resultCache.get(context);
-		if (results == null) {
-			results = new HashMap();
-			resultCache.put(context, results);
+		synchronized (resultCache) {
+			Map results = (Map) resultCache.get(context);
+			if (results == null) {
+				results = new HashMap();
+				resultCache.put(context, results);
+			}
+			results.put(element, result);
+		}
+	}
+
+	/**
+	 * Clear the cached results.
+	 */
+	private void clearResultCache() {
+		synchronized (resultCache) {
+			resultCache.clear();
 		}
-		results.put(element, result);
 	}
 
 	/**
@@ -255,33 +307,133 @@ public class DecorationScheduler {
 		updateJob.schedule(UPDATE_DELAY);
 	}
 
+	/**
+	 * Start an idle worker if fewer workers are active than elements are
+	 * queued. A worker that is still busy with an element is not counted as
+	 * idle, so a new element is not left waiting for it.
+	 */
+	private void startWorker() {
+		int active = 0;
+		for (int i = 0; i < workerActive.length; i++) {
+			if (workerActive[i]) {
+				active++;
+			}
+		}
+		// the active workers that are not decorating an element take the
+		// next ones from the queue
+		if (active - decoratingCount >= awaitingDecoration.size()) {
+			return;
+		}
+		for (int i = 0; i < workerActive.length; i++) {
+			if (!workerActive[i]) {
+				workerActive[i] = true;
+				// a job that is just returning runs again
+				decorationJobs[i].schedule();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Note that a decoration job finished, whether it found the queue empty,
+	 * failed or was cancelled, and start another one if elements are still
+	 * queued.
+	 * 
+	 * @param worker
+	 *            the index of the decoration job
+	 */
+	synchronized void workerDone(int worker) {
+		workerActive[worker] = false;
+		if (!shutdown) {
+			startWorker();
+		}
+	}
+
 	/**
 	 * Shutdown the decoration.
 	 */
-	synchronized void shutdown() {
+	public synchronized void shutdown() {
 		shutdown = true;
 	}
 
 	/**
-	 * Get the next resource to be decorated.
+	 * Get the next resource to be decorated. This is the most recently queued
+	 * one, as the viewers request the decorations of the elements they show.
 	 * 
+	 * @param worker
+	 *            the index of the decoration job asking
 	 * @return IResource
 	 */
-	synchronized DecorationReference nextElement() {
+	synchronized DecorationReference nextElement(int worker) {
 
 		if (shutdown || awaitingDecoration.isEmpty()) {
+			workerActive[worker] = false;
 			return null;
 		}
-		Object element = awaitingDecoration.remove(0);
+		Object element = awaitingDecoration
+				.remove(awaitingDecoration.size() - 1);
+		decoratingCount++;
 
 		return (DecorationReference) awaitingDecorationValues.remove(element);
 	}
 
 	/**
-	 * Create the Thread used for running decoration.
+	 * Note that the results of an element returned by {@link #nextElement(int)}
+	 * have been cached.
+	 */
+	synchronized void elementDecorated() {
+		decoratingCount--;
+	}
+
+	/**
+	 * Return whether no element is waiting for or being decorated.
+	 * 
+	 * @return <code>true</code> if the decoration is done
+	 */
+	synchronized boolean isDecorationDone() {
+		return awaitingDecoration.isEmpty() && decoratingCount == 0;
+	}
+
+	/**
+	 * Return the number of jobs used for running decoration, as set by the
+	 * {@link #WORKER_COUNT_PROPERTY} system property.
+	 * 
+	 * @return int
+	 */
+	public static int getWorkerCount() {
+		int count;
+		try {
+			count = Integer.getInteger(WORKER_COUNT_PROPERTY, 1).intValue();
+		} catch (SecurityException e) {
+			count = 1;
+		}
+		return Math.max(1, count);
+	}
+
+	/**
+	 * Create the jobs used for running decoration.
+	 * 
+	 * @param workerCount
+	 */
+	private void createDecorationJobs(int workerCount) {
+		decorationJobs = new Job[workerCount];
+		workerActive = new boolean[workerCount];
+		for (int i = 0; i < decorationJobs.length; i++) {
+			decorationJobs[i] = createDecorationJob(i);
+		}
+		workerActive[0] = true;
+		decorationJobs[0].schedule();
+	}
+
+	/**
+	 * Create a job used for running decoration.
+	 * 
+	 * @param worker
+	 *            the index of the job
+	 * @return Job
 	 */
-	private void createDecorationJob() {
-		decorationJob = new Job(
+	private Job createDecorationJob(final int worker) {
+		Job decorationJob = new Job(
 				WorkbenchMessages.DecorationScheduler_CalculationJobName) {
 			/*
 			 * (non-Javadoc)
@@ -301,8 +453,8 @@ public class DecorationScheduler {
 					try {
 						Thread.sleep(100);
 					} catch (InterruptedException e) {
-						// Cancel and try again if there was an error
-						schedule();
+						// Cancel, another job is started when done if
+						// elements are still queued
 						return Status.CANCEL_STATUS;
 					}
 				}
@@ -314,7 +466,7 @@ public class DecorationScheduler {
 				DecorationReference reference;
 				monitor.worked(5);
 				int workCount = 5;
-				while ((reference = nextElement()) != null) {
+				while ((reference = nextElement(worker)) != null) {
 
 					// Count up to 90 to give the appearance of updating
 					if (workCount < 90) {
@@ -326,13 +478,19 @@ public class DecorationScheduler {
 					Object element = reference.getElement();
 					boolean force = reference.shouldForceUpdate();
 					IDecorationContext[] contexts = reference.getContexts();
-					for (int i = 0; i < contexts.length; i++) {
-						IDecorationContext context = contexts[i];
-						ensureResultCached(element, force, context);
+					try {
+						for (int i = 0; i < contexts.length; i++) {
+							IDecorationContext context = contexts[i];
+							ensureResultCached(element, force, context);
+						}
+					} finally {
+						elementDecorated();
 					}
 
 					// Only notify listeners when we have exhausted the
-					// queue of decoration requests.
+					// queue of decoration requests. The update job waits
+					// a bit so that the results of the other workers are
+					// sent along.
 					synchronized (DecorationScheduler.this) {
 						if (awaitingDecoration.isEmpty()) {
 							decorated();
@@ -420,7 +578,17 @@ public class DecorationScheduler {
 
 		decorationJob.setSystem(true);
 		decorationJob.setPriority(Job.DECORATE);
-		decorationJob.schedule();
+		decorationJob.addJobChangeListener(new JobChangeAdapter() {
+			/*
+			 * (non-Javadoc)
+			 * 
+			 * @see org.eclipse.core.runtime.jobs.JobChangeAdapter#done(org.eclipse.core.runtime.jobs.IJobChangeEvent)
+			 */
+			public void done(IJobChangeEvent event) {
+				workerDone(worker);
+			}
+		});
+		return decorationJob;
 	}
 
 	/**
@@ -459,7 +627,7 @@ public class DecorationScheduler {
 			 * @see org.eclipse.core.runtime.jobs.Job#run(org.eclipse.core.runtime.IProgressMonitor)
 			 */
 			protected IStatus run(IProgressMonitor monitor) {
-				resultCache.clear();
+				clearResultCache();
 				return Status.OK_STATUS;
 			}
 
@@ -562,9 +730,13 @@ public class DecorationScheduler {
                 removedListeners.clear();
                 // Other decoration requests may have occurred due to
                 // updates or we may have timed out updating listeners.
-                // Only clear the results if there are none pending.
-                if (awaitingDecoration.isEmpty()) {
-                    resultCache.clear();
+                // Only clear the results if there are none pending and
+                // no worker is about to cache the result of an element
+                // it took from the queue.
+                synchronized (DecorationScheduler.this) {
+                    if (isDecorationDone()) {
+                        clearResultCache();
+                    }
                 }
             }
             
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -82,7 +82,10 @@ class LightweightDecoratorDefinition extends DecoratorDefinition implements
 	 * The DeclarativeDecorator is the internal decorator supplied by the
 	 * decorator definition.
 	 */
-	private ILightweightLabelDecorator decorator;
+	private volatile ILightweightLabelDecorator decorator;
+
+	// Held while the decorator is created
+	private final Object creationLock = new Object();
 
 	private int quadrant;
 
@@ -99,31 +102,44 @@ class LightweightDecoratorDefinition extends DecoratorDefinition implements
 	 * Gets the decorator and creates it if it does not exist yet. Throws a
 	 * CoreException if there is a problem creating the decorator. This method
 	 * should not be called unless a check for enabled to be true is done first.
+	 * Several decoration jobs may ask for the decorator at the same time. Only
+	 * one of them creates it, while holding a lock of its own rather than the
+	 * one of the definition, as creating it may activate its plug-in.
 	 * 
 	 * @return Returns a ILabelDecorator
 	 */
 	protected ILightweightLabelDecorator internalGetDecorator()
 			throws CoreException {
-		if (labelProviderCreationFailed) {
-			return null;
+		ILightweightLabelDecorator current = decorator;
+		if (current != null) {
+			return current;
 		}
 
 		final CoreException[] exceptions = new CoreException[1];
+		final ILightweightLabelDecorator[] created = new ILightweightLabelDecorator[1];
 
-		if (decorator == null) {
+		synchronized (creationLock) {
+			synchronized (this) {
+				if (labelProviderCreationFailed) {
+					return null;
+				}
+				if (decorator != null) {
+					return decorator;
+				}
+			}
 
 			if (isDeclarative()) {
-				decorator = new DeclarativeDecorator(definingElement,
+				created[0] = new DeclarativeDecorator(definingElement,
 						getIconLocation());
 			} else {
 
 				Platform.run(new ISafeRunnable() {
 					public void run() {
 						try {
-							decorator = (ILightweightLabelDecorator) WorkbenchPlugin
+							created[0] = (ILightweightLabelDecorator) WorkbenchPlugin
 									.createExtension(definingElement,
 											DecoratorDefinition.ATT_CLASS);
-							decorator.addListener(WorkbenchPlugin.getDefault()
+							created[0].addListener(WorkbenchPlugin.getDefault()
 									.getDecoratorManager());
 						} catch (CoreException exception) {
 							exceptions[0] = exception;
@@ -138,12 +154,16 @@ class LightweightDecoratorDefinition extends DecoratorDefinition implements
 					}
 				});
 			}
-		} else {
-			return decorator;
+
+			synchronized (this) {
+				decorator = created[0];
+				if (decorator == null) {
+					this.labelProviderCreationFailed = true;
+				}
+			}
 		}
 
-		if (decorator == null) {
-			this.labelProviderCreationFailed = true;
+		if (created[0] == null) {
 			setEnabled(false);
 		}
 
@@ -151,7 +171,7 @@ class LightweightDecoratorDefinition extends DecoratorDefinition implements
 			throw exceptions[0];
 		}
 
-		return decorator;
+		return created[0];
 	}
 
 	/**
@@ -292,11 +312,15 @@ class LightweightDecoratorDefinition extends DecoratorDefinition implements
 	protected void refreshDecorator() {
 		// Only do something if disabled so as to prevent
 		// gratutitous activation
-		if (!this.enabled && decorator != null) {
-			IBaseLabelProvider cached = decorator;
+		IBaseLabelProvider cached;
+		synchronized (this) {
+			if (this.enabled || decorator == null) {
+				return;
+			}
+			cached = decorator;
 			decorator = null;
-			disposeCachedDecorator(cached);
 		}
+		disposeCachedDecorator(cached);
 	}
 
 	/*
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -36,7 +36,8 @@ public class LightweightDecoratorManager extends ObjectContributorManager {
 	 * The runnable is the object used to run the decorations so that an error
 	 * in someones decorator will not kill the thread. It is implemented here to
 	 * prevent aborting of decoration i.e. successful decorations will still be
-	 * applied.
+	 * applied. A new one is used for each decoration as the decoration
+	 * scheduler may decorate several elements at the same time.
 	 */
 
 	private class LightweightRunnable implements ISafeRunnable {
@@ -46,7 +47,7 @@ public class LightweightDecoratorManager extends ObjectContributorManager {
 
 		private LightweightDecoratorDefinition decorator;
 
-		void setValues(Object object, DecorationBuilder builder,
+		LightweightRunnable(Object object, DecorationBuilder builder,
 				LightweightDecoratorDefinition definition) {
 			element = object;
 			decoration = builder;
@@ -94,8 +95,6 @@ public class LightweightDecoratorManager extends ObjectContributorManager {
 		}
 	}
 
-	private LightweightRunnable runnable = new LightweightRunnable();
-
 	// The lightweight definitions read from the registry
 	private LightweightDecoratorDefinition[] lightweightDefinitions;
 
@@ -138,7 +137,7 @@ public class LightweightDecoratorManager extends ObjectContributorManager {
 	 * @return whether the definition was added
 	 * @since 3.0
 	 */
-	public boolean addDecorator(LightweightDecoratorDefinition decorator) {
+	public synchronized boolean addDecorator(LightweightDecoratorDefinition decorator) {
 		if (getLightweightDecoratorDefinition(decorator.getId()) == null) {
 			LightweightDecoratorDefinition[] oldDefs = lightweightDefinitions;
 			lightweightDefinitions = new LightweightDecoratorDefinition[lightweightDefinitions.length + 1];
@@ -173,7 +172,7 @@ public class LightweightDecoratorManager extends ObjectContributorManager {
 	 * @return whether the definition was removed
 	 * @since 3.1
 	 */
-	public boolean removeDecorator(LightweightDecoratorDefinition decorator) {
+	public synchronized boolean removeDecorator(LightweightDecoratorDefinition decorator) {
 		int idx = getLightweightDecoratorDefinitionIdx(decorator.getId());
 		if (idx != -1) {
 			LightweightDecoratorDefinition[] oldDefs = lightweightDefinitions;
@@ -260,13 +259,6 @@ public class LightweightDecoratorManager extends ObjectContributorManager {
 		return false;
 	}
 
-	/**
-	 * Reset any cached values.
-	 */
-	void reset() {
-		runnable.clearReferences();
-	}
-
 	/**
 	 * Shutdown the decorator manager by disabling all of the decorators so that
 	 * dispose() will be called on them.
@@ -299,9 +291,10 @@ public class LightweightDecoratorManager extends ObjectContributorManager {
 	}
 
 	/**
-	 * Get the lightweight registered for elements of this type.
+	 * Get the lightweight registered for elements of this type. This is
+	 * synchronized as the lookups are cached.
 	 */
-	LightweightDecoratorDefinition[] getDecoratorsFor(Object element) {
+	synchronized LightweightDecoratorDefinition[] getDecoratorsFor(Object element) {
 
 		if (element == null) {
 			return EMPTY_LIGHTWEIGHT_DEF;
@@ -361,8 +354,7 @@ public class LightweightDecoratorManager extends ObjectContributorManager {
 	private void decorate(Object element, DecorationBuilder decoration,
 			LightweightDecoratorDefinition decorator) {
 
-		runnable.setValues(element, decoration, decorator);
-		SafeRunner.run(runnable);
+		SafeRunner.run(new LightweightRunnable(element, decoration, decorator));
 	}
 
 	
@@ -27,6 +27,9 @@ import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IProgressMonitorWithBlocking;
 import org.eclipse.core.runtime.IStatus;
@@ -139,6 +142,40 @@ public class ProgressManager extends ProgressProvider implements
 
 	private static final String IMAGE_KEY = "org.eclipse.ui.progress.images"; //$NON-NLS-1$
 
+	/**
+	 * The minimum time in milliseconds between two refreshes of the listeners
+	 * for the work and the subtasks that a job reports.
+	 */
+	private static final long PROGRESS_REFRESH_INTERVAL = 100;
+
+	/*
+	 * The monitors of the jobs that reported work or subtasks since the
+	 * listeners were last refreshed for them
+	 */
+	private final Queue pendingProgressMonitors = new ConcurrentLinkedQueue();
+
+	private final AtomicBoolean progressRefreshScheduled = new AtomicBoolean();
+
+	/*
+	 * Refreshes the listeners for the monitors in pendingProgressMonitors.
+	 */
+	private final Job progressRefreshJob = new Job(
+			ProgressMessages.ProgressManager_refreshProgressJobName) {
+		protected IStatus run(IProgressMonitor monitor) {
+			progressRefreshScheduled.set(false);
+			JobMonitor jobMonitor;
+			while ((jobMonitor = (JobMonitor) pendingProgressMonitors.poll()) != null) {
+				jobMonitor.progressRefreshPending.set(false);
+				// the job may have finished meanwhile
+				JobInfo info = internalGetJobInfo(jobMonitor.job);
+				if (info != null) {
+					refreshJobInfo(info);
+				}
+			}
+			return Status.OK_STATUS;
+		}
+	};
+
 	/**
 	 * Get the progress manager currently in use.
 	 * 
@@ -174,6 +211,17 @@ public class ProgressManager extends ProgressProvider implements
 
 		IProgressMonitorWithBlocking listener;
 
+		/*
+		 * When the listeners were last refreshed for the work or the subtask
+		 * of the job.
+		 */
+		private long lastProgressRefresh;
+
+		/*
+		 * Whether the monitor waits in pendingProgressMonitors.
+		 */
+		final AtomicBoolean progressRefreshPending = new AtomicBoolean();
+
 		/**
 		 * Create a monitor on the supplied job.
 		 * 
@@ -238,7 +286,7 @@ public class ProgressManager extends ProgressProvider implements
 			JobInfo info = getJobInfo(job);
 			if (info.hasTaskInfo()) {
 				info.addWork(work);
-				refreshJobInfo(info);
+				refreshProgress(info);
 			}
 			if (listener != null) {
 				listener.internalWorked(work);
@@ -309,7 +357,7 @@ public class ProgressManager extends ProgressProvider implements
 			JobInfo info = getJobInfo(job);
 			info.clearChildren();
 			info.addSubTask(name);
-			refreshJobInfo(info);
+			refreshProgress(info);
 			if (listener != null) {
 				listener.subTask(name);
 			}
@@ -351,6 +399,28 @@ public class ProgressManager extends ProgressProvider implements
 				listener.setBlocked(reason);
 			}
 		}
+
+		/**
+		 * Refresh the listeners for the work or the subtask that was
+		 * reported. A job may report progress far more often than it can be
+		 * shown, so the listeners are refreshed at most once per
+		 * PROGRESS_REFRESH_INTERVAL and the reports in between are left to
+		 * the progress refresh job.
+		 * 
+		 * @param info
+		 */
+		private void refreshProgress(JobInfo info) {
+			long now = System.currentTimeMillis();
+			if (now - lastProgressRefresh >= PROGRESS_REFRESH_INTERVAL) {
+				lastProgressRefresh = now;
+				refreshJobInfo(info);
+			} else if (progressRefreshPending.compareAndSet(false, true)) {
+				pendingProgressMonitors.add(this);
+				if (progressRefreshScheduled.compareAndSet(false, true)) {
+					progressRefreshJob.schedule(PROGRESS_REFRESH_INTERVAL);
+				}
+			}
+		}
 	}
 
 	/**
@@ -366,6 +436,8 @@ public class ProgressManager extends ProgressProvider implements
 
 		notificationListener = createNotificationListener();
 
+		progressRefreshJob.setSystem(true);
+
 		Job.getJobManager().setProgressProvider(this);
 		Job.getJobManager().addJobChangeListener(this.changeListener);
 		StatusManager.getManager().addListener(notificationListener);
@@ -1028,6 +1100,7 @@ public class ProgressManager extends ProgressProvider implements
 	 * Shutdown the receiver.
 	 */
 	private void shutdown() {
+		progressRefreshJob.cancel();
 		listeners.clear();
 		Job.getJobManager().setProgressProvider(null);
 		Job.getJobManager().removeJobChangeListener(this.changeListener);
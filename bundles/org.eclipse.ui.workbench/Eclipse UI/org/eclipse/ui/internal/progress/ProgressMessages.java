@@ -54,6 +54,7 @@ public class ProgressMessages extends NLS {
 	public static String JobErrorDialog_MultipleErrorsTitle;
 	public static String ProgressManager_openJobName;
 	public static String ProgressManager_showInDialogName;
+	public static String ProgressManager_refreshProgressJobName;
 	public static String ProgressMonitorJobsDialog_DetailsTitle;
 	public static String ProgressMonitorJobsDialog_HideTitle;
 	public static String ErrorNotificationManager_OpenErrorDialogJob;
@@ -322,13 +322,18 @@ public abstract class QuickAccessContents {
 				int count = 0;
 				QuickAccessProvider provider = providers[i];
 				if (filter.length() > 0 || provider.isAlwaysPresent() || showAllMatches) {
-					QuickAccessElement[] sortedElements = provider.getElementsSorted();
+					QuickAccessIndex index = provider.getIndex();
+					QuickAccessElement[] sortedElements = index.getElements();
+					// only the elements that match the filter are visited
+					int[] matches = filter.length() == 0 ? null : index.getMatches(filter);
+					int length = matches == null ? sortedElements.length : matches.length;
 					List<QuickAccessEntry> poorFilterMatches = new ArrayList<QuickAccessEntry>();
 					
 					int j = indexPerProvider[i];
-					while (j < sortedElements.length
+					while (j < length
 							&& (showAllMatches || (count < countPerProvider && countTotal < maxCount))) {
-						QuickAccessElement element = sortedElements[j];
+						QuickAccessElement element = matches == null ? sortedElements[j]
+								: sortedElements[matches[j]];
 						QuickAccessEntry entry = null;
 						if (filter.length() == 0) {
 							if (i == 0 || showAllMatches) {
@@ -338,7 +343,8 @@ public abstract class QuickAccessContents {
 								entry = null;
 							}
 						} else {
-							QuickAccessEntry possibleMatch = element.match(filter, provider);
+							QuickAccessEntry possibleMatch = index.match(matches[j], filter,
+									provider);
 							// We only have limited space so only display
 							// excellent filter matches (Bug 398455)
 							if (possibleMatch != null) {
@@ -378,7 +384,7 @@ public abstract class QuickAccessContents {
 							maxCount = MAX_COUNT_TOTAL;
 						}
 					}
-					if (j < sortedElements.length) {
+					if (j < length) {
 						done = false;
 					}
 				}
@@ -89,18 +89,34 @@ public abstract class QuickAccessElement {
 	 */
 	public QuickAccessEntry match(String filter,
 			QuickAccessProvider providerForMatching) {
-		String sortLabel = getLabel();
-		int index = sortLabel.toLowerCase().indexOf(filter);
+		return match(filter, providerForMatching, new QuickAccessIndex.SearchStrings(getLabel(),
+				providerForMatching.getName()));
+	}
+
+	/**
+	 * Matches this element using search strings that were computed for it.
+	 * 
+	 * @param filter
+	 *            filter for matching
+	 * @param providerForMatching
+	 *            the provider that will own the entry
+	 * @param strings
+	 *            the search strings of this element and the provider
+	 * @return a quick access entry or <code>null</code>
+	 */
+	QuickAccessEntry match(String filter, QuickAccessProvider providerForMatching,
+			QuickAccessIndex.SearchStrings strings) {
+		String sortLabel = strings.label;
+		int index = strings.lowerCaseLabel.indexOf(filter);
 		if (index != -1) {
-			int quality = sortLabel.toLowerCase().equals(filter) ? QuickAccessEntry.MATCH_PERFECT
-					: (sortLabel.toLowerCase().startsWith(filter) ? QuickAccessEntry.MATCH_EXCELLENT
+			int quality = strings.lowerCaseLabel.equals(filter) ? QuickAccessEntry.MATCH_PERFECT
+					: (strings.lowerCaseLabel.startsWith(filter) ? QuickAccessEntry.MATCH_EXCELLENT
 							: QuickAccessEntry.MATCH_GOOD);
 			return new QuickAccessEntry(this, providerForMatching,
 					new int[][] { { index, index + filter.length() - 1 } },
  EMPTY_INDICES, quality);
 		}
-		String combinedLabel = (providerForMatching.getName() + " " + getLabel()); //$NON-NLS-1$
-		index = combinedLabel.toLowerCase().indexOf(filter);
+		index = strings.lowerCaseCombinedLabel.indexOf(filter);
 		if (index != -1) {
 			int lengthOfElementMatch = index + filter.length()
 					- providerForMatching.getName().length() - 1;
@@ -114,8 +130,7 @@ public abstract class QuickAccessElement {
 					EMPTY_INDICES, new int[][] { { index,
  index + filter.length() - 1 } }, QuickAccessEntry.MATCH_GOOD);
 		}
-		String camelCase = CamelUtil.getCamelCase(sortLabel);
-		index = camelCase.indexOf(filter);
+		index = strings.camelCase.indexOf(filter);
 		if (index != -1) {
 			int[][] indices = CamelUtil.getCamelCaseIndices(sortLabel, index, filter
 					.length());
@@ -123,8 +138,7 @@ public abstract class QuickAccessElement {
  EMPTY_INDICES,
 					QuickAccessEntry.MATCH_GOOD);
 		}
-		String combinedCamelCase = CamelUtil.getCamelCase(combinedLabel);
-		index = combinedCamelCase.indexOf(filter);
+		index = strings.combinedCamelCase.indexOf(filter);
 		if (index != -1) {
 			String providerCamelCase = CamelUtil.getCamelCase(providerForMatching
 					.getName());
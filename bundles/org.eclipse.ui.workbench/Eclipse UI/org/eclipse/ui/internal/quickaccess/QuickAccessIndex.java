@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.ui.internal.quickaccess;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The search strings of the sorted elements of a provider, computed once when
+ * the elements are first matched, and the positions of the elements that
+ * matched the last filter.
+ * <p>
+ * An element matches a filter if the filter is contained in its lower case
+ * label, in its lower case label prefixed with the provider name, or in the
+ * camel case initials of either. A filter that extends the last filter can
+ * only match elements that matched the last filter, so only those are
+ * searched. Other filters only search the elements whose search strings
+ * contain the least common character of the filter.
+ * </p>
+ */
+public class QuickAccessIndex {
+
+	/**
+	 * The strings an element is matched against.
+	 */
+	static class SearchStrings {
+		final String label;
+		final String lowerCaseLabel;
+		final String combinedLabel;
+		final String lowerCaseCombinedLabel;
+		final String camelCase;
+		final String combinedCamelCase;
+
+		SearchStrings(String label, String providerName) {
+			this.label = label;
+			this.lowerCaseLabel = label.toLowerCase();
+			this.combinedLabel = providerName + " " + label; //$NON-NLS-1$
+			this.lowerCaseCombinedLabel = combinedLabel.toLowerCase();
+			this.camelCase = CamelUtil.getCamelCase(label);
+			this.combinedCamelCase = CamelUtil.getCamelCase(combinedLabel);
+		}
+
+		boolean matches(String filter) {
+			// the combined label ends with the label
+			return lowerCaseCombinedLabel.indexOf(filter) != -1
+					|| camelCase.indexOf(filter) != -1
+					|| combinedCamelCase.indexOf(filter) != -1;
+		}
+	}
+
+	private static final int[] NO_MATCHES = new int[0];
+
+	private final QuickAccessElement[] elements;
+
+	private final SearchStrings[] searchStrings;
+
+	/**
+	 * The ascending positions of the elements whose search strings contain
+	 * each character.
+	 */
+	private final Map<Character, int[]> positionsByCharacter = new HashMap<Character, int[]>();
+
+	private String lastFilter;
+
+	private int[] lastMatches;
+
+	/**
+	 * @param elements
+	 *            the sorted elements of the provider
+	 * @param providerName
+	 *            the name of the provider
+	 */
+	public QuickAccessIndex(QuickAccessElement[] elements, String providerName) {
+		this.elements = elements;
+		searchStrings = new SearchStrings[elements.length];
+		// for each character the number of elements containing it and the
+		// last position counted
+		Map<Character, int[]> counts = new HashMap<Character, int[]>();
+		for (int i = 0; i < elements.length; i++) {
+			SearchStrings strings = new SearchStrings(elements[i].getLabel(), providerName);
+			searchStrings[i] = strings;
+			addCharacters(strings.lowerCaseCombinedLabel, i, counts);
+			addCharacters(strings.camelCase, i, counts);
+			addCharacters(strings.combinedCamelCase, i, counts);
+		}
+		// fill the positions in a second pass, now that the counts are known
+		for (Map.Entry<Character, int[]> entry : counts.entrySet()) {
+			int[] count = entry.getValue();
+			positionsByCharacter.put(entry.getKey(), new int[count[0]]);
+			count[0] = 0;
+			count[1] = -1;
+		}
+		for (int i = 0; i < elements.length; i++) {
+			SearchStrings strings = searchStrings[i];
+			addPositions(strings.lowerCaseCombinedLabel, i, counts);
+			addPositions(strings.camelCase, i, counts);
+			addPositions(strings.combinedCamelCase, i, counts);
+		}
+	}
+
+	private static void addCharacters(String s, int position, Map<Character, int[]> counts) {
+		for (int i = 0; i < s.length(); i++) {
+			Character c = Character.valueOf(s.charAt(i));
+			int[] count = counts.get(c);
+			if (count == null) {
+				counts.put(c, new int[] { 1, position });
+			} else if (count[1] != position) {
+				count[0]++;
+				count[1] = position;
+			}
+		}
+	}
+
+	private void addPositions(String s, int position, Map<Character, int[]> counts) {
+		for (int i = 0; i < s.length(); i++) {
+			Character c = Character.valueOf(s.charAt(i));
+			int[] count = counts.get(c);
+			if (count[1] != position) {
+				positionsByCharacter.get(c)[count[0]++] = position;
+				count[1] = position;
+			}
+		}
+	}
+
+	/**
+	 * @return the sorted elements of the provider
+	 */
+	public QuickAccessElement[] getElements() {
+		return elements;
+	}
+
+	/**
+	 * Returns the ascending positions of the elements that match the given
+	 * filter.
+	 *
+	 * @param filter
+	 *            the lower case filter, not empty
+	 * @return the positions of the matching elements
+	 */
+	public int[] getMatches(String filter) {
+		if (filter.equals(lastFilter)) {
+			return lastMatches;
+		}
+		int[] candidates;
+		if (lastFilter != null && filter.startsWith(lastFilter)) {
+			candidates = lastMatches;
+		} else {
+			candidates = null;
+			for (int i = 0; i < filter.length(); i++) {
+				int[] positions = positionsByCharacter.get(Character.valueOf(filter.charAt(i)));
+				if (positions == null) {
+					candidates = NO_MATCHES;
+					break;
+				}
+				if (candidates == null || positions.length < candidates.length) {
+					candidates = positions;
+				}
+			}
+		}
+
+		int[] matches = new int[candidates.length];
+		int count = 0;
+		for (int i = 0; i < candidates.length; i++) {
+			if (searchStrings[candidates[i]].matches(filter)) {
+				matches[count++] = candidates[i];
+			}
+		}
+		if (count < matches.length) {
+			int[] trimmed = new int[count];
+			System.arraycopy(matches, 0, trimmed, 0, count);
+			matches = trimmed;
+		}
+		lastFilter = filter;
+		lastMatches = matches;
+		return matches;
+	}
+
+	/**
+	 * Returns the entry for the element at the given position.
+	 *
+	 * @param position
+	 *            the position of the element
+	 * @param filter
+	 *            the lower case filter
+	 * @param providerForMatching
+	 *            the provider that will own the entry
+	 * @return a quick access entry or <code>null</code>
+	 */
+	QuickAccessEntry match(int position, String filter, QuickAccessProvider providerForMatching) {
+		return elements[position].match(filter, providerForMatching, searchStrings[position]);
+	}
+}
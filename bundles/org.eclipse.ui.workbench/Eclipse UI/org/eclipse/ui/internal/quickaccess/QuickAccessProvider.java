@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2010 IBM Corporation and others.
+ * Copyright (c) 2006, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,6 +23,8 @@ public abstract class QuickAccessProvider {
 
 	private QuickAccessElement[] sortedElements;
 
+	private QuickAccessIndex index;
+
 	/**
 	 * Returns the unique ID of this provider.
 	 * 
@@ -64,6 +66,20 @@ public abstract class QuickAccessProvider {
 		}
 		return sortedElements;
 	}
+
+	/**
+	 * Returns the index of the sorted elements, which is computed when it is
+	 * first needed after a reset.
+	 * 
+	 * @return the index of the sorted elements
+	 */
+	QuickAccessIndex getIndex() {
+		QuickAccessElement[] elements = getElementsSorted();
+		if (index == null || index.getElements() != elements) {
+			index = new QuickAccessIndex(elements, getName());
+		}
+		return index;
+	}
 	
 	/**
 	 * Returns the element for the given ID if available, or null if no matching
@@ -81,6 +97,7 @@ public abstract class QuickAccessProvider {
 
 	public void reset() {
 		sortedElements = null;
+		index = null;
 		doReset();
 	}
 
@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.tests.databinding.benchmarks;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * Runs the benchmarks like {@link Main}, but writes the results as JSON to
+ * <code>jmh-result.json</code> unless another result format is requested.
+ */
+public class BenchmarkMain {
+
+	public static void main(String[] args) throws Exception {
+		List<String> argv = new ArrayList<String>(Arrays.asList(args));
+		if (!argv.contains("-rf")) {
+			argv.add(0, "-rf");
+			argv.add(1, "json");
+		}
+		Main.main(argv.toArray(new String[argv.size()]));
+	}
+}
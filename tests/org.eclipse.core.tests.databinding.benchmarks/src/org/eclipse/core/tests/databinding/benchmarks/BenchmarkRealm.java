@@ -0,0 +1,28 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.tests.databinding.benchmarks;
+import org.eclipse.core.databinding.observable.Realm;
+
+/**
+ * A realm for single threaded benchmarks. It is always current and runs
+ * asynchronous work right away, as there is no event loop to defer it to.
+ */
+public class BenchmarkRealm extends Realm {
+
+	public boolean isCurrent() {
+		return true;
+	}
+
+	public void asyncExec(Runnable runnable) {
+		safeRun(runnable);
+	}
+}
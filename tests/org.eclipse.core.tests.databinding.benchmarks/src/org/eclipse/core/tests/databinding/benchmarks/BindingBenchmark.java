@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.tests.databinding.benchmarks;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.databinding.Binding;
+import org.eclipse.core.databinding.DataBindingContext;
+import org.eclipse.core.databinding.UpdateValueStrategy;
+import org.eclipse.core.databinding.conversion.Converter;
+import org.eclipse.core.databinding.observable.Realm;
+import org.eclipse.core.databinding.observable.value.WritableValue;
+import org.eclipse.core.databinding.validation.IValidator;
+import org.eclipse.core.databinding.validation.ValidationStatus;
+import org.eclipse.core.runtime.IStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link DataBindingContext#bindValue} between a string and an
+ * integer value with converters and validators in both directions, and the
+ * propagation of a change through such a binding.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BindingBenchmark {
+
+	private static final IValidator VALIDATOR = new IValidator() {
+		public IStatus validate(Object value) {
+			return value == null ? ValidationStatus.error("empty")
+					: ValidationStatus.ok();
+		}
+	};
+
+	private Realm realm;
+
+	private DataBindingContext context;
+
+	private WritableValue target;
+
+	private WritableValue model;
+
+	private int count;
+
+	@Setup
+	public void setUp() {
+		realm = new BenchmarkRealm();
+		context = new DataBindingContext(realm);
+		target = new WritableValue(realm, "0", String.class);
+		model = new WritableValue(realm, new Integer(0), Integer.class);
+		bind(target, model);
+	}
+
+	@Benchmark
+	public Binding bindAndDispose() {
+		Binding binding = bind(new WritableValue(realm, "1", String.class),
+				new WritableValue(realm, new Integer(1), Integer.class));
+		binding.dispose();
+		return binding;
+	}
+
+	@Benchmark
+	public Object propagateChange() {
+		target.setValue(Integer.toString(++count));
+		return model.getValue();
+	}
+
+	private Binding bind(WritableValue target, WritableValue model) {
+		UpdateValueStrategy targetToModel = new UpdateValueStrategy()
+				.setAfterGetValidator(VALIDATOR)
+				.setConverter(new Converter(String.class, Integer.class) {
+					public Object convert(Object fromObject) {
+						return Integer.valueOf((String) fromObject);
+					}
+				}).setAfterConvertValidator(VALIDATOR);
+		UpdateValueStrategy modelToTarget = new UpdateValueStrategy()
+				.setConverter(new Converter(Integer.class, String.class) {
+					public Object convert(Object fromObject) {
+						return fromObject.toString();
+					}
+				}).setBeforeSetValidator(VALIDATOR);
+		return context.bindValue(target, model, targetToModel, modelToTarget);
+	}
+}
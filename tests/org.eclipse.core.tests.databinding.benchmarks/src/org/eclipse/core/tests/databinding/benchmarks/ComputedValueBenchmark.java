@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.tests.databinding.benchmarks;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.databinding.observable.Realm;
+import org.eclipse.core.databinding.observable.value.ComputedValue;
+import org.eclipse.core.databinding.observable.value.IObservableValue;
+import org.eclipse.core.databinding.observable.value.IValueChangeListener;
+import org.eclipse.core.databinding.observable.value.ValueChangeEvent;
+import org.eclipse.core.databinding.observable.value.WritableValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a change that travels through a chain of {@link ComputedValue}s,
+ * each computed from the previous one, to a listener at the end.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ComputedValueBenchmark {
+
+	@Param({ "1", "10", "100" })
+	public int length;
+
+	private WritableValue source;
+
+	private IObservableValue last;
+
+	private int count;
+
+	@Setup
+	public void setUp() {
+		Realm realm = new BenchmarkRealm();
+		source = new WritableValue(realm, new Integer(0), Integer.class);
+		last = source;
+		for (int i = 0; i < length; i++) {
+			final IObservableValue previous = last;
+			last = new ComputedValue(realm, Integer.class) {
+				protected Object calculate() {
+					return new Integer(((Integer) previous.getValue())
+							.intValue() + 1);
+				}
+			};
+		}
+		last.addValueChangeListener(new IValueChangeListener() {
+			public void handleValueChange(ValueChangeEvent event) {
+				event.diff.getNewValue();
+			}
+		});
+	}
+
+	@Benchmark
+	public Object setSourceValue() {
+		source.setValue(new Integer(++count));
+		return last.getValue();
+	}
+}
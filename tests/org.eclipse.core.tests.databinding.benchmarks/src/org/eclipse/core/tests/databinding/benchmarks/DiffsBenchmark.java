@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.tests.databinding.benchmarks;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.databinding.observable.Diffs;
+import org.eclipse.core.databinding.observable.map.MapDiff;
+import org.eclipse.core.databinding.observable.set.SetDiff;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link Diffs#computeSetDiff(Set, Set)} and
+ * {@link Diffs#computeMapDiff(Map, Map)} where a tenth of the entries
+ * changed. The list diff is measured by {@link ListDiffBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DiffsBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int size;
+
+	private Set<String> oldSet;
+
+	private Set<String> newSet;
+
+	private Map<String, String> oldMap;
+
+	private Map<String, String> newMap;
+
+	@Setup
+	public void setUp() {
+		oldSet = new HashSet<String>();
+		newSet = new HashSet<String>();
+		oldMap = new HashMap<String, String>();
+		newMap = new HashMap<String, String>();
+		for (int i = 0; i < size; i++) {
+			String key = "row" + i;
+			oldSet.add(key);
+			oldMap.put(key, "value" + i);
+			switch (i % 30) {
+			case 0:
+				// removed
+				break;
+			case 1:
+				newSet.add("new" + i);
+				newMap.put("new" + i, "value" + i);
+				break;
+			case 2:
+				newSet.add(key);
+				newMap.put(key, "changed" + i);
+				break;
+			default:
+				newSet.add(key);
+				newMap.put(key, "value" + i);
+			}
+		}
+	}
+
+	@Benchmark
+	public SetDiff computeSetDiff() {
+		return Diffs.computeSetDiff(oldSet, newSet);
+	}
+
+	@Benchmark
+	public MapDiff computeMapDiff() {
+		return Diffs.computeMapDiff(oldMap, newMap);
+	}
+}
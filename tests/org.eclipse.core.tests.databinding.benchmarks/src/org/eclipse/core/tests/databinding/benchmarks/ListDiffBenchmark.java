@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.tests.databinding.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.databinding.observable.Diffs;
+import org.eclipse.core.databinding.observable.list.ListDiff;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link Diffs#computeListDiff(List, List)} for the ways a bound
+ * list typically gets replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ListDiffBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	public int size;
+
+	/**
+	 * <dl>
+	 * <dt>unchanged</dt>
+	 * <dd>an equal copy of the list</dd>
+	 * <dt>edit</dt>
+	 * <dd>one percent of the elements inserted, removed or moved</dd>
+	 * <dt>shuffle</dt>
+	 * <dd>the same elements in a random order</dd>
+	 * <dt>replace</dt>
+	 * <dd>completely different elements</dd>
+	 * <dt>reverseBehind</dt>
+	 * <dd>the first half of the elements reversed behind the second half, so
+	 * that they are all moved in front of the end of the list</dd>
+	 * </dl>
+	 */
+	@Param({ "unchanged", "edit", "shuffle", "replace", "reverseBehind" })
+	public String change;
+
+	private List<String> oldList;
+
+	private List<String> newList;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(size);
+		oldList = new ArrayList<String>(size);
+		for (int i = 0; i < size; i++) {
+			oldList.add("row" + i);
+		}
+
+		newList = new ArrayList<String>(oldList);
+		if ("edit".equals(change)) {
+			for (int i = 0; i < size / 100; i++) {
+				newList.add(random.nextInt(newList.size()), "new" + i);
+				newList.remove(random.nextInt(newList.size()));
+				newList.add(random.nextInt(newList.size()),
+						newList.remove(random.nextInt(newList.size())));
+			}
+		} else if ("shuffle".equals(change)) {
+			Collections.shuffle(newList, random);
+		} else if ("replace".equals(change)) {
+			for (int i = 0; i < size; i++) {
+				newList.set(i, "other" + i);
+			}
+		} else if ("reverseBehind".equals(change)) {
+			List<String> front = newList.subList(0, size / 2);
+			List<String> reversed = new ArrayList<String>(front);
+			Collections.reverse(reversed);
+			front.clear();
+			newList.addAll(reversed);
+		}
+	}
+
+	@Benchmark
+	public ListDiff computeListDiff() {
+		return Diffs.computeListDiff(oldList, newList);
+	}
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.tests.databinding.benchmarks;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.databinding.observable.Realm;
+import org.eclipse.core.databinding.observable.list.IListChangeListener;
+import org.eclipse.core.databinding.observable.list.ListChangeEvent;
+import org.eclipse.core.databinding.observable.list.WritableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures filling and clearing a {@link WritableList} that has a listener,
+ * one element at a time, with and without {@link Realm#runBatched(Runnable)}.
+ * Batches don't merge map change events, so maps are measured by
+ * {@link WritableMapBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ObservableCollectionBenchmark {
+
+	@Param({ "100", "10000" })
+	public int size;
+
+	@Param({ "false", "true" })
+	public boolean batched;
+
+	private Realm realm;
+
+	private String[] elements;
+
+	private WritableList list;
+
+	private int events;
+
+	@Setup
+	public void setUp() {
+		realm = new BenchmarkRealm();
+		elements = new String[size];
+		for (int i = 0; i < size; i++) {
+			elements[i] = "row" + i;
+		}
+
+		list = new WritableList(realm);
+		list.addListChangeListener(new IListChangeListener() {
+			public void handleListChange(ListChangeEvent event) {
+				events += event.diff.getDifferences().length;
+			}
+		});
+	}
+
+	@Benchmark
+	public int fillWritableList() {
+		run(new Runnable() {
+			public void run() {
+				for (int i = 0; i < size; i++) {
+					list.add(elements[i]);
+				}
+			}
+		});
+		list.clear();
+		return events;
+	}
+
+	private void run(Runnable runnable) {
+		if (batched) {
+			realm.runBatched(runnable);
+		} else {
+			runnable.run();
+		}
+	}
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.tests.databinding.benchmarks;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.databinding.beans.BeanProperties;
+import org.eclipse.core.databinding.beans.PojoProperties;
+import org.eclipse.core.databinding.observable.value.IObservableValue;
+import org.eclipse.core.databinding.observable.value.IValueChangeListener;
+import org.eclipse.core.databinding.observable.value.ValueChangeEvent;
+import org.eclipse.core.databinding.property.value.IValueProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading and writing a property through {@link BeanProperties} and
+ * {@link PojoProperties}, directly and through an observed value.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PropertiesBenchmark {
+
+	public static class Pojo {
+		private String name = "";
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+
+	public static class Bean extends Pojo {
+		private final PropertyChangeSupport changeSupport = new PropertyChangeSupport(
+				this);
+
+		public void addPropertyChangeListener(PropertyChangeListener listener) {
+			changeSupport.addPropertyChangeListener(listener);
+		}
+
+		public void removePropertyChangeListener(
+				PropertyChangeListener listener) {
+			changeSupport.removePropertyChangeListener(listener);
+		}
+
+		public void setName(String name) {
+			String oldName = getName();
+			super.setName(name);
+			changeSupport.firePropertyChange("name", oldName, name);
+		}
+	}
+
+	private final IValueProperty beanProperty = BeanProperties.value(
+			Bean.class, "name");
+
+	private final IValueProperty pojoProperty = PojoProperties.value(
+			Pojo.class, "name");
+
+	private Bean bean;
+
+	private Pojo pojo;
+
+	private IObservableValue observedBean;
+
+	private String[] names;
+
+	private int count;
+
+	@Setup
+	public void setUp() {
+		bean = new Bean();
+		pojo = new Pojo();
+		observedBean = beanProperty.observe(new BenchmarkRealm(), new Bean());
+		observedBean.addValueChangeListener(new IValueChangeListener() {
+			public void handleValueChange(ValueChangeEvent event) {
+				event.diff.getNewValue();
+			}
+		});
+		names = new String[16];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = "name" + i;
+		}
+	}
+
+	@Benchmark
+	public Object getBeanProperty() {
+		return beanProperty.getValue(bean);
+	}
+
+	@Benchmark
+	public void setBeanProperty() {
+		beanProperty.setValue(bean, nextName());
+	}
+
+	@Benchmark
+	public Object getPojoProperty() {
+		return pojoProperty.getValue(pojo);
+	}
+
+	@Benchmark
+	public void setPojoProperty() {
+		pojoProperty.setValue(pojo, nextName());
+	}
+
+	@Benchmark
+	public Object setObservedBeanProperty() {
+		observedBean.setValue(nextName());
+		return observedBean.getValue();
+	}
+
+	private String nextName() {
+		return names[count++ & (names.length - 1)];
+	}
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.tests.databinding.benchmarks;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.databinding.observable.Realm;
+import org.eclipse.core.databinding.observable.map.IMapChangeListener;
+import org.eclipse.core.databinding.observable.map.MapChangeEvent;
+import org.eclipse.core.databinding.observable.map.WritableMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures filling and clearing a {@link WritableMap} that has a listener, one
+ * entry at a time. There is no batched variant, as
+ * {@link Realm#runBatched(Runnable)} does not merge map change events.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WritableMapBenchmark {
+
+	@Param({ "100", "10000" })
+	public int size;
+
+	private String[] elements;
+
+	private WritableMap map;
+
+	private int events;
+
+	@Setup
+	public void setUp() {
+		Realm realm = new BenchmarkRealm();
+		elements = new String[size];
+		for (int i = 0; i < size; i++) {
+			elements[i] = "row" + i;
+		}
+
+		map = new WritableMap(realm);
+		map.addMapChangeListener(new IMapChangeListener() {
+			public void handleMapChange(MapChangeEvent event) {
+				events += event.diff.getAddedKeys().size();
+			}
+		});
+	}
+
+	@Benchmark
+	public int fillWritableMap() {
+		for (int i = 0; i < size; i++) {
+			map.put(elements[i], elements[size - 1 - i]);
+		}
+		map.clear();
+		return events;
+	}
+}
@@ -178,6 +178,25 @@ public class BindingTableTests extends TestCase {
 		assertFalse(table.isPartialMatch(ctrl8));
 	}
 
+	public void testPartialMatchAfterRemove() throws Exception {
+		BindingTable table = loadTable(ID_DIALOG_AND_WINDOW);
+		KeySequence ctrl5 = KeySequence.getInstance("CTRL+5");
+		KeySequence ctrl5A = KeySequence.getInstance("CTRL+5 A");
+		Binding about = getTestBinding(ABOUT_ID);
+		assertEquals(about, table.getPerfectMatch(ctrl5A));
+		assertEquals(1, table.getPartialMatches(ctrl5).size());
+		assertFalse(table.isPartialMatch(ctrl5A));
+
+		table.removeBinding(about);
+		assertFalse(table.isPartialMatch(ctrl5));
+		assertNull(table.getPartialMatches(ctrl5));
+		assertNull(table.getPerfectMatch(ctrl5A));
+
+		table.addBinding(about);
+		assertTrue(table.isPartialMatch(ctrl5));
+		assertEquals(about, table.getPerfectMatch(ctrl5A));
+	}
+
 	public void testContextSet() throws Exception {
 		BindingTableManager manager = (BindingTableManager) ContextInjectionFactory
 				.make(BindingTableManager.class, workbenchContext);
@@ -321,6 +340,32 @@ public class BindingTableTests extends TestCase {
 		assertEquals(paste, match);
 	}
 
+	public void testManagerLookupAfterTableChange() throws Exception {
+		BindingTableManager manager = createManager();
+		Binding paste = getTestBinding(PASTE_ID);
+		ContextSet javaSet = createJavaSet(manager);
+		BindingTable window = manager.getTable(ID_WINDOW);
+
+		assertEquals(paste, manager.getBestSequenceFor(javaSet, paste
+				.getParameterizedCommand()));
+		assertEquals(paste, manager.getPerfectMatch(javaSet, paste
+				.getTriggerSequence()));
+
+		window.removeBinding(paste);
+		assertEquals(KeySequence.getInstance("SHIFT+INSERT"), manager
+				.getBestSequenceFor(javaSet, paste.getParameterizedCommand())
+				.getTriggerSequence());
+		assertNull(manager.getPerfectMatch(javaSet, paste.getTriggerSequence()));
+		assertEquals(2, manager.getSequencesFor(javaSet,
+				paste.getParameterizedCommand()).size());
+
+		window.addBinding(paste);
+		assertEquals(paste, manager.getBestSequenceFor(javaSet, paste
+				.getParameterizedCommand()));
+		assertEquals(paste, manager.getPerfectMatch(javaSet, paste
+				.getTriggerSequence()));
+	}
+
 	public void testManagerLookupAllShortcuts() throws Exception {
 		BindingTableManager manager = createManager();
 		Binding paste = getTestBinding(PASTE_ID);
@@ -362,6 +407,27 @@ public class BindingTableTests extends TestCase {
 		assertEquals(about, it.next());
 	}
 
+	public void testManagerMatch() throws Exception {
+		BindingTableManager manager = createManager();
+		ContextSet javaSet = createJavaSet(manager);
+		Binding pasteCtrl5 = manager.getPerfectMatch(javaSet,
+				KeySequence.getInstance("CTRL+5 V"));
+		assertEquals(pasteCtrl5,
+				manager.getMatch(javaSet, KeySequence.getInstance("CTRL+5 V")));
+
+		// a partial match is reported through a binding that extends the sequence
+		Binding partial = manager.getMatch(javaSet,
+				KeySequence.getInstance("CTRL+5"));
+		assertNotNull(partial);
+		assertTrue(partial.getTriggerSequence().startsWith(
+				KeySequence.getInstance("CTRL+5"), false));
+
+		assertEquals(manager.getPerfectMatch(javaSet,
+				KeySequence.getInstance("CTRL+I")), manager.getMatch(javaSet,
+				KeySequence.getInstance("CTRL+I")));
+		assertNull(manager.getMatch(javaSet, KeySequence.getInstance("CTRL+8")));
+	}
+
 	private BindingTable loadTable(String contextId) {
 		Context context = contextManager.getContext(contextId);
 		BindingTable table = new BindingTable(context);
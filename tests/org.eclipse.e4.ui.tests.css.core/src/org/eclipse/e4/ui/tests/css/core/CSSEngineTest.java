@@ -10,10 +10,12 @@
  *******************************************************************************/
 package org.eclipse.e4.ui.tests.css.core;
 
+import java.io.StringReader;
 import java.util.AbstractCollection;
 import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
@@ -22,6 +24,8 @@ import junit.framework.TestCase;
 
 import org.eclipse.e4.ui.css.core.dom.ElementAdapter;
 import org.eclipse.e4.ui.css.core.dom.IElementProvider;
+import org.eclipse.e4.ui.css.core.dom.properties.ICSSPropertyHandler;
+import org.eclipse.e4.ui.css.core.dom.properties.ICSSPropertyHandlerProvider;
 import org.eclipse.e4.ui.css.core.engine.CSSEngine;
 import org.eclipse.e4.ui.css.core.impl.engine.CSSEngineImpl;
 import org.eclipse.e4.ui.tests.css.core.util.TestElement;
@@ -29,6 +33,8 @@ import org.w3c.css.sac.SelectorList;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.w3c.dom.css.CSSStyleDeclaration;
+import org.w3c.dom.css.CSSValue;
 
 public class CSSEngineTest extends TestCase {
 	private static class TestCSSEngine extends CSSEngineImpl {
@@ -128,4 +134,98 @@ public class CSSEngineTest extends TestCase {
 		assertTrue(engine.matches(list.item(0), new Date(), null));
 	}
 
+	public void testSharedStyleCache() throws Exception {
+		TestCSSEngine engine = new TestCSSEngine();
+		engine.parseStyleSheet(new StringReader(
+				"Button { color: blue; } .special { color: red; }"));
+		engine.setSharedStyleCacheEnabled(true);
+
+		TestElement button1 = createButton(engine);
+		TestElement button2 = createButton(engine);
+		TestElement button3 = createButton(engine);
+		engine.applyStyles(button1, false);
+		engine.applyStyles(button2, false);
+		assertEquals(1, engine.getSharedStyleCacheMisses());
+		assertEquals(1, engine.getSharedStyleCacheHits());
+
+		button3.setClass("special");
+		engine.applyStyles(button3, false);
+		assertEquals(2, engine.getSharedStyleCacheMisses());
+
+		// a new style sheet invalidates the shared styles
+		engine.parseStyleSheet(new StringReader("Button { color: green; }"));
+		engine.applyStyles(button1, false);
+		assertEquals(3, engine.getSharedStyleCacheMisses());
+		assertEquals(1, engine.getSharedStyleCacheHits());
+	}
+
+	public void testAppliedValueMemo() throws Exception {
+		TestCSSEngine engine = new TestCSSEngine();
+		final int[] applications = new int[1];
+		final ICSSPropertyHandler handler = new ICSSPropertyHandler() {
+			public boolean applyCSSProperty(Object element, String property,
+					CSSValue value, String pseudo, CSSEngine engine)
+					throws Exception {
+				applications[0]++;
+				return true;
+			}
+
+			public String retrieveCSSProperty(Object element,
+					String property, String pseudo, CSSEngine engine)
+					throws Exception {
+				return null;
+			}
+		};
+		engine.registerCSSPropertyHandlerProvider(new ICSSPropertyHandlerProvider() {
+			public Collection<ICSSPropertyHandler> getCSSPropertyHandlers(
+					String property) throws Exception {
+				return Collections.singleton(handler);
+			}
+
+			public Collection<ICSSPropertyHandler> getCSSPropertyHandlers(
+					Object element, String property) throws Exception {
+				return Collections.singleton(handler);
+			}
+
+			public CSSStyleDeclaration getDefaultCSSStyleDeclaration(
+					CSSEngine engine, Object element,
+					CSSStyleDeclaration newStyle, String pseudoE)
+					throws Exception {
+				return null;
+			}
+
+			public Collection<String> getCSSProperties(Object element) {
+				return Collections.singleton("color");
+			}
+		});
+		engine.parseStyleSheet(new StringReader("Button { color: blue; }"));
+		engine.setAppliedValueMemoEnabled(true);
+
+		TestElement button = createButton(engine);
+		engine.applyStyles(button, false);
+		engine.applyStyles(button, false);
+		assertEquals(1, applications[0]);
+		assertEquals(1, engine.getSkippedPropertyApplications());
+
+		// a new value is applied
+		engine.reset();
+		engine.parseStyleSheet(new StringReader("Button { color: red; }"));
+		engine.applyStyles(button, false);
+		assertEquals(2, applications[0]);
+		assertEquals(1, engine.getSkippedPropertyApplications());
+
+		// the same value is applied again once the memo is disabled
+		engine.setAppliedValueMemoEnabled(false);
+		engine.applyStyles(button, false);
+		assertEquals(3, applications[0]);
+	}
+
+	private static TestElement createButton(CSSEngine engine) {
+		// every element needs its own native widget to get its own context
+		return new TestElement("Button", engine) {
+			public Object getNativeWidget() {
+				return this;
+			}
+		};
+	}
 }
@@ -38,6 +38,7 @@ public class CssCoreTestSuite extends TestSuite {
 		addTestSuite(ValueTest.class);
 		addTestSuite(SelectorTest.class);
 		addTestSuite(CSSEngineTest.class);
+		addTestSuite(StyleSheetCacheTest.class);
 		// $JUnit-END$
 	}
 }
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.tests.css.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+
+import junit.framework.TestCase;
+
+import org.eclipse.e4.ui.css.core.dom.ExtendedCSSRule;
+import org.eclipse.e4.ui.css.core.impl.engine.CSSEngineImpl;
+import org.eclipse.e4.ui.tests.css.core.util.TestElement;
+import org.w3c.css.sac.InputSource;
+import org.w3c.css.sac.Selector;
+import org.w3c.dom.css.CSSRuleList;
+import org.w3c.dom.css.CSSStyleDeclaration;
+import org.w3c.dom.css.CSSStyleRule;
+import org.w3c.dom.css.CSSStyleSheet;
+
+public class StyleSheetCacheTest extends TestCase {
+
+	private static class TestCSSEngine extends CSSEngineImpl {
+		public void reapply() {
+		}
+	}
+
+	private File directory;
+	private File cacheDirectory;
+
+	protected void setUp() throws Exception {
+		directory = File.createTempFile("css", "");
+		directory.delete();
+		directory.mkdirs();
+		cacheDirectory = new File(directory, "cache");
+	}
+
+	protected void tearDown() throws Exception {
+		delete(directory);
+	}
+
+	public void testCompiledStyleSheetIsReused() throws Exception {
+		File base = write("base.css", "Label { color: blue; }");
+		File theme = write("theme.css", "@import url(\"base.css\");\n"
+				+ "Shell > Composite Button.primary:focus, #ok[enabled='true'] {"
+				+ " background-color: rgb(10, 20, 30) #FF0000 50%;"
+				+ " font: Arial 12px italic; }\n"
+				+ "* { margin: 0 1em inherit !important; }");
+
+		TestCSSEngine engine = createEngine();
+		CSSStyleSheet parsed = parse(engine, theme);
+		assertEquals(0, engine.getStyleSheetCacheHits());
+		assertEquals(1, engine.getStyleSheetCacheMisses());
+
+		TestCSSEngine warmEngine = createEngine();
+		CSSStyleSheet compiled = parse(warmEngine, theme);
+		assertEquals(1, warmEngine.getStyleSheetCacheHits());
+		assertEquals(0, warmEngine.getStyleSheetCacheMisses());
+		assertSameRules(parsed, compiled);
+
+		TestElement button = new TestElement("Button", warmEngine);
+		button.setId("ok");
+		button.setAttribute("enabled", "true");
+		CSSStyleDeclaration style = warmEngine.getViewCSS().getComputedStyle(
+				button, null);
+		assertEquals("rgb(10, 20, 30) rgb(255, 0, 0) 50.0%",
+				style.getPropertyCSSValue("background-color").getCssText());
+
+		// a change to an imported style sheet invalidates the compiled form
+		write(base.getName(), "Label { color: red; }");
+		TestCSSEngine changedEngine = createEngine();
+		parse(changedEngine, theme);
+		assertEquals(0, changedEngine.getStyleSheetCacheHits());
+		assertEquals(1, changedEngine.getStyleSheetCacheMisses());
+	}
+
+	public void testCorruptCompiledStyleSheetIsParsedAgain() throws Exception {
+		File theme = write("theme.css", "Label { color: blue; }");
+		TestCSSEngine engine = createEngine();
+		CSSStyleSheet parsed = parse(engine, theme);
+
+		// keep the header so that the entry is read, and replace the rules
+		// with a descendant selector where a simple selector is expected
+		File[] entries = cacheDirectory.listFiles();
+		assertEquals(1, entries.length);
+		DataInputStream in = new DataInputStream(new FileInputStream(
+				entries[0]));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeInt(in.readInt());
+			out.writeInt(in.readInt());
+			out.writeUTF(in.readUTF());
+			out.writeLong(in.readLong());
+			out.writeLong(in.readLong());
+			out.writeInt(in.readInt());
+		} finally {
+			in.close();
+		}
+		out.writeInt(1);
+		out.writeInt(1);
+		out.writeShort(Selector.SAC_CONDITIONAL_SELECTOR);
+		out.writeShort(Selector.SAC_DESCENDANT_SELECTOR);
+		writeElementSelector(out, "Shell");
+		writeElementSelector(out, "Label");
+		out.close();
+		FileOutputStream file = new FileOutputStream(entries[0]);
+		try {
+			file.write(bytes.toByteArray());
+		} finally {
+			file.close();
+		}
+
+		TestCSSEngine corruptEngine = createEngine();
+		assertSameRules(parsed, parse(corruptEngine, theme));
+		assertEquals(0, corruptEngine.getStyleSheetCacheHits());
+		assertEquals(1, corruptEngine.getStyleSheetCacheMisses());
+
+		// the entry was compiled again
+		TestCSSEngine warmEngine = createEngine();
+		assertSameRules(parsed, parse(warmEngine, theme));
+		assertEquals(1, warmEngine.getStyleSheetCacheHits());
+	}
+
+	private static void writeElementSelector(DataOutputStream out,
+			String localName) throws IOException {
+		out.writeShort(Selector.SAC_ELEMENT_NODE_SELECTOR);
+		out.writeBoolean(false);
+		out.writeBoolean(true);
+		out.writeUTF(localName);
+	}
+
+	private static void assertSameRules(CSSStyleSheet expected,
+			CSSStyleSheet actual) {
+		CSSRuleList expectedRules = expected.getCssRules();
+		CSSRuleList actualRules = actual.getCssRules();
+		assertEquals(expectedRules.getLength(), actualRules.getLength());
+		for (int i = 0; i < expectedRules.getLength(); i++) {
+			assertEquals(((ExtendedCSSRule) expectedRules.item(i))
+					.getSelectorList().getLength(),
+					((ExtendedCSSRule) actualRules.item(i)).getSelectorList()
+							.getLength());
+			for (int j = 0; j < ((ExtendedCSSRule) expectedRules.item(i))
+					.getSelectorList().getLength(); j++) {
+				assertEquals(((ExtendedCSSRule) expectedRules.item(i))
+						.getSelectorList().item(j).toString(),
+						((ExtendedCSSRule) actualRules.item(i))
+								.getSelectorList().item(j).toString());
+			}
+			assertEquals(((CSSStyleRule) expectedRules.item(i)).getStyle()
+					.getCssText(), ((CSSStyleRule) actualRules.item(i))
+					.getStyle().getCssText());
+		}
+	}
+
+	private TestCSSEngine createEngine() {
+		TestCSSEngine engine = new TestCSSEngine();
+		engine.setStyleSheetCacheLocation(cacheDirectory);
+		return engine;
+	}
+
+	private static CSSStyleSheet parse(TestCSSEngine engine, File file)
+			throws IOException {
+		InputStream stream = new FileInputStream(file);
+		try {
+			InputSource source = new InputSource();
+			source.setURI(file.toURI().toURL().toString());
+			source.setByteStream(stream);
+			return (CSSStyleSheet) engine.parseStyleSheet(source);
+		} finally {
+			stream.close();
+		}
+	}
+
+	private File write(String name, String css) throws IOException {
+		File file = new File(directory, name);
+		FileWriter writer = new FileWriter(file);
+		try {
+			writer.write(css);
+		} finally {
+			writer.close();
+		}
+		// make sure the modification time changes too
+		file.setLastModified(file.lastModified() + 2000);
+		return file;
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (int i = 0; i < children.length; i++) {
+				delete(children[i]);
+			}
+		}
+		file.delete();
+	}
+}
@@ -57,6 +57,46 @@ public class ViewCSSTest extends TestCase {
 		assertEquals( 2, buttonStyle.getLength() );
 	}
 
+	public void testGetComputedStyleAcrossIndexBuckets() throws Exception {
+		// Rules filed under the id, class, type and universal buckets must
+		// still be merged in style sheet order
+		String css = ".special { color: blue; }\n"
+			+ "* { font-weight: normal; }\n"
+			+ "Button { font-weight: bold; }\n"
+			+ ".special { font-style: italic; }\n"
+			+ "#myid.other { color: red; }\n"
+			+ "Shell Button.special { font-style: normal; }\n";
+		ViewCSS viewCSS = createViewCss(css);
+
+		TestElement button = new TestElement("Button", engine);
+		CSSStyleDeclaration style = viewCSS.getComputedStyle(button, null);
+		assertEquals("bold", style.getPropertyCSSValue("font-weight").getCssText());
+		assertNull(style.getPropertyCSSValue("color"));
+
+		button.setClass("other  special");
+		style = viewCSS.getComputedStyle(button, null);
+		assertEquals("blue", style.getPropertyCSSValue("color").getCssText());
+		assertEquals("italic", style.getPropertyCSSValue("font-style").getCssText());
+
+		button.setId("myid");
+		style = viewCSS.getComputedStyle(button, null);
+		assertEquals("red", style.getPropertyCSSValue("color").getCssText());
+	}
+
+	public void testGetComputedStyleAfterStyleSheetChange() throws Exception {
+		DocumentCSSImpl docCss = new DocumentCSSImpl();
+		docCss.addStyleSheet(ParserTestUtil.parseCss("Button { color: blue; }"));
+		ViewCSS viewCSS = new ViewCSSImpl(docCss);
+
+		TestElement button = new TestElement("Button", engine);
+		CSSStyleDeclaration style = viewCSS.getComputedStyle(button, null);
+		assertEquals("blue", style.getPropertyCSSValue("color").getCssText());
+
+		docCss.removeAllStyleSheets();
+		docCss.addStyleSheet(ParserTestUtil.parseCss("Label { color: red; }"));
+		assertNull(viewCSS.getComputedStyle(button, null));
+	}
+
 	private static ViewCSS createViewCss(String css) throws IOException {
 		CSSStyleSheet styleSheet = ParserTestUtil.parseCss(css);
 		DocumentCSSImpl docCss = new DocumentCSSImpl();
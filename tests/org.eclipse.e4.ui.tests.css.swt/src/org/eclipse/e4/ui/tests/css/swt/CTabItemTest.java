@@ -11,6 +11,7 @@
 package org.eclipse.e4.ui.tests.css.swt;
 
 import org.eclipse.e4.ui.css.core.engine.CSSEngine;
+import org.eclipse.e4.ui.css.core.impl.engine.AbstractCSSEngine;
 import org.eclipse.e4.ui.css.swt.dom.CTabItemElement;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.CTabFolder;
@@ -237,6 +238,34 @@ public class CTabItemTest extends CSSSWTTestCase {
 		}
 	}
 
+	public void testSelectedFontRestyledWithAppliedValueMemo()
+			throws Exception {
+		CTabFolder folder = createTestTabFolder();
+		engine = createEngine("CTabItem { font-style: italic }\n"
+				+ "CTabItem:selected { font-weight: bold }", folder
+				.getDisplay());
+		((AbstractCSSEngine) engine).setAppliedValueMemoEnabled(true);
+		engine.applyStyles(folder.getShell(), true);
+		spinEventLoop();
+
+		// the values are unchanged, the selected font must still be kept up
+		// to date
+		engine.applyStyles(folder.getShell(), true);
+		spinEventLoop();
+		for (int i = 0; i < folder.getItemCount(); i++) {
+			folder.setSelection(i);
+			spinEventLoop();
+			for (int j = 0; j < folder.getItemCount(); j++) {
+				FontData fd = folder.getItem(j).getFont().getFontData()[0];
+				if (j == i) {
+					assertEquals(SWT.BOLD | SWT.ITALIC, fd.getStyle());
+				} else {
+					assertEquals(SWT.ITALIC, fd.getStyle());
+				}
+			}
+		}
+	}
+
 	private void testShowClose(boolean showClose) throws Exception {
 		CTabFolder folder = createTestTabFolder("CTabItem { show-close: "
 				+ Boolean.toString(showClose) + " }");
@@ -38,6 +38,7 @@ public class CssSwtTestSuite extends TestSuite {
 //		addTestSuite(ETabFolderTest.class);
 //		addTestSuite(ETabItemTest.class);
 		addTestSuite(IdClassLabelColorTest.class);
+		addTestSuite(RestyleSchedulerTest.class);
 		addTestSuite(ShellTest.class);
 		addTestSuite(ButtonTest.class);
 //		addTestSuite(ShellActiveTest.class);  //TODO see bug #273582 
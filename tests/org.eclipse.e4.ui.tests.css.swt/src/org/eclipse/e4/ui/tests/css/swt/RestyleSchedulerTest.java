@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others. All rights reserved. This
+ * program and the accompanying materials are made available under the terms of
+ * the Eclipse Public License v1.0 which accompanies this distribution, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.ui.tests.css.swt;
+
+import org.eclipse.e4.ui.css.swt.dom.WidgetElement;
+import org.eclipse.e4.ui.css.swt.engine.CSSSWTEngineImpl;
+import org.eclipse.e4.ui.css.swt.engine.CSSSWTRestyleScheduler;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.layout.FillLayout;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+
+/*
+ * Tests the restyling of widgets after CSS class and id changes
+ */
+public class RestyleSchedulerTest extends CSSSWTTestCase {
+
+	static final RGB RED = new RGB(255, 0, 0);
+	static final RGB GREEN = new RGB(0, 255, 0);
+	static final RGB BLUE = new RGB(0, 0, 255);
+
+	private CSSSWTEngineImpl engine;
+	private Composite panel;
+	private Label label;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		Display display = Display.getDefault();
+		engine = (CSSSWTEngineImpl) createEngine(
+				"Label { background-color: #FF0000 }\n"
+						+ ".green { background-color: #00FF00 }\n"
+						+ ".blue Label { background-color: #0000FF }\n"
+						+ "#blueId { background-color: #0000FF }", display);
+
+		Shell shell = new Shell(display, SWT.SHELL_TRIM);
+		shell.setLayout(new FillLayout());
+		panel = new Composite(shell, SWT.NONE);
+		panel.setLayout(new FillLayout());
+		label = new Label(panel, SWT.NONE);
+		engine.applyStyles(shell, true);
+	}
+
+	public void testClassChangeIsDeferred() {
+		CSSSWTRestyleScheduler scheduler = engine.getRestyleScheduler();
+		assertEquals(RED, label.getBackground().getRGB());
+
+		WidgetElement.setCSSClass(label, "green");
+		scheduler.classChanged(label, null, "green");
+		assertEquals(RED, label.getBackground().getRGB());
+
+		scheduler.flush();
+		assertEquals(GREEN, label.getBackground().getRGB());
+	}
+
+	public void testAncestorClassChangeRestylesChildren() {
+		CSSSWTRestyleScheduler scheduler = engine.getRestyleScheduler();
+		WidgetElement.setCSSClass(panel, "blue");
+		scheduler.classChanged(panel, null, "blue");
+		scheduler.flush();
+		assertEquals(BLUE, label.getBackground().getRGB());
+	}
+
+	public void testIdChange() {
+		CSSSWTRestyleScheduler scheduler = engine.getRestyleScheduler();
+		WidgetElement.setID(label, "blueId");
+		scheduler.idChanged(label, null, "blueId");
+		scheduler.flush();
+		assertEquals(BLUE, label.getBackground().getRGB());
+	}
+
+	public void testUnreferencedClassChangeIsIgnored() {
+		CSSSWTRestyleScheduler scheduler = engine.getRestyleScheduler();
+		// not referenced by any selector, so the label is not restyled
+		label.setBackground(label.getDisplay().getSystemColor(SWT.COLOR_BLUE));
+		WidgetElement.setCSSClass(label, "unknown");
+		scheduler.classChanged(label, null, "unknown");
+		scheduler.flush();
+		assertEquals(BLUE, label.getBackground().getRGB());
+	}
+}
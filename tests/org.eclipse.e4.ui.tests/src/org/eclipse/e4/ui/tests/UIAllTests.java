@@ -13,6 +13,7 @@ package org.eclipse.e4.ui.tests;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
+import org.eclipse.e4.ui.tests.application.BinaryModelResourceTest;
 import org.eclipse.e4.ui.tests.application.Bug299755Test;
 import org.eclipse.e4.ui.tests.application.Bug308220Test;
 import org.eclipse.e4.ui.tests.application.Bug320857Test;
@@ -70,6 +71,7 @@ public class UIAllTests extends TestSuite {
 		addTestSuite(Bug308317Test.class);
 		addTestSuite(ModelRobustnessTest.class);
 		addTestSuite(ResourceHandlerTest.class);
+		addTestSuite(BinaryModelResourceTest.class);
 		addTestSuite(InjectionEventTest.class);
 		addTestSuite(PartFocusTest.class);
 		addTestSuite(ModelElementTest.class);
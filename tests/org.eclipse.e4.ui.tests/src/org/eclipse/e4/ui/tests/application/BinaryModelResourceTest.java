@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.e4.ui.tests.application;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import junit.framework.TestCase;
+import org.eclipse.e4.ui.internal.workbench.E4XMIResource;
+import org.eclipse.e4.ui.internal.workbench.E4XMIResourceFactory;
+import org.eclipse.e4.ui.model.application.MApplication;
+import org.eclipse.e4.ui.model.application.impl.ApplicationFactoryImpl;
+import org.eclipse.e4.ui.model.application.ui.basic.MPart;
+import org.eclipse.e4.ui.model.application.ui.basic.MPartStack;
+import org.eclipse.e4.ui.model.application.ui.basic.MWindow;
+import org.eclipse.e4.ui.model.application.ui.basic.impl.BasicFactoryImpl;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+public class BinaryModelResourceTest extends TestCase {
+
+	private static final URI MODEL_URI = URI.createURI("workbench.xmi");
+
+	private E4XMIResource createResource(boolean binary) {
+		return (E4XMIResource) new E4XMIResourceFactory(binary)
+				.createResource(MODEL_URI);
+	}
+
+	private E4XMIResource createModel(int parts, boolean binary) {
+		E4XMIResource resource = createResource(binary);
+		MApplication application = ApplicationFactoryImpl.eINSTANCE
+				.createApplication();
+		resource.getContents().add((EObject) application);
+		MWindow window = BasicFactoryImpl.eINSTANCE.createWindow();
+		application.getChildren().add(window);
+		MPartStack stack = null;
+		for (int i = 0; i < parts; i++) {
+			if (i % 20 == 0) {
+				stack = BasicFactoryImpl.eINSTANCE.createPartStack();
+				window.getChildren().add(stack);
+			}
+			MPart part = BasicFactoryImpl.eINSTANCE.createPart();
+			part.setElementId("part" + i);
+			part.setLabel("Part " + i);
+			part.getTags().add("tag" + (i % 7));
+			part.getPersistedState().put("key", "value" + i);
+			stack.getChildren().add(part);
+			if (stack.getSelectedElement() == null) {
+				stack.setSelectedElement(part);
+			}
+		}
+		return resource;
+	}
+
+	private static byte[] save(E4XMIResource resource) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		resource.save(out, null);
+		return out.toByteArray();
+	}
+
+	private E4XMIResource load(byte[] content) throws IOException {
+		E4XMIResource resource = createResource(false);
+		resource.load(new ByteArrayInputStream(content), null);
+		return resource;
+	}
+
+	private static void assertSameModel(E4XMIResource expected,
+			E4XMIResource actual) {
+		assertTrue(EcoreUtil.equals(expected.getContents(),
+				actual.getContents()));
+		Iterator<EObject> expectedContents = expected.getAllContents();
+		Iterator<EObject> actualContents = actual.getAllContents();
+		while (expectedContents.hasNext()) {
+			assertTrue(actualContents.hasNext());
+			EObject expectedObject = expectedContents.next();
+			EObject actualObject = actualContents.next();
+			assertEquals(expected.getID(expectedObject),
+					actual.getID(actualObject));
+		}
+		assertFalse(actualContents.hasNext());
+	}
+
+	public void testBinaryRoundTrip() throws Exception {
+		E4XMIResource model = createModel(100, true);
+		byte[] binary = save(model);
+		assertFalse('<' == binary[0]);
+
+		E4XMIResource restored = load(binary);
+		assertSameModel(model, restored);
+
+		MPartStack stack = (MPartStack) ((MApplication) restored
+				.getContents().get(0)).getChildren().get(0).getChildren()
+				.get(0);
+		assertSame(stack.getChildren().get(0), stack.getSelectedElement());
+	}
+
+	public void testXMIStillLoads() throws Exception {
+		E4XMIResource model = createModel(100, false);
+		byte[] xmi = save(model);
+		assertEquals('<', xmi[0]);
+		assertSameModel(model, load(xmi));
+	}
+
+	public void testBinaryModelIsSmaller() throws Exception {
+		E4XMIResource model = createModel(200, false);
+		byte[] xmi = save(model);
+		model.getDefaultSaveOptions().put(E4XMIResource.OPTION_BINARY,
+				Boolean.TRUE);
+		byte[] binary = save(model);
+		assertTrue(binary.length < xmi.length);
+		assertSameModel(load(xmi), load(binary));
+	}
+}
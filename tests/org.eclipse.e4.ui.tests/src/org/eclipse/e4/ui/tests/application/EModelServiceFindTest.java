@@ -277,4 +277,40 @@ public class EModelServiceFindTest extends TestCase {
 		assertEquals(1, elements.size());
 		assertEquals(part, elements.get(0));
 	}
+
+	public void testFindElementsAfterModelChanges() {
+		MApplication application = createApplication();
+		MWindow window = application.getChildren().get(0);
+		MPartSashContainer psc = (MPartSashContainer) window.getChildren().get(0);
+
+		EModelService modelService = (EModelService) application.getContext()
+				.get(EModelService.class.getName());
+		assertNotNull(modelService);
+
+		List<MPart> parts = modelService.findElements(application,
+				"twoValidIds", MPart.class, null);
+		assertEquals(1, parts.size());
+		MPart part = parts.get(0);
+
+		part.setElementId("renamed");
+		assertEquals(1, modelService.findElements(application, "twoValidIds",
+				null, null).size());
+		assertEquals(part, modelService.find("renamed", application));
+
+		MPartStack stack = BasicFactoryImpl.eINSTANCE.createPartStack();
+		window.getSharedElements().add(stack);
+		stack.getChildren().add(part);
+		assertNull(modelService.find("renamed", application));
+
+		MPlaceholder placeholder = AdvancedFactoryImpl.eINSTANCE
+				.createPlaceholder();
+		psc.getChildren().add(placeholder);
+		placeholder.setRef(stack);
+		assertEquals(part, modelService.find("renamed", application));
+		assertEquals(2, modelService.findElements(window, null,
+				MPartStack.class, null).size());
+
+		psc.getChildren().remove(placeholder);
+		assertNull(modelService.find("renamed", application));
+	}
 }
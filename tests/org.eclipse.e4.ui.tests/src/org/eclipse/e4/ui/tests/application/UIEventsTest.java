@@ -26,6 +26,7 @@ import org.eclipse.e4.ui.model.application.ui.menu.MMenu;
 import org.eclipse.e4.ui.model.application.ui.menu.MMenuFactory;
 import org.eclipse.e4.ui.tests.model.test.MTestFactory;
 import org.eclipse.e4.ui.tests.model.test.MTestHarness;
+import org.eclipse.e4.ui.workbench.UIEvents;
 import org.eclipse.e4.ui.workbench.UIEvents.ApplicationElement;
 import org.eclipse.e4.ui.workbench.UIEvents.Command;
 import org.eclipse.e4.ui.workbench.UIEvents.Context;
@@ -328,6 +329,58 @@ public class UIEventsTest extends HeadlessApplicationElementTest {
 		checkForFailures(allTesters, windowTester);
 	}
 
+	public void testBatchedEvents() {
+		IEventBroker eventBroker = (IEventBroker) applicationContext
+				.get(IEventBroker.class.getName());
+		final List<Event> events = new ArrayList<Event>();
+		EventHandler handler = new EventHandler() {
+			public void handleEvent(Event event) {
+				events.add(event);
+			}
+		};
+		eventBroker.subscribe(UILabel.TOPIC_LABEL, handler);
+		eventBroker.subscribe(ElementContainer.TOPIC_CHILDREN, handler);
+
+		MTestHarness allData = MTestFactory.eINSTANCE.createTestHarness();
+		final UIEventPublisher ep = new UIEventPublisher(applicationContext);
+		((Notifier) allData).eAdapters().add(ep);
+
+		try {
+			ep.beginBatch();
+			allData.setLabel("first");
+			allData.setLabel("second");
+			ep.beginBatch();
+			allData.getChildren().add(MMenuFactory.INSTANCE.createMenu());
+			allData.getChildren().add(MMenuFactory.INSTANCE.createMenu());
+			ep.endBatch();
+			assertEquals(0, events.size());
+			ep.endBatch();
+
+			assertEquals(2, events.size());
+			Event label = events.get(0);
+			assertEquals(UIEvents.EventTypes.SET,
+					label.getProperty(EventTags.TYPE));
+			assertEquals("second", label.getProperty(EventTags.NEW_VALUE));
+
+			Event children = events.get(1);
+			assertEquals(UIEvents.EventTypes.ADD_MANY,
+					children.getProperty(EventTags.TYPE));
+			assertTrue(children.getTopic().endsWith(
+					UIEvents.EventTypes.ADD_MANY));
+			assertEquals(allData.getChildren(),
+					children.getProperty(EventTags.NEW_VALUE));
+			assertEquals(Integer.valueOf(0),
+					children.getProperty(EventTags.POSITION));
+
+			// outside of a batch every change is published right away
+			events.clear();
+			allData.setLabel("third");
+			assertEquals(1, events.size());
+		} finally {
+			eventBroker.unsubscribe(handler);
+		}
+	}
+
 	// Verify bug 374534
 	public void testBrokerCleanup() {
 		final String testTopic = "test/374534";
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2010 IBM Corporation and others.
+ * Copyright (c) 2009, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,21 +11,41 @@
 
 package org.eclipse.e4.ui.tests.workbench;
 
+import javax.inject.Named;
 import junit.framework.TestCase;
+import org.eclipse.core.commands.AbstractHandler;
+import org.eclipse.core.commands.Command;
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.IHandler;
+import org.eclipse.e4.core.commands.CommandServiceAddon;
+import org.eclipse.e4.core.contexts.ContextInjectionFactory;
 import org.eclipse.e4.core.contexts.IEclipseContext;
+import org.eclipse.e4.core.internal.contexts.EclipseContext;
+import org.eclipse.e4.core.di.annotations.CanExecute;
+import org.eclipse.e4.core.di.annotations.Execute;
+import org.eclipse.e4.core.di.annotations.Optional;
+import org.eclipse.e4.ui.bindings.BindingServiceAddon;
 import org.eclipse.e4.ui.internal.workbench.E4Workbench;
+import org.eclipse.e4.ui.internal.workbench.addons.CommandProcessingAddon;
+import org.eclipse.e4.ui.internal.workbench.addons.HandlerProcessingAddon;
 import org.eclipse.e4.ui.internal.workbench.swt.E4Application;
 import org.eclipse.e4.ui.internal.workbench.swt.PartRenderingEngine;
 import org.eclipse.e4.ui.model.application.MApplication;
+import org.eclipse.e4.ui.model.application.commands.MCommand;
+import org.eclipse.e4.ui.model.application.commands.MHandler;
+import org.eclipse.e4.ui.model.application.commands.impl.CommandsFactoryImpl;
 import org.eclipse.e4.ui.model.application.impl.ApplicationFactoryImpl;
 import org.eclipse.e4.ui.model.application.ui.basic.MTrimBar;
 import org.eclipse.e4.ui.model.application.ui.basic.MTrimmedWindow;
 import org.eclipse.e4.ui.model.application.ui.basic.impl.BasicFactoryImpl;
 import org.eclipse.e4.ui.model.application.ui.menu.ItemType;
+import org.eclipse.e4.ui.model.application.ui.menu.MHandledToolItem;
 import org.eclipse.e4.ui.model.application.ui.menu.MToolBar;
 import org.eclipse.e4.ui.model.application.ui.menu.MToolItem;
 import org.eclipse.e4.ui.model.application.ui.menu.impl.MenuFactoryImpl;
+import org.eclipse.e4.ui.services.ContextServiceAddon;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.ToolItem;
 
@@ -259,4 +279,169 @@ public class MToolItemTest extends TestCase {
 		toolItem2.setSelected(true);
 		assertTrue(toolItemWidget2.getSelection());
 	}
+
+	private static void spinEventLoop(Display display) {
+		while (display.readAndDispatch()) {
+			// process the scheduled enablement updates
+		}
+	}
+
+	/**
+	 * Renders a window with a handled tool item whose command is handled by
+	 * the given handler object.
+	 */
+	private MHandledToolItem createHandledToolItem(MTrimmedWindow window,
+			String commandId, Object handlerObject) {
+		ContextInjectionFactory.make(CommandServiceAddon.class, appContext);
+		ContextInjectionFactory.make(ContextServiceAddon.class, appContext);
+		ContextInjectionFactory.make(BindingServiceAddon.class, appContext);
+
+		MTrimBar trimBar = BasicFactoryImpl.eINSTANCE.createTrimBar();
+		MToolBar toolBar = MenuFactoryImpl.eINSTANCE.createToolBar();
+
+		MCommand command = CommandsFactoryImpl.eINSTANCE.createCommand();
+		command.setElementId(commandId);
+		command.setCommandName("Test Enablement");
+
+		MHandledToolItem toolItem = MenuFactoryImpl.eINSTANCE
+				.createHandledToolItem();
+		toolItem.setLabel("item");
+		toolItem.setCommand(command);
+
+		MHandler handler = CommandsFactoryImpl.eINSTANCE.createHandler();
+		handler.setCommand(command);
+		handler.setObject(handlerObject);
+
+		window.getHandlers().add(handler);
+		window.getTrimBars().add(trimBar);
+		trimBar.getChildren().add(toolBar);
+		toolBar.getChildren().add(toolItem);
+
+		MApplication application = ApplicationFactoryImpl.eINSTANCE
+				.createApplication();
+		application.getCommands().add(command);
+		application.getChildren().add(window);
+		application.setContext(appContext);
+		appContext.set(MApplication.class.getName(), application);
+		ContextInjectionFactory.make(CommandProcessingAddon.class, appContext);
+		ContextInjectionFactory.make(HandlerProcessingAddon.class, appContext);
+
+		wb = new E4Workbench(window, appContext);
+		wb.createAndRunUI(window);
+		return toolItem;
+	}
+
+	public void testHandledToolItem_EnablementFollowsContext() {
+		MTrimmedWindow window = BasicFactoryImpl.eINSTANCE
+				.createTrimmedWindow();
+		final int[] evaluations = { 0 };
+		MHandledToolItem toolItem = createHandledToolItem(window,
+				"testHandledToolItem_EnablementFollowsContext", new Object() {
+					@CanExecute
+					public boolean canExecute(
+							@Optional @Named("test.enabled") Boolean enabled) {
+						evaluations[0]++;
+						return Boolean.TRUE.equals(enabled);
+					}
+
+					@Execute
+					public void execute() {
+						// nothing to do
+					}
+				});
+
+		Object widget = toolItem.getWidget();
+		assertTrue(widget instanceof ToolItem);
+		ToolItem toolItemWidget = (ToolItem) widget;
+		Display display = toolItemWidget.getDisplay();
+		spinEventLoop(display);
+		assertFalse(toolItem.isEnabled());
+		assertFalse(toolItemWidget.isEnabled());
+
+		// a change of a value that the handler read updates the item without
+		// polling
+		window.getContext().set("test.enabled", Boolean.TRUE);
+		spinEventLoop(display);
+		assertTrue(toolItem.isEnabled());
+		assertTrue(toolItemWidget.isEnabled());
+
+		window.getContext().set("test.enabled", Boolean.FALSE);
+		spinEventLoop(display);
+		assertFalse(toolItem.isEnabled());
+		assertFalse(toolItemWidget.isEnabled());
+
+		// other values don't evaluate the item again
+		int count = evaluations[0];
+		window.getContext().set("test.unrelated", Boolean.TRUE);
+		spinEventLoop(display);
+		assertEquals(count, evaluations[0]);
+
+		// neither does anything once the item is disposed
+		toolItem.setToBeRendered(false);
+		spinEventLoop(display);
+		assertTrue(toolItemWidget.isDisposed());
+		count = evaluations[0];
+		window.getContext().set("test.enabled", Boolean.TRUE);
+		spinEventLoop(display);
+		assertEquals(count, evaluations[0]);
+	}
+
+	private static int countListeners(IEclipseContext context) {
+		return ((EclipseContext) context).getListeners().size();
+	}
+
+	public void testHandledToolItem_CommandEventsKeepOneTracker() {
+		MTrimmedWindow window = BasicFactoryImpl.eINSTANCE
+				.createTrimmedWindow();
+		final int[] evaluations = { 0 };
+		MHandledToolItem toolItem = createHandledToolItem(window,
+				"testHandledToolItem_CommandEventsKeepOneTracker",
+				new Object() {
+					@CanExecute
+					public boolean canExecute(
+							@Optional @Named("test.enabled") Boolean enabled) {
+						evaluations[0]++;
+						return Boolean.TRUE.equals(enabled);
+					}
+
+					@Execute
+					public void execute() {
+						// nothing to do
+					}
+				});
+
+		Display display = ((ToolItem) toolItem.getWidget()).getDisplay();
+		spinEventLoop(display);
+
+		Command command = toolItem.getWbCommand().getCommand();
+		IHandler originalHandler = command.getHandler();
+		IHandler otherHandler = new AbstractHandler() {
+			public Object execute(ExecutionEvent event) {
+				return null;
+			}
+		};
+		int windowListeners = countListeners(window.getContext());
+		int appListeners = countListeners(appContext);
+		int count = evaluations[0];
+
+		// every change of the handler fires a command event that evaluates
+		// the item again, the context keeps the one tracker of the item
+		final int events = 50;
+		try {
+			for (int i = 0; i < events; i++) {
+				command.setHandler(i % 2 == 0 ? otherHandler : originalHandler);
+				spinEventLoop(display);
+			}
+		} finally {
+			command.setHandler(originalHandler);
+		}
+		assertTrue(evaluations[0] - count >= events);
+		assertTrue(countListeners(window.getContext()) - windowListeners < 5);
+		assertTrue(countListeners(appContext) - appListeners < 5);
+
+		// the tracker still follows the context
+		window.getContext().set("test.enabled", Boolean.TRUE);
+		spinEventLoop(display);
+		assertTrue(toolItem.isEnabled());
+	}
 }
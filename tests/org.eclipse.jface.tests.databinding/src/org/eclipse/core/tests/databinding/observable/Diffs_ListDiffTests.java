@@ -14,7 +14,9 @@ package org.eclipse.core.tests.databinding.observable;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import junit.framework.TestCase;
 
@@ -256,6 +258,43 @@ public class Diffs_ListDiffTests extends TestCase {
 				Arrays.asList(new Object[] { "c", "a", "b" }));
 	}
 
+	public void testComputeListDiff_MoveToEndBeforeRemove() {
+		checkComputedListDiff(Arrays.asList(new Object[] { "a", "b", "c", "d",
+				"a" }), Arrays.asList(new Object[] { "a", "e", null, null, "f",
+				"e", "c", "d", "b" }));
+	}
+
+	public void testComputeListDiff_Duplicates() {
+		checkComputedListDiff(Arrays.asList(new Object[] { "a", "b", "a", "c",
+				"a", "b" }), Arrays.asList(new Object[] { "b", "a", "a", "d",
+				"b", "a", "c" }));
+	}
+
+	public void testComputeListDiff_LargeShuffle() {
+		List oldList = new ArrayList();
+		for (int i = 0; i < 1000; i++)
+			oldList.add(new Integer(i % 700));
+		List newList = new ArrayList(oldList);
+		Collections.shuffle(newList, new Random(1));
+		newList.subList(100, 200).clear();
+		newList.addAll(300, Arrays.asList(new Object[] { "a", null, "b" }));
+
+		checkComputedListDiff(oldList, newList);
+	}
+
+	public void testComputeListDiff_ReverseBehind() {
+		List oldList = new ArrayList();
+		for (int i = 0; i < 200; i++)
+			oldList.add("x" + i);
+		for (int i = 0; i < 100; i++)
+			oldList.add("k" + i);
+		List newList = new ArrayList(oldList.subList(200, 300));
+		for (int i = 199; i >= 0; i--)
+			newList.add("x" + i);
+
+		checkComputedListDiff(oldList, newList);
+	}
+
 	private static void checkComputedListDiff(List oldList, List newList) {
 		ListDiff diff = Diffs.computeListDiff(oldList, newList);
 
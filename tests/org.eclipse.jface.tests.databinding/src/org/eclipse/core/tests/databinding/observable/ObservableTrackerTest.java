@@ -41,6 +41,40 @@ public class ObservableTrackerTest extends AbstractDefaultRealmTestCase {
 		assertSame(observable, result[0]);
 	}
 
+	public void testRunAndMonitor_Nested() throws Exception {
+		final IObservable outer1 = new ObservableStub();
+		final IObservable outer2 = new ObservableStub();
+		final IObservable inner = new ObservableStub();
+		final IObservable[][] innerResult = new IObservable[1][];
+		IObservable[] result = ObservableTracker.runAndMonitor(new Runnable() {
+			public void run() {
+				ObservableTracker.getterCalled(outer1);
+				innerResult[0] = ObservableTracker.runAndMonitor(
+						new Runnable() {
+							public void run() {
+								ObservableTracker.getterCalled(inner);
+								ObservableTracker.getterCalled(inner);
+							}
+						}, null, null);
+				ObservableTracker.getterCalled(outer2);
+				ObservableTracker.getterCalled(outer1);
+			}
+		}, null, null);
+		assertEquals(Arrays.asList(new Object[] { outer1, outer2 }), Arrays
+				.asList(result));
+		assertEquals(Arrays.asList(new Object[] { inner }), Arrays
+				.asList(innerResult[0]));
+
+		// the pooled sets start out empty again
+		result = ObservableTracker.runAndMonitor(new Runnable() {
+			public void run() {
+				ObservableTracker.getterCalled(inner);
+			}
+		}, null, null);
+		assertEquals(Arrays.asList(new Object[] { inner }), Arrays
+				.asList(result));
+	}
+
 	public void testGetterCalled_ObservableDisposed() throws Exception {
 		try {
 			IObservable observable = new ObservableStub();
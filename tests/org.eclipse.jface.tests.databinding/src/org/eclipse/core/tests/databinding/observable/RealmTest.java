@@ -11,11 +11,22 @@
 
 package org.eclipse.core.tests.databinding.observable;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import junit.framework.TestCase;
 
 import org.eclipse.core.databinding.observable.Realm;
+import org.eclipse.core.databinding.observable.list.WritableList;
+import org.eclipse.core.databinding.observable.set.WritableSet;
+import org.eclipse.jface.databinding.conformance.util.ChangeEventTracker;
 import org.eclipse.jface.databinding.conformance.util.CurrentRealm;
+import org.eclipse.jface.databinding.conformance.util.ListChangeEventTracker;
 import org.eclipse.jface.databinding.conformance.util.RealmTester;
+import org.eclipse.jface.databinding.conformance.util.SetChangeEventTracker;
+import org.eclipse.jface.databinding.conformance.util.StaleEventTracker;
 
 /**
  * @since 3.2
@@ -34,4 +45,99 @@ public class RealmTest extends TestCase {
 		
 		assertEquals("old realm should have been restored", oldRealm, Realm.getDefault());
 	}
+
+	public void testRunBatchedMergesListChanges() throws Exception {
+		Realm realm = new CurrentRealm(true);
+		final WritableList list = new WritableList(realm);
+		list.add("a");
+		final List oldList = new ArrayList(list);
+		ChangeEventTracker changes = ChangeEventTracker.observe(list);
+		final ListChangeEventTracker listChanges = ListChangeEventTracker
+				.observe(list);
+
+		realm.runBatched(new Runnable() {
+			public void run() {
+				list.add("b");
+				list.remove("a");
+				list.add(0, "c");
+				assertEquals(0, listChanges.count);
+			}
+		});
+
+		assertEquals(1, changes.count);
+		assertEquals(1, listChanges.count);
+		assertEquals(list, listChanges.event.getObservableList());
+		assertEquals(3, listChanges.event.diff.getDifferences().length);
+		listChanges.event.diff.applyTo(oldList);
+		assertEquals(Arrays.asList(new Object[] { "c", "b" }), oldList);
+	}
+
+	public void testRunBatchedMergesSetChanges() throws Exception {
+		Realm realm = new CurrentRealm(true);
+		final WritableSet set = new WritableSet(realm);
+		set.add("a");
+		final SetChangeEventTracker setChanges = SetChangeEventTracker
+				.observe(set);
+
+		realm.runBatched(new Runnable() {
+			public void run() {
+				set.add("b");
+				set.remove("a");
+				set.add("c");
+				set.remove("c");
+			}
+		});
+
+		assertEquals(1, setChanges.count);
+		assertEquals(Collections.singleton("b"), setChanges.event.diff
+				.getAdditions());
+		assertEquals(Collections.singleton("a"), setChanges.event.diff
+				.getRemovals());
+	}
+
+	public void testRunBatchedNested() throws Exception {
+		final Realm realm = new CurrentRealm(true);
+		final WritableList list = new WritableList(realm);
+		final ListChangeEventTracker listChanges = ListChangeEventTracker
+				.observe(list);
+
+		realm.runBatched(new Runnable() {
+			public void run() {
+				list.add("a");
+				realm.runBatched(new Runnable() {
+					public void run() {
+						list.add("b");
+					}
+				});
+				assertEquals(0, listChanges.count);
+			}
+		});
+
+		assertEquals(1, listChanges.count);
+		assertEquals(2, listChanges.event.diff.getDifferences().length);
+	}
+
+	public void testRunBatchedFiresPendingChangesBeforeStale()
+			throws Exception {
+		Realm realm = new CurrentRealm(true);
+		final WritableList list = new WritableList(realm);
+		List queue = new ArrayList();
+		final ListChangeEventTracker listChanges = new ListChangeEventTracker(
+				queue);
+		list.addListChangeListener(listChanges);
+		StaleEventTracker staleEvents = new StaleEventTracker(queue);
+		list.addStaleListener(staleEvents);
+
+		realm.runBatched(new Runnable() {
+			public void run() {
+				list.add("a");
+				list.setStale(true);
+				assertEquals(1, listChanges.count);
+				list.add("b");
+			}
+		});
+
+		assertEquals(Arrays.asList(new Object[] { listChanges, staleEvents,
+				listChanges }), queue);
+	}
 }
@@ -17,8 +17,11 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import org.eclipse.core.databinding.observable.IChangeListener;
+import org.eclipse.core.databinding.observable.IStaleListener;
 import org.eclipse.core.databinding.observable.value.ComputedValue;
 import org.eclipse.core.databinding.observable.value.WritableValue;
+import org.eclipse.jface.databinding.conformance.util.ValueChangeEventTracker;
 import org.eclipse.jface.tests.databinding.AbstractDefaultRealmTestCase;
 
 /**
@@ -131,4 +134,152 @@ public class ComputedValueTest extends AbstractDefaultRealmTestCase {
         } catch (UnsupportedOperationException e) {
         }
     }
+
+    public void testDirtyValueStopsListeningToDependencies() throws Exception {
+        class TrackedValue extends WritableValue {
+            TrackedValue() {
+                super(new Integer(1), Integer.TYPE);
+            }
+
+            boolean isListened() {
+                return hasListeners();
+            }
+        }
+        final TrackedValue value = new TrackedValue();
+
+        ComputedValue cv = new ComputedValue() {
+            protected Object calculate() {
+                return value.getValue();
+            }
+        };
+
+        assertEquals(new Integer(1), cv.getValue());
+        assertTrue(value.isListened());
+        value.setValue(new Integer(2));
+        assertFalse("a dirty computed value should not listen to its dependencies", value.isListened());
+        assertEquals(new Integer(2), cv.getValue());
+        assertTrue(value.isListened());
+    }
+
+    public void testChainedValueOnlyDependsOnPreviousValue() throws Exception {
+        final int[] listenersAdded = new int[1];
+        final WritableValue value = new WritableValue(new Integer(1), Integer.TYPE) {
+            public synchronized void addChangeListener(IChangeListener listener) {
+                listenersAdded[0]++;
+                super.addChangeListener(listener);
+            }
+        };
+
+        final ComputedValue first = new ComputedValue() {
+            protected Object calculate() {
+                return new Integer(((Integer) value.getValue()).intValue() + 1);
+            }
+        };
+        ComputedValue second = new ComputedValue() {
+            protected Object calculate() {
+                return new Integer(((Integer) first.getValue()).intValue() + 1);
+            }
+        };
+
+        assertEquals(new Integer(3), second.getValue());
+        assertEquals("only the first computed value should listen to the writable value", 1, listenersAdded[0]);
+    }
+
+    static class CountingValue extends WritableValue {
+        int changeListenersAdded;
+        int changeListenersRemoved;
+        int staleListenersAdded;
+        int staleListenersRemoved;
+
+        CountingValue(int value) {
+            super(new Integer(value), Integer.TYPE);
+        }
+
+        public synchronized void addChangeListener(IChangeListener listener) {
+            changeListenersAdded++;
+            super.addChangeListener(listener);
+        }
+
+        public synchronized void removeChangeListener(IChangeListener listener) {
+            changeListenersRemoved++;
+            super.removeChangeListener(listener);
+        }
+
+        public synchronized void addStaleListener(IStaleListener listener) {
+            staleListenersAdded++;
+            super.addStaleListener(listener);
+        }
+
+        public synchronized void removeStaleListener(IStaleListener listener) {
+            staleListenersRemoved++;
+            super.removeStaleListener(listener);
+        }
+
+        boolean isListened() {
+            return hasListeners();
+        }
+    }
+
+    public void testUnchangedDependenciesKeepListeners() throws Exception {
+        final CountingValue value = new CountingValue(1);
+        ComputedValue cv = new ComputedValue() {
+            protected Object calculate() {
+                return value.getValue();
+            }
+        };
+        ValueChangeEventTracker tracker = ValueChangeEventTracker.observe(cv);
+
+        assertEquals(new Integer(1), cv.getValue());
+        value.setValue(new Integer(2));
+        assertEquals(new Integer(2), cv.getValue());
+        value.setValue(new Integer(3));
+        assertEquals(new Integer(3), cv.getValue());
+
+        assertEquals(2, tracker.count);
+        assertEquals(1, value.changeListenersAdded);
+        assertEquals(1, value.staleListenersAdded);
+        assertEquals(0, value.changeListenersRemoved);
+        assertEquals(0, value.staleListenersRemoved);
+    }
+
+    public void testDroppedDependenciesAreNoLongerListened() throws Exception {
+        final WritableValue useFirst = new WritableValue(Boolean.TRUE, Boolean.TYPE);
+        final CountingValue first = new CountingValue(1);
+        final CountingValue second = new CountingValue(2);
+        ComputedValue cv = new ComputedValue() {
+            protected Object calculate() {
+                return ((Boolean) useFirst.getValue()).booleanValue() ? first.getValue() : second.getValue();
+            }
+        };
+        ValueChangeEventTracker.observe(cv);
+
+        assertEquals(new Integer(1), cv.getValue());
+        assertTrue(first.isListened());
+        assertFalse(second.isListened());
+
+        useFirst.setValue(Boolean.FALSE);
+        assertEquals(new Integer(2), cv.getValue());
+        assertFalse(first.isListened());
+        assertTrue(second.isListened());
+        assertEquals(1, first.changeListenersRemoved);
+        assertEquals(1, second.changeListenersAdded);
+    }
+
+    public void testRemovingLastListenerStopsListeningToDependencies() throws Exception {
+        final CountingValue value = new CountingValue(1);
+        ComputedValue cv = new ComputedValue() {
+            protected Object calculate() {
+                return value.getValue();
+            }
+        };
+        ValueChangeEventTracker tracker = ValueChangeEventTracker.observe(cv);
+
+        assertEquals(new Integer(1), cv.getValue());
+        value.setValue(new Integer(2));
+        assertTrue("a computed value with listeners should keep listening to its dependencies", value.isListened());
+
+        cv.removeValueChangeListener(tracker);
+        assertFalse(value.isListened());
+        assertEquals(new Integer(2), cv.getValue());
+    }
 }
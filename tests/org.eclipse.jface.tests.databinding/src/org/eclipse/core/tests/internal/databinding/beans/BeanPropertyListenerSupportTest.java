@@ -58,6 +58,24 @@ public class BeanPropertyListenerSupportTest extends
 				.hasListeners(propertyName));
 	}
 
+	public void testListenerMethodsAreResolvedPerBeanClass() throws Exception {
+		SpecificListenerBean specificBean = new SpecificListenerBean();
+		GenericListenerBean genericBean = new GenericListenerBean();
+
+		BeanPropertyListenerSupport.hookListener(specificBean, propertyName,
+				listener);
+		BeanPropertyListenerSupport.hookListener(genericBean, propertyName,
+				listener);
+		assertTrue(specificBean.changeSupport.hasListeners(propertyName));
+		assertTrue(genericBean.changeSupport.hasListeners(propertyName));
+
+		SpecificListenerBean otherBean = new SpecificListenerBean();
+		BeanPropertyListenerSupport.hookListener(otherBean, "other", listener);
+		assertEquals("other", otherBean.propertyName);
+		assertTrue(otherBean.changeSupport.hasListeners("other"));
+		assertFalse(otherBean.changeSupport.hasListeners(propertyName));
+	}
+
 	public void testLogStatusWhenAddPropertyChangeListenerMethodIsNotFound()
 			throws Exception {
 		class BeanStub {
@@ -171,6 +171,7 @@ import org.eclipse.jface.tests.databinding.swt.SWTObservablesTest;
 import org.eclipse.jface.tests.databinding.swt.WidgetObservableThreadTest;
 import org.eclipse.jface.tests.databinding.swt.WidgetPropertiesTest;
 import org.eclipse.jface.tests.databinding.viewers.ObservableListContentProviderTest;
+import org.eclipse.jface.tests.databinding.viewers.ObservableListLazyContentProviderTest;
 import org.eclipse.jface.tests.databinding.viewers.ObservableListTreeContentProviderTest;
 import org.eclipse.jface.tests.databinding.viewers.ObservableMapLabelProviderTest;
 import org.eclipse.jface.tests.databinding.viewers.ObservableSetContentProviderTest;
@@ -431,6 +432,7 @@ public class BindingTestSuite extends TestSuite {
 
 		// org.eclipse.jface.tests.databinding.viewers
 		addTestSuite(ObservableListContentProviderTest.class);
+		addTestSuite(ObservableListLazyContentProviderTest.class);
 		addTestSuite(ObservableListTreeContentProviderTest.class);
 		addTestSuite(ObservableMapLabelProviderTest.class);
 		addTestSuite(ObservableSetContentProviderTest.class);
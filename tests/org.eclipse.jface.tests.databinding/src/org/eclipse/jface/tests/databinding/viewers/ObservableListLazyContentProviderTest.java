@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.jface.tests.databinding.viewers;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.eclipse.core.databinding.observable.Observables;
+import org.eclipse.core.databinding.observable.list.WritableList;
+import org.eclipse.core.databinding.observable.set.IObservableSet;
+import org.eclipse.jface.databinding.swt.SWTObservables;
+import org.eclipse.jface.databinding.viewers.ObservableListLazyContentProvider;
+import org.eclipse.jface.tests.databinding.AbstractDefaultRealmTestCase;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+
+public class ObservableListLazyContentProviderTest extends
+		AbstractDefaultRealmTestCase {
+	private Shell shell;
+	private TableViewer viewer;
+	private ObservableListLazyContentProvider contentProvider;
+	private WritableList input;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		shell = new Shell();
+		viewer = new TableViewer(shell, SWT.VIRTUAL);
+
+		contentProvider = new ObservableListLazyContentProvider();
+		viewer.setContentProvider(contentProvider);
+
+		input = new WritableList();
+		input.addAll(Arrays.asList(new String[] { "one", "two", "three",
+				"four" }));
+		viewer.setInput(input);
+	}
+
+	protected void tearDown() throws Exception {
+		shell.dispose();
+		viewer = null;
+		input = null;
+		super.tearDown();
+	}
+
+	public void testKnownElements_Realm() throws Exception {
+		assertSame("realm for the known elements should be the SWT realm",
+				SWTObservables.getRealm(Display.getDefault()), contentProvider
+						.getKnownElements().getRealm());
+	}
+
+	public void testSetInput_SetsItemCountOnly() {
+		assertEquals(4, viewer.getTable().getItemCount());
+		assertEquals(Collections.EMPTY_SET, contentProvider.getKnownElements());
+	}
+
+	public void testUpdateElement_AddsKnownElement() {
+		contentProvider.updateElement(1);
+
+		assertEquals(Collections.singleton("two"), contentProvider
+				.getKnownElements());
+		assertEquals("two", viewer.getElementAt(1));
+	}
+
+	public void testAdd_UpdatesItemCountAndForgetsShiftedRows() {
+		contentProvider.updateElement(0);
+		contentProvider.updateElement(2);
+
+		input.add(1, "one and a half");
+
+		assertEquals(5, viewer.getTable().getItemCount());
+		assertEquals(Collections.singleton("one"), contentProvider
+				.getKnownElements());
+
+		contentProvider.updateElement(3);
+		assertEquals(new HashSet(Arrays.asList(new String[] { "one", "three" })),
+				contentProvider.getKnownElements());
+	}
+
+	public void testRemove_UpdatesItemCount() {
+		contentProvider.updateElement(3);
+
+		input.remove("four");
+
+		assertEquals(3, viewer.getTable().getItemCount());
+		assertEquals(Collections.EMPTY_SET, contentProvider.getKnownElements());
+	}
+
+	public void testReplace_KeepsOtherRows() {
+		contentProvider.updateElement(0);
+		contentProvider.updateElement(1);
+		contentProvider.updateElement(3);
+
+		input.set(1, "deux");
+
+		assertEquals(new HashSet(Arrays.asList(new String[] { "one", "four" })),
+				contentProvider.getKnownElements());
+	}
+
+	public void testDuplicateElements_KnownWhileAnyRowShowsThem() {
+		input.set(3, "one");
+		contentProvider.updateElement(0);
+		contentProvider.updateElement(3);
+
+		input.set(0, "zero");
+
+		assertEquals(Collections.singleton("one"), contentProvider
+				.getKnownElements());
+	}
+
+	public void testBatchedChangesWithSameSize_ForgetsAllShiftedRows() {
+		input.clear();
+		input.addAll(Arrays.asList(new String[] { "a", "b", "c", "d", "e",
+				"f", "g", "h", "i", "j" }));
+		for (int i = 0; i < 10; i++)
+			contentProvider.updateElement(i);
+
+		// abcdefghij -> abcfghijyx, the rows from 3 to the end change
+		input.getRealm().runBatched(new Runnable() {
+			public void run() {
+				input.remove(3);
+				input.remove(3);
+				input.add(8, "x");
+				input.add(8, "y");
+			}
+		});
+
+		assertEquals(10, viewer.getTable().getItemCount());
+		assertEquals(new HashSet(Arrays.asList(new String[] { "a", "b", "c" })),
+				contentProvider.getKnownElements());
+
+		contentProvider.updateElement(9);
+		assertEquals("x", viewer.getElementAt(9));
+		assertEquals(new HashSet(Arrays.asList(new String[] { "a", "b", "c",
+				"x" })), contentProvider.getKnownElements());
+	}
+
+	public void testFindElement() {
+		assertEquals(2, contentProvider.findElement("three"));
+		assertEquals(-1, contentProvider.findElement("five"));
+	}
+
+	public void testInputChanged_ClearsKnownElements() {
+		contentProvider.updateElement(0);
+
+		IObservableSet knownElements = contentProvider.getKnownElements();
+		assertEquals(Collections.singleton("one"), knownElements);
+		viewer.setInput(Observables.emptyObservableList());
+		assertEquals(Collections.EMPTY_SET, knownElements);
+		assertEquals(0, viewer.getTable().getItemCount());
+	}
+}
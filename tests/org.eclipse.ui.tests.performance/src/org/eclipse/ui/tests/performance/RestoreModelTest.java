@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.ui.tests.performance;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.eclipse.e4.ui.internal.workbench.E4XMIResource;
+import org.eclipse.e4.ui.internal.workbench.E4XMIResourceFactory;
+import org.eclipse.e4.ui.model.application.MApplication;
+import org.eclipse.e4.ui.model.application.impl.ApplicationFactoryImpl;
+import org.eclipse.e4.ui.model.application.ui.basic.MPart;
+import org.eclipse.e4.ui.model.application.ui.basic.MPartStack;
+import org.eclipse.e4.ui.model.application.ui.basic.MWindow;
+import org.eclipse.e4.ui.model.application.ui.basic.impl.BasicFactoryImpl;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * Measures restoring a large workbench model saved as XMI or in the binary
+ * format.
+ */
+public class RestoreModelTest extends BasicPerformanceTest {
+
+	private static final URI MODEL_URI = URI.createURI("workbench.xmi");
+
+	private int parts;
+
+	private boolean binary;
+
+	public RestoreModelTest(int parts, boolean binary) {
+		super("Restore " + parts + " parts from "
+				+ (binary ? "binary" : "XMI"));
+		this.parts = parts;
+		this.binary = binary;
+	}
+
+	protected void runTest() throws Throwable {
+		E4XMIResource model = createModel();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		model.save(out, null);
+		final byte[] content = out.toByteArray();
+
+		exercise(new TestRunnable() {
+			public void run() throws Exception {
+				E4XMIResource resource = (E4XMIResource) new E4XMIResourceFactory(
+						false).createResource(MODEL_URI);
+				startMeasuring();
+				resource.load(new ByteArrayInputStream(content), null);
+				stopMeasuring();
+			}
+		});
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	private E4XMIResource createModel() {
+		E4XMIResource resource = (E4XMIResource) new E4XMIResourceFactory(
+				binary).createResource(MODEL_URI);
+		MApplication application = ApplicationFactoryImpl.eINSTANCE
+				.createApplication();
+		resource.getContents().add((EObject) application);
+		MWindow window = BasicFactoryImpl.eINSTANCE.createWindow();
+		application.getChildren().add(window);
+		MPartStack stack = null;
+		for (int i = 0; i < parts; i++) {
+			if (i % 20 == 0) {
+				stack = BasicFactoryImpl.eINSTANCE.createPartStack();
+				window.getChildren().add(stack);
+			}
+			MPart part = BasicFactoryImpl.eINSTANCE.createPart();
+			part.setElementId("part" + i);
+			part.setLabel("Part " + i);
+			part.getTags().add("tag" + (i % 7));
+			part.getPersistedState().put("key", "value" + i);
+			stack.getChildren().add(part);
+			if (stack.getSelectedElement() == null) {
+				stack.setSelectedElement(part);
+			}
+		}
+		return resource;
+	}
+}
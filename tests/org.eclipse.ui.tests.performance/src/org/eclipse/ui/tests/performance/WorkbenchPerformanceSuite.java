@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2009 IBM Corporation and others.
+ * Copyright (c) 2004, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -84,6 +84,15 @@ class WorkbenchPerformanceSuite extends TestSuite {
         addPerspectiveOpenCloseScenarios();
         addWindowOpenCloseScenarios();
         addContributionScenarios();
+        addModelScenarios();
+    }
+
+    /**
+     * Restore a large workbench model from XMI and from the binary format.
+     */
+    private void addModelScenarios() {
+        addTest(new RestoreModelTest(5000, false));
+        addTest(new RestoreModelTest(5000, true));
     }
 
     /**
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.views.properties.tabbed;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.StructuredSelection;
+import org.eclipse.jface.viewers.TreeNode;
+import org.eclipse.ui.IWorkbenchPart;
+import org.eclipse.ui.IWorkbenchPartSite;
+import org.eclipse.ui.internal.views.properties.tabbed.view.TabbedPropertyRegistry;
+import org.eclipse.ui.internal.views.properties.tabbed.view.TabbedPropertyRegistryFactory;
+import org.eclipse.ui.tests.views.properties.tabbed.model.File;
+import org.eclipse.ui.tests.views.properties.tabbed.model.Information;
+import org.eclipse.ui.tests.views.properties.tabbed.views.TestsView;
+import org.eclipse.ui.views.properties.tabbed.ITabDescriptor;
+import org.eclipse.ui.views.properties.tabbed.ITabbedPropertySheetPageContributor;
+
+/**
+ * Tests the cache of the applicable tabs in the tabbed property registry.
+ */
+public class TabbedPropertyRegistryTest
+    extends TestCase {
+
+    /**
+     * A contributor whose sections have no filters, so that the applicable
+     * tabs are cached.
+     */
+    private static final String CACHE_CONTRIBUTOR_ID = "org.eclipse.ui.tests.views.properties.tabbed.cache"; //$NON-NLS-1$
+
+    /**
+     * Must match the size of the cache in the registry.
+     */
+    private static final int MAX_CACHED_SIGNATURES = 64;
+
+    private ITabbedPropertySheetPageContributor cacheContributor;
+
+    private ITabbedPropertySheetPageContributor filterContributor;
+
+    private TabbedPropertyRegistry cacheRegistry;
+
+    private TabbedPropertyRegistry filterRegistry;
+
+    private static class Contributor
+        implements ITabbedPropertySheetPageContributor {
+
+        private String contributorId;
+
+        Contributor(String contributorId) {
+            this.contributorId = contributorId;
+        }
+
+        public String getContributorId() {
+            return contributorId;
+        }
+    }
+
+    protected void setUp()
+        throws Exception {
+        super.setUp();
+        cacheContributor = new Contributor(CACHE_CONTRIBUTOR_ID);
+        cacheRegistry = TabbedPropertyRegistryFactory.getInstance()
+            .createRegistry(cacheContributor);
+        filterContributor = new Contributor(TestsView.TESTS_VIEW_ID);
+        filterRegistry = TabbedPropertyRegistryFactory.getInstance()
+            .createRegistry(filterContributor);
+    }
+
+    protected void tearDown()
+        throws Exception {
+        TabbedPropertyRegistryFactory.getInstance().disposeRegistry(
+            cacheContributor);
+        TabbedPropertyRegistryFactory.getInstance().disposeRegistry(
+            filterContributor);
+        super.tearDown();
+    }
+
+    private static ISelection select(Object[] elements) {
+        TreeNode[] nodes = new TreeNode[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            nodes[i] = new TreeNode(elements[i]);
+        }
+        return new StructuredSelection(nodes);
+    }
+
+    private static ISelection select(Object element) {
+        return select(new Object[] {element});
+    }
+
+    /**
+     * Returns a part whose site has the given id.
+     */
+    private static IWorkbenchPart createPart(final String id) {
+        final IWorkbenchPartSite site = (IWorkbenchPartSite) Proxy
+            .newProxyInstance(IWorkbenchPartSite.class.getClassLoader(),
+                new Class[] {IWorkbenchPartSite.class},
+                new InvocationHandler() {
+
+                    public Object invoke(Object proxy, Method method,
+                            Object[] args) {
+                        return "getId".equals(method.getName()) ? id : null; //$NON-NLS-1$
+                    }
+                });
+        return (IWorkbenchPart) Proxy.newProxyInstance(IWorkbenchPart.class
+            .getClassLoader(), new Class[] {IWorkbenchPart.class},
+            new InvocationHandler() {
+
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    return "getSite".equals(method.getName()) ? site : null; //$NON-NLS-1$
+                }
+            });
+    }
+
+    private static String getLabels(ITabDescriptor[] descriptors) {
+        StringBuffer buffer = new StringBuffer();
+        for (int i = 0; i < descriptors.length; i++) {
+            if (i > 0) {
+                buffer.append(',');
+            }
+            buffer.append(descriptors[i].getLabel());
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Selections with the same types and size get the same tabs.
+     */
+    public void test_cacheHit() {
+        ITabDescriptor[] tabs = cacheRegistry.getTabDescriptors(null,
+            select(new Information("Informational Message One"))); //$NON-NLS-1$
+        assertEquals("Name,Message", getLabels(tabs)); //$NON-NLS-1$
+
+        assertSame(tabs, cacheRegistry.getTabDescriptors(null,
+            select(new Information("Informational Message Two")))); //$NON-NLS-1$
+    }
+
+    /**
+     * The types, the size of the selection and the part are part of the key.
+     */
+    public void test_cacheKey() {
+        ITabDescriptor[] information = cacheRegistry.getTabDescriptors(null,
+            select(new Information("Informational Message One"))); //$NON-NLS-1$
+
+        ITabDescriptor[] file = cacheRegistry.getTabDescriptors(null,
+            select(new File("file.txt"))); //$NON-NLS-1$
+        assertEquals("Name,Resource", getLabels(file)); //$NON-NLS-1$
+
+        ITabDescriptor[] twoInformation = cacheRegistry.getTabDescriptors(
+            null, select(new Object[] {
+                new Information("Informational Message One"), //$NON-NLS-1$
+                new Information("Informational Message Two")})); //$NON-NLS-1$
+        assertEquals("Message", getLabels(twoInformation)); //$NON-NLS-1$
+
+        /**
+         * Sizes above the largest enablesFor share an entry.
+         */
+        assertSame(twoInformation, cacheRegistry.getTabDescriptors(null,
+            select(new Object[] {new Information("One"), //$NON-NLS-1$
+                new Information("Two"), new Information("Three")}))); //$NON-NLS-1$ //$NON-NLS-2$
+
+        ITabDescriptor[] inPart = cacheRegistry.getTabDescriptors(
+            createPart("part"), select(new Information("One"))); //$NON-NLS-1$ //$NON-NLS-2$
+        assertNotSame(information, inPart);
+        assertEquals(getLabels(information), getLabels(inPart));
+    }
+
+    /**
+     * The tabs of a contributor with a filter depend on the selected objects
+     * themselves, not only on their types.
+     */
+    public void test_filterDependsOnInstance() {
+        ITabDescriptor[] one = filterRegistry.getTabDescriptors(null,
+            select(new Information("Informational Message One"))); //$NON-NLS-1$
+        ITabDescriptor[] two = filterRegistry.getTabDescriptors(null,
+            select(new Information("Informational Message Two"))); //$NON-NLS-1$
+        assertEquals("Name", one[0].getLabel()); //$NON-NLS-1$
+        assertEquals("Name", two[0].getLabel()); //$NON-NLS-1$
+        assertEquals(1, one[0].getSectionDescriptors().size());
+        assertEquals(2, two[0].getSectionDescriptors().size());
+
+        /**
+         * Selecting the first object again does not return the tabs of the
+         * second.
+         */
+        ITabDescriptor[] again = filterRegistry.getTabDescriptors(null,
+            select(new Information("Informational Message One"))); //$NON-NLS-1$
+        assertEquals(1, again[0].getSectionDescriptors().size());
+    }
+
+    /**
+     * The cache is emptied when it holds the maximum number of selection
+     * signatures and another one is added.
+     */
+    public void test_cacheEviction() {
+        ISelection selection = select(new Information("One")); //$NON-NLS-1$
+        ITabDescriptor[] tabs = cacheRegistry.getTabDescriptors(null,
+            selection);
+
+        /**
+         * Fill the cache up to its maximum, the first entry is kept.
+         */
+        for (int i = 1; i < MAX_CACHED_SIGNATURES; i++) {
+            cacheRegistry.getTabDescriptors(createPart("part" + i), selection); //$NON-NLS-1$
+        }
+        assertSame(tabs, cacheRegistry.getTabDescriptors(null, selection));
+
+        /**
+         * One more signature evicts the first one.
+         */
+        cacheRegistry.getTabDescriptors(
+            createPart("part" + MAX_CACHED_SIGNATURES), selection); //$NON-NLS-1$
+        ITabDescriptor[] recomputed = cacheRegistry.getTabDescriptors(null,
+            selection);
+        assertNotSame(tabs, recomputed);
+        assertEquals(getLabels(tabs), getLabels(recomputed));
+        assertSame(recomputed, cacheRegistry.getTabDescriptors(null,
+            selection));
+    }
+
+}
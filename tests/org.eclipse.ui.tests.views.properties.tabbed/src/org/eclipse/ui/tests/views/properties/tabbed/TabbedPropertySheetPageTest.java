@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2012 IBM Corporation and others.
+ * Copyright (c) 2006, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -29,6 +29,7 @@ import org.eclipse.ui.tests.views.properties.tabbed.views.TestsViewContentProvid
 import org.eclipse.ui.views.properties.tabbed.ISection;
 import org.eclipse.ui.views.properties.tabbed.ITabDescriptor;
 import org.eclipse.ui.views.properties.tabbed.TabContents;
+import org.eclipse.ui.views.properties.tabbed.TabbedPropertySheetPage;
 
 public class TabbedPropertySheetPageTest
     extends TestCase {
@@ -336,4 +337,54 @@ public class TabbedPropertySheetPageTest
         assertEquals(-1, ((TabbedPropertyComposite) testsView.getTabbedPropertySheetPage().getControl()).getList().getWidestLabelIndex());
     }
 
+    /**
+     * Only the shown tab is created, and when another File Node is selected
+     * the tabs are reused.
+     */
+    public void test_tabsCreatedWhenShownAndReused() {
+        TabbedPropertySheetPage page = testsView.getTabbedPropertySheetPage();
+        setSelection(new TreeNode[] {treeNodes[4]});
+        ITabDescriptor[] tabDescriptors = page.getActiveTabs();
+        int created = page.getTabCreationCount();
+        int reused = page.getTabReuseCount();
+        assertTrue(created < tabDescriptors.length);
+
+        /**
+         * Another File node has the same tabs.
+         */
+        setSelection(new TreeNode[] {treeNodes[5]});
+        assertEquals(created, page.getTabCreationCount());
+        assertTrue(page.getTabReuseCount() > reused);
+    }
+
+    /**
+     * A shown tab that no longer applies is pooled, and reused when it
+     * applies again.
+     */
+    public void test_tabsReusedFromPool() {
+        TabbedPropertySheetPage page = testsView.getTabbedPropertySheetPage();
+        setSelection(new TreeNode[] {treeNodes[4]});
+        assertNotNull(page.getCurrentTab());
+        int created = page.getTabCreationCount();
+
+        /**
+         * Only the Resource tab applies, the Name tab is pooled.
+         */
+        setSelection(new TreeNode[] {treeNodes[5], treeNodes[6], treeNodes[7],});
+        ITabDescriptor[] tabDescriptors = page.getActiveTabs();
+        assertEquals(1, tabDescriptors.length);
+        assertEquals("Resource", tabDescriptors[0].getLabel());//$NON-NLS-1$
+        assertEquals(created + 1, page.getTabCreationCount());
+        int reused = page.getTabReuseCount();
+
+        /**
+         * Back to the File node, the Name tab comes from the pool and the
+         * Resource tab still applies.
+         */
+        setSelection(new TreeNode[] {treeNodes[4]});
+        assertEquals(3, page.getActiveTabs().length);
+        assertEquals(created + 1, page.getTabCreationCount());
+        assertEquals(reused + 2, page.getTabReuseCount());
+    }
+
 }
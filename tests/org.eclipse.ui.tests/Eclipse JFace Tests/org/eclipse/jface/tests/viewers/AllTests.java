@@ -66,5 +66,7 @@ public class AllTests extends TestSuite {
 		addTestSuite(Bug287765Test.class);
 		addTestSuite(StyledStringBuilderTest.class);
 		addTestSuite(TreeManagerTest.class);
+		addTestSuite(TreeViewerFetchChildrenInBackgroundTest.class);
+		addTestSuite(TreeViewerUpdateChildrenTest.class);
 	}
 }
@@ -0,0 +1,455 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jface.tests.viewers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.jface.resource.JFaceResources;
+import org.eclipse.jface.util.ILogger;
+import org.eclipse.jface.util.Policy;
+import org.eclipse.jface.viewers.ITreeContentProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.StructuredViewer;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.TreeItem;
+
+/**
+ * Tests {@link TreeViewer#setFetchChildrenInBackground(boolean)}.
+ */
+public class TreeViewerFetchChildrenInBackgroundTest extends ViewerTestCase {
+
+	private static final String PENDING = JFaceResources
+			.getString("AbstractTreeViewer.pending"); //$NON-NLS-1$
+
+	private static final String INPUT = "input";
+
+	private static final long TIMEOUT = 10000;
+
+	private TreeViewer treeViewer;
+
+	private SlowContentProvider contentProvider;
+
+	/**
+	 * A content provider with two top-level elements. Calls from a background
+	 * thread block until {@link #release()} is called.
+	 */
+	private static class SlowContentProvider implements ITreeContentProvider {
+		int childCount = 10;
+
+		volatile boolean failing = false;
+
+		private boolean blocked = true;
+
+		private int backgroundCalls = 0;
+
+		public Object[] getElements(Object inputElement) {
+			return new Object[] { "a", "b" };
+		}
+
+		public Object[] getChildren(Object parentElement) {
+			if (Display.getCurrent() == null) {
+				synchronized (this) {
+					backgroundCalls++;
+					notifyAll();
+					while (blocked) {
+						try {
+							wait();
+						} catch (InterruptedException e) {
+							return new Object[0];
+						}
+					}
+				}
+			}
+			if (failing && Display.getCurrent() == null)
+				throw new IllegalStateException("Failing to fetch children");
+			if (((String) parentElement).length() > 1)
+				return new Object[0];
+			Object[] children = new Object[childCount];
+			for (int i = 0; i < children.length; i++)
+				children[i] = parentElement + "-" + i;
+			return children;
+		}
+
+		public Object getParent(Object element) {
+			return null;
+		}
+
+		public boolean hasChildren(Object element) {
+			return ((String) element).length() == 1;
+		}
+
+		synchronized void release() {
+			blocked = false;
+			notifyAll();
+		}
+
+		synchronized int getBackgroundCalls() {
+			return backgroundCalls;
+		}
+
+		synchronized void waitForBackgroundCalls(int calls) {
+			long end = System.currentTimeMillis() + TIMEOUT;
+			while (backgroundCalls < calls) {
+				long remaining = end - System.currentTimeMillis();
+				if (remaining <= 0)
+					Assert.fail("Timed out waiting for the children to be fetched");
+				try {
+					wait(remaining);
+				} catch (InterruptedException e) {
+					Assert.fail("Interrupted");
+				}
+			}
+		}
+
+		public void dispose() {
+		}
+
+		public void inputChanged(Viewer viewer, Object oldInput,
+				Object newInput) {
+		}
+	}
+
+	public TreeViewerFetchChildrenInBackgroundTest(String name) {
+		super(name);
+	}
+
+	protected StructuredViewer createViewer(Composite parent) {
+		treeViewer = new TreeViewer(parent);
+		contentProvider = new SlowContentProvider();
+		treeViewer.setContentProvider(contentProvider);
+		treeViewer.setLabelProvider(new LabelProvider());
+		treeViewer.setFetchChildrenInBackground(true);
+		return treeViewer;
+	}
+
+	protected void setInput() {
+		treeViewer.setInput(INPUT);
+	}
+
+	public void tearDown() {
+		// don't leave the worker thread blocked
+		if (contentProvider != null)
+			contentProvider.release();
+		super.tearDown();
+	}
+
+	/**
+	 * Expands the given item the way the user does, so that the viewer gets
+	 * the expand event.
+	 */
+	private void expand(TreeItem item) {
+		Event event = new Event();
+		event.item = item;
+		treeViewer.getTree().notifyListeners(SWT.Expand, event);
+		item.setExpanded(true);
+	}
+
+	private void collapse(TreeItem item) {
+		Event event = new Event();
+		event.item = item;
+		treeViewer.getTree().notifyListeners(SWT.Collapse, event);
+		item.setExpanded(false);
+	}
+
+	private TreeItem getItem(String element) {
+		TreeItem[] items = treeViewer.getTree().getItems();
+		for (int i = 0; i < items.length; i++) {
+			if (element.equals(items[i].getData()))
+				return items[i];
+		}
+		fail("No item for " + element);
+		return null;
+	}
+
+	/**
+	 * Returns the elements of the children of the given item, or
+	 * <code>null</code> for a dummy child.
+	 */
+	private List getChildElements(TreeItem item) {
+		TreeItem[] children = item.getItems();
+		List elements = new ArrayList(children.length);
+		for (int i = 0; i < children.length; i++)
+			elements.add(children[i].getData());
+		return elements;
+	}
+
+	private List getExpectedChildren(String parent) {
+		List expected = new ArrayList();
+		for (int i = 0; i < contentProvider.childCount; i++)
+			expected.add(parent + "-" + i);
+		return expected;
+	}
+
+	/**
+	 * Runs the event loop until the given item has been populated.
+	 */
+	private void waitForChildren(TreeItem item) {
+		long end = System.currentTimeMillis() + TIMEOUT;
+		while (!isPopulated(item)) {
+			if (!fDisplay.readAndDispatch()) {
+				if (System.currentTimeMillis() > end)
+					fail("Timed out waiting for the children to be added");
+				sleepBriefly();
+			}
+		}
+		processEvents();
+	}
+
+	/**
+	 * Runs the event loop until the worker thread had the time to post the
+	 * children it fetched.
+	 */
+	private void waitForWorker() {
+		long end = System.currentTimeMillis() + 500;
+		while (System.currentTimeMillis() < end) {
+			if (!fDisplay.readAndDispatch())
+				sleepBriefly();
+		}
+	}
+
+	private static boolean isPopulated(TreeItem item) {
+		TreeItem[] children = item.getItems();
+		return children.length > 0
+				&& children[children.length - 1].getData() != null
+				&& children[0].getData() != null;
+	}
+
+	private static void sleepBriefly() {
+		try {
+			Thread.sleep(10);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public void testExpandShowsPendingLabel() {
+		TreeItem item = getItem("a");
+		expand(item);
+
+		TreeItem[] children = item.getItems();
+		assertEquals(1, children.length);
+		assertNull(children[0].getData());
+		assertEquals(PENDING, children[0].getText());
+
+		contentProvider.release();
+		waitForChildren(item);
+		assertEquals(getExpectedChildren("a"), getChildElements(item));
+		assertTrue(treeViewer.getExpandedState("a"));
+	}
+
+	public void testChildrenAreAddedInChunks() {
+		contentProvider.childCount = 250;
+		contentProvider.release();
+		TreeItem item = getItem("a");
+		expand(item);
+
+		// run one event at a time and record how many children were added
+		List counts = new ArrayList();
+		long end = System.currentTimeMillis() + TIMEOUT;
+		while (!isPopulated(item)) {
+			if (fDisplay.readAndDispatch()) {
+				int count = 0;
+				TreeItem[] children = item.getItems();
+				for (int i = 0; i < children.length; i++) {
+					if (children[i].getData() != null)
+						count++;
+				}
+				Integer boxed = new Integer(count);
+				if (!counts.contains(boxed))
+					counts.add(boxed);
+			} else {
+				if (System.currentTimeMillis() > end)
+					fail("Timed out waiting for the children to be added");
+				sleepBriefly();
+			}
+		}
+		assertTrue("Expected a chunk of 100 children: " + counts,
+				counts.contains(new Integer(100)));
+		assertTrue("Expected a chunk of 200 children: " + counts,
+				counts.contains(new Integer(200)));
+		assertEquals(getExpectedChildren("a"), getChildElements(item));
+	}
+
+	public void testCollapseCancelsFetch() {
+		TreeItem item = getItem("a");
+		expand(item);
+		contentProvider.waitForBackgroundCalls(1);
+		collapse(item);
+
+		contentProvider.release();
+		waitForWorker();
+
+		// only the empty dummy is left, so that the item can be expanded
+		TreeItem[] children = item.getItems();
+		assertEquals(1, children.length);
+		assertNull(children[0].getData());
+		assertEquals("", children[0].getText());
+
+		expand(item);
+		waitForChildren(item);
+		assertEquals(getExpectedChildren("a"), getChildElements(item));
+		assertEquals(2, contentProvider.getBackgroundCalls());
+	}
+
+	public void testFailedFetchCanBeRetried() {
+		// the failure is logged in the worker thread
+		final List logged = Collections.synchronizedList(new ArrayList());
+		Policy.setLog(new ILogger() {
+			public void log(IStatus status) {
+				logged.add(status);
+			}
+		});
+		contentProvider.failing = true;
+		contentProvider.release();
+		TreeItem item = getItem("a");
+		expand(item);
+
+		long end = System.currentTimeMillis() + TIMEOUT;
+		while (item.getExpanded()) {
+			if (!fDisplay.readAndDispatch()) {
+				if (System.currentTimeMillis() > end)
+					fail("Timed out waiting for the fetch to fail");
+				sleepBriefly();
+			}
+		}
+
+		assertEquals(1, logged.size());
+
+		// the empty dummy is restored, so that the item can be expanded
+		TreeItem[] children = item.getItems();
+		assertEquals(1, children.length);
+		assertNull(children[0].getData());
+		assertEquals("", children[0].getText());
+
+		contentProvider.failing = false;
+		expand(item);
+		waitForChildren(item);
+		assertEquals(getExpectedChildren("a"), getChildElements(item));
+		assertEquals(2, contentProvider.getBackgroundCalls());
+	}
+
+	public void testRefreshRestartsFetch() {
+		TreeItem item = getItem("a");
+		expand(item);
+		contentProvider.waitForBackgroundCalls(1);
+		treeViewer.refresh();
+
+		assertEquals(PENDING, item.getItems()[0].getText());
+		contentProvider.release();
+		waitForChildren(item);
+		waitForWorker();
+
+		// the first fetch was dropped, so the children are added once
+		assertEquals(2, contentProvider.getBackgroundCalls());
+		assertEquals(getExpectedChildren("a"), getChildElements(item));
+	}
+
+	public void testRemoveRestartsFetch() {
+		TreeItem item = getItem("a");
+		expand(item);
+		contentProvider.waitForBackgroundCalls(1);
+		treeViewer.remove("b");
+
+		contentProvider.release();
+		waitForChildren(item);
+		waitForWorker();
+
+		assertEquals(1, treeViewer.getTree().getItemCount());
+		assertEquals(getExpectedChildren("a"), getChildElements(item));
+	}
+
+	public void testInputChangeCancelsFetch() {
+		TreeItem item = getItem("a");
+		expand(item);
+		contentProvider.waitForBackgroundCalls(1);
+		treeViewer.setInput("other input");
+
+		contentProvider.release();
+		waitForWorker();
+
+		TreeItem[] items = treeViewer.getTree().getItems();
+		assertEquals(2, items.length);
+		for (int i = 0; i < items.length; i++) {
+			assertFalse(items[i].getExpanded());
+			TreeItem[] children = items[i].getItems();
+			for (int j = 0; j < children.length; j++)
+				assertNull(children[j].getData());
+		}
+	}
+
+	public void testDisposedItemDropsFetch() {
+		TreeItem item = getItem("a");
+		expand(item);
+		contentProvider.waitForBackgroundCalls(1);
+
+		// dispose the item without going through the viewer
+		item.dispose();
+		contentProvider.release();
+		waitForWorker();
+
+		assertEquals(1, treeViewer.getTree().getItemCount());
+		assertEquals("b", treeViewer.getTree().getItem(0).getData());
+	}
+
+	public void testDisposedTreeDropsFetch() {
+		TreeItem item = getItem("a");
+		expand(item);
+		contentProvider.waitForBackgroundCalls(1);
+
+		fShell.dispose();
+		contentProvider.release();
+
+		// the posted runnable, if any, must not touch the disposed tree
+		long end = System.currentTimeMillis() + 500;
+		while (System.currentTimeMillis() < end) {
+			if (!fDisplay.readAndDispatch())
+				sleepBriefly();
+		}
+	}
+
+	public void testTurningOffResolvesPendingFetches() {
+		TreeItem item = getItem("a");
+		expand(item);
+		contentProvider.waitForBackgroundCalls(1);
+
+		treeViewer.setFetchChildrenInBackground(false);
+		assertFalse(treeViewer.getFetchChildrenInBackground());
+		assertEquals(getExpectedChildren("a"), getChildElements(item));
+
+		// the cancelled fetch doesn't add the children a second time
+		contentProvider.release();
+		waitForWorker();
+		assertEquals(getExpectedChildren("a"), getChildElements(item));
+
+		// expanding fetches in the UI thread now
+		TreeItem other = getItem("b");
+		expand(other);
+		assertEquals(getExpectedChildren("b"), getChildElements(other));
+		assertEquals(1, contentProvider.getBackgroundCalls());
+	}
+
+	public void testProgrammaticExpansionIsSynchronous() {
+		treeViewer.expandToLevel("a", 1);
+		assertEquals(getExpectedChildren("a"), getChildElements(getItem("a")));
+		assertEquals(0, contentProvider.getBackgroundCalls());
+	}
+}
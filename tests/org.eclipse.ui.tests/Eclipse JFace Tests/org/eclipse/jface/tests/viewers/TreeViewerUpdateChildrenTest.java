@@ -0,0 +1,273 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jface.tests.viewers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jface.viewers.IElementComparer;
+import org.eclipse.jface.viewers.ITreeContentProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.StructuredViewer;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.TreeItem;
+
+/**
+ * Tests how a refresh of a {@link TreeViewer} reconciles the existing child
+ * items with the new children: the items of the longest run of children that
+ * kept their order stay in place, and only the other items are changed.
+ */
+public class TreeViewerUpdateChildrenTest extends ViewerTestCase {
+
+	private static final String INPUT = "input";
+
+	private TreeViewer treeViewer;
+
+	private MapContentProvider contentProvider;
+
+	private CountingLabelProvider labelProvider;
+
+	/**
+	 * Returns the children of each element from a map of lists.
+	 */
+	private static class MapContentProvider implements ITreeContentProvider {
+		Map children = new HashMap();
+
+		void setChildren(Object parent, String[] elements) {
+			children.put(parent, new ArrayList(Arrays.asList(elements)));
+		}
+
+		public Object[] getElements(Object inputElement) {
+			return getChildren(inputElement);
+		}
+
+		public Object[] getChildren(Object parentElement) {
+			List list = (List) children.get(parentElement);
+			return list == null ? new Object[0] : list.toArray();
+		}
+
+		public Object getParent(Object element) {
+			return null;
+		}
+
+		public boolean hasChildren(Object element) {
+			return children.containsKey(element);
+		}
+
+		public void dispose() {
+		}
+
+		public void inputChanged(Viewer viewer, Object oldInput,
+				Object newInput) {
+		}
+	}
+
+	/**
+	 * Remembers the elements whose label was asked for.
+	 */
+	private static class CountingLabelProvider extends LabelProvider {
+		List labelled = new ArrayList();
+
+		public String getText(Object element) {
+			labelled.add(element);
+			return super.getText(element);
+		}
+	}
+
+	public TreeViewerUpdateChildrenTest(String name) {
+		super(name);
+	}
+
+	protected StructuredViewer createViewer(Composite parent) {
+		treeViewer = new TreeViewer(parent);
+		contentProvider = new MapContentProvider();
+		contentProvider.setChildren(INPUT, new String[] { "a", "b", "c",
+				"d", "e" });
+		contentProvider.setChildren("a", new String[] { "a1", "a2" });
+		contentProvider.setChildren("b", new String[] { "b1", "b2" });
+		labelProvider = new CountingLabelProvider();
+		treeViewer.setContentProvider(contentProvider);
+		treeViewer.setLabelProvider(labelProvider);
+		return treeViewer;
+	}
+
+	protected void setInput() {
+		treeViewer.setInput(INPUT);
+	}
+
+	private void setRoots(String[] roots) {
+		contentProvider.setChildren(INPUT, roots);
+		labelProvider.labelled.clear();
+		treeViewer.refresh();
+	}
+
+	private TreeItem[] getRootItems() {
+		return treeViewer.getTree().getItems();
+	}
+
+	private void assertRoots(String[] expected) {
+		TreeItem[] items = getRootItems();
+		assertEquals(expected.length, items.length);
+		for (int i = 0; i < items.length; i++) {
+			assertEquals(expected[i], items[i].getData());
+			assertEquals(expected[i], items[i].getText());
+		}
+	}
+
+	public void testReorderKeepsItemsInOrder() {
+		TreeItem[] before = getRootItems();
+		setRoots(new String[] { "b", "c", "d", "e", "a" });
+		assertRoots(new String[] { "b", "c", "d", "e", "a" });
+
+		// the items of b to e did not move relative to each other
+		TreeItem[] after = getRootItems();
+		for (int i = 0; i < 4; i++) {
+			assertSame(before[i + 1], after[i]);
+		}
+		assertTrue(before[0].isDisposed());
+	}
+
+	public void testReplaceInTheMiddleReusesItem() {
+		TreeItem[] before = getRootItems();
+		setRoots(new String[] { "a", "b", "x", "d", "e" });
+		assertRoots(new String[] { "a", "b", "x", "d", "e" });
+
+		TreeItem[] after = getRootItems();
+		for (int i = 0; i < after.length; i++) {
+			assertSame(before[i], after[i]);
+		}
+		assertSame(before[2], treeViewer.testFindItem("x"));
+		assertNull(treeViewer.testFindItem("c"));
+	}
+
+	public void testInsertInTheMiddle() {
+		TreeItem[] before = getRootItems();
+		setRoots(new String[] { "a", "b", "x", "c", "d", "e" });
+		assertRoots(new String[] { "a", "b", "x", "c", "d", "e" });
+
+		TreeItem[] after = getRootItems();
+		assertSame(before[0], after[0]);
+		assertSame(before[1], after[1]);
+		assertSame(before[2], after[3]);
+		assertSame(before[3], after[4]);
+		assertSame(before[4], after[5]);
+	}
+
+	public void testRemoveInTheMiddle() {
+		TreeItem[] before = getRootItems();
+		setRoots(new String[] { "a", "b", "d", "e" });
+		assertRoots(new String[] { "a", "b", "d", "e" });
+
+		TreeItem[] after = getRootItems();
+		assertSame(before[0], after[0]);
+		assertSame(before[1], after[1]);
+		assertSame(before[3], after[2]);
+		assertSame(before[4], after[3]);
+		assertTrue(before[2].isDisposed());
+		assertNull(treeViewer.testFindItem("c"));
+	}
+
+	public void testEqualElements() {
+		setRoots(new String[] { "a", "b", "a", "c" });
+		assertRoots(new String[] { "a", "b", "a", "c" });
+		TreeItem[] before = getRootItems();
+
+		setRoots(new String[] { "a", "a", "b", "c" });
+		assertRoots(new String[] { "a", "a", "b", "c" });
+		assertEquals(2, treeViewer.testFindItems("a").length);
+
+		// the first "a" and "c" stay, with "a" or "b" in between
+		TreeItem[] after = getRootItems();
+		assertSame(before[0], after[0]);
+		assertSame(before[3], after[3]);
+
+		setRoots(new String[] { "b", "c" });
+		assertRoots(new String[] { "b", "c" });
+		assertEquals(0, treeViewer.testFindItems("a").length);
+	}
+
+	public void testCustomComparer() {
+		treeViewer.setComparer(new IElementComparer() {
+			public boolean equals(Object a, Object b) {
+				return ((String) a).equalsIgnoreCase((String) b);
+			}
+
+			public int hashCode(Object element) {
+				return ((String) element).toLowerCase().hashCode();
+			}
+		});
+		setInput();
+		TreeItem[] before = getRootItems();
+
+		setRoots(new String[] { "A", "B", "c", "D", "e" });
+		assertRoots(new String[] { "A", "B", "c", "D", "e" });
+		TreeItem[] after = getRootItems();
+		for (int i = 0; i < after.length; i++) {
+			assertSame(before[i], after[i]);
+		}
+
+		setRoots(new String[] { "E", "a", "b", "c", "d" });
+		assertRoots(new String[] { "E", "a", "b", "c", "d" });
+		after = getRootItems();
+		for (int i = 0; i < 4; i++) {
+			assertSame(before[i], after[i + 1]);
+		}
+	}
+
+	public void testKeptItemStaysExpanded() {
+		treeViewer.setExpandedState("b", true);
+		TreeItem itemB = (TreeItem) treeViewer.testFindItem("b");
+		TreeItem[] childrenOfB = itemB.getItems();
+
+		setRoots(new String[] { "e", "a", "b", "c", "d" });
+		assertRoots(new String[] { "e", "a", "b", "c", "d" });
+		assertSame(itemB, treeViewer.testFindItem("b"));
+		assertTrue(itemB.getExpanded());
+		assertTrue(Arrays.equals(childrenOfB, itemB.getItems()));
+	}
+
+	public void testMovedItemStaysExpanded() {
+		treeViewer.setExpandedState("a", true);
+		treeViewer.setExpandedState("b", true);
+
+		setRoots(new String[] { "c", "d", "e", "b", "a" });
+		assertRoots(new String[] { "c", "d", "e", "b", "a" });
+		assertTrue(treeViewer.getExpandedState("a"));
+		assertTrue(treeViewer.getExpandedState("b"));
+		assertFalse(treeViewer.getExpandedState("c"));
+		assertEquals("a1", ((TreeItem) treeViewer.testFindItem("a"))
+				.getItem(0).getData());
+	}
+
+	public void testOnlyChangedItemsAreUpdated() {
+		contentProvider.setChildren(INPUT, new String[] { "a", "b", "x", "c",
+				"e" });
+		labelProvider.labelled.clear();
+		treeViewer.refresh(false);
+		assertRoots(new String[] { "a", "b", "x", "c", "e" });
+		assertTrue(labelProvider.labelled.contains("x"));
+		assertEquals(Collections.singleton("x"), new HashSet(
+				labelProvider.labelled));
+
+		// a full refresh updates the labels of all items
+		labelProvider.labelled.clear();
+		treeViewer.refresh(true);
+		assertEquals(5, new HashSet(labelProvider.labelled).size());
+	}
+}
@@ -0,0 +1,295 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.decorators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jface.viewers.DecorationContext;
+import org.eclipse.jface.viewers.ILabelProviderListener;
+import org.eclipse.jface.viewers.LabelProviderChangedEvent;
+import org.eclipse.ui.internal.WorkbenchPlugin;
+import org.eclipse.ui.internal.decorators.DecorationScheduler;
+import org.eclipse.ui.internal.decorators.DecoratorManager;
+import org.eclipse.ui.tests.decorators.RecordingLightweightDecorator.Element;
+import org.eclipse.ui.tests.harness.util.UITestCase;
+
+/**
+ * Tests the order in which the decoration scheduler decorates the elements
+ * and the number of jobs it decorates them with.
+ */
+public class DecorationSchedulerTest extends UITestCase {
+
+	private static final long TIMEOUT = 10000;
+
+	private DecoratorManager manager;
+
+	private DecorationScheduler scheduler;
+
+	private ILabelProviderListener listener;
+
+	private List updated = new ArrayList();
+
+	public DecorationSchedulerTest(String testName) {
+		super(testName);
+	}
+
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		manager = WorkbenchPlugin.getDefault().getDecoratorManager();
+		manager.setEnabled(RecordingLightweightDecorator.ID, true);
+	}
+
+	protected void doTearDown() throws Exception {
+		if (scheduler != null) {
+			scheduler.shutdown();
+			scheduler = null;
+		}
+		if (listener != null) {
+			manager.removeListener(listener);
+			listener = null;
+		}
+		RecordingLightweightDecorator.creationDelay = 0;
+		RecordingLightweightDecorator decorator = RecordingLightweightDecorator.decorator;
+		if (decorator != null) {
+			decorator.release();
+		}
+		manager.setEnabled(RecordingLightweightDecorator.ID, false);
+		super.doTearDown();
+	}
+
+	/**
+	 * Decorate an element so that the decorator gets created, and return it
+	 * once it forgot about that element.
+	 */
+	private RecordingLightweightDecorator startDecorator() {
+		final Element element = new Element("first");
+		manager.prepareDecoration(element, null);
+		assertTrue("The decorator was not called", processEventsUntil(
+				new Condition() {
+					public boolean compute() {
+						RecordingLightweightDecorator decorator = RecordingLightweightDecorator.decorator;
+						return decorator != null
+								&& decorator.getDecorated().contains(element);
+					}
+				}, TIMEOUT));
+		RecordingLightweightDecorator decorator = RecordingLightweightDecorator.decorator;
+		decorator.reset();
+		return decorator;
+	}
+
+	/**
+	 * Create a scheduler with the given number of workers, and listen to the
+	 * elements it updates.
+	 */
+	private DecorationScheduler createScheduler(int workerCount) {
+		scheduler = new DecorationScheduler(manager, workerCount);
+		listener = new ILabelProviderListener() {
+			public void labelProviderChanged(LabelProviderChangedEvent event) {
+				Object[] elements = event.getElements();
+				if (elements != null) {
+					updated.addAll(Arrays.asList(elements));
+				}
+			}
+		};
+		manager.addListener(listener);
+		return scheduler;
+	}
+
+	private void queue(Element element) {
+		scheduler.decorateWithText(element.toString(), element, null,
+				DecorationContext.DEFAULT_CONTEXT);
+	}
+
+	private void waitForUpdated(final Element element) {
+		assertTrue("The label of " + element + " was not updated",
+				processEventsUntil(new Condition() {
+					public boolean compute() {
+						return updated.contains(element);
+					}
+				}, TIMEOUT));
+	}
+
+	private void waitForDecorated(final RecordingLightweightDecorator decorator,
+			final int count) {
+		assertTrue("Only " + decorator.getDecorated().size() + " of " + count
+				+ " elements were decorated", processEventsUntil(
+				new Condition() {
+					public boolean compute() {
+						return decorator.getDecorated().size() >= count;
+					}
+				}, TIMEOUT));
+	}
+
+	public void testWorkerCountProperty() {
+		String property = DecorationScheduler.WORKER_COUNT_PROPERTY;
+		String oldValue = System.getProperty(property);
+		try {
+			System.clearProperty(property);
+			assertEquals(1, DecorationScheduler.getWorkerCount());
+			System.setProperty(property, "4");
+			assertEquals(4, DecorationScheduler.getWorkerCount());
+			System.setProperty(property, "0");
+			assertEquals(1, DecorationScheduler.getWorkerCount());
+			System.setProperty(property, "-2");
+			assertEquals(1, DecorationScheduler.getWorkerCount());
+			System.setProperty(property, "four");
+			assertEquals(1, DecorationScheduler.getWorkerCount());
+		} finally {
+			if (oldValue == null) {
+				System.clearProperty(property);
+			} else {
+				System.setProperty(property, oldValue);
+			}
+		}
+	}
+
+	/**
+	 * The elements are decorated by several jobs at the same time, but by no
+	 * more than the worker count.
+	 */
+	public void testDecorationsDoNotExceedWorkerCount() {
+		RecordingLightweightDecorator decorator = startDecorator();
+		createScheduler(4);
+		decorator.setDelay(50);
+		for (int i = 0; i < 20; i++) {
+			queue(new Element("element" + i));
+		}
+		waitForDecorated(decorator, 20);
+
+		int maxRunning = decorator.getMaxRunning();
+		assertTrue("Decorated only one element at a time", maxRunning > 1);
+		assertTrue("Decorated " + maxRunning + " elements at the same time",
+				maxRunning <= 4);
+	}
+
+	/**
+	 * The elements that were requested last are decorated first.
+	 */
+	public void testLastRequestedElementIsDecoratedFirst() {
+		RecordingLightweightDecorator decorator = startDecorator();
+		createScheduler(1);
+
+		// keep the worker busy while the other elements are queued
+		Element busy = new Element("busy");
+		decorator.hold(busy);
+		queue(busy);
+		waitForDecorated(decorator, 1);
+
+		Element a = new Element("a");
+		Element b = new Element("b");
+		Element c = new Element("c");
+		queue(a);
+		queue(b);
+		queue(c);
+		decorator.release();
+
+		waitForDecorated(decorator, 4);
+		List expected = Arrays.asList(new Object[] { busy, c, b, a });
+		assertEquals(expected, decorator.getDecorated());
+	}
+
+	/**
+	 * An element queued while the other workers are busy is decorated by an
+	 * idle worker.
+	 */
+	public void testIdleWorkerDecoratesWhileOthersAreBusy() {
+		RecordingLightweightDecorator decorator = startDecorator();
+		createScheduler(2);
+
+		Element busy = new Element("busy");
+		decorator.hold(busy);
+		queue(busy);
+		waitForDecorated(decorator, 1);
+
+		Element next = new Element("next");
+		queue(next);
+		waitForDecorated(decorator, 2);
+		assertEquals(Arrays.asList(new Object[] { busy, next }), decorator
+				.getDecorated());
+	}
+
+	/**
+	 * A worker that fails on an element does not stop the decoration of the
+	 * elements queued after it.
+	 */
+	public void testDecorationContinuesAfterFailure() {
+		RecordingLightweightDecorator decorator = startDecorator();
+		createScheduler(1);
+
+		final Element failing = new Element("failing", true);
+		queue(failing);
+		assertTrue("The enablement was not tested", processEventsUntil(
+				new Condition() {
+					public boolean compute() {
+						return failing.isTested();
+					}
+				}, TIMEOUT));
+
+		Element next = new Element("next");
+		queue(next);
+		waitForUpdated(next);
+		assertEquals(Arrays.asList(new Object[] { next }), decorator
+				.getDecorated());
+	}
+
+	/**
+	 * The decorator is created once when several workers need it at the same
+	 * time.
+	 */
+	public void testDecoratorIsCreatedOnceByParallelWorkers() {
+		// dispose of the decorator so that the workers have to create it
+		manager.setEnabled(RecordingLightweightDecorator.ID, false);
+		assertNull(RecordingLightweightDecorator.decorator);
+		RecordingLightweightDecorator.resetCreationCount();
+		RecordingLightweightDecorator.creationDelay = 200;
+		manager.setEnabled(RecordingLightweightDecorator.ID, true);
+
+		createScheduler(4);
+		for (int i = 0; i < 8; i++) {
+			queue(new Element("element" + i));
+		}
+		assertTrue("The decorator was not created", processEventsUntil(
+				new Condition() {
+					public boolean compute() {
+						return RecordingLightweightDecorator.decorator != null;
+					}
+				}, TIMEOUT));
+		waitForDecorated(RecordingLightweightDecorator.decorator, 8);
+		assertEquals(1, RecordingLightweightDecorator.getCreationCount());
+	}
+
+	/**
+	 * The results of the decorated elements are kept while a worker is still
+	 * decorating another element.
+	 */
+	public void testResultsAreKeptWhileElementsAreDecorated() {
+		RecordingLightweightDecorator decorator = startDecorator();
+		createScheduler(4);
+
+		Element busy = new Element("busy");
+		decorator.hold(busy);
+		queue(busy);
+		waitForDecorated(decorator, 1);
+
+		Element done = new Element("done");
+		queue(done);
+		waitForUpdated(done);
+		assertTrue("The result was cleared while an element was decorated",
+				scheduler.isDecorationReady(done,
+						DecorationContext.DEFAULT_CONTEXT));
+
+		decorator.release();
+		waitForUpdated(busy);
+	}
+
+}
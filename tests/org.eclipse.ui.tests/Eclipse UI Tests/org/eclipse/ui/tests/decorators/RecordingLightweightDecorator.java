@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.decorators;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.jface.viewers.IDecoration;
+import org.eclipse.jface.viewers.ILabelProviderListener;
+import org.eclipse.jface.viewers.ILightweightLabelDecorator;
+import org.eclipse.ui.IActionFilter;
+
+/**
+ * The RecordingLightweightDecorator records the order in which the elements
+ * are decorated and how many are decorated at the same time. It can hold the
+ * decoration of some elements until it is released. It also counts how many
+ * instances are created.
+ */
+public class RecordingLightweightDecorator implements
+		ILightweightLabelDecorator {
+
+	public static final String ID = "org.eclipse.ui.tests.recordingDecorator";
+
+	public static RecordingLightweightDecorator decorator;
+
+	private static int creationCount;
+
+	/**
+	 * How long creating a decorator takes.
+	 */
+	public static volatile long creationDelay;
+
+	/**
+	 * The elements decorated by the RecordingLightweightDecorator. The
+	 * enablement of the decorator tests their "decorate" attribute, which
+	 * fails for a failing element.
+	 */
+	public static class Element implements IActionFilter {
+		private String name;
+
+		private boolean failing;
+
+		private volatile boolean tested;
+
+		public Element(String name) {
+			this(name, false);
+		}
+
+		public Element(String name, boolean failing) {
+			this.name = name;
+			this.failing = failing;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see org.eclipse.ui.IActionFilter#testAttribute(java.lang.Object,
+		 *      java.lang.String, java.lang.String)
+		 */
+		public boolean testAttribute(Object target, String name, String value) {
+			tested = true;
+			if (failing) {
+				throw new IllegalStateException("Failing to test " + name
+						+ " of " + this);
+			}
+			return "decorate".equals(name) && "true".equals(value);
+		}
+
+		/**
+		 * @return whether the enablement of the decorator was tested for
+		 *         this element
+		 */
+		public boolean isTested() {
+			return tested;
+		}
+
+		public String toString() {
+			return name;
+		}
+	}
+
+	private List decorated = new ArrayList();
+
+	private Set held = new HashSet();
+
+	private int running;
+
+	private int maxRunning;
+
+	private long delay;
+
+	public RecordingLightweightDecorator() {
+		synchronized (RecordingLightweightDecorator.class) {
+			creationCount++;
+		}
+		if (creationDelay > 0) {
+			try {
+				Thread.sleep(creationDelay);
+			} catch (InterruptedException e) {
+				// create it anyway
+			}
+		}
+		decorator = this;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.eclipse.jface.viewers.ILightweightLabelDecorator#decorate(java.lang.Object,
+	 *      org.eclipse.jface.viewers.IDecoration)
+	 */
+	public void decorate(Object element, IDecoration decoration) {
+		long sleep;
+		synchronized (this) {
+			decorated.add(element);
+			running++;
+			maxRunning = Math.max(maxRunning, running);
+			notifyAll();
+			while (held.contains(element)) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					break;
+				}
+			}
+			sleep = delay;
+		}
+		try {
+			if (sleep > 0) {
+				Thread.sleep(sleep);
+			}
+		} catch (InterruptedException e) {
+			// decorate anyway
+		} finally {
+			synchronized (this) {
+				running--;
+			}
+		}
+		decoration.addSuffix(" (recorded)");
+	}
+
+	/**
+	 * @return the number of decorators created since the last reset
+	 */
+	public static synchronized int getCreationCount() {
+		return creationCount;
+	}
+
+	/**
+	 * Forget the decorators created so far.
+	 */
+	public static synchronized void resetCreationCount() {
+		creationCount = 0;
+	}
+
+	/**
+	 * Hold the decoration of the element until {@link #release()} is called.
+	 *
+	 * @param element
+	 */
+	public synchronized void hold(Object element) {
+		held.add(element);
+	}
+
+	/**
+	 * Let the held decorations finish.
+	 */
+	public synchronized void release() {
+		held.clear();
+		notifyAll();
+	}
+
+	/**
+	 * Set how long each decoration takes.
+	 *
+	 * @param millis
+	 */
+	public synchronized void setDelay(long millis) {
+		delay = millis;
+	}
+
+	/**
+	 * @return the decorated elements in the order they were decorated
+	 */
+	public synchronized List getDecorated() {
+		return new ArrayList(decorated);
+	}
+
+	/**
+	 * @return the largest number of elements decorated at the same time
+	 */
+	public synchronized int getMaxRunning() {
+		return maxRunning;
+	}
+
+	/**
+	 * Forget the decorated elements.
+	 */
+	public synchronized void reset() {
+		decorated.clear();
+		maxRunning = 0;
+		delay = 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.eclipse.jface.viewers.IBaseLabelProvider#addListener(org.eclipse.jface.viewers.ILabelProviderListener)
+	 */
+	public void addListener(ILabelProviderListener listener) {
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.eclipse.jface.viewers.IBaseLabelProvider#dispose()
+	 */
+	public void dispose() {
+		release();
+		decorator = null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.eclipse.jface.viewers.IBaseLabelProvider#isLabelProperty(java.lang.Object,
+	 *      java.lang.String)
+	 */
+	public boolean isLabelProperty(Object element, String property) {
+		return false;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.eclipse.jface.viewers.IBaseLabelProvider#removeListener(org.eclipse.jface.viewers.ILabelProviderListener)
+	 */
+	public void removeListener(ILabelProviderListener listener) {
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006 IBM Corporation and others.
+ * Copyright (c) 2006, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,24 +11,40 @@
 
 package org.eclipse.ui.tests.filteredtree;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.jface.dialogs.Dialog;
 import org.eclipse.jface.tests.viewers.TestElement;
 import org.eclipse.jface.tests.viewers.TestModelContentProvider;
+import org.eclipse.jface.viewers.ITreeContentProvider;
 import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.TreeItem;
 import org.eclipse.ui.dialogs.FilteredTree;
 import org.eclipse.ui.dialogs.PatternFilter;
+import org.eclipse.ui.progress.WorkbenchJob;
 import org.eclipse.ui.tests.harness.util.UITestCase;
 
 public class FilteredTreeTests extends UITestCase {
 	private FilteredTree fTreeViewer;
 	private TestElement fRootElement;
+	private Shell fShell;
 	// create an 8000-item Tree
 	private static int DEPTH = 3;
 	private static int NUM_ITEMS = 20;
@@ -67,6 +83,239 @@ public class FilteredTreeTests extends UITestCase {
 		
 	};	
 	
+	/**
+	 * A filtered tree that refreshes without delay and counts the runs of its
+	 * refresh job.
+	 */
+	private static class CountingFilteredTree extends FilteredTree {
+		// not initialized here, the job is created by the super constructor
+		private WorkbenchJob job;
+		private volatile int refreshRuns;
+
+		public CountingFilteredTree(Composite parent, PatternFilter filter) {
+			super(parent, SWT.SINGLE | SWT.H_SCROLL | SWT.V_SCROLL
+					| SWT.BORDER, filter, true);
+		}
+
+		protected WorkbenchJob doCreateRefreshJob() {
+			job = super.doCreateRefreshJob();
+			job.addJobChangeListener(new JobChangeAdapter() {
+				public void done(IJobChangeEvent event) {
+					refreshRuns++;
+				}
+			});
+			return job;
+		}
+
+		protected long getRefreshJobDelay() {
+			return 0;
+		}
+	}
+
+	/**
+	 * A tree of strings, the children of the input are the roots.
+	 */
+	private static class StringTreeContentProvider implements
+			ITreeContentProvider {
+		private Map children = new HashMap();
+
+		void add(Object parent, String child) {
+			List list = (List) children.get(parent);
+			if (list == null) {
+				list = new ArrayList();
+				children.put(parent, list);
+			}
+			list.add(child);
+		}
+
+		public Object[] getElements(Object inputElement) {
+			return getChildren(inputElement);
+		}
+
+		public Object[] getChildren(Object parentElement) {
+			List list = (List) children.get(parentElement);
+			return list == null ? new Object[0] : list.toArray();
+		}
+
+		public Object getParent(Object element) {
+			return null;
+		}
+
+		public boolean hasChildren(Object element) {
+			return children.containsKey(element);
+		}
+
+		public void dispose() {
+		}
+
+		public void inputChanged(Viewer viewer, Object oldInput,
+				Object newInput) {
+		}
+	}
+
+	/**
+	 * Remembers which elements were asked for their label, and optionally
+	 * takes some time for each label.
+	 */
+	private static class CountingLabelProvider extends LabelProvider {
+		private Set labelled = new HashSet();
+		private long nanosPerLabel;
+
+		public String getText(Object element) {
+			labelled.add(element);
+			long end = System.nanoTime() + nanosPerLabel;
+			while (System.nanoTime() < end) {
+				// simulate an expensive label
+			}
+			return (String) element;
+		}
+	}
+
+	private static final Object INPUT = "input";
+
+	private StringTreeContentProvider fContentProvider;
+	private CountingLabelProvider fLabelProvider;
+
+	private CountingFilteredTree createCountingFilteredTree(PatternFilter filter) {
+		fShell = new Shell(fWorkbench.getDisplay());
+		fShell.setLayout(new GridLayout());
+		CountingFilteredTree tree = new CountingFilteredTree(fShell, filter);
+		fContentProvider = new StringTreeContentProvider();
+		fLabelProvider = new CountingLabelProvider();
+		tree.getViewer().setContentProvider(fContentProvider);
+		tree.getViewer().setLabelProvider(fLabelProvider);
+		fShell.open();
+		return tree;
+	}
+
+	private void filter(final CountingFilteredTree tree, String text) {
+		final int runs = tree.refreshRuns;
+		tree.getFilterControl().setText(text);
+		assertTrue("The tree was not filtered", processEventsUntil(
+				new Condition() {
+					public boolean compute() {
+						return tree.refreshRuns > runs
+								&& tree.job.getState() == Job.NONE;
+					}
+				}, 20000));
+	}
+
+	private static List getRoots(FilteredTree tree) {
+		TreeItem[] items = tree.getViewer().getTree().getItems();
+		List roots = new ArrayList();
+		for (int i = 0; i < items.length; i++) {
+			roots.add(items[i].getData());
+		}
+		return roots;
+	}
+
+	private void addFruits() {
+		String[] fruits = { "apple", "apricot", "banana", "cherry" };
+		for (int i = 0; i < fruits.length; i++) {
+			fContentProvider.add(INPUT, fruits[i]);
+		}
+	}
+
+	public void testNarrowingPatternSkipsRejectedElements() {
+		CountingFilteredTree tree = createCountingFilteredTree(new PatternFilter());
+		addFruits();
+		tree.getViewer().setInput(INPUT);
+
+		filter(tree, "a");
+		assertEquals(Arrays.asList(new Object[] { "apple", "apricot" }),
+				getRoots(tree));
+
+		fLabelProvider.labelled.clear();
+		filter(tree, "ap");
+		assertEquals(Arrays.asList(new Object[] { "apple", "apricot" }),
+				getRoots(tree));
+		assertFalse(fLabelProvider.labelled.contains("banana"));
+		assertFalse(fLabelProvider.labelled.contains("cherry"));
+
+		filter(tree, "apr");
+		assertEquals(Arrays.asList(new Object[] { "apricot" }), getRoots(tree));
+	}
+
+	public void testWideningPatternTestsAllElements() {
+		CountingFilteredTree tree = createCountingFilteredTree(new PatternFilter());
+		addFruits();
+		tree.getViewer().setInput(INPUT);
+
+		filter(tree, "apr");
+		assertEquals(Arrays.asList(new Object[] { "apricot" }), getRoots(tree));
+
+		filter(tree, "a");
+		assertEquals(Arrays.asList(new Object[] { "apple", "apricot" }),
+				getRoots(tree));
+
+		filter(tree, "b");
+		assertEquals(Arrays.asList(new Object[] { "banana" }), getRoots(tree));
+	}
+
+	public void testSubclassIsNotAssumedToNarrow() {
+		// a longer pattern matches other elements, not fewer
+		PatternFilter exactFilter = new PatternFilter() {
+			private String pattern;
+
+			public void setPattern(String patternString) {
+				super.setPattern(patternString);
+				pattern = patternString;
+			}
+
+			protected boolean isLeafMatch(Viewer viewer, Object element) {
+				return element.equals(pattern);
+			}
+		};
+		CountingFilteredTree tree = createCountingFilteredTree(exactFilter);
+		fContentProvider.add(INPUT, "a");
+		fContentProvider.add(INPUT, "ab");
+		tree.getViewer().setInput(INPUT);
+
+		filter(tree, "a");
+		assertEquals(Arrays.asList(new Object[] { "a" }), getRoots(tree));
+
+		filter(tree, "ab");
+		assertEquals(Arrays.asList(new Object[] { "ab" }), getRoots(tree));
+	}
+
+	public void testContentChangeClearsCache() {
+		CountingFilteredTree tree = createCountingFilteredTree(new PatternFilter());
+		addFruits();
+		tree.getViewer().setInput(INPUT);
+
+		filter(tree, "ap");
+		assertEquals(Arrays.asList(new Object[] { "apple", "apricot" }),
+				getRoots(tree));
+
+		fContentProvider.add(INPUT, "apex");
+		tree.getViewer().refresh();
+		assertEquals(Arrays.asList(new Object[] { "apple", "apricot", "apex" }),
+				getRoots(tree));
+	}
+
+	public void testFilterIsComputedInTimeSlices() {
+		CountingFilteredTree tree = createCountingFilteredTree(new PatternFilter());
+		List expected = new ArrayList();
+		for (int i = 0; i < 1000; i++) {
+			String root = (i % 10 == 0 ? "match" : "other") + i;
+			fContentProvider.add(INPUT, root);
+			fContentProvider.add(root, "child" + i);
+			if (i % 10 == 0) {
+				expected.add(root);
+			}
+		}
+		tree.getViewer().setInput(INPUT);
+		processEvents();
+
+		// 2000 labels of 0.2 ms each take several time slices of 50 ms
+		fLabelProvider.nanosPerLabel = 200000;
+		int runs = tree.refreshRuns;
+		filter(tree, "match");
+		assertTrue("The filter was computed in a single run",
+				tree.refreshRuns - runs > 1);
+		assertEquals(expected, getRoots(tree));
+	}
+
 	/**
 	 * @param testName
 	 */
@@ -154,8 +403,14 @@ public class FilteredTreeTests extends UITestCase {
 	}
 
 	protected void doTearDown() throws Exception {
+		if (fShell != null) {
+			fShell.dispose();
+			fShell = null;
+		}
 		super.doTearDown();
 		fTreeViewer = null;
+		fContentProvider = null;
+		fLabelProvider = null;
 		fRootElement = null;
 	}	
 	
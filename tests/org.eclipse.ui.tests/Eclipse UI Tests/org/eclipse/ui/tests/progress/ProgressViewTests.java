@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2010 IBM Corporation and others.
+ * Copyright (c) 2009, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,8 +11,12 @@
 
 package org.eclipse.ui.tests.progress;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.ProgressBar;
 import org.eclipse.ui.internal.progress.JobInfo;
 import org.eclipse.ui.internal.progress.JobTreeElement;
 import org.eclipse.ui.internal.progress.ProgressInfoItem;
@@ -70,6 +74,104 @@ public class ProgressViewTests extends ProgressTestCase {
 		}
 	}
 
+	/**
+	 * A job that reports all of its work at once and then waits until it is
+	 * released.
+	 */
+	private static class BurstJob extends Job {
+		private final Object lock = new Object();
+		private boolean workReported = false;
+		private boolean released = false;
+
+		BurstJob() {
+			super("Burst Job");
+		}
+
+		protected IStatus run(IProgressMonitor monitor) {
+			monitor.beginTask(getName(), 100);
+			try {
+				// far faster than the progress refresh interval
+				for (int i = 0; i < 100; i++) {
+					monitor.worked(1);
+				}
+				synchronized (lock) {
+					workReported = true;
+					lock.notifyAll();
+					while (!released) {
+						try {
+							lock.wait();
+						} catch (InterruptedException e) {
+							break;
+						}
+					}
+				}
+				return Status.OK_STATUS;
+			} finally {
+				monitor.done();
+			}
+		}
+
+		boolean isWorkReported() {
+			synchronized (lock) {
+				return workReported;
+			}
+		}
+
+		void release() {
+			synchronized (lock) {
+				released = true;
+				lock.notifyAll();
+			}
+		}
+	}
+
+	public void testLastProgressIsShownAfterThrottling() throws Exception {
+		openProgressView();
+
+		final BurstJob job = new BurstJob();
+		job.schedule();
+		try {
+			assertTrue("The job did not report its work",
+					processEventsUntil(new Condition() {
+						public boolean compute() {
+							return job.isWorkReported();
+						}
+					}, 5000));
+
+			// the reports after the first one were coalesced, the last one
+			// must still reach the view while the job is running
+			assertTrue("The last progress was not shown",
+					processEventsUntil(new Condition() {
+						public boolean compute() {
+							ProgressBar bar = findProgressBar(job);
+							return bar != null && bar.getSelection() == 100;
+						}
+					}, 5000));
+		} finally {
+			job.release();
+			job.join();
+		}
+	}
+
+	private ProgressBar findProgressBar(Job job) {
+		ProgressInfoItem[] progressInfoItems = progressView.getViewer()
+				.getProgressInfoItems();
+		for (int i = 0; i < progressInfoItems.length; i++) {
+			JobInfo[] jobInfos = progressInfoItems[i].getJobInfos();
+			for (int j = 0; j < jobInfos.length; j++) {
+				if (job.equals(jobInfos[j].getJob())) {
+					Control[] children = progressInfoItems[i].getChildren();
+					for (int k = 0; k < children.length; k++) {
+						if (children[k] instanceof ProgressBar) {
+							return (ProgressBar) children[k];
+						}
+					}
+				}
+			}
+		}
+		return null;
+	}
+
 	protected boolean checkJob(Job job, boolean found, JobInfo jobInfo) {
 		if(job.equals(jobInfo.getJob())) {
 			if(found)
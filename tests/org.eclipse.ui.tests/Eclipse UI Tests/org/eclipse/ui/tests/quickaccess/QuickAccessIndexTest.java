@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.quickaccess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jface.resource.ImageDescriptor;
+import org.eclipse.ui.internal.quickaccess.CamelUtil;
+import org.eclipse.ui.internal.quickaccess.QuickAccessElement;
+import org.eclipse.ui.internal.quickaccess.QuickAccessIndex;
+import org.eclipse.ui.internal.quickaccess.QuickAccessProvider;
+
+/**
+ * Tests that the elements found by a {@link QuickAccessIndex} are the
+ * elements that {@link QuickAccessElement#match} accepts, whatever the
+ * filters that were looked up before.
+ */
+public class QuickAccessIndexTest extends TestCase {
+
+	private static final String PROVIDER_NAME = "Commands";
+
+	private static final String[] LABELS = { "Show View", "Open Type",
+			"Open Resource", "Open Type Hierarchy", "Toggle Line Comment",
+			"Save All", "CamelCaseLabel", "SomeJREExample",
+			"New Java Project", "Organize Imports", "Run As - JUnit Test",
+			"Project Explorer", "Commit...", "Close All Editors",
+			"Show In Package Explorer", "Quick Access", "\u00DCbersicht" };
+
+	private TestProvider provider;
+
+	private QuickAccessIndex index;
+
+	private static class TestElement extends QuickAccessElement {
+		private String label;
+
+		TestElement(QuickAccessProvider provider, String label) {
+			super(provider);
+			this.label = label;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+
+		public ImageDescriptor getImageDescriptor() {
+			return null;
+		}
+
+		public String getId() {
+			return label;
+		}
+
+		public void execute() {
+		}
+	}
+
+	private static class TestProvider extends QuickAccessProvider {
+		private QuickAccessElement[] elements;
+
+		TestProvider() {
+			elements = new QuickAccessElement[LABELS.length];
+			for (int i = 0; i < LABELS.length; i++) {
+				elements[i] = new TestElement(this, LABELS[i]);
+			}
+		}
+
+		public String getId() {
+			return "test.provider";
+		}
+
+		public String getName() {
+			return PROVIDER_NAME;
+		}
+
+		public ImageDescriptor getImageDescriptor() {
+			return null;
+		}
+
+		public QuickAccessElement[] getElements() {
+			return elements;
+		}
+
+		public QuickAccessElement getElementForId(String id) {
+			return null;
+		}
+
+		protected void doReset() {
+		}
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		provider = new TestProvider();
+		index = new QuickAccessIndex(provider.getElementsSorted(),
+				provider.getName());
+	}
+
+	/**
+	 * The matching of QuickAccessElement before the index was introduced.
+	 */
+	private static boolean oldMatch(String label, String filter) {
+		if (label.toLowerCase().indexOf(filter) != -1) {
+			return true;
+		}
+		String combinedLabel = PROVIDER_NAME + " " + label;
+		if (combinedLabel.toLowerCase().indexOf(filter) != -1) {
+			return true;
+		}
+		if (CamelUtil.getCamelCase(label).indexOf(filter) != -1) {
+			return true;
+		}
+		return CamelUtil.getCamelCase(combinedLabel).indexOf(filter) != -1;
+	}
+
+	/**
+	 * Returns the positions of the elements that match the filter, found by
+	 * matching every element.
+	 */
+	private List getExpectedMatches(String filter) {
+		QuickAccessElement[] elements = index.getElements();
+		List expected = new ArrayList();
+		for (int i = 0; i < elements.length; i++) {
+			boolean matches = elements[i].match(filter, provider) != null;
+			assertEquals(elements[i].getLabel() + " / " + filter, oldMatch(
+					elements[i].getLabel(), filter), matches);
+			if (matches) {
+				expected.add(new Integer(i));
+			}
+		}
+		return expected;
+	}
+
+	private void assertMatches(String filter) {
+		int[] matches = index.getMatches(filter);
+		List actual = new ArrayList();
+		for (int i = 0; i < matches.length; i++) {
+			actual.add(new Integer(matches[i]));
+		}
+		assertEquals("filter \"" + filter + "\"", getExpectedMatches(filter),
+				actual);
+	}
+
+	private void assertMatches(String[] filters) {
+		for (int i = 0; i < filters.length; i++) {
+			assertMatches(filters[i]);
+		}
+	}
+
+	public void testIndexHasSortedElements() {
+		assertTrue(Arrays.equals(provider.getElementsSorted(), index
+				.getElements()));
+	}
+
+	public void testPrefix() {
+		assertMatches(new String[] { "s", "o", "open", "open t", "save all",
+				"show view", "c", "com", "commands", "commands ",
+				"commands show", "run as - junit", "commit...", "\u00FCber" });
+	}
+
+	public void testSubstring() {
+		assertMatches(new String[] { "view", "type", "hierarchy", "jre",
+				"explorer", "e", " ", "-", "." });
+	}
+
+	public void testCamelCase() {
+		assertMatches(new String[] { "sv", "ot", "oth", "tlc", "cc", "ccl",
+				"sjree", "njp", "csv", "cot", "rajt", "caje" });
+	}
+
+	public void testNoMatch() {
+		assertMatches(new String[] { "zzz", "qz", "open z", "wq" });
+		assertEquals(0, index.getMatches("zzz").length);
+	}
+
+	public void testNarrowingFilters() {
+		assertMatches(new String[] { "o", "op", "ope", "open", "open ",
+				"open t", "open ty", "open type", "open type h" });
+	}
+
+	public void testWideningFilters() {
+		assertMatches(new String[] { "open type h", "open type", "open t",
+				"open ", "open", "ope", "op", "o" });
+	}
+
+	public void testChangingFilters() {
+		assertMatches(new String[] { "s", "sv", "s", "sa", "save", "sa",
+				"show", "showx", "show", "o", "ot", "open t", "open r", "t",
+				"tl", "toggle", "c", "cc", "c", "commands s", "commands o" });
+	}
+
+	public void testSameFilterTwice() {
+		int[] first = index.getMatches("open");
+		assertSame(first, index.getMatches("open"));
+		assertMatches("open");
+	}
+
+	/**
+	 * Types every prefix of every label and of its camel case initials, in
+	 * turn, so that each filter follows one that it may or may not extend.
+	 */
+	public void testAllPrefixes() {
+		for (int i = 0; i < LABELS.length; i++) {
+			String[] sources = { LABELS[i].toLowerCase(),
+					CamelUtil.getCamelCase(LABELS[i]),
+					(PROVIDER_NAME + " " + LABELS[i]).toLowerCase() };
+			for (int j = 0; j < sources.length; j++) {
+				for (int k = 1; k <= sources[j].length(); k++) {
+					assertMatches(sources[j].substring(0, k));
+				}
+			}
+		}
+	}
+
+}